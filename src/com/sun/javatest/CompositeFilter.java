@@ -31,6 +31,7 @@ import com.sun.javatest.util.I18NResourceBundle;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.TreeSet;
 
 /**
  * A filter which uses one or more filters to implement its accept method.
@@ -40,10 +41,17 @@ import java.util.List;
  * itself.  This allows observing clients to see which non-composite filter
  * actually rejected the test in question.  Composite filters within composite
  * filters should also be transparent to the observer mechanism.
+ * <p>
+ * When no observer is given, the filters may be applied in a different order
+ * from the one given, chosen from the time each filter has taken and the
+ * number of tests it has rejected so far.  When an observer is given, the
+ * filters are applied in the order given, so that the first of them to reject
+ * a test is reported.
  */
 public class CompositeFilter extends TestFilter {
     private static I18NResourceBundle i18n = I18NResourceBundle.getBundleForClass(CompositeFilter.class);
     private TestFilter[] filters;
+    private FilterOrder order;
     private String description;
     private String name;
     private String reason;
@@ -75,6 +83,7 @@ public class CompositeFilter extends TestFilter {
                            String prefix) {
         // XXX could start checking for null parameter
         this.filters = filters;
+        order = filters == null ? null : new FilterOrder(filters);
 
         description = bundle.getString(prefix + ".description");
         name = bundle.getString(prefix + ".name");
@@ -111,6 +120,7 @@ public class CompositeFilter extends TestFilter {
             throw new NullPointerException();
         }
         this.filters = filters;
+        order = new FilterOrder(filters);
     }
 
     /**
@@ -167,8 +177,12 @@ public class CompositeFilter extends TestFilter {
         }
 
         try {
-            for (TestFilter filter : filters) {
-                if (!filter.accepts(td)) {
+            boolean timed = order.nextTest();
+            for (int i : order.getOrder()) {
+                long start = timed ? System.nanoTime() : 0;
+                boolean accepted = filters[i].accepts(td);
+                order.record(i, accepted, timed ? System.nanoTime() - start : -1);
+                if (!accepted) {
                     return false;
                 }
             }
@@ -196,6 +210,34 @@ public class CompositeFilter extends TestFilter {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     * The key is made from the keys of the component filters, if they all
+     * provide one.
+     */
+    @Override
+    public String getCacheKey() {
+        if (getClass() != CompositeFilter.class || filters == null) {
+            return null;
+        }
+
+        // a test is accepted if all the filters accept it, in any order
+        TreeSet<String> keys = new TreeSet<>();
+        for (TestFilter filter : filters) {
+            String key = filter.getCacheKey();
+            if (key == null) {
+                return null;
+            }
+            keys.add(key);
+        }
+
+        StringBuilder sb = new StringBuilder("CompositeFilter:");
+        for (String key : keys) {
+            sb.append(key.length()).append(':').append(key);
+        }
+        return sb.toString();
+    }
+
     /**
      * This implementation will compare the filters in the parameter filter
      * to the ones in this instance.  If the parameter is not a CompositeFilter,
@@ -37,20 +37,29 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * A set of tests to be excluded from a test run.
@@ -66,6 +75,9 @@ public class ExcludeList {
     private Map<Key, Object> table = new HashMap<>();
     private String title;
     private boolean strict;
+    // an immutable copy of the table for lookups, rebuilt when needed after
+    // the table has been changed; see getSnapshot
+    private volatile Snapshot snapshot;
 
     /**
      * Create a new exclude list.
@@ -142,12 +154,64 @@ public class ExcludeList {
     public ExcludeList(File[] files, boolean strict)
             throws FileNotFoundException, IOException, Fault {
         setStrictModeEnabled(strict);
-        for (File file : files) {
-            ExcludeList et = new ExcludeList(file, strict);
+        for (ExcludeList et : read(files, strict)) {
             merge(et);
         }
     }
 
+    /**
+     * Read a series of files, each into its own exclude list.  If there is
+     * more than one file, the files are read in parallel, using up to the
+     * number of threads given by the system property
+     * "javatest.excludeList.threads", which defaults to the number of
+     * available processors.
+     */
+    private static List<ExcludeList> read(File[] files, boolean strict)
+            throws FileNotFoundException, IOException, Fault {
+        int threads = Math.min(files.length, Integer.getInteger("javatest.excludeList.threads",
+                Runtime.getRuntime().availableProcessors()));
+        List<ExcludeList> lists = new ArrayList<>(files.length);
+        if (threads <= 1) {
+            for (File file : files) {
+                lists.add(new ExcludeList(file, strict));
+            }
+            return lists;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "ExcludeList:Reader");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<ExcludeList>> futures = new ArrayList<>(files.length);
+            for (File file : files) {
+                futures.add(pool.submit(() -> new ExcludeList(file, strict)));
+            }
+            // report the same problem as reading the files in order would
+            for (Future<ExcludeList> f : futures) {
+                lists.add(f.get());
+            }
+            return lists;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable t = e.getCause();
+            if (t instanceof IOException) {
+                throw (IOException) t;
+            } else if (t instanceof Fault) {
+                throw (Fault) t;
+            } else if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else {
+                throw (Error) t;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
     /**
      * Test if a file appears to be for an exclude list, by checking the extension.
      *
@@ -268,8 +332,7 @@ public class ExcludeList {
      * @return {@code true} if the table contains an entry for this test.
      */
     public boolean excludesAllOf(String url) {
-        Object o = table.get(new Key(url));
-        return o != null && o instanceof Entry && ((Entry) o).testCase == null;
+        return getSnapshot().get(url) == Snapshot.ALL;
     }
 
     /**
@@ -291,8 +354,7 @@ public class ExcludeList {
      * @return {@code true} if the table contains an entry for this test.
      */
     public boolean excludesAnyOf(String url) {
-        Object o = table.get(new Key(url));
-        return o != null;
+        return getSnapshot().get(url) != null;
     }
 
     /**
@@ -305,30 +367,13 @@ public class ExcludeList {
      * a mix of single TC strings or a comma separated list of them.
      */
     public String[] getTestCases(TestDescription td) {
-        Key key = new Key(td.getRootRelativeURL());
-        synchronized (table) {
-            Object o = table.get(key);
-            if (o == null)
-            // not found
-            {
-                return null;
-            } else if (o instanceof Entry) {
-                Entry e = (Entry) o;
-                if (e.testCase == null)
-                // entire test excluded
-                {
-                    return null;
-                } else {
-                    return new String[]{e.testCase};
-                }
-            } else {
-                Entry[] ee = (Entry[]) o;
-                String[] testCases = new String[ee.length];
-                for (int i = 0; i < ee.length; i++) {
-                    testCases[i] = ee[i].testCase;
-                }
-                return testCases;
-            }
+        String[] testCases = getSnapshot().get(td.getRootRelativeURL());
+        if (testCases == null || testCases == Snapshot.ALL)
+        // not found, or entire test excluded
+        {
+            return null;
+        } else {
+            return testCases.clone();
         }
     }
 
@@ -342,6 +387,7 @@ public class ExcludeList {
      */
     public void addEntry(Entry e) throws Fault {
         synchronized (table) {
+            snapshot = null;
             Key key = new Key(e.relativeURL);
             Object o = table.get(key);
 
@@ -473,6 +519,19 @@ public class ExcludeList {
      */
     public void merge(ExcludeList other) {
         synchronized (table) {
+            snapshot = null;
+            if (table.isEmpty()) {
+                // copy the other table in bulk; the arrays are copied since
+                // addEntry may update them in place
+                table.putAll(other.table);
+                for (Map.Entry<Key, Object> e : table.entrySet()) {
+                    if (e.getValue() instanceof Entry[]) {
+                        e.setValue(((Entry[]) e.getValue()).clone());
+                    }
+                }
+                return;
+            }
+
             for (Iterator<?> iter = other.getIterator(false); iter.hasNext(); ) {
                 Entry otherEntry = (Entry) iter.next();
                 Key key = new Key(otherEntry.relativeURL);
@@ -524,6 +583,7 @@ public class ExcludeList {
      */
     public void removeEntry(Entry e) {
         synchronized (table) {
+            snapshot = null;
             Key key = new Key(e.relativeURL);
             Object o = table.get(key);
             if (o == null)
@@ -745,6 +805,9 @@ public class ExcludeList {
 
     private static final class Parser {
         private Reader in;      // source stream being read
+        private char[] buf = new char[8192];    // characters read ahead from in
+        private int bufPos;
+        private int bufLen;
         private int ch;         // current character
         private Map<String, String[]> platformCache = new HashMap<>();
         // cache of results for readPlatforms
@@ -752,7 +815,7 @@ public class ExcludeList {
 
         Parser(Reader in) throws IOException {
             this.in = in;
-            ch = in.read();
+            ch = read();
         }
 
         String getTitle() {
@@ -802,7 +865,7 @@ public class ExcludeList {
                     case '\r':
                     case '\n':
                         // blank line (or end of comment)
-                        ch = in.read();
+                        ch = read();
                         break;
                     default:
                         return readWord();
@@ -816,7 +879,7 @@ public class ExcludeList {
             skipWhite();
             TreeSet<String> s = new TreeSet<>();
             StringBuilder sb = new StringBuilder();
-            for (; !isEndOfLine(ch) && !isWhitespace(ch); ch = in.read()) {
+            for (; !isEndOfLine(ch) && !isWhitespace(ch); ch = read()) {
                 if (ch == ',') {
                     if (sb.length() > 0) {
                         s.add(sb.toString());
@@ -873,30 +936,30 @@ public class ExcludeList {
             // skip white space, then read up to the end of the line
             skipWhite();
             StringBuilder word = new StringBuilder(80);
-            for (; !isEndOfLine(ch); ch = in.read()) {
+            for (; !isEndOfLine(ch); ch = read()) {
                 word.append((char) ch);
             }
             // skip over terminating character
-            ch = in.read();
+            ch = read();
             return word.toString();
         }
 
         private String readWord() throws IOException {
             // read characters up to the next white space
             StringBuilder word = new StringBuilder(32);
-            for (; !isEndOfLine(ch) && !isWhitespace(ch); ch = in.read()) {
+            for (; !isEndOfLine(ch) && !isWhitespace(ch); ch = read()) {
                 word.append((char) ch);
             }
             return word.toString();
         }
 
         private void skipComment() throws IOException {
-            ch = in.read();
+            ch = read();
             // first # has already been read
             if (ch == '#') {
-                ch = in.read();
+                ch = read();
                 if (ch == '#') {
-                    ch = in.read();
+                    ch = read();
                     skipWhite();
                     String s = readWord();
                     if (s.equals("title")) {
@@ -907,19 +970,123 @@ public class ExcludeList {
                 }
             }
             while (!isEndOfLine(ch)) {
-                ch = in.read();
+                ch = read();
+            }
+        }
+
+        // reading the characters through a local buffer avoids taking the
+        // reader's lock for each one
+        private int read() throws IOException {
+            if (bufPos == bufLen) {
+                bufLen = Math.max(in.read(buf, 0, buf.length), 0);
+                bufPos = 0;
+                if (bufLen == 0) {
+                    return -1;
+                }
             }
+            return buf[bufPos++];
         }
 
         private void skipWhite() throws IOException {
             // skip horizontal white space
             // input is line-oriented, so do not skip over end of line
             while (ch != -1 && isWhitespace(ch)) {
-                ch = in.read();
+                ch = read();
             }
         }
     }
 
+    /**
+     * Get a digest of the tests which are completely excluded by this list,
+     * which changes whenever the set of such tests changes.
+     *
+     * @return a digest of the completely excluded tests
+     * @see ExcludeListFilter#getCacheKey
+     */
+    String getDigest() {
+        return getSnapshot().getDigest();
+    }
+
+    /**
+     * Get a current snapshot of the table.  Once built, a snapshot is used
+     * without locking until the table is next changed.
+     */
+    private Snapshot getSnapshot() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (table) {
+                s = snapshot;
+                if (s == null) {
+                    s = new Snapshot(table);
+                    snapshot = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * An immutable view of the table, mapping the normalized URL of each
+     * test to the names of its excluded test cases, or to {@link #ALL} if
+     * the entire test is excluded.
+     */
+    private static final class Snapshot {
+        Snapshot(Map<Key, Object> table) {
+            testCases = new HashMap<>(table.size() * 4 / 3 + 1);
+            for (Map.Entry<Key, Object> e : table.entrySet()) {
+                Object o = e.getValue();
+                String[] tcs;
+                if (o instanceof Entry) {
+                    String tc = ((Entry) o).testCase;
+                    tcs = tc == null ? ALL : new String[]{tc};
+                } else {
+                    Entry[] ee = (Entry[]) o;
+                    tcs = new String[ee.length];
+                    for (int i = 0; i < ee.length; i++) {
+                        tcs[i] = ee[i].testCase;
+                    }
+                }
+                testCases.put(Key.normalize(e.getKey().relativeURL), tcs);
+            }
+        }
+
+        String[] get(String url) {
+            return testCases.get(Key.normalize(url));
+        }
+
+        synchronized String getDigest() {
+            if (digest == null) {
+                TreeSet<String> urls = new TreeSet<>();
+                for (Map.Entry<String, String[]> e : testCases.entrySet()) {
+                    if (e.getValue() == ALL) {
+                        urls.add(e.getKey());
+                    }
+                }
+                try {
+                    MessageDigest md = MessageDigest.getInstance("SHA-256");
+                    for (String url : urls) {
+                        md.update(url.getBytes(StandardCharsets.UTF_8));
+                        md.update((byte) 0);
+                    }
+                    StringBuilder sb = new StringBuilder();
+                    for (byte b : md.digest()) {
+                        sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+                        sb.append(Character.forDigit(b & 0xf, 16));
+                    }
+                    digest = urls.size() + ":" + sb;
+                } catch (NoSuchAlgorithmException e) {
+                    // every Java platform is required to support SHA-256
+                    throw new JavaTestError("SHA-256", e);
+                }
+            }
+            return digest;
+        }
+
+        static final String[] ALL = new String[0];
+        private final Map<String, String[]> testCases;
+        private String digest;
+    }
+
     private static class Key {
         private static final char sep = File.separatorChar;
         private String relativeURL;
@@ -929,6 +1096,37 @@ public class ExcludeList {
             relativeURL = url;
         }
 
+        /**
+         * Get the normalized form of a URL, as used to compare keys.
+         * The URL itself is returned if it is already normalized.
+         */
+        static String normalize(String url) {
+            int len = url.length();
+            int i = 0;
+            while (i < len && normalize(url.charAt(i)) == url.charAt(i)) {
+                i++;
+            }
+            if (i == len) {
+                return url;
+            }
+
+            char[] chars = url.toCharArray();
+            for (; i < len; i++) {
+                chars[i] = normalize(chars[i]);
+            }
+            return new String(chars);
+        }
+
+        private static char normalize(char c) {
+            if (c == sep) {
+                return '/';
+            } else if (!caseSensitive) {
+                return Character.toLowerCase(c);
+            } else {
+                return c;
+            }
+        }
+
         @Override
         public int hashCode() {
             // the hashCode for a key is the hashcode of the normalized URL.
@@ -73,6 +73,14 @@ public class ExcludeListFilter extends TestFilter {
         return !table.excludesAllOf(td);
     }
 
+    @Override
+    public String getCacheKey() {
+        if (getClass() != ExcludeListFilter.class) {
+            return null;
+        }
+        return "ExcludeListFilter:" + table.getDigest();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == this) {
@@ -0,0 +1,196 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.util.Arrays;
+
+/**
+ * Statistics about the filters applied to a series of tests, used to choose
+ * the order in which to apply them.  For each filter, the number of tests
+ * checked and rejected is counted, and the time taken is measured for a
+ * sample of the tests.  Every so often the filters are put in increasing
+ * order of the time they take per test rejected, so that cheap filters which
+ * reject many tests are applied first.  Recent tests count for more than
+ * earlier ones.
+ * <p>
+ * Changing the order does not change which tests are accepted, but it can
+ * change which filter rejects a test first; callers which report the filter
+ * that rejected a test should use the order in which the filters were given.
+ * <p>
+ * The counts are updated without locking; when used from several threads,
+ * some updates may be lost, which only makes the statistics less exact.
+ * The order can be fixed by setting the system property
+ * "javatest.filters.fixedOrder" to true.
+ *
+ * @see CompositeFilter
+ * @see TRT_Iterator
+ */
+class FilterOrder {
+    /**
+     * Create statistics for the given filters.
+     *
+     * @param filters the filters, in the order in which they were given
+     */
+    FilterOrder(TestFilter... filters) {
+        size = filters.length;
+        order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        checked = new long[size];
+        rejected = new long[size];
+        timed = new long[size];
+        nanos = new long[size];
+        adaptive = size > 1 && size <= MAX_ADAPTIVE && !Boolean.getBoolean("javatest.filters.fixedOrder");
+    }
+
+    /**
+     * Get the order in which to apply the filters to the next test.
+     * The array must not be modified.
+     *
+     * @return the indexes of the filters, in the order in which they should
+     * be applied
+     */
+    int[] getOrder() {
+        return order;
+    }
+
+    /**
+     * Note that another test is about to be checked, and find whether the
+     * filters should be timed while it is.
+     *
+     * @return true if the filters should be timed for this test
+     */
+    boolean nextTest() {
+        long n = ++tests;
+        if (adaptive && n % REORDER_INTERVAL == 0) {
+            reorder();
+        }
+        return n % SAMPLE_INTERVAL == 0;
+    }
+
+    /**
+     * Record the result of applying a filter to a test.
+     *
+     * @param i        the index of the filter
+     * @param accepted whether the filter accepted the test
+     * @param time     the time taken, in nanoseconds, or a negative number
+     *                 if the filter was not timed
+     */
+    void record(int i, boolean accepted, long time) {
+        checked[i]++;
+        if (!accepted) {
+            rejected[i]++;
+        }
+        if (time >= 0) {
+            timed[i]++;
+            nanos[i] += time;
+        }
+    }
+
+    /**
+     * Get the average time taken by a filter to check a test.
+     *
+     * @param i the index of the filter
+     * @return the average time, in nanoseconds, or -1 if not known
+     */
+    long getCost(int i) {
+        long n = timed[i];
+        return n == 0 ? -1 : nanos[i] / n;
+    }
+
+    /**
+     * Get the fraction of the tests checked by a filter that it rejected.
+     *
+     * @param i the index of the filter
+     * @return the fraction of tests rejected, or -1 if not known
+     */
+    double getRejectRate(int i) {
+        long n = checked[i];
+        return n == 0 ? -1 : (double) rejected[i] / n;
+    }
+
+    private void reorder() {
+        double[] rank = new double[size];
+        Integer[] newOrder = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            // the expected time taken for each test rejected; unknown values
+            // are smoothed, so that filters not yet seen keep their place
+            double cost = timed[i] == 0 ? 1 : (double) nanos[i] / timed[i] + 1;
+            double rate = (rejected[i] + 1.0) / (checked[i] + 2.0);
+            rank[i] = cost / rate;
+            newOrder[i] = i;
+
+            // halve the weight of what has been seen so far, so that the
+            // order follows changes, and early outliers such as the time
+            // taken to load classes are soon forgotten
+            checked[i] -= checked[i] / 2;
+            rejected[i] -= rejected[i] / 2;
+            timed[i] -= timed[i] / 2;
+            nanos[i] -= nanos[i] / 2;
+        }
+        // the sort is stable, so filters with the same rank stay in the
+        // order in which they were given
+        Arrays.sort(newOrder, (a, b) -> Double.compare(rank[a], rank[b]));
+
+        int[] o = new int[size];
+        for (int i = 0; i < size; i++) {
+            o[i] = newOrder[i];
+        }
+        order = o;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("FilterOrder[");
+        for (int i : order) {
+            if (sb.length() > 12) {
+                sb.append(", ");
+            }
+            sb.append(i).append(": cost=").append(getCost(i)).append("ns rejects=")
+                    .append(rejected[i]).append('/').append(checked[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    private final int size;
+    private final boolean adaptive;
+    private volatile int[] order;
+    private long tests;
+    private final long[] checked;
+    private final long[] rejected;
+    private final long[] timed;
+    private final long[] nanos;
+
+    /**
+     * The largest number of filters for which the order is changed, so that
+     * callers can record the filters applied to a test in a long.
+     */
+    static final int MAX_ADAPTIVE = 64;
+    private static final int SAMPLE_INTERVAL = 8;
+    private static final int REORDER_INTERVAL = 256;
+}
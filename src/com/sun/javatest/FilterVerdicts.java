@@ -0,0 +1,389 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import com.sun.javatest.util.Debug;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A persistent record of the verdicts given by test filters, kept in the
+ * work directory so that filters need not be applied again to tests they
+ * have already checked, in this or an earlier session.
+ * <p>
+ * Only filters which provide a {@link TestFilter#getCacheKey cache key} are
+ * recorded; the verdicts of each are kept under a digest of its key, as a
+ * pair of bit sets giving the tests which have been checked and the tests
+ * which were accepted.  Each test is identified by its URL, and a checksum
+ * of its test description is kept with it; when a test description changes,
+ * all the verdicts recorded for it are forgotten.  A change to the
+ * configuration of a filter, such as a new exclude list or keyword
+ * expression, gives a different key, and so a different set of verdicts.
+ * <p>
+ * Verdicts are kept for the most recently used filters only.  The id of each
+ * test is remembered by its test result, so that the test description is only
+ * checked once for each result.  Recording verdicts is only worthwhile when
+ * filters are expensive, so it must be enabled with the
+ * {@code javatest.trt.filterVerdicts} system property.
+ *
+ * @see TestResultTable#getFilterVerdicts
+ * @see TRT_Iterator
+ */
+class FilterVerdicts {
+    /**
+     * The verdicts of a single filter.
+     */
+    class Slot {
+        private Slot(long[] checked, long[] accepted) {
+            this.checked = checked;
+            this.accepted = accepted;
+        }
+
+        /**
+         * Get the recorded verdict of the filter for a test.
+         *
+         * @param id the id of the test, as given by {@link #idOf}
+         * @return 1 if the test was accepted, 0 if it was rejected, or -1 if
+         * there is no verdict for the test
+         */
+        int get(int id) {
+            synchronized (FilterVerdicts.this) {
+                if (!isSet(checked, id)) {
+                    return -1;
+                }
+                return isSet(accepted, id) ? 1 : 0;
+            }
+        }
+
+        /**
+         * Record the verdict of the filter for a test.
+         *
+         * @param id       the id of the test, as given by {@link #idOf}
+         * @param accepted whether the test was accepted
+         */
+        void put(int id, boolean accepted) {
+            synchronized (FilterVerdicts.this) {
+                checked = set(checked, id, true);
+                this.accepted = set(this.accepted, id, accepted);
+                changed = true;
+            }
+        }
+
+        private void clear(int id) {
+            if (isSet(checked, id)) {
+                checked = set(checked, id, false);
+                accepted = set(accepted, id, false);
+                changed = true;
+            }
+        }
+
+        private long[] checked;
+        private long[] accepted;
+    }
+
+    /**
+     * Open the verdicts for a work directory, creating an empty set if
+     * there are none on disk that can be used.
+     *
+     * @param wd the work directory in which the verdicts are kept
+     * @return the verdicts
+     */
+    static FilterVerdicts open(WorkDirectory wd) {
+        FilterVerdicts v = new FilterVerdicts(wd.getSystemFile(FILE_NAME));
+        v.load();
+        return v;
+    }
+
+    private FilterVerdicts(File file) {
+        this.file = file;
+        synchronized (FilterVerdicts.class) {
+            stamp = ++lastStamp;
+        }
+    }
+
+    /**
+     * Get the verdicts for a filter, if it allows them to be recorded.
+     *
+     * @param f the filter
+     * @return the verdicts for the filter, or null if its verdicts are
+     * not to be recorded
+     */
+    synchronized Slot getSlot(TestFilter f) {
+        String key = f.getCacheKey();
+        if (key == null) {
+            return null;
+        }
+
+        String digest = digest(key);
+        Slot s = slots.remove(digest);
+        if (s == null) {
+            s = new Slot(new long[0], new long[0]);
+            changed = true;
+        }
+        // keep the slots in order of use, most recent last
+        slots.put(digest, s);
+        while (slots.size() > MAX_SLOTS) {
+            slots.remove(slots.keySet().iterator().next());
+        }
+        return s;
+    }
+
+    /**
+     * Get the id for a test, by which its verdicts are recorded.  The id is
+     * remembered by the test result, and the test description is only checked
+     * the first time.
+     *
+     * @param tr the test result
+     * @param td the test description of the test result
+     * @return the id of the test
+     * @see #idOf(TestDescription)
+     */
+    int idOf(TestResult tr, TestDescription td) {
+        long tagged = tr.filterVerdictsId;
+        if ((int) (tagged >>> 32) == stamp) {
+            return (int) tagged;
+        }
+
+        int id = idOf(td);
+        tr.filterVerdictsId = ((long) stamp << 32) | id;
+        return id;
+    }
+
+    /**
+     * Get the id for a test, by which its verdicts are recorded.  If the
+     * test description has changed since the verdicts were recorded, they
+     * are forgotten.
+     *
+     * @param td the test description
+     * @return the id of the test
+     */
+    synchronized int idOf(TestDescription td) {
+        String url = td.getRootRelativeURL();
+        long checksum = td.getChecksum();
+        Integer boxed = ids.get(url);
+        if (boxed == null) {
+            int id = urls.size();
+            ids.put(url, id);
+            urls.add(url);
+            checksums = set(checksums, id, checksum);
+            changed = true;
+            return id;
+        }
+
+        int id = boxed;
+        if (checksums[id] != checksum) {
+            checksums[id] = checksum;
+            for (Slot s : slots.values()) {
+                s.clear(id);
+            }
+            changed = true;
+        }
+        return id;
+    }
+
+    /**
+     * Write the verdicts back to the work directory if anything has changed
+     * since they were opened or last saved.  Failures are not reported; the
+     * worst that can happen is that filters are applied again next time.
+     */
+    synchronized void save() {
+        if (!changed) {
+            return;
+        }
+
+        File tmp = new File(file.getPath() + ".new");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(urls.size());
+                for (int i = 0; i < urls.size(); i++) {
+                    out.writeUTF(urls.get(i));
+                    out.writeLong(checksums[i]);
+                }
+                out.writeInt(slots.size());
+                for (Map.Entry<String, Slot> e : slots.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    write(out, e.getValue().checked);
+                    write(out, e.getValue().accepted);
+                }
+            }
+            if (!tmp.renameTo(file)) {
+                file.delete();
+                if (!tmp.renameTo(file)) {
+                    tmp.delete();
+                    return;
+                }
+            }
+            changed = false;
+        } catch (IOException e) {
+            if (debug > 0) {
+                e.printStackTrace(Debug.getWriter());
+            }
+            tmp.delete();
+        }
+    }
+
+    //-------------------------------------------------------------------------
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+
+            int n = in.readInt();
+            Map<String, Integer> newIds = new HashMap<>(n * 2);
+            List<String> newUrls = new ArrayList<>(n);
+            long[] newChecksums = new long[n];
+            for (int i = 0; i < n; i++) {
+                String url = in.readUTF();
+                newIds.put(url, i);
+                newUrls.add(url);
+                newChecksums[i] = in.readLong();
+            }
+
+            int nSlots = in.readInt();
+            Map<String, Slot> newSlots = new LinkedHashMap<>();
+            for (int i = 0; i < nSlots; i++) {
+                String digest = in.readUTF();
+                newSlots.put(digest, new Slot(read(in), read(in)));
+            }
+
+            ids = newIds;
+            urls = newUrls;
+            checksums = newChecksums;
+            slots = newSlots;
+
+            if (debug > 0) {
+                Debug.println("FilterVerdicts: loaded " + n + " tests, "
+                        + nSlots + " filters from " + file);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (debug > 0) {
+                e.printStackTrace(Debug.getWriter());
+            }
+        }
+    }
+
+    private static void write(DataOutputStream out, long... bits) throws IOException {
+        out.writeInt(bits.length);
+        for (long b : bits) {
+            out.writeLong(b);
+        }
+    }
+
+    private static long[] read(DataInputStream in) throws IOException {
+        long[] bits = new long[in.readInt()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = in.readLong();
+        }
+        return bits;
+    }
+
+    private static boolean isSet(long[] bits, int i) {
+        int w = i >>> 6;
+        return w < bits.length && (bits[w] & (1L << i)) != 0;
+    }
+
+    private static long[] set(long[] bits, int i, boolean value) {
+        int w = i >>> 6;
+        if (w >= bits.length) {
+            if (!value) {
+                return bits;
+            }
+            bits = Arrays.copyOf(bits, Math.max(w + 1, bits.length * 2));
+        }
+        if (value) {
+            bits[w] |= 1L << i;
+        } else {
+            bits[w] &= ~(1L << i);
+        }
+        return bits;
+    }
+
+    private static long[] set(long[] values, int i, long value) {
+        if (i >= values.length) {
+            values = Arrays.copyOf(values, Math.max(i + 1, values.length * 2));
+        }
+        values[i] = value;
+        return values;
+    }
+
+    private static String digest(String key) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] d = md.digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(d.length * 2);
+            for (byte b : d) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+                sb.append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new JavaTestError("SHA-256", e);
+        }
+    }
+
+    private final File file;
+    private final int stamp;
+    private Map<String, Integer> ids = new HashMap<>();
+    private List<String> urls = new ArrayList<>();
+    private long[] checksums = new long[0];
+    private Map<String, Slot> slots = new LinkedHashMap<>();
+    private boolean changed;
+
+    static final String FILE_NAME = "FilterVerdicts.jtw";
+    private static final int MAGIC = 0x4a544656;    // "JTFV"
+    private static final int VERSION = 1;
+    private static final int MAX_SLOTS = 32;
+    private static int lastStamp;
+    private static int debug = Debug.getInt(FilterVerdicts.class);
+}
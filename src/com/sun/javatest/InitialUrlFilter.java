@@ -29,6 +29,9 @@ package com.sun.javatest;
 import com.sun.javatest.util.I18NResourceBundle;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
 
 /**
  * Filters tests based on a set of initial files or URLs.
@@ -40,9 +43,11 @@ import java.io.File;
  */
 public class InitialUrlFilter extends TestFilter {
     private static I18NResourceBundle i18n = I18NResourceBundle.getBundleForClass(ExcludeListFilter.class);
-    private final String[] initUrls;
+    private final UrlTrie initUrls;
     private final File[] initFiles;
     private final String[] initStrings;
+    private final List<String> urls = new ArrayList<>();
+    private String cacheKey;
 
     /**
      * Create a filter based on the given files.  These file paths must be
@@ -61,21 +66,23 @@ public class InitialUrlFilter extends TestFilter {
         if (initFiles == null || initFiles.length == 0) {
             initUrls = null;
         } else {
-            initUrls = new String[initFiles.length];
+            initUrls = new UrlTrie();
 
             // validate, make path lower case, change path sep.
-            for (int i = 0; i < initFiles.length; i++) {
-                if (initFiles[i].isAbsolute())  // illegal, based on javadoc spec.
+            for (File initFile : initFiles) {
+                if (initFile.isAbsolute())  // illegal, based on javadoc spec.
                 {
-                    throw new IllegalArgumentException(initFiles[i].getPath());
+                    throw new IllegalArgumentException(initFile.getPath());
                 }
 
-                initUrls[i] = initFiles[i].getPath().toLowerCase();
+                String url = initFile.getPath().toLowerCase();
 
                 // fix path sep. IF needed
                 if (File.separatorChar != '/') {
-                    initUrls[i] = initUrls[i].replace(File.separatorChar, '/');
+                    url = url.replace(File.separatorChar, '/');
                 }
+                initUrls.add(url);
+                urls.add(url);
             }   // for
         }
     }
@@ -98,10 +105,11 @@ public class InitialUrlFilter extends TestFilter {
         if (initialUrls == null || initialUrls.length == 0) {
             initUrls = null;
         } else {
-            initUrls = new String[initialUrls.length];
-            //System.arraycopy(initialUrls, 0, initUrls, 0, initialUrls.length);
-            for (int i = 0; i < initialUrls.length; i++) {
-                initUrls[i] = initialUrls[i].toLowerCase();
+            initUrls = new UrlTrie();
+            for (String initialUrl : initialUrls) {
+                String url = initialUrl.toLowerCase();
+                initUrls.add(url);
+                urls.add(url);
             }   // for
         }
     }
@@ -152,18 +160,24 @@ public class InitialUrlFilter extends TestFilter {
             return true;
         }
 
-        String testUrl = td.getRootRelativeURL().toLowerCase();
+        // the initial URLs are held in a trie, so that each test is matched
+        // against all of them at once, as by isInitialUrlMatch
+        return initUrls.matches(td.getRootRelativeURL().toLowerCase());
+    }
 
-        // other parts of the code should ensure this is not null
-        for (String urlI : initUrls) {
-            if (isInitialUrlMatch(testUrl, urlI)) {
-                return true;
+    @Override
+    public String getCacheKey() {
+        if (getClass() != InitialUrlFilter.class) {
+            return null;
+        }
+        if (cacheKey == null) {
+            StringBuilder sb = new StringBuilder("InitialUrlFilter:");
+            for (String url : new TreeSet<>(urls)) {
+                sb.append(url.length()).append(':').append(url);
             }
-        }   // for
-
-        // no init. urls specified (initUrls.length == 0) OR
-        // all init. urls processed
-        return false;
+            cacheKey = sb.toString();
+        }
+        return cacheKey;
     }
 
     public File[] getInitFiles() {
@@ -0,0 +1,137 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import com.sun.javatest.util.StringArray;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keyword sets represented as bit sets, for fast matching by Keywords objects.
+ * Each distinct keyword, in lower case, is given a small integer id the first
+ * time it is seen, and a set of keywords is a {@code long[]} with the bits
+ * for its ids set.
+ * <p>
+ * The tests of a suite mostly use one of a few keyword lists, and since the
+ * values of test description parameters are interned, the bit set for each
+ * distinct "keywords" value is computed once and shared.  The number of ids,
+ * and the number of cached sets, are both bounded; when a limit is reached,
+ * {@link #of} returns null and callers should fall back to matching against
+ * {@link TestDescription#getKeywordTable}.
+ *
+ * @see Keywords
+ */
+final class KeywordSet {
+    private KeywordSet() {
+    }
+
+    /**
+     * Get the bit set for the value of a "keywords" parameter.
+     *
+     * @param keywords the white-space separated keywords, or null
+     * @return the bit set, which must not be modified, or null if one or more
+     * of the keywords could not be given an id
+     */
+    static long[] of(String keywords) {
+        if (keywords == null) {
+            return EMPTY;
+        }
+
+        long[] bits = sets.get(keywords);
+        if (bits == null) {
+            bits = compute(keywords);
+            if (bits != null && sets.size() < MAX_SETS) {
+                sets.put(keywords, bits);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Get the id for a keyword, assigning one if necessary.
+     *
+     * @param keyword the keyword, in lower case
+     * @return the id, or -1 if the keyword does not have an id and no more
+     * can be assigned
+     */
+    static int idOf(String keyword) {
+        Integer id = ids.get(keyword);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (ids) {
+            id = ids.get(keyword);
+            if (id == null) {
+                if (ids.size() >= MAX_IDS) {
+                    return -1;
+                }
+                id = ids.size();
+                ids.put(keyword, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Set the bit for an id in a bit set, growing it if necessary.
+     */
+    static long[] set(long[] bits, int id) {
+        int word = id >>> 6;
+        long[] result = word < bits.length ? bits : Arrays.copyOf(bits, word + 1);
+        result[word] |= 1L << id;
+        return result;
+    }
+
+    /**
+     * Is the bit for an id set in a bit set.
+     */
+    static boolean contains(long[] bits, int id) {
+        int word = id >>> 6;
+        return word < bits.length && (bits[word] & (1L << id)) != 0;
+    }
+
+    private static long[] compute(String keywords) {
+        long[] bits = EMPTY;
+        for (String k : StringArray.split(keywords)) {
+            int id = idOf(k.toLowerCase());
+            if (id == -1) {
+                return null;
+            }
+            bits = set(bits, id);
+        }
+        return bits;
+    }
+
+    private static final long[] EMPTY = new long[0];
+    private static final int MAX_IDS = 4096;
+    private static final int MAX_SETS = 4096;
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static final Map<String, long[]> sets = new ConcurrentHashMap<>();
+}
@@ -29,6 +29,7 @@ package com.sun.javatest;
 import com.sun.javatest.util.I18NResourceBundle;
 import com.sun.javatest.util.StringArray;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -185,6 +186,35 @@ public abstract class Keywords {
      */
     public abstract boolean accepts(Set<String> s);
 
+    /**
+     * Check if this keywords object accepts, or matches, the keywords of
+     * a test description. The result is the same as for
+     * {@code accepts(td.getKeywordTable())}, but the keywords objects returned
+     * by {@link #create} evaluate a compiled form of their expression
+     * against a bit set of the test's keywords, shared by all tests with the
+     * same keywords, rather than building a new set for each test.
+     *
+     * @param td the test description whose keywords should be checked
+     * @return true if the keywords of the test description are compatible
+     * with this keywords object.
+     * @see TestDescription#getKeywordTable
+     * @since 6.0
+     */
+    public boolean accepts(TestDescription td) {
+        return accepts(td.getKeywordTable());
+    }
+
+    /**
+     * Get a key which is the same for any two keywords objects which accept
+     * the same tests.
+     *
+     * @return the key, or null if there is none
+     * @see KeywordsFilter#getCacheKey
+     */
+    String getCacheKey() {
+        return null;
+    }
+
     /**
      * An exception used to report errors while using a Keywords object.
      */
@@ -234,6 +264,13 @@ public abstract class Keywords {
 abstract class SetKeywords extends Keywords {
     Set<String> keys;
     String allKwds = ""; // string to be used by toString()
+    long[] mask;         // the bits for keys, or null if not available
+
+    @Override
+    String getCacheKey() {
+        // the verdicts are determined by the kind and the string form
+        return getClass().getName() + ":" + this;
+    }
 
     SetKeywords(String[] keywords, Set<String> validKeywords) throws Keywords.Fault {
         if (keywords.length == 0) {
@@ -253,8 +290,27 @@ abstract class SetKeywords extends Keywords {
             // remove last " "
             allKwds = allKwds.substring(0, allKwds.length() - 1);
         }
+
+        long[] m = new long[0];
+        for (String k : keys) {
+            int id = KeywordSet.idOf(k);
+            if (id == -1) {
+                m = null;
+                break;
+            }
+            m = KeywordSet.set(m, id);
+        }
+        mask = m;
     }
 
+    @Override
+    public boolean accepts(TestDescription td) {
+        long[] bits = mask == null ? null : KeywordSet.of(td.getParameter("keywords"));
+        return bits == null ? accepts(td.getKeywordTable()) : accepts(bits);
+    }
+
+    abstract boolean accepts(long... bits);
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
@@ -296,6 +352,17 @@ class AllKeywords extends SetKeywords {
         return s.containsAll(keys);
     }
 
+    @Override
+    boolean accepts(long... bits) {
+        for (int i = 0; i < mask.length; i++) {
+            long b = i < bits.length ? bits[i] : 0;
+            if ((mask[i] & ~b) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public String toString() {
         return "all of (" + allKwds + ")";
@@ -322,6 +389,17 @@ class AnyKeywords extends SetKeywords {
         return false;
     }
 
+    @Override
+    boolean accepts(long... bits) {
+        int n = Math.min(mask.length, bits.length);
+        for (int i = 0; i < n; i++) {
+            if ((mask[i] & bits[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
         return "any of (" + allKwds + ")";
@@ -454,12 +532,92 @@ class ExprParser {
 //------------------------------------------------------------------------------
 
 abstract class ExprKeywords extends Keywords {
+    // operators in the compiled form; operands are keyword ids, which are >= 0
+    static final int AND = -1, OR = -2, NOT = -3;
+    // the expression in postfix form, compiled when first needed;
+    // empty if it cannot be evaluated using bit sets
+    private volatile int[] code;
 
     abstract int precedence();
 
+    @Override
+    String getCacheKey() {
+        // the verdicts are determined by the kind and the string form
+        return getClass().getName() + ":" + this;
+    }
+
     ExprKeywords order() {
         return this;
     }
+
+    /**
+     * Append the postfix form of this expression to the given code.
+     *
+     * @return false if the expression cannot be compiled
+     */
+    abstract boolean compile(Code c);
+
+    @Override
+    public boolean accepts(TestDescription td) {
+        int[] c = code;
+        if (c == null) {
+            Code buf = new Code();
+            code = c = compile(buf) && buf.maxDepth <= Long.SIZE ? buf.toArray() : new int[0];
+        }
+
+        long[] bits = c.length == 0 ? null : KeywordSet.of(td.getParameter("keywords"));
+        return bits == null ? accepts(td.getKeywordTable()) : evaluate(c, bits);
+    }
+
+    /**
+     * Evaluate compiled code, using the bits of a long as the stack.
+     */
+    private static boolean evaluate(int[] code, long... bits) {
+        long stack = 0;
+        int sp = 0;
+        for (int op : code) {
+            if (op >= 0) {
+                if (KeywordSet.contains(bits, op)) {
+                    stack |= 1L << sp;
+                } else {
+                    stack &= ~(1L << sp);
+                }
+                sp++;
+            } else if (op == NOT) {
+                stack ^= 1L << (sp - 1);
+            } else {
+                sp--;
+                boolean right = (stack & (1L << sp)) != 0;
+                long left = 1L << (sp - 1);
+                if (op == AND && !right) {
+                    stack &= ~left;
+                } else if (op == OR && right) {
+                    stack |= left;
+                }
+            }
+        }
+        return (stack & 1) != 0;
+    }
+
+    static class Code {
+        private int[] ops = new int[16];
+        private int size;
+        private int depth;
+        int maxDepth;
+
+        void add(int op) {
+            if (size == ops.length) {
+                ops = Arrays.copyOf(ops, size * 2);
+            }
+            ops[size++] = op;
+            depth += op >= 0 ? 1 : op == NOT ? 0 : -1;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ops, size);
+        }
+    }
 }
 
 //------------------------------------------------------------------------------
@@ -476,6 +634,17 @@ abstract class BinaryExprKeywords extends ExprKeywords {
         this.right = right;
     }
 
+    abstract int op();
+
+    @Override
+    boolean compile(Code c) {
+        if (left.compile(c) && right.compile(c)) {
+            c.add(op());
+            return true;
+        }
+        return false;
+    }
+
     @Override
     ExprKeywords order() {
         if (precedence() > left.precedence() && left instanceof BinaryExprKeywords) {
@@ -526,6 +695,11 @@ class AndExprKeywords extends BinaryExprKeywords {
         return left.accepts(s) && right.accepts(s);
     }
 
+    @Override
+    int op() {
+        return AND;
+    }
+
     @Override
     int precedence() {
         return 1;
@@ -554,6 +728,15 @@ class NotExprKeywords extends ExprKeywords {
         return !expr.accepts(s);
     }
 
+    @Override
+    boolean compile(Code c) {
+        if (expr.compile(c)) {
+            c.add(NOT);
+            return true;
+        }
+        return false;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
@@ -597,6 +780,11 @@ class OrExprKeywords extends BinaryExprKeywords {
         return left.accepts(s) || right.accepts(s);
     }
 
+    @Override
+    int op() {
+        return OR;
+    }
+
     @Override
     int precedence() {
         return 0;
@@ -625,6 +813,11 @@ class ParenExprKeywords extends ExprKeywords {
         return expr.accepts(s);
     }
 
+    @Override
+    boolean compile(Code c) {
+        return expr.compile(c);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
@@ -670,6 +863,16 @@ class TermExprKeywords extends ExprKeywords {
         return s.contains(key);
     }
 
+    @Override
+    boolean compile(Code c) {
+        int id = KeywordSet.idOf(key);
+        if (id == -1) {
+            return false;
+        }
+        c.add(id);
+        return true;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
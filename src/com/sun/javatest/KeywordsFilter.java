@@ -70,7 +70,18 @@ public class KeywordsFilter extends TestFilter {
 
     @Override
     public boolean accepts(TestDescription td) {
-        return keywords.accepts(td.getKeywordTable());
+        return keywords.accepts(td);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The key is only provided for the built-in kinds of keywords, whose
+     * verdicts are determined by their string form.
+     */
+    @Override
+    public String getCacheKey() {
+        String key = getClass() == KeywordsFilter.class ? keywords.getCacheKey() : null;
+        return key == null ? null : "KeywordsFilter:" + key;
     }
 
     @Override
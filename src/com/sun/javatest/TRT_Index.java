@@ -0,0 +1,287 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import com.sun.javatest.util.StringArray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Secondary indexes over the tests currently in a TestResultTable.
+ * Every test is given a small integer id the first time its URL is seen, and
+ * the indexes are bit sets of ids, so that queries can be answered by
+ * intersecting them rather than by walking the tree.
+ * <p>
+ * The index is maintained by TRT_TreeNode as tests are added to, replaced in
+ * and removed from the tree, at the same points as the status counters.
+ *
+ * @see TestResultTable.Query
+ */
+class TRT_Index {
+    /**
+     * Add a test to the index, or update the entry for it if the test or
+     * its status has changed.
+     */
+    synchronized void add(TestResult tr) {
+        String url = tr.getTestName();
+        Integer boxed = ids.get(url);
+        int id;
+        if (boxed == null) {
+            id = ids.size();
+            ids.put(url, id);
+            ensureCapacity(id + 1);
+            urls[id] = url;
+        } else {
+            id = boxed;
+        }
+
+        String[] kws = keywordsOf(tr);
+        // the description of a test which has not been run may have been
+        // dropped since the test was indexed
+        if (kws == NO_KEYWORDS && results[id] == tr) {
+            kws = keywordsOf[id];
+        }
+
+        if (results[id] != null) {
+            unindex(id);
+        }
+
+        results[id] = tr;
+        present.set(id);
+
+        Status s = tr.getStatus();
+        int type = s.getType();
+        statusOf[id] = type;
+        byStatus[type].set(id);
+
+        keywordsOf[id] = kws;
+        for (String k : kws) {
+            byKeyword.computeIfAbsent(k, x -> new BitSet()).set(id);
+        }
+
+        // tests which have not been run sort before all others
+        long t = type == Status.NOT_RUN ? -1 : Math.max(tr.getEndTime(), 0);
+        timeOf[id] = t;
+        byTime.computeIfAbsent(t, x -> new BitSet()).set(id);
+    }
+
+    /**
+     * Remove a test from the index.  Nothing is done if the index currently
+     * holds a different result for the same test.
+     */
+    synchronized void remove(TestResult tr) {
+        Integer id = ids.get(tr.getTestName());
+        if (id != null && results[id] == tr) {
+            unindex(id);
+            results[id] = null;
+            present.clear(id);
+        }
+    }
+
+    /**
+     * Forget all tests.
+     */
+    synchronized void clear() {
+        Arrays.fill(results, null);
+        present.clear();
+        for (BitSet b : byStatus) {
+            b.clear();
+        }
+        byKeyword.clear();
+        byTime.clear();
+    }
+
+    /**
+     * Find the tests matching all the given criteria.
+     *
+     * @param statusTypes   acceptable status types, or null for any
+     * @param keywords      keywords which must all be present, or null
+     * @param endedSince    earliest acceptable end time, or a negative number
+     *                      for no restriction
+     * @param pathPrefixes  acceptable test URL prefixes, or null for any
+     * @return the matching tests, in no particular order
+     */
+    List<TestResult> find(int[] statusTypes, String[] keywords,
+                          long endedSince, String[] pathPrefixes) {
+        TestResult[] candidates;
+        String[] candidateUrls;
+        synchronized (this) {
+            BitSet bits = (BitSet) present.clone();
+
+            if (statusTypes != null) {
+                BitSet any = new BitSet();
+                for (int type : statusTypes) {
+                    any.or(byStatus[type]);
+                }
+                bits.and(any);
+            }
+
+            if (keywords != null) {
+                for (String k : keywords) {
+                    BitSet b = byKeyword.get(k.toLowerCase());
+                    if (b == null) {
+                        return new ArrayList<>();
+                    }
+                    bits.and(b);
+                }
+            }
+
+            if (endedSince >= 0) {
+                BitSet any = new BitSet();
+                for (BitSet b : byTime.tailMap(endedSince, true).values()) {
+                    any.or(b);
+                }
+                bits.and(any);
+            }
+
+            candidates = new TestResult[bits.cardinality()];
+            candidateUrls = new String[candidates.length];
+            int n = 0;
+            for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+                candidates[n] = results[id];
+                candidateUrls[n] = urls[id];
+                n++;
+            }
+        }
+
+        UrlTrie under = toTrie(pathPrefixes);
+        List<TestResult> v = new ArrayList<>(candidates.length);
+        for (int i = 0; i < candidates.length; i++) {
+            if (under == null || under.matches(candidateUrls[i])) {
+                v.add(candidates[i]);
+            }
+        }
+        return v;
+    }
+
+    synchronized int size() {
+        return present.cardinality();
+    }
+
+    /**
+     * Get a trie of the given prefixes, or null if any test will do.
+     */
+    private static UrlTrie toTrie(String... prefixes) {
+        if (prefixes == null) {
+            return null;
+        }
+        UrlTrie trie = new UrlTrie();
+        for (String p : prefixes) {
+            if (p.isEmpty()) {
+                return null;
+            }
+            trie.add(p);
+        }
+        return trie;
+    }
+
+    // results which have not been matched with a test description yet are
+    // reindexed when the finder provides one; they are not reloaded here
+    private String[] keywordsOf(TestResult tr) {
+        TestDescription td = tr.peekDescription();
+        String value = td == null ? null : td.getParameter("keywords");
+        if (value == null) {
+            return NO_KEYWORDS;
+        }
+
+        // most tests share one of a few keyword lists
+        String[] kws = keywordLists.get(value);
+        if (kws == null) {
+            kws = StringArray.split(value);
+            for (int i = 0; i < kws.length; i++) {
+                kws[i] = kws[i].toLowerCase();
+            }
+            if (keywordLists.size() < MAX_KEYWORD_LISTS) {
+                keywordLists.put(value, kws);
+            }
+        }
+        return kws;
+    }
+
+    private void unindex(int id) {
+        byStatus[statusOf[id]].clear(id);
+
+        for (String k : keywordsOf[id]) {
+            BitSet b = byKeyword.get(k);
+            if (b != null) {
+                b.clear(id);
+                if (b.isEmpty()) {
+                    byKeyword.remove(k);
+                }
+            }
+        }
+
+        BitSet b = byTime.get(timeOf[id]);
+        if (b != null) {
+            b.clear(id);
+            if (b.isEmpty()) {
+                byTime.remove(timeOf[id]);
+            }
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (n > results.length) {
+            int size = Math.max(n, results.length * 2);
+            results = Arrays.copyOf(results, size);
+            urls = Arrays.copyOf(urls, size);
+            statusOf = Arrays.copyOf(statusOf, size);
+            keywordsOf = Arrays.copyOf(keywordsOf, size);
+            timeOf = Arrays.copyOf(timeOf, size);
+        }
+    }
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private TestResult[] results = new TestResult[INITIAL_SIZE];
+    private String[] urls = new String[INITIAL_SIZE];
+    private int[] statusOf = new int[INITIAL_SIZE];
+    private String[][] keywordsOf = new String[INITIAL_SIZE][];
+    private long[] timeOf = new long[INITIAL_SIZE];
+
+    private final BitSet present = new BitSet();
+    private final BitSet[] byStatus = new BitSet[Status.NUM_STATES];
+    private final Map<String, BitSet> byKeyword = new HashMap<>();
+    private final Map<String, String[]> keywordLists = new HashMap<>();
+    private final NavigableMap<Long, BitSet> byTime = new TreeMap<>();
+
+    {
+        for (int i = 0; i < byStatus.length; i++) {
+            byStatus[i] = new BitSet();
+        }
+    }
+
+    private static final int INITIAL_SIZE = 256;
+    private static final String[] NO_KEYWORDS = new String[0];
+    private static final int MAX_KEYWORD_LISTS = 1024;
+}
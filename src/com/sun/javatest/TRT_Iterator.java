@@ -89,6 +89,10 @@ class TRT_Iterator implements TestResultTable.TreeIterator {
     private TestResult currentResult;   // necessary communicate with filter observer, yuck
     private Object rejLock;
     private FilterObserver fo;          // null if feature is disabled
+    private FilterOrder filterOrder;    // created when the first test is checked
+    private FilterVerdicts verdictsOwner;   // verdicts recorded in the work directory
+    private FilterVerdicts.Slot[] verdicts; // ... for each filter, if any
+    private ArrayList<PendingReject> pendingRejects;    // rejects not yet in filteredTRs
     // ------ state information ------
     private Stack<PseudoFrame> stack;
 
@@ -379,6 +383,10 @@ class TRT_Iterator implements TestResultTable.TreeIterator {
             if (rejLock == null) {
                 rejLock = new Object();
             }
+
+            if (pendingRejects == null) {
+                pendingRejects = new ArrayList<>();
+            }
         }
     }
 
@@ -393,10 +401,12 @@ class TRT_Iterator implements TestResultTable.TreeIterator {
     /**
      * Find out which filters rejected which tests.
      * The data is valid at any point in time; hasNext() does not have to
-     * be false.  Note that filters are evaluated in the order shown in getFilters()
-     * and that the statistics only registered the <em>first</em> filter that rejected
-     * the test; there may be additional filters which would also reject any given
-     * test.
+     * be false.  Note that the statistics only register the <em>first</em> filter,
+     * in the order shown in getFilters(), that rejected the test; there may be
+     * additional filters which would also reject any given test.
+     * While iterating, the filters may be applied in a different order; when
+     * that happens, the filters before the one which rejected a test are
+     * applied to the test when this method is next called.
      * <p>
      * The hashtable has keys of TestResults, and values which are TestFilters.
      * Because of CompositeFilters, the set of filters found in the ``values''
@@ -414,6 +424,7 @@ class TRT_Iterator implements TestResultTable.TreeIterator {
             HashMap<TestFilter, ArrayList<TestDescription>> out = new HashMap<>(filteredTRs.size());
 
             synchronized (rejLock) {
+                resolveRejects();
                 Set<TestFilter> keys = filteredTRs.keySet();
                 // each key is a TestFilter
                 for (TestFilter key : keys) {
@@ -884,6 +895,35 @@ class TRT_Iterator implements TestResultTable.TreeIterator {
         }
     }
 
+    /**
+     * Get the recorded verdicts for each of the filters, as kept by the table
+     * containing the given test.
+     *
+     * @return an array parallel to filters[], with null entries for filters
+     * whose verdicts are not recorded, or null if no verdicts are recorded
+     */
+    private FilterVerdicts.Slot[] getVerdicts(TestResult tr) {
+        TestResultTable trt = null;
+        if (nodes != null && nodes.length > 0 && nodes[0] != null) {
+            trt = nodes[0].getEnclosingTable();
+        } else if (tr.getParent() != null) {
+            trt = tr.getParent().getEnclosingTable();
+        }
+
+        verdictsOwner = trt == null ? null : trt.getFilterVerdicts();
+        if (verdictsOwner == null) {
+            return null;
+        }
+
+        FilterVerdicts.Slot[] slots = new FilterVerdicts.Slot[filters.length];
+        boolean any = false;
+        for (int i = 0; i < filters.length; i++) {
+            slots[i] = verdictsOwner.getSlot(filters[i]);
+            any |= slots[i] != null;
+        }
+        return any ? slots : null;
+    }
+
     /**
      * This method used to be boolean, but was changed to int to collect stats.
      *
@@ -905,20 +945,40 @@ class TRT_Iterator implements TestResultTable.TreeIterator {
         currentResult = tr;
         TestDescription td = tr.getDescription();
 
-        for (int i = 0; i < filters.length; i++) {
+        if (filterOrder == null) {
+            filterOrder = new FilterOrder(filters);
+            verdicts = getVerdicts(tr);
+        }
+        boolean timed = filterOrder.nextTest();
+        long passed = 0;    // the filters which have accepted the test
+        int id = -1;        // the id of the test in the recorded verdicts
+
+        for (int i : filterOrder.getOrder()) {
+            FilterVerdicts.Slot slot = verdicts == null ? null : verdicts[i];
+            if (slot != null && id == -1) {
+                id = verdictsOwner.idOf(tr, td);
+            }
+
+            int verdict = slot == null ? -1 : slot.get(id);
             boolean accepted = true;
-            try {
-                if (fo == null) {
+            if (verdict != -1) {
+                accepted = verdict == 1;
+                filterOrder.record(i, accepted, -1);
+            } else {
+                long start = timed ? System.nanoTime() : 0;
+                try {
                     accepted = filters[i].accepts(td);
-                } else {
-                    accepted = filters[i].accepts(td, fo);
-                }
-            } catch (TestFilter.Fault f) {
-                accepted = true;
-                if (debug) {
-                    Debug.println("   -> exception while checking filter: " + f.getMessage());
-                }
-            }   // catch
+                    if (slot != null) {
+                        slot.put(id, accepted);
+                    }
+                } catch (TestFilter.Fault f) {
+                    accepted = true;
+                    if (debug) {
+                        Debug.println("   -> exception while checking filter: " + f.getMessage());
+                    }
+                }   // catch
+                filterOrder.record(i, accepted, timed ? System.nanoTime() - start : -1);
+            }
 
             if (!accepted) {
                 if (debug) {
@@ -936,15 +996,96 @@ class TRT_Iterator implements TestResultTable.TreeIterator {
                     tr.getParent().getEnclosingTable().update(newone, true);
                 }
 
+                if (fo != null) {
+                    // the filter to report is found when it is needed
+                    synchronized (rejLock) {
+                        pendingRejects.add(new PendingReject(td, i, passed));
+                    }
+                }
+
                 // rejected
                 return i;
             }
+
+            if (i < FilterOrder.MAX_ADAPTIVE) {
+                passed |= 1L << i;
+            }
         }   // for
 
+        if (debug && absoluteCount % 1000 == 0) {
+            Debug.println("   -> " + filterOrder);
+        }
+
         // accepted
         return -1;
     }
 
+    /**
+     * Report the tests which have been rejected since this was last called to
+     * the filter observer, along with the first filter, in the order given,
+     * which rejects each one.  The filters before the one which rejected a
+     * test while iterating, and which had not been applied to it then, are
+     * applied now.  Must be called with rejLock held.
+     */
+    private void resolveRejects() {
+        for (PendingReject r : pendingRejects) {
+            if (!isRejectedBefore(r)) {
+                TestFilter f = filters[r.filter];
+                if (reportsOtherRejector(f)) {
+                    // let the filter say which of its parts rejected the test
+                    try {
+                        if (f.accepts(r.td, fo)) {
+                            fo.rejected(r.td, f);
+                        }
+                    } catch (TestFilter.Fault e) {
+                        fo.rejected(r.td, f);
+                    }
+                } else {
+                    fo.rejected(r.td, f);
+                }
+            }
+        }
+        pendingRejects.clear();
+    }
+
+    /**
+     * Apply the filters before the one which rejected a test, in order, and
+     * report the test to the filter observer if one of them rejects it.
+     */
+    private boolean isRejectedBefore(PendingReject r) {
+        for (int i = 0; i < r.filter; i++) {
+            if (i < FilterOrder.MAX_ADAPTIVE && (r.passed & (1L << i)) != 0) {
+                continue;
+            }
+            // larger sets of filters are always applied in order, so the
+            // filters before the rejecting one have all accepted the test
+            if (i >= FilterOrder.MAX_ADAPTIVE) {
+                return false;
+            }
+            try {
+                if (!filters[i].accepts(r.td, fo)) {
+                    return true;
+                }
+            } catch (TestFilter.Fault f) {
+                // treated as accepted, as while iterating
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether a filter may report a rejection by a filter other than
+     * itself, as composite filters do.
+     */
+    private static boolean reportsOtherRejector(TestFilter f) {
+        try {
+            return f.getClass().getMethod("accepts", TestDescription.class, TestFilter.Observer.class)
+                    .getDeclaringClass() != TestFilter.class;
+        } catch (NoSuchMethodException | SecurityException e) {
+            return true;
+        }
+    }
+
     @Override
     public String toString() {
         return "TRT_Iterator{" +
@@ -965,6 +1106,7 @@ class TRT_Iterator implements TestResultTable.TreeIterator {
                 ", currentResult=" + currentResult +
                 ", rejLock=" + rejLock +
                 ", fo=" + fo +
+                ", filterOrder=" + filterOrder +
                 ", stack=" + stack +
                 ", currFrame=" + currFrame +
                 ", finished=" + finished +
@@ -1030,18 +1172,25 @@ class TRT_Iterator implements TestResultTable.TreeIterator {
                     filteredTRs.put(rejector, vec);
                 }
 
-                // XXX remove later...
-                try {
-                    if (currentResult.getDescription() != d) {
-                        throw new JavaTestError("TRT_Iterator observed TR.TD does not match filtered one.");
-                    }
-                } catch (TestResult.Fault f) {
-                    throw new JavaTestError("TRT_Iterator cannot determine TR source info.", f);
-                }   // sanity check
-
                 vec.add(d);
             }   // sync
         }
     }
+
+    /**
+     * A test which has been rejected, but not yet reported to the filter
+     * observer.
+     */
+    private static class PendingReject {
+        final TestDescription td;
+        final int filter;   // the filter which rejected the test
+        final long passed;  // the filters which had accepted it first
+
+        PendingReject(TestDescription td, int filter, long passed) {
+            this.td = td;
+            this.filter = filter;
+            this.passed = passed;
+        }
+    }
 }       // TRT_Iterator
 
@@ -0,0 +1,495 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import com.sun.javatest.finder.IndexedTestFinder;
+import com.sun.javatest.finder.TestFinderDecorator;
+import com.sun.javatest.util.Debug;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A persistent record of what the test finder returned for each file and
+ * directory it has read, kept in the work directory so that the test result
+ * table can be repopulated without re-running the finder on files which
+ * have not changed since the last session.
+ * <p>
+ * Only finders which describe their configuration with
+ * {@link TestFinder#getSnapshotKey} are recorded.  Each record is keyed by the
+ * path given to the finder and is only used when the last modified time of
+ * that path is exactly the time recorded with it; anything else is handed
+ * back to the finder, and the new answer replaces the old record when the
+ * snapshot is next saved.  Records for files which no longer exist are
+ * dropped when the snapshot is saved; the last modified times looked up
+ * while the table was read tell which files exist, and only files which
+ * were not looked up are checked on disk.  The snapshot as a whole is discarded
+ * if the test suite, its root, the type of test finder or its configuration
+ * has changed.  Test results are not recorded here, they come from the
+ * {@link TestResultCache} as before.
+ * <p>
+ * The file is memory mapped when opened; strings are shared through a single
+ * table and are only decoded when a record which uses them is requested.
+ * Since a mapped file cannot be replaced on some platforms, each save writes
+ * a new file, numbered one higher than the last, and older files are deleted
+ * once that is possible.
+ *
+ * @see TestResultTable#readFinderFile
+ */
+class TRT_Snapshot {
+    /**
+     * The tests and files reported by the finder for a single file.
+     */
+    static class Entry {
+        final TestDescription[] tests;
+        final File[] files;
+
+        Entry(TestDescription[] tests, File... files) {
+            this.tests = tests;
+            this.files = files;
+        }
+    }
+
+    /**
+     * Open the snapshot for a work directory, creating an empty one if
+     * there is no usable snapshot on disk.
+     *
+     * @param wd     the work directory in which the snapshot is kept
+     * @param finder the finder whose output is recorded
+     * @return the snapshot, or null if snapshots cannot be used with the finder
+     */
+    static TRT_Snapshot open(WorkDirectory wd, TestFinder finder) {
+        String identity = identityOf(finder);
+        if (identity == null) {
+            return null;
+        }
+
+        TRT_Snapshot s = new TRT_Snapshot(wd.getSystemFile(""), identity,
+                finder.getRoot().getPath(), finder.getRootDir(), suiteStampOf(wd.getTestSuite()));
+        s.load();
+        return s;
+    }
+
+    private TRT_Snapshot(File dir, String identity, String rootPath, File rootDir, long suiteStamp) {
+        this.dir = dir;
+        this.identity = identity;
+        this.rootPath = rootPath;
+        this.rootDir = rootDir;
+        this.suiteStamp = suiteStamp;
+    }
+
+    /**
+     * Get the file holding the most recently saved snapshot in a directory.
+     *
+     * @param dir the directory
+     * @return the file, or null if there is none
+     */
+    static File latest(File dir) {
+        File latest = null;
+        long latestGen = -1;
+        String[] names = dir.list();
+        for (String name : names == null ? new String[0] : names) {
+            long gen = generationOf(name);
+            if (gen > latestGen) {
+                latest = new File(dir, name);
+                latestGen = gen;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Get the recorded finder output for a file, if the record is still valid.
+     *
+     * @param finder       the finder which would otherwise be used to read the file
+     * @param f            the file, as it would be given to the finder
+     * @param lastModified the current last modified time of the file
+     * @return the recorded output, or null if the finder must read the file
+     */
+    synchronized Entry get(TestFinder finder, File f, long lastModified) {
+        if (!identity.equals(identityOf(finder))) {
+            return null;
+        }
+
+        String key = f.getPath();
+        if (lastModified <= 0) {
+            present.remove(key);
+            return null;
+        }
+        present.add(key);
+
+        Record r = added.get(key);
+        if (r == null) {
+            Integer pos = index.get(key);
+            if (pos == null) {
+                return null;
+            }
+            try {
+                r = readRecord(pos);
+            } catch (RuntimeException e) {
+                // bad data; stop using the mapped file altogether
+                if (debug > 0) {
+                    e.printStackTrace(Debug.getWriter());
+                }
+                discard();
+                return null;
+            }
+        }
+
+        return r.lastModified == lastModified ? r.entry : null;
+    }
+
+    /**
+     * Record the finder output for a file.
+     *
+     * @param finder       the finder which read the file
+     * @param f            the file, as it was given to the finder
+     * @param lastModified the last modified time of the file when it was read
+     * @param e            the output of the finder
+     */
+    synchronized void put(TestFinder finder, File f, long lastModified, Entry e) {
+        if (lastModified <= 0 || !identity.equals(identityOf(finder))) {
+            return;
+        }
+
+        added.put(f.getPath(), new Record(lastModified, e));
+    }
+
+    /**
+     * Write the snapshot back to the work directory if anything has been
+     * added since it was opened or last saved.  Failures are not reported;
+     * the worst that can happen is that the next session reads the test
+     * suite again.
+     */
+    synchronized void save() {
+        if (added.isEmpty()) {
+            return;
+        }
+
+        Map<String, Record> all = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, Integer> e : index.entrySet()) {
+                if (!added.containsKey(e.getKey())
+                        && (present.contains(e.getKey()) || exists(e.getKey()))) {
+                    all.put(e.getKey(), readRecord(e.getValue()));
+                }
+            }
+        } catch (RuntimeException e) {
+            all.clear();
+        }
+        all.putAll(added);
+
+        // the new file never replaces one which may still be mapped
+        File newFile = new File(dir, FILE_PREFIX + (generation + 1) + FILE_SUFFIX);
+        File tmp = new File(dir, FILE_PREFIX + "new" + FILE_SUFFIX);
+        try {
+            write(tmp, all);
+            newFile.delete();
+            if (!tmp.renameTo(newFile)) {
+                tmp.delete();
+                return;
+            }
+            added.clear();
+            load();
+        } catch (IOException e) {
+            if (debug > 0) {
+                e.printStackTrace(Debug.getWriter());
+            }
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Get a string describing the test finder in use and its configuration,
+     * or null if its output may not be reused.
+     */
+    private static String identityOf(TestFinder finder) {
+        TestFinder f = finder;
+        if (f instanceof TestFinderDecorator) {
+            f = ((TestFinderDecorator) f).getCurrentTestFinder();
+        }
+        if (f instanceof IndexedTestFinder) {
+            f = ((IndexedTestFinder) f).getDelegate();
+        }
+        String key = f.getSnapshotKey();
+        return key == null ? null : f.getClass().getName() + " " + key;
+    }
+
+    private boolean exists(String path) {
+        File f = new File(path);
+        return (f.isAbsolute() ? f : new File(rootDir, path)).exists();
+    }
+
+    private static long generationOf(String name) {
+        if (name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX)) {
+            try {
+                return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                // not a snapshot
+            }
+        }
+        return -1;
+    }
+
+    private static long suiteStampOf(TestSuite ts) {
+        File root = ts.getRootDir();
+        return new File(root, "testsuite.jtt").lastModified();
+    }
+
+    //-------------------------------------------------------------------------
+
+    private void load() {
+        discard();
+
+        File file = latest(dir);
+        if (file == null) {
+            return;
+        }
+        generation = generationOf(file.getName());
+        deleteOlder(generation);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel fc = raf.getChannel()) {
+            MappedByteBuffer b = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+            if (b.getInt() != MAGIC || b.getInt() != VERSION) {
+                return;
+            }
+
+            int nStrings = b.getInt();
+            int[] offsets = new int[nStrings];
+            for (int i = 0; i < nStrings; i++) {
+                offsets[i] = b.position();
+                b.position(b.position() + 4 + b.getInt(b.position()));
+            }
+
+            buf = b;
+            stringOffsets = offsets;
+            strings = new String[Math.min(nStrings, STRING_CACHE_SIZE)];
+            stringIds = new int[strings.length];
+
+            if (!identity.equals(string(b.getInt()))
+                    || !rootPath.equals(string(b.getInt()))
+                    || b.getLong() != suiteStamp) {
+                discard();
+                return;
+            }
+
+            int nRecords = b.getInt();
+            Map<String, Integer> idx = new HashMap<>(nRecords * 2);
+            for (int i = 0; i < nRecords; i++) {
+                idx.put(string(b.getInt()), b.getInt());
+            }
+            index = idx;
+
+            if (debug > 0) {
+                Debug.println("TRT_Snapshot: loaded " + nRecords + " records from " + file);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (debug > 0) {
+                e.printStackTrace(Debug.getWriter());
+            }
+            discard();
+        }
+    }
+
+    // files which are still mapped, here or by another table, are deleted later
+    private void deleteOlder(long gen) {
+        String[] names = dir.list();
+        for (String name : names == null ? new String[0] : names) {
+            long g = generationOf(name);
+            if (g >= 0 && g < gen) {
+                new File(dir, name).delete();
+            }
+        }
+    }
+
+    private void discard() {
+        buf = null;
+        stringOffsets = new int[0];
+        strings = new String[0];
+        stringIds = new int[0];
+        index = new HashMap<>();
+    }
+
+    private Record readRecord(int pos) {
+        ByteBuffer b = buf.duplicate();
+        b.position(pos);
+        long lastModified = b.getLong();
+
+        TestDescription[] tests = new TestDescription[b.getInt()];
+        for (int i = 0; i < tests.length; i++) {
+            String root = string(b.getInt());
+            String rrp = string(b.getInt());
+            String[] fields = new String[b.getInt()];
+            for (int j = 0; j < fields.length; j++) {
+                fields[j] = string(b.getInt());
+            }
+            tests[i] = TestDescription.restore(root, rrp, fields);
+        }
+
+        File[] files = new File[b.getInt()];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = new File(string(b.getInt()));
+        }
+
+        return new Record(lastModified, new Entry(tests, files));
+    }
+
+    // only recently decoded strings are kept, so that the strings of tests
+    // whose descriptions have been dropped can be collected
+    private String string(int id) {
+        int slot = id % strings.length;
+        String s = stringIds[slot] == id ? strings[slot] : null;
+        if (s == null) {
+            int pos = stringOffsets[id];
+            int len = buf.getInt(pos);
+            byte[] bytes = new byte[len];
+            ByteBuffer b = buf.duplicate();
+            b.position(pos + 4);
+            b.get(bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+            strings[slot] = s;
+            stringIds[slot] = id;
+        }
+        return s;
+    }
+
+    private void write(File f, Map<String, Record> records) throws IOException {
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream bodyOut = new DataOutputStream(body);
+
+        int[] recordIds = new int[records.size()];
+        int[] recordPos = new int[records.size()];
+        int n = 0;
+        for (Map.Entry<String, Record> e : records.entrySet()) {
+            Record r = e.getValue();
+            recordIds[n] = id(ids, e.getKey());
+            recordPos[n] = bodyOut.size();
+            n++;
+
+            bodyOut.writeLong(r.lastModified);
+            bodyOut.writeInt(r.entry.tests.length);
+            for (TestDescription td : r.entry.tests) {
+                bodyOut.writeInt(id(ids, td.getRootDir()));
+                bodyOut.writeInt(id(ids, td.getRootRelativePath()));
+                String[] fields = td.getFields();
+                bodyOut.writeInt(fields.length);
+                for (String s : fields) {
+                    bodyOut.writeInt(id(ids, s));
+                }
+            }
+            bodyOut.writeInt(r.entry.files.length);
+            for (File file : r.entry.files) {
+                bodyOut.writeInt(id(ids, file.getPath()));
+            }
+        }
+        int identityId = id(ids, identity);
+        int rootId = id(ids, rootPath);
+        bodyOut.flush();
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(f)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(ids.size());
+            for (String s : ids.keySet()) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(identityId);
+            out.writeInt(rootId);
+            out.writeLong(suiteStamp);
+
+            out.writeInt(records.size());
+            // record offsets are absolute within the file
+            int base = out.size() + records.size() * 8;
+            for (int i = 0; i < records.size(); i++) {
+                out.writeInt(recordIds[i]);
+                out.writeInt(base + recordPos[i]);
+            }
+            body.writeTo(out);
+        }
+    }
+
+    private static int id(Map<String, Integer> ids, String s) {
+        Integer id = ids.get(s);
+        if (id == null) {
+            id = ids.size();
+            ids.put(s, id);
+        }
+        return id;
+    }
+
+    private static class Record {
+        final long lastModified;
+        final Entry entry;
+
+        Record(long lastModified, Entry entry) {
+            this.lastModified = lastModified;
+            this.entry = entry;
+        }
+    }
+
+    private final File dir;
+    private final String identity;
+    private final String rootPath;
+    private final File rootDir;
+    private final long suiteStamp;
+    private long generation;
+
+    private ByteBuffer buf;
+    private int[] stringOffsets;
+    private String[] strings;
+    private int[] stringIds;
+    private Map<String, Integer> index = new HashMap<>();
+    private final Map<String, Record> added = new HashMap<>();
+    // paths which had a last modified time when last given to get
+    private final Set<String> present = new HashSet<>();
+
+    private static final String FILE_PREFIX = "TestTreeSnapshot.";
+    private static final String FILE_SUFFIX = ".jtw";
+    private static final int MAGIC = 0x4A54534E;   // "JTSN"
+    private static final int VERSION = 1;
+    private static final int STRING_CACHE_SIZE = 8192;
+    private static final int debug = Debug.getInt(TRT_Snapshot.class);
+}
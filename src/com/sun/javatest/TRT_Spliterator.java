@@ -0,0 +1,124 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A splittable traversal of the tests below a node of a TestResultTable,
+ * in the same order as TRT_Iterator.  Nodes are read from the test finder as
+ * the traversal reaches them, so when the traversal is split, different
+ * parts of the tree may be read concurrently.
+ * <p>
+ * The work remaining is a list of tests and nodes.  Splitting hands the first
+ * half of the list to a new spliterator; if only a single node remains, it is
+ * replaced by its children first.
+ *
+ * @see TestResultTable#stream
+ */
+class TRT_Spliterator implements Spliterator<TestResult> {
+    TRT_Spliterator(TRT_TreeNode node) {
+        pending = new ArrayDeque<>();
+        pending.add(node);
+    }
+
+    private TRT_Spliterator(Deque<Object> pending) {
+        this.pending = pending;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super TestResult> action) {
+        Object o;
+        while ((o = pending.pollFirst()) != null) {
+            if (o instanceof TestResult) {
+                action.accept((TestResult) o);
+                return true;
+            }
+            expand((TRT_TreeNode) o);
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super TestResult> action) {
+        Object o;
+        while ((o = pending.pollFirst()) != null) {
+            if (o instanceof TestResult) {
+                action.accept((TestResult) o);
+            } else {
+                expand((TRT_TreeNode) o);
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<TestResult> trySplit() {
+        while (pending.size() == 1 && pending.peekFirst() instanceof TRT_TreeNode) {
+            expand((TRT_TreeNode) pending.pollFirst());
+        }
+
+        int n = pending.size() / 2;
+        if (n == 0) {
+            return null;
+        }
+
+        Deque<Object> prefix = new ArrayDeque<>(n);
+        for (int i = 0; i < n; i++) {
+            prefix.addLast(pending.pollFirst());
+        }
+        return new TRT_Spliterator(prefix);
+    }
+
+    /**
+     * The size is estimated from the tests which have been read so far.
+     */
+    @Override
+    public long estimateSize() {
+        long size = 0;
+        for (Object o : pending) {
+            size += o instanceof TestResult ? 1 : ((TRT_TreeNode) o).getCurrentSize();
+        }
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private void expand(TRT_TreeNode node) {
+        Object[] children = node.getChildren();
+        for (int i = children.length - 1; i >= 0; i--) {
+            pending.addFirst(children[i]);
+        }
+    }
+
+    private final Deque<Object> pending;
+}
@@ -34,11 +34,19 @@ import com.sun.javatest.util.I18NResourceBundle;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Hashtable;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * This is the implementation of a tree node structure for TestResultTable.
@@ -51,17 +59,52 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
 
     //static protected boolean debug = Boolean.getBoolean("debug." + TRT_TreeNode.class.getName());
     static protected int debug = Debug.getInt(TRT_TreeNode.class);
-    // no per-instance array of observers, use a static Hashtable of arrays
-    private static Map<TRT_TreeNode, TestResultTable.TreeNodeObserver[]> observerTable = new Hashtable<>(16);
+    // no per-instance array of observers, use a static map of arrays
+    // the arrays are copy-on-write, so notification does not need to lock
+    private static Map<TRT_TreeNode, TestResultTable.TreeNodeObserver[]> observerTable = new ConcurrentHashMap<>(16);
     private static I18NResourceBundle i18n = I18NResourceBundle.getBundleForClass(TRT_TreeNode.class);
     /**
-     * null if the node has not been scanned, zero length if it is actually empty
+     * How long (in milliseconds) counter change notifications are held back so
+     * that many status changes to a node result in one notification, which is
+     * then delivered from a timer thread.  Zero, the default, means observers
+     * are notified synchronously on every change.
+     *
+     * @see TestResultTable.TreeNodeObserver#countersInvalidated
+     */
+    static int counterNotifyDelay = Integer.getInteger("javatest.trt.counterNotifyDelay", 0);
+    private static final CounterNotifier counterNotifier = new CounterNotifier();
+    /**
+     * Nodes with at least this many children keep hash indexes of them, so
+     * that tests and nodes can be found by name without a linear search.
+     */
+    private static final int CHILD_INDEX_THRESHOLD = 16;
+    private static final int INITIAL_CHILDREN = 8;
+    private static final TestResult[] NO_RESULTS = new TestResult[0];
+    private static final TRT_TreeNode[] NO_NODES = new TRT_TreeNode[0];
+    /**
+     * null if the node has not been scanned, otherwise the first childCount
+     * entries are the children.  The array only grows in place; when a child
+     * is removed, a new array is made, so that unsynchronized readers which
+     * read childCount before children always see valid entries.
      */
     private Object[] children;            // contains combo of TreeNodes or TestResults
+    private volatile int childCount;
+    // lazily built when the node is large, dropped when a child is removed
+    // open addressing table of (index + 1) of the tests, by JTR path hash,
+    // so that the paths do not need to be kept
+    private int[] resultIndex;
+    private int resultIndexSize;
+    private Map<String, Integer> nodeIndex;     // node name -> index
+    // lazily built copies of the children, dropped whenever children change
+    private Object[] childrenView;
+    private TestResult[] resultsView;
+    private TRT_TreeNode[] nodesView;
     private TRT_TreeNode parent;        // should never be null, unless root
     private TestResultTable table;      // what table this node is in
-    private int counter;                // nodes below this point and including self
-    private int[] childStats;
+    // nodes below this point and including self
+    private final AtomicInteger counter = new AtomicInteger();
+    // number of tests below this node in each state, always up to date
+    private final AtomicIntegerArray childStats = new AtomicIntegerArray(Status.NUM_STATES);
     private String name;                // basically the directory name, null means root node
     private long lastScanDate;
     /**
@@ -72,7 +115,8 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      * node which indicates that the current directory should be scanned by the
      * TestFinder.  This is to support directory walk style finders.
      */
-    private String[] filesToScan;       // in cases where the finder must scan files
+    private List<String> filesToScan;   // in cases where the finder must scan files
+    private Set<String> filesToScanSet; // the same names, for fast clash checks
 
     /**
      * Needed in cases where we need to get the return value from insert().
@@ -82,7 +126,6 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      */
     TRT_TreeNode(TestResultTable table, TestResultTable.TreeNode parent) {
         children = null;
-        counter = 0;
         name = null;        // the only node with this value null is the root
         this.table = table;
         this.parent = (TRT_TreeNode) parent;
@@ -99,12 +142,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      */
     @java.lang.Deprecated
     static void bubbleUpChildStat(TRT_TreeNode node, int which) {
-        node.childStats[which]++;
-        TRT_TreeNode parent = (TRT_TreeNode) node.getParent();
-
-        if (parent != null) {
-            bubbleUpChildStat(parent, which);
-        }
+        swapChildStat(node, -1, which);
     }
 
     /**
@@ -113,18 +151,49 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      * the Status object. This method facilitates updating of TestResults - changing
      * from one status to another.  This change in similar to bubbleUpChildStat()
      * in that it automatically affects node from the current location up to the
-     * root.
+     * root.  A negative value for either status means that no test is
+     * removed from or added to the counters respectively.
      *
      * @see Status
      */
     static void swapChildStat(TRT_TreeNode node, int oldStatus, int newStatus) {
-        node.childStats[oldStatus]--;
-        node.childStats[newStatus]++;
+        if (oldStatus == newStatus) {
+            return;
+        }
+
+        for (TRT_TreeNode n = node; n != null; n = n.parent) {
+            if (oldStatus >= 0) {
+                n.childStats.decrementAndGet(oldStatus);
+            }
+            if (newStatus >= 0) {
+                n.childStats.incrementAndGet(newStatus);
+            }
+        }
 
-        TRT_TreeNode parent = (TRT_TreeNode) node.getParent();
+        node.notifyCounterChangeToRoot();
+    }
 
-        if (parent != null) {
-            swapChildStat(parent, oldStatus, newStatus);
+    /**
+     * Add (or subtract) the statistics of a whole subtree to the given node and
+     * all of its ancestors.
+     *
+     * @param node  The first node to update.
+     * @param stats The counters to add.
+     * @param sign  1 to add the counters, -1 to subtract them.
+     */
+    private static void addChildStats(TRT_TreeNode node, int[] stats, int sign) {
+        boolean changed = false;
+        for (int j = 0; j < stats.length; j++) {
+            if (stats[j] != 0) {
+                changed = true;
+                for (TRT_TreeNode n = node; n != null; n = n.parent) {
+                    n.childStats.addAndGet(j, sign * stats[j]);
+                }
+            }
+        }
+
+        if (changed) {
+            node.notifyCounterChangeToRoot();
         }
     }
 
@@ -133,28 +202,24 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             Debug.println("   => Adding " + file + " to scan list and leaving.");
             Debug.println("   => Local node is : " + node);
             Debug.println("   -> local size b4: " +
-                    (node.filesToScan == null ? 0 : node.filesToScan.length));
+                    (node.filesToScan == null ? 0 : node.filesToScan.size()));
         }
 
-        int i = 0;
+        boolean clash = false;
 
         // check for a name clash
-        if (node.filesToScan != null) {
+        if (node.filesToScan != null && node.filesToScanSet.contains(file)) {
             // the first entry in the list is (always?) a special case
-            if (node.filesToScan.length > 0 && node.filesToScan[0].equals(node.getName())) {
-                i = 1;
-            }
-
-            for (; i < node.filesToScan.length; i++) {
-                if (node.filesToScan[i].equals(file)) {
-                    break;
-                }
+            if (file.equals(node.filesToScan.get(0)) && file.equals(node.getName())) {
+                clash = node.filesToScan.lastIndexOf(file) > 0;
+            } else {
+                clash = true;
             }
         }
 
         // if no conflicts were found, append it
-        if (node.filesToScan == null || i >= node.filesToScan.length) {
-            node.filesToScan = DynamicArray.append(node.filesToScan, file);
+        if (!clash) {
+            node.appendToScanList(file);
         } else {
             // name collision, ignore
             // actually, with scan suppression, this may be normal
@@ -167,37 +232,65 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
 
         if (debug > 1) {
             Debug.println("   -> local size after: " +
-                    (node.filesToScan == null ? 0 : node.filesToScan.length));
+                    (node.filesToScan == null ? 0 : node.filesToScan.size()));
         }
     }
 
+    private void appendToScanList(String file) {
+        if (filesToScan == null) {
+            filesToScan = new ArrayList<>();
+            filesToScanSet = new HashSet<>();
+        }
+        filesToScan.add(file);
+        filesToScanSet.add(file);
+    }
+
     /**
-     * Recalculate the counters which track the status of tests below this node.
-     * This can be a high cost calculation, but will do nothing if all the counters
-     * are up to date.
-     * It is assumed that if a node has null childStats, that all nodes between
-     * it and the root are also marked invalid.
+     * Account for the current status of a test which is (still) a child of the
+     * given node.  The status type the test was previously counted under is
+     * remembered in the test itself, so this works for new tests, replaced
+     * tests and tests whose status changed in place.
      */
-    private static void refreshChildStats(TRT_TreeNode node) {
-        if (node.childStats != null) {
-            return;        // nothing to do
+    private static void countResult(TRT_TreeNode node, TestResult tr) {
+        int newType = tr.getStatus().getType();
+        int oldType = tr.countedStatusType;
+        tr.countedStatusType = newType;
+        swapChildStat(node, oldType, newType);
+        if (node.table != null) {
+            node.table.getIndex().add(tr);
         }
+    }
 
-        node.childStats = new int[Status.NUM_STATES];
+    /**
+     * Remove a test which is no longer a child of the given node from the
+     * counters.
+     */
+    private static void uncountResult(TRT_TreeNode node, TestResult tr) {
+        int oldType = tr.countedStatusType;
+        tr.countedStatusType = -1;
+        swapChildStat(node, oldType, -1);
+        if (node.table != null) {
+            node.table.getIndex().remove(tr);
+        }
+    }
 
-        for (int i = 0; i < node.children.length; i++) {
-            if (node.children[i] instanceof TRT_TreeNode) {
-                // node is another branch
-                TRT_TreeNode child = (TRT_TreeNode) node.children[i];
-                int[] stats = child.getChildStatus();
+    /**
+     * Remove all the tests which have been read into a subtree from the
+     * table's index.  The subtree is not scanned.
+     */
+    private static void unindexSubtree(TRT_Index index, TRT_TreeNode node) {
+        int n = node.childCount;
+        Object[] copy = node.children;
+        if (copy == null) {
+            return;
+        }
 
-                for (int j = 0; j < stats.length; j++) {
-                    node.childStats[j] += stats[j];
-                }
-            } else {
-                // node is a test result
-                TestResult tr = (TestResult) node.children[i];
-                node.childStats[tr.getStatus().getType()]++;
+        for (int i = 0; i < n; i++) {
+            Object o = copy[i];
+            if (o instanceof TestResult) {
+                index.remove((TestResult) o);
+            } else if (o instanceof TRT_TreeNode) {
+                unindexSubtree(index, (TRT_TreeNode) o);
             }
         }
     }
@@ -207,13 +300,8 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      */
     @Override
     public synchronized void addObserver(TestResultTable.TreeNodeObserver obs) {
-        TestResultTable.TreeNodeObserver[] observers = observerTable.get(this);
-
-        if (observers == null) {
-            observers = new TestResultTable.TreeNodeObserver[0];
-        }
-        observers = DynamicArray.append(observers, obs);
-        observerTable.put(this, observers);
+        observerTable.compute(this, (node, observers) -> DynamicArray.append(
+                observers == null ? new TestResultTable.TreeNodeObserver[0] : observers, obs));
     }
 
     /**
@@ -221,17 +309,8 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      */
     @Override
     public synchronized void removeObserver(TestResultTable.TreeNodeObserver obs) {
-        TestResultTable.TreeNodeObserver[] observers = observerTable.get(this);
-        if (observers == null) {
-            return;
-        }
-
-        observers = DynamicArray.remove(observers, obs);
-        if (observers == null) {
-            observerTable.remove(this);
-        } else {
-            observerTable.put(this, observers);
-        }
+        // a null result from remove() drops the mapping
+        observerTable.computeIfPresent(this, (node, observers) -> DynamicArray.remove(observers, obs));
     }
 
     /**
@@ -244,7 +323,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     public int getSize() {
         scanSubtree(this);
 
-        return counter;
+        return counter.get();
     }
 
     // ------ end of interface impl ------
@@ -256,7 +335,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      * the information.
      */
     public int getEstimatedSize() {
-        return counter;
+        return counter.get();
     }
 
     @Override
@@ -290,11 +369,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     public int getChildCount() {
         scanIfNeeded();
 
-        if (children == null) {
-            return 0;
-        } else {
-            return children.length;
-        }
+        return childCount;
     }
 
     @Override
@@ -317,31 +392,63 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             scanIfNeeded();
         }
 
-        if (children == null || index >= children.length) {
+        int n = childCount;
+        Object[] c = children;
+        if (c == null || index < 0 || index >= n) {
             return null;
         } else {
-            return children[index];
+            return c[index];
         }
     }
 
+    /**
+     * Get all the children of this node, in order, reading the node from the
+     * finder first if necessary.  The array is shared and must not be
+     * modified.  It is not affected by later changes to this node.
+     *
+     * @return The children, either TestResult or TRT_TreeNode objects; never null.
+     */
+    synchronized Object[] getChildren() {
+        scanIfNeeded();
+
+        if (childrenView == null) {
+            childrenView = children == null ? new Object[0] : Arrays.copyOf(children, childCount);
+        }
+        return childrenView;
+    }
+
     /**
      * @return List of TestResult objects in this node.  null if none
      */
     @Override
     public TestResult[] getTestResults() {
-        scanIfNeeded();
+        TestResult[] leafs = getTestResultsView();
+        return leafs == null ? null : leafs.clone();
+    }
 
-        TestResult[] leafs = null;
+    /**
+     * Get the tests in this node, reading the node from the finder first if
+     * necessary.  The array is shared and must not be modified.  It is not
+     * affected by later changes to this node.
+     *
+     * @return The tests in this node, in order.  null if none.
+     * @see #getTestResults()
+     */
+    synchronized TestResult[] getTestResultsView() {
+        scanIfNeeded();
 
-        if (children != null && children.length != 0) {
-            for (Object child : children) {
-                if (child instanceof TestResult) {
-                    leafs = (TestResult[]) DynamicArray.append(leafs, child);
+        if (resultsView == null && childCount > 0) {
+            TestResult[] leafs = new TestResult[childCount];
+            int n = 0;
+            for (int i = 0; i < childCount; i++) {
+                if (children[i] instanceof TestResult) {
+                    leafs[n++] = (TestResult) children[i];
                 }
-            }   // for
+            }
+            resultsView = n == 0 ? NO_RESULTS : Arrays.copyOf(leafs, n);
         }
 
-        return leafs;
+        return resultsView == null || resultsView.length == 0 ? null : resultsView;
     }
 
     /**
@@ -391,21 +498,33 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      */
     @Override
     public TestResultTable.TreeNode[] getTreeNodes() {
-        scanIfNeeded();
-
-        if (children == null) {
-            return null;
-        }
+        TRT_TreeNode[] leafs = getTreeNodesView();
+        return leafs == null ? null : leafs.clone();
+    }
 
-        TestResultTable.TreeNode[] leafs = null;
+    /**
+     * Get the branches of this node, reading the node from the finder first if
+     * necessary.  The array is shared and must not be modified.  It is not
+     * affected by later changes to this node.
+     *
+     * @return The child nodes of this node, in order.  null if none.
+     * @see #getTreeNodes()
+     */
+    synchronized TRT_TreeNode[] getTreeNodesView() {
+        scanIfNeeded();
 
-        for (Object child : children) {
-            if (child instanceof TreeNode) {
-                leafs = (TreeNode[]) DynamicArray.append(leafs, child);
+        if (nodesView == null && childCount > 0) {
+            TRT_TreeNode[] leafs = new TRT_TreeNode[childCount];
+            int n = 0;
+            for (int i = 0; i < childCount; i++) {
+                if (children[i] instanceof TRT_TreeNode) {
+                    leafs[n++] = (TRT_TreeNode) children[i];
+                }
             }
+            nodesView = n == 0 ? NO_NODES : Arrays.copyOf(leafs, n);
         }
 
-        return leafs;
+        return nodesView == null || nodesView.length == 0 ? null : nodesView;
     }
 
     @Override
@@ -421,13 +540,15 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     public boolean isLeaf(int index) {
         scanIfNeeded();
 
-        if (index < 0 || index >= children.length) {
+        int n = childCount;
+        Object[] c = children;
+        if (c == null || index < 0 || index >= n) {
             return false;
-        } else if (children[index] instanceof TestResult) {
+        } else if (c[index] instanceof TestResult) {
             return true;
-        } else if (children[index] instanceof TRT_TreeNode) {
+        } else if (c[index] instanceof TRT_TreeNode) {
             // if there are no nodes or tests below, then...
-            return children == null || children.length == 0;
+            return n == 0;
         } else        // should never be the case
         {
             return false;
@@ -438,11 +559,25 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     public int[] getChildStatus() {
         scanSubtree(this);
 
-        if (childStats == null) {
-            refreshChildStats(this);
+        return getCurrentChildStatus();
+    }
+
+    /**
+     * Get the statistics for the tests found so far under this node without
+     * causing a subtree scan.  The counters are maintained as tests are
+     * added, replaced and removed, so this is a constant time operation which
+     * does not need any locks.
+     *
+     * @return A snapshot array of length Status.NUM_STATES.
+     * @see #getChildStatus()
+     */
+    public int[] getCurrentChildStatus() {
+        int[] result = new int[Status.NUM_STATES];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = childStats.get(i);
         }
 
-        return childStats;
+        return result;
     }
 
     @Override
@@ -457,13 +592,15 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             scanIfNeeded();
         }
 
+        int n = childCount;
+        Object[] c = children;
         if (target == null) {
             return -2;
-        } else if (children == null) {
+        } else if (c == null) {
             return -1;      // not found
         } else {
-            for (int i = 0; i < children.length; i++) {
-                if (children[i] == target) {
+            for (int i = 0; i < n; i++) {
+                if (c[i] == target) {
                     return i;
                 }
             }
@@ -489,13 +626,15 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
         //if (file.isDirectory())
         //   throw new JavaTestError(i18n, "trttn.noPaths");
 
-        if (children == null || children.length == 0) {
+        int n = childCount;
+        Object[] c = children;
+        if (c == null || n == 0) {
             return null;
         }
 
-        for (int i = 0; i < children.length; i++) {
-            if (children[i] instanceof TestResult) {
-                TestResult tr = (TestResult) children[i];
+        for (int i = 0; i < n; i++) {
+            if (c[i] instanceof TestResult) {
+                TestResult tr = (TestResult) c[i];
 
                 try {
                     String name = tr.getDescription().getRootRelativeURL();
@@ -508,8 +647,8 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
                 }
 
                 if (name.equals(url)) {
-                    found = (TestResult) children[i];
-                    i = children.length;    // exit loop
+                    found = (TestResult) c[i];
+                    i = n;    // exit loop
                 } else {
                     found = null;
                 }
@@ -525,7 +664,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      * @see #getSize()
      */
     int getCurrentSize() {
-        return counter;
+        return counter.get();
     }
 
     /**
@@ -538,7 +677,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      */
     @java.lang.Deprecated
     void incChildStat(int which) {
-        childStats[which]++;
+        childStats.incrementAndGet(which);
     }
 
     /**
@@ -551,21 +690,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      */
     @java.lang.Deprecated
     void decChildStat(int which) {
-        childStats[which]--;
-    }
-
-    void invalidateChildStats() {
-        childStats = null;
-        notifyCounterChange();
-        TRT_TreeNode parent = (TRT_TreeNode) getParent();
-
-        if (parent != null) {
-            parent.invalidateChildStats();
-        }
-    }
-
-    boolean isChildStatsValid() {
-        return childStats == null;
+        childStats.decrementAndGet(which);
     }
 
     /**
@@ -576,7 +701,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      */
     @java.lang.Deprecated
     void incNodeCounter() {
-        counter++;
+        counter.incrementAndGet();
     }
 
     // -- END REFRESH METHODS --
@@ -662,10 +787,15 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             scanIfNeeded();
         }
 
+        if (childCount >= CHILD_INDEX_THRESHOLD) {
+            buildChildIndexes();
+            return findResult(jtrPath);
+        }
+
         int found = -1;
 
-        if (children != null && children.length != 0) {
-            for (int i = 0; i < children.length; i++) {
+        if (children != null && childCount != 0) {
+            for (int i = 0; i < childCount; i++) {
                 if (children[i] instanceof TestResult) {
                     TestResult tr = (TestResult) children[i];
 
@@ -720,10 +850,16 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             throw new JavaTestError(i18n, "trttn.nullSearch");
         }
 
-        if (children == null || children.length == 0) {
+        if (childCount >= CHILD_INDEX_THRESHOLD) {
+            buildChildIndexes();
+            Integer i = nodeIndex.get(name);
+            return i == null ? -1 : i;
+        }
+
+        if (children == null || childCount == 0) {
             found = -1;
         } else {
-            for (int i = 0; i < children.length; i++) {
+            for (int i = 0; i < childCount; i++) {
                 if (children[i] instanceof TRT_TreeNode) {
                     TRT_TreeNode tn = (TRT_TreeNode) children[i];
                     if (tn.getName().equals(name)) {
@@ -759,7 +895,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
         }
 
         if (children == null) {
-            children = new Object[0];
+            children = new Object[INITIAL_CHILDREN];
         }
         /*
         File thisDir = new File(table.getTestFinder().getRootDir().getAbsolutePath() + File.separator +
@@ -780,11 +916,12 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
 
             // to prevent infinite recursion
             if (filesToScan == null) {
-                filesToScan = new String[0];
+                filesToScan = new ArrayList<>();
+                filesToScanSet = new HashSet<>();
             }
 
-            for (int i = 0; i < filesToScan.length; i++) {
-                processFile(new File(filesToScan[i]));
+            for (int i = 0; i < filesToScan.size(); i++) {
+                processFile(new File(filesToScan.get(i)));
             }
         }
 
@@ -797,13 +934,13 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
 
         if (filesToScan != null) {
             // should be seeded to skip the root, which handled above?
-            for (int i = 0; i < filesToScan.length; i++) {
+            for (int i = 0; i < filesToScan.size(); i++) {
 
-                if (Objects.equals(filesToScan[i], this.name)) {
+                if (Objects.equals(filesToScan.get(i), this.name)) {
                     processFile(thisDir);
                 } else {
                     processFile(new File(TestResultTable.getRootRelativePath(this) +
-                            File.separator + filesToScan[i]));
+                            File.separator + filesToScan.get(i)));
                 }
             }   // for
         } else {
@@ -821,7 +958,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
 
     // SPECIAL TEST REFRESH/REPLACE METHODS
     synchronized TestResult resetTest(int index, TestResult tr) {
-        if (!(children[index] == tr)) {
+        if (index < 0 || index >= childCount || !(children[index] == tr)) {
             return null;
         }
 
@@ -896,8 +1033,6 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             //File thisDir = new File(getTestSuiteRootPathPrefix(),
             //              TestResultTable.getRootRelativePath(this));
             File thisDir = new File(TestResultTable.getRootRelativePath(this));
-            TestFinder finder = table.getTestFinder();
-
             File[] files = null;
             long thisScanDate = table.getLastModifiedTime(thisDir);
 
@@ -907,15 +1042,8 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
                 return false;
             }
 
-            synchronized (finder) {
-                finder.read(thisDir);
-                // we should not get back any tests
-                File[] tmp = finder.getFiles();
-
-                // shallow copy before releasing finder
-                files = new File[tmp.length];
-                System.arraycopy(tmp, 0, files, 0, tmp.length);
-            }   // sync
+            // we should not get back any tests
+            files = table.readFinderFile(thisDir).files;
 
 
             long cachedScanDate = lastScanDate;
@@ -934,6 +1062,8 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
                     if (table.getLastModifiedTime(file) > cachedScanDate) {
                         usedTests.addAll(updateFile(file));
                     } else {
+                        // unchanged, so its tests are still needed
+                        usedTests.addAll(getTestsFromFile(file));
                     }
                 }
             }   // for
@@ -990,6 +1120,116 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
         return true;
     }
 
+    /**
+     * Read one of the files in this folder again, whether or not the folder
+     * itself has been modified since it was read.  Tests which have changed
+     * are replaced, and tests which the file no longer describes are removed.
+     * If the finder no longer lists the file in this folder, all the tests
+     * which were read from it are removed.
+     *
+     * @param file the root-relative path of the file
+     * @return the tests now read from the file
+     * @see com.sun.javatest.TestResultTable#refreshFile(String)
+     */
+    synchronized List<TestResult> refreshFile(File file) {
+        List<TestResult> oldTests = getTestsFromFile(file);
+        List<TestResult> newTests = new ArrayList<>();
+        TestDescription[] tds = isListed(file)
+                ? table.readFinderFile(file).tests : new TestDescription[0];
+
+        for (TestDescription td : tds) {
+            String url = td.getRootRelativeURL();
+            int index = getTestIndex(url);
+            if (index == -1) {
+                TestResult tr = table.getCachedResult(td);
+                if (tr == null) {
+                    tr = TestResult.notRun(td);
+                }
+                table.update(tr, true);
+                table.notifyNewLeaf(TestResultTable.getObjectPath(this), tr,
+                        getTestIndex(tr, true));
+                newTests.add(tr);
+                continue;
+            }
+
+            TestResult tr = (TestResult) children[index];
+            TestDescription oldTd;
+            try {
+                oldTd = tr.getDescription();
+            } catch (TestResult.Fault f) {
+                oldTd = null;
+            }
+
+            if (!td.equals(oldTd)) {
+                // unlike addChild, always replace: the old result is out of date
+                TestResult newTr = TestResult.notRun(td);
+                replaceTest(newTr, index);
+                table.notifyChangeLeaf(TestResultTable.getObjectPath(this),
+                        newTr, index, tr);
+                tr = newTr;
+            }
+            newTests.add(tr);
+        }
+
+        for (TestResult tr : oldTests) {
+            if (!newTests.contains(tr)) {
+                int index = rmChild(tr);
+                if (index != -1) {
+                    table.notifyRemoveLeaf(TestResultTable.getObjectPath(this), tr, index);
+                }
+            }
+        }
+
+        return newTests;
+    }
+
+    /**
+     * Is the given file one of those which the finder reports for this folder.
+     */
+    private boolean isListed(File file) {
+        File thisDir = isRoot() ? table.getTestSuiteRoot()
+                : new File(TestResultTable.getRootRelativePath(this));
+        File absFile = new File(table.getTestFinder().getRootDir(), file.getPath());
+        for (File f : table.readFinderFile(thisDir).files) {
+            if (f.isAbsolute() ? f.equals(absFile) : f.getPath().equals(file.getPath())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the tests in this folder which were read from the given file.
+     *
+     * @param file the path of the file, either absolute or root-relative
+     */
+    private synchronized List<TestResult> getTestsFromFile(File file) {
+        List<TestResult> result = new ArrayList<>();
+        String path = file.getPath();
+        if (file.isAbsolute()) {
+            String rootDir = table.getTestFinder().getRootDir().getPath() + File.separator;
+            if (!path.startsWith(rootDir)) {
+                return result;
+            }
+            path = path.substring(rootDir.length());
+        }
+        path = path.replace(File.separatorChar, '/');
+
+        for (int i = 0; i < childCount; i++) {
+            if (children[i] instanceof TestResult) {
+                TestResult tr = (TestResult) children[i];
+                String name = tr.getTestName();
+                int lastSlash = name.lastIndexOf('/');
+                int lastHash = name.lastIndexOf('#');
+                String filename = lastHash > lastSlash ? name.substring(0, lastHash) : name;
+                if (filename.equals(path)) {
+                    result.add(tr);
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * @return the new test result object.  may be the same if no
      * refresh was needed.  A null indicates a error.
@@ -1087,17 +1327,8 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             System.out.println("Updating file " + fileToScan.getPath());
         }
 
-        TestFinder finder = table.getTestFinder();
-        TestDescription[] tds = null;
         // what if test ids removed?
-        synchronized (finder) {
-            finder.read(fileToScan);
-            TestDescription[] tds_tmp = finder.getTests();
-
-            // shallow copy for safety
-            tds = new TestDescription[tds_tmp.length];
-            System.arraycopy(tds_tmp, 0, tds, 0, tds_tmp.length);
-        }       // sync
+        TestDescription[] tds = table.readFinderFile(fileToScan).tests;
 
         for (TestDescription td : tds) {
             TestResult tr = getTestResult(td.getRootRelativeURL());
@@ -1188,17 +1419,13 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
                 oldTd == null) {
             // run the finder on the correct file
             // find the matching TD
-            TestFinder finder = table.getTestFinder();
-            synchronized (finder) {
-                finder.read(fileToScan);
-                TestDescription[] tds = finder.getTests();
-                for (TestDescription td : tds) {
-                    if (td.getRootRelativeURL().equals(name)) {
-                        possibleNew = td;   // found
-                        break;
-                    }
+            TestDescription[] tds = table.readFinderFile(fileToScan).tests;
+            for (TestDescription td : tds) {
+                if (td.getRootRelativeURL().equals(name)) {
+                    possibleNew = td;   // found
+                    break;
                 }
-            }   // sync
+            }
         } else {
         }
         // postcondition - oldTd may still be null
@@ -1216,11 +1443,12 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     private TestResult replaceTest(TestResult newTr, int index) {
         TestResult oldTr = (TestResult) children[index];
 
-        children[index] = newTr;
+        setChild(index, newTr);
         notifyReplacedResult(oldTr, newTr, index);
         newTr.setParent(this);
         oldTr.setParent(null);
-        //invalidateChildStats();
+        uncountResult(this, oldTr);
+        countResult(this, newTr);
         return newTr;
     }
 
@@ -1246,47 +1474,30 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
         }
         ArrayList<TestResult> result = new ArrayList<>();
 
-        TestDescription[] tds = null;
-        File[] files = null;
-        TestFinder tf = table.getTestFinder();
-
-        // finder object has state, so we need to control access to it
-        synchronized (tf) {
-            tf.read(file);
-            TestDescription[] tds_tmp = tf.getTests();
-            File[] files_tmp = tf.getFiles();
-
-            // shallow copy everything just in case...
-            // copy tests array
-            if (tds_tmp != null && tds_tmp.length != 0) {
-                tds = new TestDescription[tds_tmp.length];
-                System.arraycopy(tds_tmp, 0, tds, 0, tds_tmp.length);
-            } else {
-                tds = new TestDescription[0];
-            }
-
-            // copy files array
-            if (files_tmp != null && files_tmp.length != 0) {
-                files = new File[files_tmp.length];
-                System.arraycopy(files_tmp, 0, files, 0, files_tmp.length);
-            } else {
-                files = new File[0];
-            }
+        // finder object has state, so access to it is controlled by the table
+        TRT_Snapshot.Entry found = table.readFinderFile(file);
+        TestDescription[] tds = found.tests;
+        File[] files = found.files;
 
-            if (debug > 0) {
-                Debug.println("Read " + tds.length + " tests, and " +
-                        files.length + " files.");
-            }
-        }   // sync
+        if (debug > 0) {
+            Debug.println("Read " + tds.length + " tests, and " +
+                    files.length + " files.");
+        }
 
         // process the tests
         for (TestDescription td : tds) {
             TestResult tr = table.getCachedResult(td);
-            if (tr == null) {
+            boolean notRun = tr == null;
+            if (notRun) {
                 tr = TestResult.notRun(td);
             }
 
             result.add(addChild(tr, true));
+
+            // the test has been indexed, the description can go
+            if (notRun && table.isDropDescriptions() && tr.getParent() == this) {
+                tr.setDescriptionSource(file);
+            }
         }   // for
 
         if (debug > 0) {
@@ -1299,6 +1510,46 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
         return result;
     }
 
+    /**
+     * Read the descriptions of tests in this node from the file they were
+     * found in, for tests whose descriptions have been dropped to save memory.
+     * All the tests from the file are given their descriptions back, since
+     * they are likely to be needed soon too.  This node is not locked.
+     *
+     * @param source The file the finder read to find the tests.
+     * @param url    The test whose description is wanted.
+     * @return The description of the given test, or null if the finder no
+     * longer finds it in the file.
+     * @see TestResult#setDescriptionSource
+     */
+    TestDescription restoreDescriptions(File source, String url) {
+        if (table == null || table.getTestFinder() == null) {
+            return null;
+        }
+
+        TestDescription[] tds = table.readFinderFile(source).tests;
+        Map<String, TestDescription> byUrl = new HashMap<>();
+        for (TestDescription td : tds) {
+            byUrl.put(td.getRootRelativeURL(), td);
+        }
+
+        int n = childCount;
+        Object[] c = children;
+        for (int i = 0; c != null && i < n; i++) {
+            if (c[i] instanceof TestResult) {
+                TestResult tr = (TestResult) c[i];
+                if (tr.getDescriptionSource() == source) {
+                    TestDescription td = byUrl.get(tr.getTestName());
+                    if (td != null && !tr.getTestName().equals(url)) {
+                        tr.restoreDescription(td);
+                    }
+                }
+            }
+        }
+
+        return byUrl.get(url);
+    }
+
     /**
      * Takes the files the Finder returned and creates any needed nodes.
      */
@@ -1502,7 +1753,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
 
         node.scanIfNeeded();
 
-        TRT_TreeNode[] children = (TRT_TreeNode[]) node.getTreeNodes();
+        TRT_TreeNode[] children = node.getTreeNodesView();
 
         if (children != null && children.length != 0) {
             for (TRT_TreeNode child : children) {
@@ -1616,7 +1867,7 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             Debug.println("   -> local node ref: " + this);
             Debug.println("   -> local node name: " + this.getName());
             Debug.println("   -> local size: " +
-                    (children == null ? 0 : children.length));
+                    childCount);
         }
 
         int oldIndex = getTestIndex(tr, suppressScan);
@@ -1631,21 +1882,16 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
                     Debug.println("   -> no old entry for " + tr);
                 }
 
-                try {
-                    // XXX should cache result of Class.forName
-                    children = DynamicArray.append(children, tr, Class.forName("java.lang.Object"));
-                    tr.setParent(this);
-                    bubbleUpCounterInc();
-                    notifyInsResult(tr, children.length - 1);
-                }       // try
-                catch (ClassNotFoundException e) {
-                    throw new JavaTestError(i18n, "trttn.noObject", e);
-                }       // catch
+                int index = appendChild(tr);
+                tr.setParent(this);
+                countResult(this, tr);
+                bubbleUpCounterInc();
+                notifyInsResult(tr, index);
             }
         } else if (shouldReplaceTest(oldIndex, tr, suppressScan)) {
             // replace a previous result
             oldTR = (TestResult) children[oldIndex];
-            children[oldIndex] = tr;
+            setChild(oldIndex, tr);
             if (debug > 0) {
                 Debug.println("   -> ** replacing existing TR with " + tr);
                 Debug.println("   -> " + tr.getTestName());
@@ -1653,8 +1899,12 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
                 Debug.println("   -> node: " + this);
             }
 
-            oldTR.setParent(null);
+            if (oldTR != tr) {
+                oldTR.setParent(null);
+                uncountResult(this, oldTR);
+            }
             tr.setParent(this);
+            countResult(this, tr);
 
             notifyReplacedResult(oldTR, tr, oldIndex);
         }   // else if
@@ -1671,11 +1921,14 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
                 Debug.println("   -> ignored new ref.: " + tr);
             }
 
+            // the status of the existing object may have changed in place
+            if (children[oldIndex] == tr) {
+                countResult(this, tr);
+            }
+
             return tr;
         }
 
-        invalidateChildStats();
-
         return oldTR;
     }
 
@@ -1693,12 +1946,9 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             scanIfNeeded();
         }
 
-        try {
-            children = DynamicArray.append(children, tn,
-                    Class.forName("java.lang.Object"));
-        } catch (ClassNotFoundException e) {
-            throw new JavaTestError(i18n, "trttn.noObject", e);
-        }
+        appendChild(tn);
+
+        addChildStats(this, tn.getCurrentChildStatus(), 1);
     }
 
     /**
@@ -1710,11 +1960,13 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             throw new IllegalStateException("Node is empty!");
         }
 
-        for (int i = 0; i < children.length; i++) {
+        for (int i = 0; i < childCount; i++) {
             if (children[i] == tn) {
-                Object[] newarr = DynamicArray.remove(children, i);
-                children = newarr == null ? new Object[0] : newarr;
-                invalidateChildStats();
+                removeChild(i);
+                addChildStats(this, tn.getCurrentChildStatus(), -1);
+                if (table != null) {
+                    unindexSubtree(table.getIndex(), tn);
+                }
                 notifyRemovedBranch(i);
 
                 getEnclosingTable().notifyRemoveLeaf(
@@ -1735,11 +1987,10 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
             throw new IllegalStateException("Node is empty!");
         }
 
-        for (int i = 0; i < children.length; i++) {
+        for (int i = 0; i < childCount; i++) {
             if (children[i] == tr) {
-                Object[] newarr = DynamicArray.remove(children, i);
-                children = newarr == null ? new Object[0] : newarr;
-                invalidateChildStats();
+                removeChild(i);
+                uncountResult(this, tr);
                 notifyRemovedResult(tr, i);
                 return i;
             }
@@ -1748,6 +1999,111 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
         return -1;      // not found!
     }
 
+    /**
+     * Add a child at the end of the list, growing the storage if needed.
+     * Tests and nodes are always appended in the order the finder returns
+     * them, so this is the only insertion needed.
+     *
+     * @return the index of the new child
+     */
+    private int appendChild(Object child) {
+        int n = childCount;
+        if (children == null) {
+            children = new Object[INITIAL_CHILDREN];
+        } else if (n == children.length) {
+            children = Arrays.copyOf(children, n * 2);
+        }
+
+        children[n] = child;
+        childCount = n + 1;
+        if (resultIndex != null) {
+            indexChild(child, n);
+        }
+        invalidateViews();
+        return n;
+    }
+
+    private void setChild(int index, TestResult tr) {
+        Object old = children[index];
+        children[index] = tr;
+        if (resultIndex != null && !(old instanceof TestResult &&
+                ((TestResult) old).getWorkRelativePath().equals(tr.getWorkRelativePath()))) {
+            resultIndex = null;
+            nodeIndex = null;
+        }
+        invalidateViews();
+    }
+
+    /**
+     * Remove the child at the given index.  A new array is made, so that
+     * unsynchronized readers never see the entries move.
+     */
+    private void removeChild(int index) {
+        Object[] newarr = new Object[children.length];
+        System.arraycopy(children, 0, newarr, 0, index);
+        System.arraycopy(children, index + 1, newarr, index, childCount - index - 1);
+        children = newarr;
+        childCount--;
+        resultIndex = null;
+        nodeIndex = null;
+        invalidateViews();
+    }
+
+    private void invalidateViews() {
+        childrenView = null;
+        resultsView = null;
+        nodesView = null;
+    }
+
+    private void buildChildIndexes() {
+        if (resultIndex == null) {
+            resultIndex = new int[Integer.highestOneBit(childCount) * 4];
+            resultIndexSize = 0;
+            nodeIndex = new HashMap<>();
+            for (int i = 0; i < childCount; i++) {
+                indexChild(children[i], i);
+            }
+        }
+    }
+
+    // the first of several children with the same name is the one found
+    private void indexChild(Object child, int index) {
+        if (child instanceof TestResult) {
+            if (resultIndexSize * 2 >= resultIndex.length) {
+                resultIndex = null;
+                buildChildIndexes();
+                return;
+            }
+
+            String path = ((TestResult) child).getWorkRelativePath();
+            int mask = resultIndex.length - 1;
+            int slot = path.hashCode() & mask;
+            while (resultIndex[slot] != 0) {
+                if (((TestResult) children[resultIndex[slot] - 1]).getWorkRelativePath().equals(path)) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            resultIndex[slot] = index + 1;
+            resultIndexSize++;
+        } else if (child instanceof TRT_TreeNode) {
+            nodeIndex.putIfAbsent(((TRT_TreeNode) child).getName(), index);
+        }
+    }
+
+    private int findResult(String jtrPath) {
+        int mask = resultIndex.length - 1;
+        int slot = jtrPath.hashCode() & mask;
+        while (resultIndex[slot] != 0) {
+            int index = resultIndex[slot] - 1;
+            if (((TestResult) children[index]).getWorkRelativePath().equals(jtrPath)) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
     /**
      * Determine whether or not a test object should replace an existing
      * one.  This is done by comparing the test URL, the status, then the
@@ -1766,8 +2122,8 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
     private boolean shouldReplaceTest(int index, TestResult newone,
                                       boolean suppressScan) {
         // check for out of range indexes, types and null
-        if (!(children[index] instanceof TestResult) || newone == null ||
-                index < 0 || index >= children.length) {
+        if (index < 0 || index >= childCount ||
+                !(children[index] instanceof TestResult) || newone == null) {
             return false;
         }
 
@@ -1845,13 +2201,11 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
      * The current node's counter IS incremented.
      */
     void bubbleUpCounterInc() {
-        counter++;
-        notifyCounterChange();
-        TRT_TreeNode parent = (TRT_TreeNode) getParent();
-
-        if (parent != null) {
-            parent.bubbleUpCounterInc();
+        for (TRT_TreeNode n = this; n != null; n = n.parent) {
+            n.counter.incrementAndGet();
         }
+
+        notifyCounterChangeToRoot();
     }
 
     private int getTestSuitePathLen() {
@@ -1936,6 +2290,28 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
         }
     }
 
+    /**
+     * Signal a counter change on this node and all its ancestors.  Nodes
+     * without observers are skipped, and when a notification delay is in
+     * effect, any further changes to a node before the notification is
+     * delivered are folded into that single notification.
+     */
+    private void notifyCounterChangeToRoot() {
+        if (observerTable.isEmpty()) {
+            return;
+        }
+
+        for (TRT_TreeNode n = this; n != null; n = n.parent) {
+            if (observerTable.containsKey(n)) {
+                if (counterNotifyDelay > 0) {
+                    counterNotifier.schedule(n);
+                } else {
+                    n.notifyCounterChange();
+                }
+            }
+        }
+    }
+
     private void notifyCounterChange() {
         TestResultTable.TreeNodeObserver[] observers = observerTable.get(this);
         if (observers != null) {
@@ -1945,6 +2321,55 @@ public class TRT_TreeNode implements TestResultTable.TreeNode {
         }
     }
 
+    /**
+     * Collects nodes whose counters changed and delivers one
+     * {@code countersInvalidated} notification per node at the end of
+     * each time window.
+     */
+    private static class CounterNotifier {
+        private final Set<TRT_TreeNode> pending = new LinkedHashSet<>();
+        private Timer timer;
+        private boolean scheduled;
+
+        synchronized void schedule(TRT_TreeNode node) {
+            if (!pending.add(node) || scheduled) {
+                return;     // will be covered by the pending notification
+            }
+
+            if (timer == null) {
+                timer = new Timer("TRT counter notifier", true);
+            }
+
+            scheduled = true;
+            timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, counterNotifyDelay);
+        }
+
+        void flush() {
+            TRT_TreeNode[] nodes;
+            synchronized (this) {
+                nodes = pending.toArray(new TRT_TreeNode[pending.size()]);
+                pending.clear();
+                scheduled = false;
+            }
+
+            for (TRT_TreeNode node : nodes) {
+                try {
+                    node.notifyCounterChange();
+                } catch (RuntimeException e) {
+                    // don't let a bad observer kill the timer thread
+                    if (debug > 0) {
+                        e.printStackTrace(Debug.getWriter());
+                    }
+                }
+            }
+        }
+    }
+
     public static class Fault extends Exception {
         Fault(I18NResourceBundle i18n, String s) {
             super(i18n.getString(s));
@@ -31,16 +31,22 @@ import com.sun.javatest.util.StringArray;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * TestDescription objects embody the parameters of a test and provide the
@@ -67,12 +73,15 @@ public class TestDescription implements Serializable {
      */
     private String rootRelativePath;
     /**
-     * The data for this test description, organized as a sequence of
-     * name-value pairs.
-     *
-     * @serial
+     * The names of the parameters of this test description, in sorted order.
+     * The array is shared by all test descriptions with the same set of
+     * parameter names, and must not be modified.
      */
-    private String[] fields;
+    private transient String[] keys;
+    /**
+     * The values of the parameters, corresponding to the entries in keys.
+     */
+    private transient String[] values;
     /**
      * Cached version of the root relative path.
      *
@@ -80,6 +89,39 @@ public class TestDescription implements Serializable {
      */
     private String rrurl;
 
+    /**
+     * The serialized form is unchanged from when the parameters were kept
+     * in a single array of name-value pairs, called "fields".
+     *
+     * @serialField rootDir          String   Root directory for the test suite
+     * @serialField rootRelativePath String   Root relative path for this test description
+     * @serialField fields           String[] The parameters, as a sequence of name-value pairs
+     * @serialField rrurl            String   Cached version of the root relative URL
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("rootDir", String.class),
+            new ObjectStreamField("rootRelativePath", String.class),
+            new ObjectStreamField("fields", String[].class),
+            new ObjectStreamField("rrurl", String.class)
+    };
+    private static final long serialVersionUID = 4618585907968569582L;
+
+    /**
+     * Shared, sorted arrays of parameter names, indexed by their contents.
+     * Test descriptions from the same test suite mostly have one of a few
+     * sets of parameters, so this avoids a copy of the names in each one.
+     */
+    private static final Map<List<String>, String[]> keySets = new ConcurrentHashMap<>();
+    private static final int MAX_KEY_SETS = 1024;
+
+    /**
+     * The names of the parameters whose values are shared; the values of
+     * others, such as the title and source, are mostly different for
+     * each test, and would only fill the string table.
+     */
+    private static final Set<String> SHARED_VALUES = new HashSet<>(Arrays.asList(
+            "keywords", "executeClass", "context", "timeout", "selectIf"));
+
     /**
      * Construct a test description from the parameters of a recognized descriptions.
      *
@@ -124,7 +166,7 @@ public class TestDescription implements Serializable {
         for (Map.Entry<?, ?> entry : params.entrySet()) {
             insert(v, (String) entry.getKey(), (String) entry.getValue());
         }
-        fields = v.toArray(new String[v.size()]);
+        setFields(v.toArray(new String[v.size()]));
     }
 
     /**
@@ -145,7 +187,95 @@ public class TestDescription implements Serializable {
                 insert(v, key, value);
             }
         }
-        fields = v.toArray(new String[v.size()]);
+        setFields(v.toArray(new String[v.size()]));
+    }
+
+    /**
+     * Internal constructor used when restoring from a tree snapshot;
+     * the fields are known to be sorted already.
+     */
+    private TestDescription(String root, String rrp, String[] sortedFields, boolean restored) {
+        rootDir = root;
+        rootRelativePath = rrp;
+        setFields(sortedFields);
+    }
+
+    /**
+     * Recover TestDescription from a tree snapshot.
+     *
+     * @see TRT_Snapshot
+     */
+    static TestDescription restore(String root, String rrp, String... sortedFields) {
+        return new TestDescription(root, rrp, sortedFields, true);
+    }
+
+    /**
+     * Get the parameters as a sorted sequence of name-value pairs,
+     * for TRT_Snapshot.  A new array is built on each call, since the
+     * names are shared with other test descriptions and kept apart from
+     * the values; callers should not call it more than once for each
+     * test description.
+     */
+    String[] getFields() {
+        String[] fields = new String[keys.length * 2];
+        for (int i = 0; i < keys.length; i++) {
+            fields[i * 2] = keys[i];
+            fields[i * 2 + 1] = values[i];
+        }
+        return fields;
+    }
+
+    /**
+     * Set the parameters from a sorted sequence of name-value pairs,
+     * sharing the names with other test descriptions, and the values of
+     * those parameters which mostly have one of a few values.
+     */
+    private void setFields(String... fields) {
+        int n = fields.length / 2;
+        String[] k = new String[n];
+        String[] v = new String[n];
+        for (int i = 0; i < n; i++) {
+            k[i] = fields[i * 2].intern();
+            String value = fields[i * 2 + 1];
+            v[i] = value != null && SHARED_VALUES.contains(k[i]) ? value.intern() : value;
+        }
+        keys = shareKeys(k);
+        values = v;
+    }
+
+    private static String[] shareKeys(String... k) {
+        List<String> l = Arrays.asList(k);
+        String[] shared = keySets.get(l);
+        if (shared != null) {
+            return shared;
+        }
+
+        if (keySets.size() >= MAX_KEY_SETS) {
+            // unusual test suite; don't let the table grow without limit
+            return k;
+        }
+
+        shared = keySets.putIfAbsent(l, k);
+        return shared == null ? k : shared;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField f = out.putFields();
+        f.put("rootDir", rootDir);
+        f.put("rootRelativePath", rootRelativePath);
+        f.put("fields", getFields());
+        f.put("rrurl", rrurl);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField f = in.readFields();
+        rootDir = (String) f.get("rootDir", null);
+        String rrp = (String) f.get("rootRelativePath", null);
+        rootRelativePath = rrp;
+        String[] fields = (String[]) f.get("fields", null);
+        setFields(fields == null ? new String[0] : fields);
+        rrurl = (String) f.get("rrurl", null);
     }
 
     /**
@@ -213,10 +343,46 @@ public class TestDescription implements Serializable {
     @Override
     public int hashCode() {
         int hash = 3;
-        hash = 43 * hash + Arrays.deepHashCode(this.fields);
+        // same as Arrays.hashCode of the name-value pairs
+        int h = 1;
+        for (int i = 0; i < keys.length; i++) {
+            h = 31 * h + keys[i].hashCode();
+            h = 31 * h + (values[i] == null ? 0 : values[i].hashCode());
+        }
+        hash = 43 * hash + h;
         return hash;
     }
 
+    /**
+     * Get a 64-bit checksum of the path and parameters of this test
+     * description, by which changes to the test description can be noticed
+     * across sessions.  Unlike {@link #hashCode}, the value does not depend
+     * on the platform's string hash.
+     *
+     * @return a checksum of the contents of this test description
+     * @see FilterVerdicts
+     */
+    long getChecksum() {
+        // 64-bit FNV-1a over the chars of each string, each followed by a separator
+        long h = 0xcbf29ce484222325L;
+        h = checksum(h, rootRelativePath);
+        for (int i = 0; i < keys.length; i++) {
+            h = checksum(h, keys[i]);
+            h = checksum(h, values[i]);
+        }
+        return h;
+    }
+
+    private static long checksum(long h, String s) {
+        if (s != null) {
+            for (int i = 0; i < s.length(); i++) {
+                h = (h ^ s.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        // distinguish null from "" and keep the strings apart
+        return (h ^ (s == null ? 0x10000 : 0x10001)) * 0x100000001b3L;
+    }
+
     @Override
     public boolean equals(Object td) {
         if (!(td instanceof TestDescription)) {
@@ -231,16 +397,13 @@ public class TestDescription implements Serializable {
         }
 
         // raw compare
-        int pos = 0;
-        while (pos < fields.length) {
-            String otherVal = otherTd.getParameter(fields[pos]);
+        for (int i = 0; i < keys.length; i++) {
+            String otherVal = otherTd.getParameter(keys[i]);
 
             if (otherVal == null ||
-                    !otherVal.equals(fields[pos + 1])) {
+                    !otherVal.equals(values[i])) {
                 return false;
             }
-
-            pos += 2;
         }
 
         return true;
@@ -567,7 +730,7 @@ public class TestDescription implements Serializable {
      * @return the number of parameters
      */
     public int getParameterCount() {
-        return fields.length / 2;
+        return keys.length;
     }
 
     /**
@@ -582,23 +745,15 @@ public class TestDescription implements Serializable {
 
             @Override
             public boolean hasNext() {
-                if (fields == null || fields.length == 0 ||
-                        pos >= fields.length) {
-                    return false;
-                } else {
-                    return true;
-                }
+                return pos < keys.length;
             }
 
             @Override
             public String next() {
-                if (fields == null || fields.length == 0 ||
-                        pos == fields.length) {
+                if (pos >= keys.length) {
                     return null;
                 } else {
-                    String current = fields[pos];
-                    pos += 2;
-                    return current;
+                    return keys[pos++];
                 }
             }
 
@@ -616,36 +771,8 @@ public class TestDescription implements Serializable {
      * @return the value of the specified parameter, or null if not found
      */
     public String getParameter(String key) {
-        int lower = 0;
-        int upper = fields.length - 2;
-        int mid;
-
-        if (upper < 0) {
-            return null;
-        }
-
-        String last = fields[upper];
-        int cmp = key.compareTo(last);
-        if (cmp > 0) {
-            return null;
-        }
-
-        while (lower <= upper) {
-            // in next line, take care to ensure that mid is always even
-            mid = lower + ((upper - lower) / 4) * 2;
-            String e = fields[mid];
-            cmp = key.compareTo(e);
-            if (cmp < 0) {
-                upper = mid - 2;
-            } else if (cmp > 0) {
-                lower = mid + 2;
-            } else {
-                return fields[mid + 1];
-            }
-        }
-
-        // did not find an exact match
-        return null;
+        int i = Arrays.binarySearch(keys, key);
+        return i >= 0 ? values[i] : null;
     }
 
     /**
@@ -664,8 +791,8 @@ public class TestDescription implements Serializable {
     void save(Map<String, String> p) {
         saveField(p, "$root", rootDir);
         saveField(p, "$file", getFile().getPath());
-        for (int i = 0; i < fields.length; i += 2) {
-            saveField(p, fields[i], fields[i + 1]);
+        for (int i = 0; i < keys.length; i++) {
+            saveField(p, keys[i], values[i]);
         }
     }
 
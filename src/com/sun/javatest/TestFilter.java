@@ -103,6 +103,26 @@ public abstract class TestFilter {
         return accepts(tr.getDescription(), o);
     }
 
+    /**
+     * Get a key which identifies the verdicts given by this filter, so that
+     * they may be recorded and used again, in this or a later session, instead
+     * of calling {@link #accepts(TestDescription)}.  Filters with equal keys
+     * must give the same verdict for every test description, and the key must
+     * change whenever the configuration of the filter changes in a way which
+     * may change any verdict.
+     * <p>
+     * Filters whose verdicts depend on anything other than the test
+     * description, such as the results of tests, must return null, which is
+     * the default.
+     *
+     * @return a key identifying the verdicts of this filter, or null if the
+     * verdicts must not be recorded
+     * @since 6.0
+     */
+    public String getCacheKey() {
+        return null;
+    }
+
     /**
      * An interface for notification about why a test has been filtered out.
      */
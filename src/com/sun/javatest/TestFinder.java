@@ -410,6 +410,26 @@ public abstract class TestFinder {
         }
     }
 
+    /**
+     * Describe everything other than the content of a file on which the
+     * tests and files found by reading it depend, such as the arguments
+     * given to this finder.  What is found in a file may then be recorded
+     * in the work directory, and reused by later sessions for as long as
+     * the file and this description are unchanged.
+     * <p>
+     * The default implementation returns null, so that every file is
+     * always read again.  A finder should only override this if what it
+     * finds in a file depends on nothing but the file and the values
+     * included in the description; for example, not on other files, nor on
+     * the environment.
+     *
+     * @return a description of the configuration of this finder, or null
+     * if what it finds may not be reused
+     */
+    public String getSnapshotKey() {
+        return null;
+    }
+
     /**
      * Read a file, looking for test descriptions and other files that might
      * need to be read.  If the file is relative, it will be evaluated relative
@@ -26,15 +26,24 @@
  */
 package com.sun.javatest;
 
+import com.sun.javatest.finder.TestFinderDecorator;
 import com.sun.javatest.util.DynamicArray;
 import com.sun.javatest.util.I18NResourceBundle;
 
 import java.io.File;
 import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * An iterator-based interface to the tests in a test suite, as read by a test finder.
@@ -61,6 +70,7 @@ public class TestFinderQueue {
      * from this object.
      */
     public static final byte FULL_READ_AHEAD = 3;
+    private static final int PRE_READS_PER_THREAD = 4;
     private static int workerIndex;
     private static I18NResourceBundle i18n = I18NResourceBundle.getBundleForClass(TestFinder.class);
     private TestFinder testFinder;
@@ -95,6 +105,14 @@ public class TestFinderQueue {
     private Thread readAheadWorker;
     private Notifier notifier = new Notifier();
 
+    // parallel read ahead: files near the top of filesToRead are read early
+    // by other finders, and the results are used when the file's turn comes
+    private int preReadThreads;
+    private Supplier<? extends TestFinder> preReadFinderFactory;
+    private ExecutorService preReader;
+    private ThreadLocal<TestFinder> preReadFinders;
+    private final Map<String, Future<PreRead>> preReads = new HashMap<>();
+
 
     /**
      * Create a test finder queue.
@@ -436,6 +454,29 @@ public class TestFinderQueue {
         }
     }
 
+    /**
+     * Read files on several threads at once.  Each thread uses its own test
+     * finder, which must be configured in the same way as the finder given
+     * to {@link #setTestFinder setTestFinder}.  Files are still taken from
+     * the queue one at a time, in the same order as they would otherwise be,
+     * and all the observer calls are made as before; only the work of reading
+     * the files is done early.  At most a few files per thread are read ahead
+     * of the file currently being taken from the queue.
+     * This is independent of the {@link #setReadAheadMode read-ahead mode},
+     * which determines how many tests are taken from the queue early.
+     *
+     * @param threads       the number of threads to use; if less than 2,
+     *                      files are read by the calling thread as they are needed
+     * @param finderFactory creates the test finders for the threads
+     * @since 6.0
+     */
+    public synchronized void setParallelReadAhead(int threads,
+                                                  Supplier<? extends TestFinder> finderFactory) {
+        stopPreReader();
+        preReadThreads = threads < 2 ? 0 : threads;
+        preReadFinderFactory = preReadThreads == 0 ? null : finderFactory;
+    }
+
     /**
      * Flush all readahead.
      */
@@ -445,6 +486,7 @@ public class TestFinderQueue {
             tests.clear();
             testDescsFound.clear();
             filesRemainingCount = 0;
+            stopPreReader();
         }
         notifier.flushed();
     }
@@ -502,6 +544,7 @@ public class TestFinderQueue {
             // if we didn't find any more initial files, there is nothing more to do
             if (filesToRead.isEmpty()) {
                 currInitialFile = null;
+                stopPreReader();
                 return false;
             } else {
                 testsFoundCountBeforeCurrInitialFile = testsFoundCount;
@@ -514,6 +557,7 @@ public class TestFinderQueue {
         filesRemainingCount = filesToRead.size() + tests.size();
 
         String path = f.getPath();
+        PreRead preRead = takePreRead(path);
         int index = path.indexOf('#');
         if (index != -1) {
             selectedId = path.substring(index + 1);
@@ -533,17 +577,29 @@ public class TestFinderQueue {
 
         notifier.reading(f);
         try {
-            testFinder.read(f);
+            if (preRead == null) {
+                testFinder.read(f);
+            } else {
+                // report them through the finder, as if it had read the file
+                TestFinder tf = testFinder;
+                if (tf instanceof TestFinderDecorator) {
+                    tf = ((TestFinderDecorator) tf).getCurrentTestFinder();
+                }
+                for (String msg : preRead.errors) {
+                    tf.localizedError(msg);
+                }
+            }
         } finally {
-            TestDescription[] tds = testFinder.getTests();
+            TestDescription[] tds = preRead == null ? testFinder.getTests() : preRead.tests;
             for (TestDescription td : tds) {
                 foundTestDescription(td);
             }
 
-            File[] files = testFinder.getFiles();
+            File[] files = preRead == null ? testFinder.getFiles() : preRead.files;
             for (File file : files) {
                 foundFile(file);
             }
+            schedulePreReads();
 
             // done limiting tests to this id
             selectedId = null;
@@ -565,6 +621,93 @@ public class TestFinderQueue {
         return true;
     }
 
+    /**
+     * Start reading the files which will be taken from the queue next, up to
+     * a limit on the number of files read ahead.  The next file is at the
+     * end of filesToRead.
+     */
+    private void schedulePreReads() {
+        if (preReadThreads == 0) {
+            return;
+        }
+
+        if (preReader == null) {
+            final Supplier<? extends TestFinder> factory = preReadFinderFactory;
+            final Comparator<String> order = testFinder.getComparator();
+            preReadFinders = ThreadLocal.withInitial(() -> {
+                TestFinder tf = factory.get();
+                tf.setComparator(order);
+                return tf;
+            });
+            preReader = Executors.newFixedThreadPool(preReadThreads, r -> {
+                Thread t = new Thread(r, "TestFinderQueue:Reader:" + workerIndex++);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        int max = preReadThreads * PRE_READS_PER_THREAD;
+        for (int i = filesToRead.size() - 1, n = 0;
+             i >= 0 && n < max && preReads.size() < max; i--, n++) {
+            final File f = filesToRead.get(i);
+            String p = f.getPath();
+            // files for a selected test are left to readNextFile
+            if (p.indexOf('#') == -1 && !preReads.containsKey(p)) {
+                final ThreadLocal<TestFinder> finders = preReadFinders;
+                preReads.put(p, preReader.submit(() -> preRead(finders.get(), f)));
+            }
+        }
+    }
+
+    private static PreRead preRead(TestFinder finder, File f) {
+        synchronized (finder) {
+            int errs = finder.getErrorCount();
+            finder.read(f);
+            String[] all = finder.getErrors();
+            PreRead r = new PreRead(finder.getTests(), finder.getFiles(),
+                    Arrays.copyOfRange(all, Math.min(errs, all.length), all.length));
+            finder.clearErrors();
+            return r;
+        }
+    }
+
+    /**
+     * Get the result of reading a file ahead, waiting for it if necessary.
+     *
+     * @return the result, or null if the file has not been read ahead or
+     * could not be read, in which case the caller should read it
+     */
+    private PreRead takePreRead(String path) {
+        Future<PreRead> f = preReads.remove(path);
+        if (f == null) {
+            return null;
+        }
+
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            // let the finder report the problem in the usual way
+            return null;
+        }
+    }
+
+    private void stopPreReader() {
+        for (Future<PreRead> f : preReads.values()) {
+            f.cancel(true);
+        }
+        preReads.clear();
+
+        if (preReader != null) {
+            preReader.shutdownNow();
+            preReader = null;
+            preReadFinders = null;
+        }
+    }
+
     /**
      * Add a file to the queue of files waiting to be read.
      * It will be added to the queue if it has not already been read or is
@@ -681,6 +824,18 @@ public class TestFinderQueue {
         void error(TestDescription td, String msg);
     }
 
+    private static class PreRead {
+        final TestDescription[] tests;
+        final File[] files;
+        final String[] errors;
+
+        PreRead(TestDescription[] tests, File[] files, String... errors) {
+            this.tests = tests;
+            this.files = files;
+            this.errors = errors;
+        }
+    }
+
     private static class Notifier implements Observer {
         private Observer[] observers = new Observer[0];
 
@@ -51,9 +51,11 @@ import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Hashtable;
@@ -230,6 +232,9 @@ public class TestResult {
     private static final int DEFAULT_MAX_SHRINK_LIST_SIZE = 128;
     private static final int maxShrinkListSize =
             Integer.getInteger("javatest.numCachedResults", DEFAULT_MAX_SHRINK_LIST_SIZE).intValue();
+    private static final int DEFAULT_MAX_RESTORED_DESCRIPTIONS = 4096;
+    private static final int maxRestoredDescriptions =
+            Integer.getInteger("javatest.numCachedDescriptions", DEFAULT_MAX_RESTORED_DESCRIPTIONS).intValue();
 
     //----------ACCESS FUNCTIONS (TEST STATUS)----------------------------------
     private static final int DEFAULT_MAX_OUTPUT_SIZE = 100000;
@@ -242,6 +247,10 @@ public class TestResult {
     // such arrays here.
     private static Map<TestResult, Observer[]> observersTable = new Hashtable<>(16);
     private static LinkedList<WeakReference<TestResult>> shrinkList = new LinkedList<>();
+    // not run results whose description has been read again on demand, oldest
+    // first; the descriptions are dropped again when it is full.  Weak references
+    // are used so that results of disposed tables can be collected.
+    private static final Deque<WeakReference<TestResult>> restoredList = new ArrayDeque<>();
     private static I18NResourceBundle i18n = I18NResourceBundle.getBundleForClass(TestResult.class);
     private static boolean debug = Boolean.getBoolean("debug." + TestResult.class.getName());
     // the following fields should be valid for all test results
@@ -256,6 +265,9 @@ public class TestResult {
     private TestDescription desc;       // test description for which this is the result
     private String[] props;             // table of values written during test execution
     private String[] env;
+    // for a test which has not been run, the file the finder read to find it;
+    // if set, desc may be dropped and is then read again from this file
+    private File descSource;
 
     // ----- PACKAGE METHODS ---------------------------------------------------
 
@@ -292,6 +304,12 @@ public class TestResult {
     private int maxTROutputSize = 0;    // maximum output size for this test result
     // only valid when this TR is in a TRT, should remain when shrunk
     private TestResultTable.TreeNode parent;
+    // status type this result is counted under in the statistics of its
+    // parent node, -1 if not counted; maintained by TRT_TreeNode
+    int countedStatusType = -1;
+    // the id of this test in the filter verdicts of its table, tagged with
+    // the stamp of those verdicts; 0 if none; maintained by FilterVerdicts
+    volatile long filterVerdictsId;
 
     /*
      * @deprecated JTS files no longer supported
@@ -838,12 +856,99 @@ public class TestResult {
      * @throws TestResult.Fault if there is a problem recreating the description
      *                          from the results file.
      */
-    public synchronized TestDescription getDescription()
+    public TestDescription getDescription()
             throws Fault {
-        if (desc == null) {
-            // reconstitute description (probably from file)
-            reload();
+        File source;
+        TestResultTable.TreeNode node;
+        synchronized (this) {
+            if (desc != null) {
+                return desc;
+            }
+            source = descSource;
+            node = parent;
+        }
+
+        // the node is not locked while this result is
+        if (source != null && node instanceof TRT_TreeNode) {
+            TestDescription td = ((TRT_TreeNode) node).restoreDescriptions(source, testURL);
+            if (td != null) {
+                restoreDescription(td);
+                return td;
+            }
         }
+
+        synchronized (this) {
+            if (desc == null) {
+                // reconstitute description (probably from file)
+                reload();
+            }
+            return desc;
+        }
+    }
+
+    /**
+     * Allow the description of a test which has not been run to be dropped
+     * from memory, to be read again from the given file when needed.
+     * The description is dropped immediately.
+     *
+     * @param source the file the finder read to find the test
+     * @see TRT_TreeNode#restoreDescriptions
+     */
+    synchronized void setDescriptionSource(File source) {
+        if (execStatus == notRunStatus) {
+            descSource = source;
+            desc = null;
+        }
+    }
+
+    /**
+     * Get the file the description for this test can be read from again.
+     *
+     * @return the file, or null if the description is always kept in memory
+     * @see #setDescriptionSource
+     */
+    synchronized File getDescriptionSource() {
+        return descSource;
+    }
+
+    /**
+     * Give a test whose description was dropped its description back.  The
+     * description will be dropped again when enough other descriptions have
+     * been restored.
+     */
+    void restoreDescription(TestDescription td) {
+        synchronized (this) {
+            if (descSource == null || desc != null) {
+                return;
+            }
+            desc = td;
+        }
+
+        // not called while this result is locked, since others are dropped here
+        synchronized (restoredList) {
+            while (restoredList.size() >= maxRestoredDescriptions) {
+                TestResult tr = restoredList.removeFirst().get();
+                if (tr != null) {
+                    tr.dropDescription();
+                }
+            }
+            restoredList.addLast(new WeakReference<>(this));
+        }
+    }
+
+    private synchronized void dropDescription() {
+        if (descSource != null && execStatus == notRunStatus) {
+            desc = null;
+        }
+    }
+
+    /**
+     * Get the test description for this test if it is available in memory,
+     * without reloading it from the results file.
+     *
+     * @return the test description, or null if it is not currently loaded
+     */
+    synchronized TestDescription peekDescription() {
         return desc;
     }
 
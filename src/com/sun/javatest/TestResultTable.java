@@ -42,13 +42,16 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
 import java.util.Vector;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Collected results from a test suite.
@@ -103,6 +106,12 @@ public class TestResultTable {
     private TRT_HttpHandler httpHandle;     // the http handler for this instance
     private TreeObserver[] treeObservers = new TreeObserver[0];
     private TestResultCache trCache;
+    private TRT_Snapshot snapshot;
+    private FilterVerdicts filterVerdicts;
+    private final TRT_Index index = new TRT_Index();
+    // if set, the descriptions of tests which have not been run are not kept
+    // in memory, but read again from the finder (or snapshot) when needed
+    private final boolean dropDescriptions = Boolean.getBoolean("javatest.trt.dropDescriptions");
     private boolean suppressFinderScan = false; // false is traditional
     private Updater updater = new Updater();
     /**
@@ -335,6 +344,65 @@ public class TestResultTable {
         return getIterator(node, filters);
     }
 
+    /**
+     * Get a stream of the tests under a node, subject to the given filters.
+     * The tests are produced in the same order as by the iterator for the
+     * node.  A parallel stream splits the tree between threads, so that
+     * reading the tests from the test finder and applying the filters can
+     * be done concurrently; the filters must then be safe for use by
+     * multiple threads.  Unlike the iterator, tests which are rejected by
+     * the filters are simply omitted.
+     *
+     * @param node     The tree node to begin at.  May be null.
+     * @param parallel True if a parallel stream is required.
+     * @param filters  The test filters to apply to any tests found.  May be
+     *                 null or empty.
+     * @return A stream of the tests below the given node which are accepted
+     * by all of the filters.
+     * @see #getIterator(TreeNode, TestFilter...)
+     * @since 6.0
+     */
+    public static Stream<TestResult> stream(TreeNode node, boolean parallel, TestFilter... filters) {
+        if (node == null) {
+            return Stream.empty();
+        }
+
+        Stream<TestResult> s = StreamSupport.stream(new TRT_Spliterator((TRT_TreeNode) node), parallel);
+        if (filters == null || filters.length == 0) {
+            return s;
+        }
+
+        final TestFilter[] fs = filters.clone();
+        return s.filter(tr -> accepts(tr, fs));
+    }
+
+    // as for TRT_Iterator, filters which cannot make a decision accept the test
+    private static boolean accepts(TestResult tr, TestFilter... filters) {
+        TestDescription td;
+        try {
+            td = tr.getDescription();
+        } catch (TestResult.Fault f) {
+            if (debug > 0) {
+                f.printStackTrace(Debug.getWriter());
+            }
+            return true;
+        }
+
+        for (TestFilter f : filters) {
+            try {
+                if (f != null && !f.accepts(td)) {
+                    return false;
+                }
+            } catch (TestFilter.Fault e) {
+                if (debug > 0) {
+                    Debug.println("   -> exception while checking filter: " + e.getMessage());
+                }
+            }
+        }
+
+        return true;
+    }
+
     /**
      * Get the path to this node, relative to the root of the testsuite.
      * The returned URL does not have a trailing slash, nor does it begin
@@ -411,10 +479,11 @@ public class TestResultTable {
      * Removes from sorted array all overlapping entries.
      * E.g. {"root/a/b.html", "root/a/b.html#a", "root/a/b.htmls", "root/c", "root/c/d"}
      * would be {"root/a/b.html", "root/a/b.htmls", "root/c"}
-     * complexity: n
-     * complexity including quicksort: n*n*ln(n)
+     * Duplicate entries are also removed.
+     * complexity: total length of the urls
      *
-     * @param urls A sorted list of test urls
+     * @param urls A sorted list of test urls; it is enough that every url
+     *             comes after any url it is part of
      */
     public static String[] distillUrls(String... urls) {
         // this method should guarantee that no one test would be runned twice.
@@ -426,27 +495,18 @@ public class TestResultTable {
             return urls;
         }
 
-        LinkedList<String> result = new LinkedList<>();
-        result.add(urls[0]);
-
-        // as the array is expected to be sorted, it's known that foo/boo.html is just before foo/boo.html#anything
-
-        String prev = urls[0]; // should not be testcase (should not contain '#' chars)
-        if (prev.contains("#")) {
-            prev = "//##//"; // can't be start of testname
-        }
-        for (int i = 1; i < urls.length; i++) {
-            if (isPartOf(urls[i], prev)) {
-                continue;
-            }
-
-            if (!urls[i].contains("#")) {
-                prev = urls[i];
+        // every url kept so far, so that a url is checked against all of
+        // them, not just the one before it; with the previous url alone,
+        // root/a, root/a.html, root/a/b would keep root/a/b
+        UrlTrie kept = new UrlTrie();
+        List<String> result = new ArrayList<>(urls.length);
+        for (String url : urls) {
+            if (!kept.covers(url)) {
+                kept.add(url);
+                result.add(url);
             }
-            result.add(urls[i]);
         }
 
-
         if (result.size() == urls.length)
         // Nothing was thrown out. No need to reconstruct array.
         {
@@ -457,15 +517,6 @@ public class TestResultTable {
         }
     }
 
-    private static boolean isPartOf(String part, String of) {
-        // if S2 is a part of S1 (e.g. S1="root/a", S2="root/a/t.html#2"), then S2 = S1 + diff, where diff can only start with '#' or '/'
-        if (part.length() <= of.length()) {
-            return false;
-        }
-
-        return part.startsWith(of) && (part.charAt(of.length()) == '#' || part.charAt(of.length()) == '/');
-    }
-
     /**
      * @param where    Where to start searching.
      * @param fullPath Work relative path to JTR to look for.  Must not be null.
@@ -699,12 +750,17 @@ public class TestResultTable {
     }
 
     public void dispose() {
+        if (snapshot != null) {
+            snapshot.save();
+        }
+        saveFilterVerdicts();
         if (trCache != null) {
             trCache.shutdown();
         }
     }
 
     public void updateTestExecutionOrderOnTheFly() {
+        index.clear();
         root = new TRT_TreeNode(TestResultTable.this, null);
     }
 
@@ -769,6 +825,10 @@ public class TestResultTable {
         //root = new TRT_TreeNode(this, null);
         initFinder();
 
+        if (!Boolean.getBoolean("javatest.trt.noSnapshot")) {
+            snapshot = TRT_Snapshot.open(workDir, finder);
+        }
+
         /*OLD
         // do this in the background because of possible high cost
         Thread thr = new Thread("TRT background cache init.") {
@@ -808,6 +868,72 @@ public class TestResultTable {
         return root.getCurrentSize();
     }
 
+    /**
+     * Get the number of tests found so far in each state.  The counters are
+     * maintained incrementally as results are added to the table, so this is
+     * a cheap call which can be made as often as needed, even while tests are
+     * being run.  Unlike {@code getRoot().getChildStatus()}, this does not
+     * cause the test finder to read the remainder of the test suite.
+     *
+     * @return An array of length Status.NUM_STATES, positionally representing
+     * the number of tests with that state.
+     * @see Status
+     * @since 6.0
+     */
+    public int[] getCurrentStatusCounts() {
+        return root.getCurrentChildStatus();
+    }
+
+    /**
+     * Start a query over the tests in this table.  Queries are answered from
+     * indexes which are maintained as tests are added to the table and as
+     * their results change, so they do not walk the tree or apply test
+     * filters to each test.  Only tests which are currently in the table are
+     * considered; tests which the test finder has not read yet are not
+     * included, and the query does not cause any reading to occur.
+     *
+     * @return A new query which initially matches all the tests in the table.
+     * @since 6.0
+     */
+    public Query query() {
+        return new Query(index);
+    }
+
+    TRT_Index getIndex() {
+        return index;
+    }
+
+    boolean isDropDescriptions() {
+        return dropDescriptions;
+    }
+
+    /**
+     * Get the verdicts of test filters recorded in the work directory.
+     * Verdicts are only recorded if the {@code javatest.trt.filterVerdicts}
+     * system property is set to true.
+     *
+     * @return the verdicts, or null if there is no work directory, or if
+     * verdicts are not to be recorded
+     * @see TRT_Iterator
+     */
+    synchronized FilterVerdicts getFilterVerdicts() {
+        if (filterVerdicts == null && workDir != null
+                && Boolean.getBoolean("javatest.trt.filterVerdicts")) {
+            filterVerdicts = FilterVerdicts.open(workDir);
+        }
+        return filterVerdicts;
+    }
+
+    private void saveFilterVerdicts() {
+        FilterVerdicts v;
+        synchronized (this) {
+            v = filterVerdicts;
+        }
+        if (v != null) {
+            v.save();
+        }
+    }
+
     void starting() {
         /*OLD
         isRunning++;
@@ -815,6 +941,11 @@ public class TestResultTable {
     }
 
     void finished() {
+        if (snapshot != null) {
+            snapshot.save();
+        }
+        saveFilterVerdicts();
+
         // do on background thread? (OLD suggestion -- now asynchronous)
         if (trCache != null) {
             if (needsCacheCompress()) {
@@ -1020,6 +1151,33 @@ public class TestResultTable {
         }
     }
 
+    /**
+     * Get a sequential stream of all the tests in the tree which are
+     * accepted by the given filters.
+     *
+     * @param filters The test filters to apply.  May be null or empty.
+     * @return A stream of the accepted tests, in the same order as the iterator.
+     * @see #stream(TreeNode, boolean, TestFilter...)
+     * @since 6.0
+     */
+    public Stream<TestResult> stream(TestFilter... filters) {
+        return stream(root, false, filters);
+    }
+
+    /**
+     * Get a parallel stream of all the tests in the tree which are
+     * accepted by the given filters.  The filters must be safe for use by
+     * multiple threads.
+     *
+     * @param filters The test filters to apply.  May be null or empty.
+     * @return A parallel stream of the accepted tests.
+     * @see #stream(TreeNode, boolean, TestFilter...)
+     * @since 6.0
+     */
+    public Stream<TestResult> parallelStream(TestFilter... filters) {
+        return stream(root, true, filters);
+    }
+
     // ------- Private methods begin --------
 
     /**
@@ -1148,8 +1306,9 @@ public class TestResultTable {
      * @since 3.0
      */
     public TreeIterator getIterator(String[] paths, TestFilter... filters) {
-        LinkedList<TreeNode> initNodes = new LinkedList<>();
-        LinkedList<TestResult> initTests = new LinkedList<>();
+        // sets, so that nodes and tests are not added twice
+        Set<TreeNode> initNodes = new LinkedHashSet<>();
+        Set<TestResult> initTests = new LinkedHashSet<>();
 
         String[] urls = sortByName(paths); // sorting in any case to improve performance of distilling
         urls = distillUrls(urls);
@@ -1173,13 +1332,9 @@ public class TestResultTable {
 
             if (objs == null) {   // no match
             } else if (objs instanceof TreeNode[]) {
-                // don't add duplicates
-                if (!initNodes.contains(objs[0])) {
-                    initNodes.add((TreeNode) objs[0]);
-                }
+                initNodes.add((TreeNode) objs[0]);
             } else if (objs instanceof TestResult[]) {
                 initTests.addAll(Arrays.asList((TestResult[]) objs));
-                // XXX should uniquify
             } else {
                 // XXX should this be more friendly?
                 //     or maybe it should be ignored
@@ -1187,8 +1342,7 @@ public class TestResultTable {
             }
         }   // for
 
-        if ((initNodes == null || initNodes.isEmpty()) &&
-                (initTests == null || initTests.isEmpty())) {
+        if (initNodes.isEmpty() && initTests.isEmpty()) {
             if (debug == 1 || debug == 99) {
                 Debug.println("None of the initial URLs could be looked up.");
             }
@@ -1540,6 +1694,49 @@ public class TestResultTable {
         }
     }
 
+    /**
+     * Refresh the tests read from a file in the test suite, such as after the
+     * file has been edited, added or removed.  The folder containing the file
+     * is refreshed first, as by {@link #refreshIfNeeded(TreeNode)}, so that
+     * new folders are added to the tree; the file is then read again even if
+     * the folder has not been modified, so that changes made to the file in
+     * place are seen.  Observers are notified of any tests which are added,
+     * replaced or removed.
+     *
+     * @param path the root-relative path of the file, using '/' as the
+     *             separator
+     * @return the tests now read from the file; the array is empty if the file
+     * no longer exists, is a folder, or is not a file read by the test finder
+     * @since 6.0
+     */
+    public synchronized TestResult[] refreshFile(String path) {
+        if (root == null) {
+            return new TestResult[0];
+        }
+
+        // the closest enclosing folder which is already in the tree
+        String dir = path.indexOf('/') == -1 ? "" : betail(path);
+        String known = dir;
+        TreeNode node;
+        while ((node = findNode(root, known)) == null) {
+            known = known.indexOf('/') == -1 ? "" : betail(known);
+        }
+
+        refreshIfNeeded(node);
+
+        if (!known.equals(dir)) {
+            node = findNode(root, dir);
+        }
+
+        File file = new File(path);
+        if (node == null || isBranchFile(file)) {
+            return new TestResult[0];
+        }
+
+        List<TestResult> tests = ((TRT_TreeNode) node).refreshFile(file);
+        return tests.toArray(new TestResult[tests.size()]);
+    }
+
     public synchronized boolean prune() {
         if (root == null) {
             return false;
@@ -1644,6 +1841,49 @@ public class TestResultTable {
         return finder.isFolder(f);
     }
 
+    /**
+     * Run the finder over a file, or recover what it found last time from the
+     * snapshot in the work directory if the file has not changed since then.
+     * The finder is locked while it is in use, and the returned arrays are
+     * private to the caller.
+     *
+     * @param file The file to read, usually relative to the test suite root.
+     * @return The tests and files found in the file, never null.
+     */
+    TRT_Snapshot.Entry readFinderFile(File file) {
+        long lastModified = 0;
+        if (snapshot != null) {
+            lastModified = getLastModifiedTime(file);
+            TRT_Snapshot.Entry e = snapshot.get(finder, file, lastModified);
+            if (e != null) {
+                return new TRT_Snapshot.Entry(e.tests.clone(), e.files.clone());
+            }
+        }
+
+        TRT_Snapshot.Entry e;
+        boolean clean;
+        synchronized (finder) {
+            int errors = finder.getErrorCount();
+            finder.read(file);
+            TestDescription[] tds = finder.getTests();
+            File[] files = finder.getFiles();
+
+            // shallow copy before releasing finder
+            e = new TRT_Snapshot.Entry(
+                    tds == null ? new TestDescription[0] : tds.clone(),
+                    files == null ? new File[0] : files.clone());
+            clean = finder.getErrorCount() == errors;
+        }
+
+        // files with errors are read again next time, so that the errors are reported
+        if (snapshot != null && clean) {
+            snapshot.put(finder, file, lastModified,
+                    new TRT_Snapshot.Entry(e.tests.clone(), e.files.clone()));
+        }
+
+        return e;
+    }
+
     /**
      * Determine the last logical time that a file was modified.
      * This is the semantic equivalent of File.lastModified(), but shielded
@@ -1715,16 +1955,13 @@ public class TestResultTable {
      * @return a new array which contains all elements from missingIn ordered as in removeFrom
      */
     private String[] removeMissing(String[] removeFrom, String... missingIn) {
+        Set<String> distilled = new HashSet<>(Arrays.asList(missingIn));
         String[] result = new String[missingIn.length];
         int i = 0;
-        outer:
         for (String path : removeFrom) {
-            for (String url : missingIn) {
-                // if a path is in distilled array - save it and continue with next
-                if (Objects.equals(path, url)) {
-                    result[i++] = path;
-                    continue outer;
-                }
+            // if a path is in distilled array - save it, once
+            if (distilled.remove(path)) {
+                result[i++] = path;
             }
         }
         return result;
@@ -1930,8 +2167,10 @@ public class TestResultTable {
         }
     }
 
-    private void notifyChangeLeaf(TreeNode[] where, TestResult what, int index,
-                                  TestResult old) {
+    // package private for TRT_TreeNode for now
+    // need a better solution
+    void notifyChangeLeaf(TreeNode[] where, TestResult what, int index,
+                          TestResult old) {
         if (treeObservers == null) {
             return;
         }
@@ -2333,6 +2572,12 @@ public class TestResultTable {
 
         /**
          * The statistics counters of the node have changed.
+         * The notification is delivered synchronously, on the thread which
+         * changed the node, unless the {@code javatest.trt.counterNotifyDelay}
+         * system property is set to a number of milliseconds; changes within
+         * that period are then reported by a single notification, delivered
+         * later from a timer thread, and observers which update a user
+         * interface must pass it on to the event dispatch thread themselves.
          *
          * @param node The node whose counters were invalidated.
          *             This is the same as the node which this observer attached to.
@@ -2634,6 +2879,103 @@ public class TestResultTable {
         }
     }
 
+    /**
+     * A query over the tests in a TestResultTable.  Each restriction added to
+     * the query narrows the set of matching tests; the query is evaluated
+     * when {@link #list} or {@link #count} is called, and may be evaluated
+     * again later to see the current state of the table.
+     *
+     * @see TestResultTable#query
+     * @since 6.0
+     */
+    public static class Query {
+        private final TRT_Index index;
+        private int[] statusTypes;
+        private String[] keywords;
+        private long endedSince = -1;
+        private String[] paths;
+
+        Query(TRT_Index index) {
+            this.index = index;
+        }
+
+        /**
+         * Only match tests whose status has one of the given types.
+         *
+         * @param types Status types, as defined by {@link Status}.
+         * @return This query.
+         * @throws IllegalArgumentException if a type is not a valid status type
+         */
+        public Query status(int... types) {
+            for (int t : types) {
+                if (t < 0 || t >= Status.NUM_STATES) {
+                    throw new IllegalArgumentException(String.valueOf(t));
+                }
+            }
+            statusTypes = types.clone();
+            return this;
+        }
+
+        /**
+         * Only match tests which have all of the given keywords.
+         * Keywords are compared without regard to case.
+         *
+         * @param kws The keywords.
+         * @return This query.
+         */
+        public Query keywords(String... kws) {
+            keywords = DynamicArray.join(keywords, kws.clone());
+            return this;
+        }
+
+        /**
+         * Only match tests which have been run, and which acquired their
+         * status at or after the given time.
+         *
+         * @param time A time, as given by {@link TestResult#getEndTime}.
+         * @return This query.
+         */
+        public Query endedSince(long time) {
+            endedSince = Math.max(time, 0);
+            return this;
+        }
+
+        /**
+         * Only match tests within one of the given parts of the tree.
+         *
+         * @param urls Test or folder URLs, relative to the test suite root;
+         *             an empty string indicates the whole test suite.
+         * @return This query.
+         */
+        public Query under(String... urls) {
+            String[] v = new String[urls.length];
+            for (int i = 0; i < urls.length; i++) {
+                String u = urls[i].replace(File.separatorChar, '/');
+                v[i] = u.startsWith("/") ? u.substring(1) : u;
+            }
+            paths = v;
+            return this;
+        }
+
+        /**
+         * Get the tests which currently match this query.
+         *
+         * @return The matching tests, in no particular order.
+         */
+        public List<TestResult> list() {
+            return index.find(statusTypes, keywords, endedSince, paths);
+        }
+
+        /**
+         * Get the number of tests which currently match this query.
+         *
+         * @return The number of matching tests.
+         */
+        public int count() {
+            return list().size();
+        }
+    }
+
     private static class DisassembledUrl {
         private String[] data;
         private String initStr;
@@ -28,6 +28,8 @@ package com.sun.javatest;
 
 import com.sun.javatest.finder.BinaryTestFinder;
 import com.sun.javatest.finder.HTMLTestFinder;
+import com.sun.javatest.finder.IndexedTestFinder;
+import com.sun.javatest.finder.RandomTestFinder;
 import com.sun.javatest.finder.TestFinderDecorator;
 import com.sun.javatest.interview.LegacyParameters;
 import com.sun.javatest.lib.KeywordScript;
@@ -94,6 +96,7 @@ public class TestSuite {
     private static final String TESTSUITE_HTML = "testsuite.html";
     private static final String TESTSUITE_JTT = "testsuite.jtt";
     private static final String FIND_LEGACY_CONSTRUCTOR = "com.sun.javatest.ts.findLegacyCtor";
+    private static final String FINDER_INDEX_DIR = "javatest.finder.indexDir";
     static Map<String, WorkDirLogHandler> handlersMap = new HashMap<>();
 
     /**
@@ -337,11 +340,32 @@ public class TestSuite {
         }
 
         // initialize test finder
-        testSuite.setTestFinder(new TestFinderDecorator(testSuite.createTestFinder()));
+        testSuite.setTestFinder(new TestFinderDecorator(
+                indexed(testSuite.createTestFinder(), root, tsInfo)));
 
         return testSuite;
     }
 
+    /**
+     * If an index directory has been specified, wrap the finder so that files
+     * which have not changed since they were last read are not read again.
+     * Binary test finders are already fast, and random finders do not give
+     * the same results twice, so they are not wrapped.
+     */
+    private static TestFinder indexed(TestFinder tf, File root, Map<String, String> tsInfo) {
+        String indexDir = System.getProperty(FINDER_INDEX_DIR);
+        if (indexDir == null || tf instanceof BinaryTestFinder || tf instanceof RandomTestFinder) {
+            return tf;
+        }
+
+        File rootDir = root.isFile() ? root.getParentFile() : root;
+        String rootPath = rootDir.getAbsolutePath();
+        File indexFile = new File(indexDir, Integer.toHexString(rootPath.hashCode()) + ".jtfi");
+        String configuration = tf.getClass().getName() + " " + tsInfo.get("finder")
+                + " " + rootPath + " " + new File(rootDir, TESTSUITE_JTT).lastModified();
+        return new IndexedTestFinder(tf, indexFile, configuration);
+    }
+
     private static String[] envLookup(TestEnvironment env, String name) throws Fault {
         try {
             return env.lookup(name);
@@ -596,6 +620,21 @@ public class TestSuite {
         finder = tf;
     }
 
+    /**
+     * Create a new test finder, configured in the same way as the shared
+     * test finder, for use by a thread which reads the tests in this test
+     * suite at the same time as others.
+     *
+     * @return a new test finder to read the tests in this test suite
+     * @throws TestSuite.Fault if there is a problem creating the test finder
+     * @see #getTestFinder
+     * @see TestFinderQueue#setParallelReadAhead
+     * @since 6.0
+     */
+    public TestFinder newTestFinder() throws Fault {
+        return createTestFinder();
+    }
+
     /**
      * Create a test finder to be used to access the tests in this test suite.
      * The default implementation looks for a {@code finder} entry in the
@@ -0,0 +1,153 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A set of test and folder URLs, arranged as a tree of path segments so that
+ * a test URL can be checked against all of them in time proportional to the
+ * length of the test URL, rather than to the number of URLs in the set.
+ * <p>
+ * URLs are split before each '/' or '#' character, and a URL is only
+ * considered to be under another one if it continues from it with one of
+ * those characters.  So "a/b" is under "a" and "a/b.html#c" is under
+ * "a/b.html", but "a/bc" is not under "a/b".  Comparisons are case sensitive;
+ * callers which want otherwise should normalize the URLs themselves.
+ * <p>
+ * A trie may be read concurrently once it has been filled.
+ *
+ * @see InitialUrlFilter#isInitialUrlMatch
+ * @see TestResultTable#distillUrls
+ */
+class UrlTrie {
+    /**
+     * Add a URL to the set.
+     *
+     * @param url a test or folder URL, using '/' as the separator
+     */
+    void add(String url) {
+        Node n = root;
+        int start = 0;
+        while (start < url.length()) {
+            int end = segmentEnd(url, start);
+            n = n.add(url.substring(start, end));
+            start = end;
+        }
+        n.present = true;
+    }
+
+    /**
+     * Check whether a URL matches one in the set, according to
+     * {@link InitialUrlFilter#isInitialUrlMatch}.  This is the same as
+     * {@link #covers}, except that a URL in the set which ends with a
+     * delimiter also matches every URL which begins with it.
+     *
+     * @param url the URL to check
+     * @return true if the URL is equal to or under a URL in the set
+     */
+    boolean matches(String url) {
+        return find(url, true);
+    }
+
+    /**
+     * Check whether a URL is equal to or under one in the set.
+     *
+     * @param url the URL to check
+     * @return true if the URL is equal to or under a URL in the set
+     */
+    boolean covers(String url) {
+        return find(url, false);
+    }
+
+    private boolean find(String url, boolean open) {
+        Node n = root;
+        int start = 0;
+        while (start < url.length()) {
+            char c = url.charAt(start);
+            if (isDelimiter(c)) {
+                // the URL continues from this point with a delimiter
+                if (n.present) {
+                    return true;
+                }
+                if (open) {
+                    Node d = n.get(c == '/' ? SLASH : HASH);
+                    if (d != null && d.present) {
+                        return true;
+                    }
+                }
+            }
+
+            int end = segmentEnd(url, start);
+            n = n.get(url.substring(start, end));
+            if (n == null) {
+                return false;
+            }
+            start = end;
+        }
+        return n.present;
+    }
+
+    /**
+     * Find the end of the segment which begins at the given position: the
+     * position of the next delimiter, or the end of the URL.
+     */
+    private static int segmentEnd(String url, int start) {
+        int end = start + 1;
+        while (end < url.length() && !isDelimiter(url.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c == '/' || c == '#';
+    }
+
+    private static class Node {
+        Node get(String segment) {
+            return children == null ? null : children.get(segment);
+        }
+
+        Node add(String segment) {
+            if (children == null) {
+                children = new HashMap<>(4);
+            }
+            return children.computeIfAbsent(segment, s -> new Node());
+        }
+
+        // most nodes are leaves, so the map is only created when needed
+        private Map<String, Node> children;
+        private boolean present;
+    }
+
+    private final Node root = new Node();
+
+    private static final String SLASH = "/";
+    private static final String HASH = "#";
+}
@@ -50,6 +50,10 @@ public class ActiveAgentCommand extends Command {
      *             via the connection to the JT Harness harness.
      *             If not specified, any necessary classes will be loaded
      *             from the agent's classpath.
+     *             <tr><td>-preloadClassPath
+     *             <td>Send the jar files on the path given with -classpath
+     *             whole to the agent, which then loads classes from them
+     *             itself, rather than one class at a time.
      *             <tr><td>-m<br>-mapArgs
      *             <td>Use the map facility on the JT Harness Agent to localize
      *             any configuration values.
@@ -67,6 +71,7 @@ public class ActiveAgentCommand extends Command {
         String tag = null;
         boolean localizeArgs = false;
         boolean sharedCl = false;
+        boolean preloadClassPath = false;
         int timeout = 0;
 
         // analyze options
@@ -81,6 +86,8 @@ public class ActiveAgentCommand extends Command {
             } else if (args[i].equalsIgnoreCase("-sharedClassLoader") ||
                     args[i].equalsIgnoreCase("-sharedCl")) {
                 sharedCl = true;
+            } else if (args[i].equalsIgnoreCase("-preloadClassPath")) {
+                preloadClassPath = true;
             } else if ((args[i].equals("-ct") || args[i].equals("-commandTimeout")) && i + 1 < args.length) {
                 try {
                     timeout = Integer.parseInt(args[++i]);
@@ -118,6 +125,7 @@ public class ActiveAgentCommand extends Command {
             }
 
             t.setSharedClassLoader(sharedCl);
+            t.setPreloadClassPath(preloadClassPath);
             t.setAgentCommandTimeout(timeout);
 
             out.println("Executing command via " + t.getConnection().getName());
@@ -35,6 +35,7 @@ import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketException;
 import java.util.Enumeration;
 import java.util.Vector;
 
@@ -449,6 +450,15 @@ public class ActiveAgentPool {
             return socketOutput;
         }
 
+        /**
+         * Send small writes immediately, for callers which do their own batching.
+         *
+         * @throws SocketException if there is an error in the underlying protocol
+         */
+        void setTcpNoDelay() throws SocketException {
+            socket.setTcpNoDelay(true);
+        }
+
         @Override
         public synchronized void close() throws IOException {
             socketInput.close();
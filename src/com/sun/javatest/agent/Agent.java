@@ -33,6 +33,7 @@ import com.sun.javatest.util.DynamicArray;
 import com.sun.javatest.util.Timer;
 import com.sun.javatest.util.WriterStream;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -43,10 +44,19 @@ import java.io.PrintWriter;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.MissingResourceException;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Semaphore;
+import java.util.zip.Deflater;
 
 /**
  * The means by which the the harness executes requests on other machines.
@@ -76,11 +86,26 @@ public class Agent implements Runnable {
     public static final int defaultPassivePort = 1908;
     // The following is used to ensure consistency between Agent and AgentManager
     static final short protocolVersion = 105;
+    // Sent in place of protocolVersion to ask for many requests to be
+    // multiplexed over the connection; see Multiplexer
+    static final short multiplexProtocolVersion = 106;
+    // Only sent on multiplexed connections; see AgentBundleCache
+    static final byte BUNDLE = (byte) 'B';
     static final byte CLASS = (byte) 'C';
 
     //--------------------------------------------------------------------------
     static final byte DATA = (byte) 'D';
     static final byte LOG = (byte) 'L';
+    // Only sent on multiplexed connections; see AgentClassCache
+    static final byte MANIFEST = (byte) 'M';
+    // Only sent on multiplexed connections, in place of LOG, LOG_FLUSH, REF
+    // and REF_FLUSH; followed by the stream, the flags below, and the length
+    // and bytes of the text in UTF-8
+    static final byte OUTPUT = (byte) 'O';
+    static final int OUTPUT_FLUSH = 1;
+    // also sent by the harness after a multiplexed request, if it accepts
+    // compressed output
+    static final int OUTPUT_DEFLATED = 2;
 
     //--------------------------------------------------------------------------
     static final byte LOG_FLUSH = (byte) 'l';
@@ -114,6 +139,19 @@ public class Agent implements Runnable {
     private ConnectionFactory connectionFactory;
     private ConfigValuesMap map;
     private Timer timer;
+    private boolean multiplexing = !Boolean.getBoolean("javatest.agent.noMultiplex");
+    private Semaphore channelPermits;
+    // the buffer size for output on multiplexed connections, and the most
+    // characters sent in each OUTPUT frame
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_OUTPUT_CHARS = 16 * 1024;
+    // the smallest OUTPUT frame worth compressing
+    private static final int MIN_DEFLATE_SIZE = 256;
+    // the least time between flushes of output on multiplexed connections, in milliseconds
+    private static final int OUTPUT_LINGER = 20;
+    // returned when the preloaded jar files show a name is not on the class path
+    private static final AgentClassCache.Entry NOT_ON_CLASS_PATH =
+            new AgentClassCache.Entry(null, null, null, null);
 
     /**
      * Create an agent that connects to clients using a specified connection factory.
@@ -128,6 +166,7 @@ public class Agent implements Runnable {
 
         this.connectionFactory = connectionFactory;
         maxThreads = concurrency;
+        channelPermits = new Semaphore(concurrency);
     }
 
     /**
@@ -432,6 +471,49 @@ public class Agent implements Runnable {
         }
     }
 
+    /**
+     * Handle a request which arrived on a channel of a multiplexed connection,
+     * on a thread of its own. Requests are executed no more than
+     * {@code concurrency} at a time, as they would be if they each had
+     * a connection of their own.
+     */
+    private void handleChannel(Multiplexer.Channel c) {
+        final Task t;
+        synchronized (this) {
+            if (closing) {
+                c.close();
+                return;
+            }
+
+            t = new Task(c);
+            tasks.add(t);
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                channelPermits.acquire();
+                try {
+                    t.handleRequest();
+                } finally {
+                    channelPermits.release();
+                }
+            } catch (InterruptedException e) {
+                // cancelled before the request was read
+                t.close();
+            } finally {
+                synchronized (Agent.this) {
+                    tasks.remove(t);
+                    Agent.this.notifyAll();
+                }
+            }
+        });
+        thread.setName("Agent" + nextThreadNum());
+        t.executor = thread;
+        // the handler is called on this thread, so it cannot run before start()
+        c.setCloseHandler(t::cancel);
+        thread.start();
+    }
+
     private synchronized void setSystemStreams(Object owner, PrintStream out, PrintStream err)
             throws InterruptedException {
         if (owner == null) {
@@ -653,6 +735,24 @@ public class Agent implements Runnable {
         private String tag;
         private String request;
         private Integer timeoutValue;
+        // the thread executing a multiplexed request, until the result is sent
+        private volatile Thread executor;
+        // hashes of the content the harness provides for names checked with
+        // MANIFEST requests, or null for names it does not provide;
+        // null until the first request has been made
+        private Map<String, byte[]> harnessHashes;
+        // the jar files preloaded for the elements of the task's class path,
+        // and null for other elements; null if the harness does not preload
+        private AgentBundleCache.Bundle[] bundles;
+        private String[] bundleCodeSources;
+        // set when output is sent in OUTPUT frames, on multiplexed connections
+        private boolean framedOutput;
+        // compresses OUTPUT frames, if the harness accepts them compressed
+        private Deflater deflater;
+        private byte[] deflateBuffer;
+        private int deflatedLength;
+        private long lastOutputFlush;
+        private Timer.Entry pendingOutputFlush;
 
         Task(Connection c) {
             if (c == null) {
@@ -670,8 +770,27 @@ public class Agent implements Runnable {
                     traceOut.println("REQUEST FROM " + connection.getName());
                 }
 
-                in = new DataInputStream(connection.getInputStream());
+                // a channel carries nothing but this task's data, so may be read ahead
+                framedOutput = connection instanceof Multiplexer.Channel;
+                in = new DataInputStream(framedOutput
+                        ? new BufferedInputStream(connection.getInputStream())
+                        : connection.getInputStream());
                 short pVer = in.readShort();
+                if (pVer == multiplexProtocolVersion && !(connection instanceof Multiplexer.Channel)) {
+                    DataOutputStream reply = new DataOutputStream(connection.getOutputStream());
+                    if (multiplexing) {
+                        reply.writeShort(multiplexProtocolVersion);
+                        reply.flush();
+                        serveChannels();
+                        return;
+                    }
+
+                    // decline, and expect an ordinary request instead
+                    reply.writeShort(protocolVersion);
+                    reply.flush();
+                    pVer = in.readShort();
+                }
+
                 if (pVer != protocolVersion) {
                     throw new IOException("protocol mismatch;" +
                             " expected " + protocolVersion +
@@ -690,7 +809,9 @@ public class Agent implements Runnable {
                     traceOut.println("REQUEST IS `" + request + "'");
                 }
 
-                out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+                out = new DataOutputStream(framedOutput
+                        ? new BufferedOutputStream(connection.getOutputStream(), OUTPUT_BUFFER_SIZE)
+                        : new BufferedOutputStream(connection.getOutputStream()));
 
                 Status status;
 
@@ -703,6 +824,8 @@ public class Agent implements Runnable {
                     status = Status.error("Unrecognized request for agent: `" + request + "'");
                 }
 
+                executor = null;
+
                 if (tracing) {
                     traceOut.println("RETURN " + status);
                 }
@@ -789,6 +912,33 @@ public class Agent implements Runnable {
             }
         }
 
+        /**
+         * Serve the requests multiplexed over this task's connection, each on
+         * a thread of its own, until the harness closes the connection.
+         */
+        private void serveChannels() throws IOException {
+            if (tracing) {
+                traceOut.println("MULTIPLEXED CONNECTION FROM " + connection.getName());
+            }
+
+            new Multiplexer(connection, Agent.this::handleChannel).run();
+            notifier.completed(connection);
+        }
+
+        /**
+         * Abandon the request if it is still being executed, because the
+         * harness has closed the channel or the connection has been lost.
+         */
+        void cancel() {
+            Thread t = executor;
+            if (t != null) {
+                if (tracing) {
+                    traceOut.println("CANCEL " + connection.getName());
+                }
+                t.interrupt();
+            }
+        }
+
         private Status execute() throws IOException {
             String className = in.readUTF();
 
@@ -839,6 +989,11 @@ public class Agent implements Runnable {
                 throw new IOException("data format error");
             }
 
+            if (framedOutput && (in.readByte() & OUTPUT_DEFLATED) != 0) {
+                deflater = new Deflater(Deflater.BEST_SPEED, true);
+                deflateBuffer = new byte[OUTPUT_BUFFER_SIZE];
+            }
+
             if (map != null && mapArgs) {
                 map.map(args);
             }
@@ -953,6 +1108,16 @@ public class Agent implements Runnable {
          * Close the task, abandoning any request in progress.
          */
         synchronized void close() {
+            if (deflater != null) {
+                deflater.end();
+                deflater = null;
+            }
+
+            if (pendingOutputFlush != null) {
+                timer.cancel(pendingOutputFlush);
+                pendingOutputFlush = null;
+            }
+
             if (!connection.isClosed()) {
                 closeIgnoreExceptions(connection);
                 // don't nullify connections because handleRequest might still be using it
@@ -981,6 +1146,11 @@ public class Agent implements Runnable {
          * Send wrapped data back to the client.
          */
         synchronized void sendChars(byte type, char b[], int off, int len) throws IOException {
+            if (framedOutput) {
+                sendFrames(type, b, off, len);
+                return;
+            }
+
             out.write(type);
 
             String message = new String(b, off, len);
@@ -1021,6 +1191,87 @@ public class Agent implements Runnable {
             }
         }
 
+        /**
+         * Send output to the harness in OUTPUT frames.  The connection is
+         * flushed at most once every OUTPUT_LINGER milliseconds, so that tests
+         * which flush their output often do not send a packet each time.
+         */
+        private void sendFrames(byte type, char[] b, int off, int len) throws IOException {
+            boolean flush = type == LOG_FLUSH || type == REF_FLUSH;
+            byte stream = type == LOG || type == LOG_FLUSH ? LOG : REF;
+            for (int end = off + len; off < end; ) {
+                int n = Math.min(end - off, MAX_OUTPUT_CHARS);
+                if (n < end - off && Character.isHighSurrogate(b[off + n - 1])) {
+                    // keep the pair together, so it can be encoded
+                    n--;
+                }
+
+                byte[] data = new String(b, off, n).getBytes(StandardCharsets.UTF_8);
+                int length = data.length;
+                int flags = flush && off + n == end ? OUTPUT_FLUSH : 0;
+                if (deflater != null && length >= MIN_DEFLATE_SIZE) {
+                    data = deflate(data);
+                    length = deflatedLength;
+                    flags |= OUTPUT_DEFLATED;
+                }
+
+                out.write(OUTPUT);
+                out.write(stream);
+                out.write(flags);
+                out.writeInt(length);
+                out.write(data, 0, length);
+                off += n;
+            }
+
+            if (flush) {
+                flushOutput();
+            }
+        }
+
+        private void flushOutput() throws IOException {
+            long now = System.currentTimeMillis();
+            long delay = lastOutputFlush + OUTPUT_LINGER - now;
+            if (delay <= 0 || timer == null) {
+                out.flush();
+                lastOutputFlush = now;
+            } else if (pendingOutputFlush == null) {
+                pendingOutputFlush = timer.requestDelayedCallback(() -> {
+                    synchronized (Task.this) {
+                        pendingOutputFlush = null;
+                        if (out != null) {
+                            try {
+                                out.flush();
+                            } catch (IOException ignore) {
+                                // the task will see the problem next time it writes
+                            }
+                            lastOutputFlush = System.currentTimeMillis();
+                        }
+                    }
+                }, delay);
+            }
+        }
+
+        /**
+         * Compress text for an OUTPUT frame.  The compressed data is flushed
+         * at the end of each frame, so that the harness can read it at once,
+         * but later frames may refer back to earlier ones.
+         *
+         * @return a buffer holding the compressed data, of length deflatedLength
+         */
+        private byte[] deflate(byte[] data) {
+            deflater.setInput(data);
+            deflatedLength = 0;
+            while (true) {
+                int n = deflater.deflate(deflateBuffer, deflatedLength,
+                        deflateBuffer.length - deflatedLength, Deflater.SYNC_FLUSH);
+                deflatedLength += n;
+                if (deflatedLength < deflateBuffer.length) {
+                    return deflateBuffer;
+                }
+                deflateBuffer = Arrays.copyOf(deflateBuffer, deflateBuffer.length * 2);
+            }
+        }
+
         /**
          * Send the final status back to the client.
          */
@@ -1039,6 +1290,25 @@ public class Agent implements Runnable {
             }
 
             try {
+                String name = className.replace('.', '/') + ".class";
+                AgentClassCache.Entry e = findInBundles(name);
+                if (e == NOT_ON_CLASS_PATH) {
+                    throw new ClassNotFoundException(className);
+                } else if (e != null) {
+                    if (tracing) {
+                        traceOut.println("PRELOADED CLASS " + className);
+                    }
+                    return new AgentRemoteClassData(className, e.codeSource, AgentClassCache.digest(e.data), e.data);
+                }
+
+                e = getCachedEntry(name);
+                if (e != null) {
+                    if (tracing) {
+                        traceOut.println("CACHED CLASS " + className);
+                    }
+                    return new AgentRemoteClassData(className, e.codeSource, e.hash, e.data);
+                }
+
                 out.write(CLASS);
                 out.writeUTF(className);
                 out.flush();
@@ -1047,6 +1317,11 @@ public class Agent implements Runnable {
                 if (tracing) {
                     traceOut.println("REMOTE LOADED CLASS " + classData.toString());
                 }
+
+                e = putCachedEntry(name, classData.getCodeSource(), classData.getByteData());
+                if (e != null) {
+                    classData = new AgentRemoteClassData(className, e.codeSource, e.hash, e.data);
+                }
                 return classData;
             } catch (IOException e) {
                 throw new ClassNotFoundException(className + ": " + e);
@@ -1061,6 +1336,24 @@ public class Agent implements Runnable {
                 traceOut.println("REMOTE LOAD " + resourceName);
             }
 
+            AgentClassCache.Entry e = findInBundles(resourceName);
+            if (e == NOT_ON_CLASS_PATH) {
+                throw new MissingResourceException(resourceName, null, resourceName);
+            } else if (e != null) {
+                if (tracing) {
+                    traceOut.println("PRELOADED RESOURCE " + resourceName);
+                }
+                return e.data;
+            }
+
+            e = getCachedEntry(resourceName);
+            if (e != null) {
+                if (tracing) {
+                    traceOut.println("CACHED RESOURCE " + resourceName);
+                }
+                return e.data;
+            }
+
             out.write(DATA);
             out.writeUTF(resourceName);
             out.flush();
@@ -1091,9 +1384,209 @@ public class Agent implements Runnable {
             //}
             //System.err.println();
 
+            putCachedEntry(resourceName, null, data);
             return data;
         }
 
+        /**
+         * Check whether classes defined for earlier tasks are the same as those
+         * the harness provides for this one.
+         *
+         * @param hashes the hashes of the content of the classes, by resource name
+         * @return false if the harness provides different content for any of the
+         * classes, or no longer provides it
+         */
+        synchronized boolean isCurrent(Map<String, byte[]> hashes) {
+            try {
+                checkManifest(hashes.keySet());
+            } catch (IOException e) {
+                // the classes will not be loaded either
+                return true;
+            }
+
+            for (Map.Entry<String, byte[]> e : hashes.entrySet()) {
+                if (harnessHashes.containsKey(e.getKey())
+                        && !Arrays.equals(e.getValue(), harnessHashes.get(e.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Find the given resource in the jar files preloaded for this task.
+         *
+         * @return the content, NOT_ON_CLASS_PATH if the jar files make up the
+         * whole class path and none of them holds the resource, or null if
+         * the harness must be asked
+         */
+        private AgentClassCache.Entry findInBundles(String name) throws IOException {
+            checkManifest(Collections.<String>emptySet());
+            if (bundles == null) {
+                return null;
+            }
+
+            for (int i = 0; i < bundles.length; i++) {
+                if (bundles[i] == null) {
+                    // only the harness can tell what this element holds
+                    return null;
+                }
+
+                byte[] data;
+                try {
+                    data = bundles[i].read(name);
+                } catch (IOException e) {
+                    return null;
+                }
+                if (data != null) {
+                    return new AgentClassCache.Entry(name, bundleCodeSources[i], data, null);
+                }
+            }
+            return NOT_ON_CLASS_PATH;
+        }
+
+        /**
+         * Find content for the given resource in the class cache, which the
+         * harness has confirmed it provides for this task.
+         */
+        private AgentClassCache.Entry getCachedEntry(String name) throws IOException {
+            if (AgentClassCache.getInstance().contains(name)) {
+                checkManifest(Collections.singleton(name));
+            } else {
+                checkManifest(Collections.<String>emptySet());
+            }
+            byte[] hash = harnessHashes.get(name);
+            return hash == null ? null : AgentClassCache.getInstance().get(name, hash);
+        }
+
+        /**
+         * Add content received from the harness to the class cache.
+         *
+         * @return the cache entry, or null if content cannot be cached for this task
+         */
+        private AgentClassCache.Entry putCachedEntry(String name, String codeSource, byte[] data) {
+            if (!(connection instanceof Multiplexer.Channel)) {
+                return null;
+            }
+
+            AgentClassCache.Entry e = AgentClassCache.getInstance().put(name, codeSource, data);
+            harnessHashes.put(name, e.hash);
+            return e;
+        }
+
+        /**
+         * Ask the harness for the hashes of the content it provides for any of
+         * the given names which have not already been checked for this task.
+         * The first request is made when remote classes are first needed, even
+         * if there are no names to check, since the reply also describes the
+         * class path.  Requests are only made on multiplexed connections, whose
+         * harness is known to understand them.
+         */
+        private void checkManifest(Collection<String> others) throws IOException {
+            boolean first = harnessHashes == null;
+            if (first) {
+                harnessHashes = new HashMap<>();
+            }
+            if (!(connection instanceof Multiplexer.Channel)) {
+                return;
+            }
+
+            Set<String> names = new LinkedHashSet<>();
+            for (String name : others) {
+                if (!harnessHashes.containsKey(name)) {
+                    names.add(name);
+                }
+            }
+            if (names.isEmpty() && !first) {
+                return;
+            }
+
+            out.write(MANIFEST);
+            out.writeInt(names.size());
+            for (String name : names) {
+                out.writeUTF(name);
+            }
+            out.flush();
+
+            for (String name : names) {
+                byte[] hash = null;
+                if (in.readBoolean()) {
+                    hash = new byte[AgentClassCache.HASH_LENGTH];
+                    in.readFully(hash);
+                }
+                harnessHashes.put(name, hash);
+            }
+
+            if (tracing) {
+                traceOut.println("MANIFEST CHECKED " + names.size() + " NAMES");
+            }
+
+            if (first) {
+                readBundles();
+            }
+        }
+
+        /**
+         * Read the description of the class path which follows the reply to the
+         * first MANIFEST request of a task, and get any jar files it lists which have not
+         * already been received.
+         */
+        private void readBundles() throws IOException {
+            int n = in.readShort();
+            if (n == 0) {
+                return;
+            }
+
+            byte[][] hashes = new byte[n][];
+            String[] codeSources = new String[n];
+            for (int i = 0; i < n; i++) {
+                if (in.readBoolean()) {
+                    hashes[i] = new byte[AgentClassCache.HASH_LENGTH];
+                    in.readFully(hashes[i]);
+                    codeSources[i] = in.readUTF();
+                }
+            }
+
+            // any jar file which cannot be received is left to the harness
+            AgentBundleCache.Bundle[] bs = new AgentBundleCache.Bundle[n];
+            for (int i = 0; i < n; i++) {
+                if (hashes[i] != null) {
+                    bs[i] = getBundle(hashes[i]);
+                }
+            }
+            bundles = bs;
+            bundleCodeSources = codeSources;
+        }
+
+        private AgentBundleCache.Bundle getBundle(byte[] hash) throws IOException {
+            AgentBundleCache cache = AgentBundleCache.getInstance();
+            AgentBundleCache.Bundle b;
+            try {
+                b = cache.claim(hash);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            if (b == AgentBundleCache.NOT_STORED) {
+                if (tracing) {
+                    traceOut.println("BUNDLE NOT STORED");
+                }
+                return null;
+            } else if (b != null) {
+                return b;
+            }
+
+            out.write(BUNDLE);
+            out.write(hash);
+            out.flush();
+
+            long size = in.readLong();
+            b = cache.put(hash, in, size);
+            if (tracing) {
+                traceOut.println("RECEIVED BUNDLE " + size + " BYTES" + (b == null ? " (NOT USED)" : ""));
+            }
+            return b;
+        }
+
         private ClassLoader getAgentClassLoader(boolean useSharedClassLoader)
                 throws InstantiationException, IllegalAccessException {
             Class<? extends ClassLoader> classLoaderClass;
@@ -0,0 +1,269 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.agent;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The jar files an agent has received whole from the harness, so that
+ * classes and resources can be loaded from them without asking the harness
+ * for each one.  The jar files are written to temporary files, and are
+ * identified by a hash of their content, so that they need only be received
+ * once by each agent, whichever harness connects to it.
+ * <p>
+ * The least recently used jar files are dropped when more than
+ * {@link #MAX_BUNDLES} are held.  The hashes of jar files which were received
+ * but could not be stored are remembered too, so that they are not sent again;
+ * classes are then loaded from the harness one at a time, as if the jar files
+ * had not been preloaded.
+ *
+ * @see Agent#BUNDLE
+ */
+class AgentBundleCache {
+    /**
+     * A jar file received from the harness.
+     */
+    static class Bundle {
+        private Bundle(File file) throws IOException {
+            this.file = file;
+            zip = new ZipFile(file);
+        }
+
+        private Bundle() {
+            file = null;
+        }
+
+        /**
+         * Read an entry of the jar file.
+         *
+         * @param name the name of the entry
+         * @return the content of the entry, or null if there is no such entry
+         * @throws IOException if there is a problem reading the jar file
+         */
+        synchronized byte[] read(String name) throws IOException {
+            if (zip == null) {
+                throw new IOException("bundle has been discarded");
+            }
+            ZipEntry ze = zip.getEntry(name);
+            return ze == null ? null : ClassPathIndex.read(zip.getInputStream(ze), ze.getSize());
+        }
+
+        private synchronized void discard() {
+            try {
+                zip.close();
+            } catch (IOException ignore) {
+            }
+            zip = null;
+            file.delete();
+        }
+
+        private final File file;
+        private ZipFile zip;
+    }
+
+    /**
+     * Get the cache shared by all tasks in this virtual machine.
+     *
+     * @return the cache
+     */
+    static AgentBundleCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Get the jar file with the given hash.  If another task is receiving it,
+     * wait until it has done so; if nobody is, the caller is expected to
+     * receive it, and call {@link #put put} when done.
+     *
+     * @param hash the hash of the content of the jar file
+     * @return the jar file, {@link #NOT_STORED} if it has been received before
+     * but could not be stored, or null if the caller should receive it
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized Bundle claim(byte[] hash) throws InterruptedException {
+        String key = key(hash);
+        while (receiving.contains(key)) {
+            wait();
+        }
+        if (notStored.containsKey(key)) {
+            return NOT_STORED;
+        }
+        Bundle b = bundles.get(key);
+        if (b == null) {
+            receiving.add(key);
+        }
+        return b;
+    }
+
+    /**
+     * Receive a jar file previously claimed.  Exactly the given number of
+     * bytes are read from the stream, even if the jar file cannot be stored.
+     *
+     * @param hash the hash of the content, as given to {@link #claim claim}
+     * @param in   the stream from which to read the content
+     * @param size the size of the content, or -1 if the harness has no such
+     *             content to send
+     * @return the jar file, or null if it could not be stored or its content
+     * does not match the hash; it is then not to be received again
+     * @throws IOException if there is a problem reading the stream
+     */
+    Bundle put(byte[] hash, InputStream in, long size) throws IOException {
+        String key = key(hash);
+        Bundle b = null;
+        boolean received = false;
+        try {
+            b = receive(hash, in, size);
+            received = true;
+        } finally {
+            synchronized (this) {
+                receiving.remove(key);
+                if (received && b == null) {
+                    // don't have it sent again; a broken connection is
+                    // not remembered, since it says nothing about the jar file
+                    notStored.put(key, Boolean.TRUE);
+                } else if (b != null) {
+                    bundles.put(key, b);
+                    for (Iterator<Bundle> iter = bundles.values().iterator(); bundles.size() > MAX_BUNDLES; ) {
+                        iter.next().discard();
+                        iter.remove();
+                    }
+                }
+                notifyAll();
+            }
+        }
+        return b;
+    }
+
+    private static Bundle receive(byte[] hash, InputStream in, long size) throws IOException {
+        if (size < 0) {
+            return null;
+        }
+
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // required of every implementation of the platform
+            throw new Error(e.toString());
+        }
+
+        File file = null;
+        OutputStream out;
+        try {
+            file = File.createTempFile("jtbundle", ".jar");
+            file.deleteOnExit();
+            out = new BufferedOutputStream(new FileOutputStream(file));
+        } catch (IOException | SecurityException e) {
+            // the content must still be read
+            out = null;
+        }
+
+        byte[] buf = new byte[8192];
+        try (OutputStream o = out == null ? null : new DigestOutputStream(out, md)) {
+            for (long remaining = size; remaining > 0; ) {
+                int n = in.read(buf, 0, (int) Math.min(buf.length, remaining));
+                if (n == -1) {
+                    throw new IOException("EOF while reading bundle");
+                }
+                if (o != null) {
+                    o.write(buf, 0, n);
+                }
+                remaining -= n;
+            }
+        } catch (IOException e) {
+            if (file != null) {
+                file.delete();
+            }
+            throw e;
+        }
+
+        if (out == null) {
+            return null;
+        }
+
+        if (!Arrays.equals(md.digest(), hash)) {
+            // the jar file changed while it was being sent
+            file.delete();
+            return null;
+        }
+
+        try {
+            return new Bundle(file);
+        } catch (IOException e) {
+            file.delete();
+            return null;
+        }
+    }
+
+    private static String key(byte[] hash) {
+        StringBuilder sb = new StringBuilder(2 * hash.length);
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    static final int MAX_BUNDLES = 64;
+
+    /**
+     * Returned by {@link #claim claim} for jar files which could not be stored.
+     * It holds no entries, and cannot be read.
+     */
+    static final Bundle NOT_STORED = new Bundle();
+
+    private static final int MAX_NOT_STORED = 1024;
+
+    private static final AgentBundleCache instance = new AgentBundleCache();
+
+    private final Map<String, Bundle> bundles = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> receiving = new HashSet<>();
+    private final Map<String, Boolean> notStored = new LinkedHashMap<String, Boolean>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_NOT_STORED;
+        }
+    };
+}
@@ -0,0 +1,174 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.agent;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The classes and resources an agent has loaded from the harness, kept so
+ * that later tasks need not transfer them again.  Entries are keyed by
+ * resource name and a hash of their content, so that harnesses with different
+ * versions of a class can share an agent; before a task uses an entry, the
+ * harness must confirm that its content is what the task's class path holds.
+ * <p>
+ * The least recently used entries are dropped once the total size of the
+ * content exceeds the limit given by the {@code javatest.agent.classCacheSize}
+ * system property, in bytes.
+ *
+ * @see Agent#MANIFEST
+ */
+class AgentClassCache {
+    /**
+     * An item of content, and the name under which the harness provided it.
+     */
+    static class Entry {
+        Entry(String name, String codeSource, byte[] data, byte[] hash) {
+            this.name = name;
+            this.codeSource = codeSource;
+            this.data = data;
+            this.hash = hash;
+        }
+
+        final String name;
+        final String codeSource;
+        final byte[] data;
+        final byte[] hash;
+    }
+
+    /**
+     * Get the cache shared by all tasks in this virtual machine.
+     *
+     * @return the cache
+     */
+    static AgentClassCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Compute the hash by which content is identified.
+     *
+     * @param data the content
+     * @return the hash, which is {@link #HASH_LENGTH} bytes long
+     */
+    static byte[] digest(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            // required of every implementation of the platform
+            throw new Error(e.toString());
+        }
+    }
+
+    AgentClassCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Check whether anything will be kept in the cache.
+     *
+     * @return true if the cache is enabled
+     */
+    boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Check whether any content is held for a resource.
+     *
+     * @param name the name of the resource
+     * @return true if some content is held for the resource
+     */
+    synchronized boolean contains(String name) {
+        return names.containsKey(name);
+    }
+
+    /**
+     * Get the entry for a resource with the given content.
+     *
+     * @param name the name of the resource
+     * @param hash the hash of the content
+     * @return the entry, or null if it is not held
+     */
+    synchronized Entry get(String name, byte[] hash) {
+        return entries.get(key(name, hash));
+    }
+
+    /**
+     * Add content to the cache.
+     *
+     * @param name       the name of the resource
+     * @param codeSource the code source of a class, or null
+     * @param data       the content, which must not be modified afterwards
+     * @return the entry for the content
+     */
+    synchronized Entry put(String name, String codeSource, byte[] data) {
+        byte[] hash = digest(data);
+        String key = key(name, hash);
+        Entry e = entries.get(key);
+        if (e == null) {
+            e = new Entry(name, codeSource, data, hash);
+            if (isEnabled() && data.length <= maxSize) {
+                entries.put(key, e);
+                names.merge(name, 1, Integer::sum);
+                size += data.length;
+                for (Iterator<Entry> iter = entries.values().iterator(); size > maxSize; ) {
+                    Entry old = iter.next();
+                    size -= old.data.length;
+                    names.computeIfPresent(old.name, (n, count) -> count == 1 ? null : count - 1);
+                    iter.remove();
+                }
+            }
+        }
+        return e;
+    }
+
+    private static String key(String name, byte[] hash) {
+        StringBuilder sb = new StringBuilder(name.length() + 1 + 2 * hash.length);
+        sb.append(name).append('\0');
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    static final int HASH_LENGTH = 32;
+
+    private static final AgentClassCache instance =
+            new AgentClassCache(Integer.getInteger("javatest.agent.classCacheSize", 16 * 1024 * 1024));
+
+    private final int maxSize;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // the number of entries for each resource name
+    private final Map<String, Integer> names = new HashMap<>();
+    private long size;
+}
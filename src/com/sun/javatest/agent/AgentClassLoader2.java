@@ -38,12 +38,15 @@ import java.security.PermissionCollection;
 import java.security.Permissions;
 import java.security.ProtectionDomain;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.MissingResourceException;
 
 class AgentClassLoader2 extends InstantiationClassLoader {
 
     private static volatile AgentClassLoader2 instance = null;
     private final HashMap<CodeSource, ProtectionDomain> pdcache = new HashMap<>(11);
+    // hashes of the classes defined from the agent's class cache, by resource name
+    private final Map<String, byte[]> defined = new HashMap<>();
     private CodeSource cs = null;
     private Agent.Task parent;
 
@@ -72,19 +75,25 @@ class AgentClassLoader2 extends InstantiationClassLoader {
 
     /*
      * Returns shared instance of classloader for tests where it is required.
+     * The instance is replaced if any class it has defined is not the same as
+     * the one the harness provides for the new task.
      */
     public static AgentClassLoader2 getInstance(Agent.Task parent) {
-        if (instance == null) {
-            synchronized (AgentClassLoader2.class) {
-                if (instance == null) {
-                    instance = new AgentClassLoader2(parent);
-                }
+        synchronized (AgentClassLoader2.class) {
+            if (instance == null || !instance.isCurrent(parent)) {
+                instance = new AgentClassLoader2(parent);
             }
         }
         instance.parent = parent;
         return instance;
     }
 
+    private boolean isCurrent(Agent.Task task) {
+        synchronized (defined) {
+            return defined.isEmpty() || task.isCurrent(defined);
+        }
+    }
+
     private ProtectionDomain getProtectionDomain(CodeSource cs) {
         ProtectionDomain pd = null;
         synchronized (pdcache) {
@@ -136,6 +145,12 @@ class AgentClassLoader2 extends InstantiationClassLoader {
                 pd = getProtectionDomain(cs);
             }
 
+            if (classData.getHash() != null) {
+                synchronized (defined) {
+                    defined.put(className.replace('.', '/') + ".class", classData.getHash());
+                }
+            }
+
             return defineClass(className, classData.getByteData(), 0, classData.getByteData().length, pd);
 
         }
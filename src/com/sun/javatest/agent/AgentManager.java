@@ -31,21 +31,29 @@ import com.sun.javatest.util.DynamicArray;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.PrintWriter;
 import java.net.ConnectException;
-import java.util.Enumeration;
-import java.util.Hashtable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 /**
  * Access to the facilities provided by JT Harness agents.
@@ -60,8 +68,18 @@ public class AgentManager {
 
     private static final AgentManager theManager = new AgentManager();
     private static final int PASSIVE_AGENT_RETRY_LIMIT = 12;
+    private static final boolean multiplexing = !Boolean.getBoolean("javatest.agent.noMultiplex");
     private Observer[] observers = new Observer[0];
 
+    // connections to agents over which tasks are multiplexed; passive agents
+    // are identified by host and port, and their connections are shared by
+    // any number of tasks; connections from the active agent pool each
+    // stand in for one pool entry, so are used by one task at a time
+    private final Map<String, Multiplexer> passiveSessions = new HashMap<>();
+    private final Set<String> legacyPassiveAgents = new HashSet<>();
+    private final Deque<Multiplexer> idleActiveSessions = new ArrayDeque<>();
+    private boolean legacyActiveAgents;
+
     //--------------------------------------------------------------------------
     private ActiveAgentPool pool = new ActiveAgentPool();
 
@@ -149,7 +167,43 @@ public class AgentManager {
      * @throws IOException                      if a problem occurs establishing the connection
      */
     public Task connectToActiveAgent() throws ActiveAgentPool.NoAgentException, InterruptedException, IOException {
-        return connect(pool.nextAgent());
+        if (!multiplexing) {
+            return connect(pool.nextAgent());
+        }
+
+        Multiplexer m;
+        while ((m = nextIdleActiveSession()) != null) {
+            try {
+                return new Task(m.open(), m);
+            } catch (IOException e) {
+                // the agent has gone away
+            }
+        }
+
+        while (true) {
+            Connection c = pool.nextAgent();
+            synchronized (idleActiveSessions) {
+                if (legacyActiveAgents) {
+                    return connect(c);
+                }
+            }
+
+            try {
+                m = Multiplexer.negotiate(c);
+            } catch (EOFException e) {
+                // the agent does not know the multiplexed protocol, and has
+                // closed or reset the connection; assume the same of the others
+                synchronized (idleActiveSessions) {
+                    legacyActiveAgents = true;
+                }
+                continue;
+            }
+
+            if (m == null) {
+                return connect(c);
+            }
+            return new Task(m.open(), m);
+        }
     }
 
     /**
@@ -185,10 +239,70 @@ public class AgentManager {
             throw new NullPointerException();
         }
 
+        if (multiplexing) {
+            Task t = connectToMultiplexedAgent(host, port);
+            if (t != null) {
+                return t;
+            }
+        }
+
+        return connect(openPassiveConnection(host, port));
+    }
+
+    /**
+     * Get a task on a channel of the multiplexed connection to a passive
+     * agent, opening the connection if need be.
+     *
+     * @return the task, or null if the agent only accepts requests with
+     * the ordinary protocol
+     */
+    private Task connectToMultiplexedAgent(String host, int port) throws IOException {
+        String key = host + ":" + port;
+        for (int attempt = 0; ; attempt++) {
+            Multiplexer m;
+            // held while connecting, so that concurrent tasks share one connection
+            synchronized (passiveSessions) {
+                if (legacyPassiveAgents.contains(key)) {
+                    return null;
+                }
+
+                m = passiveSessions.get(key);
+                if (m == null || m.isClosed()) {
+                    Connection c = openPassiveConnection(host, port);
+                    try {
+                        m = Multiplexer.negotiate(c);
+                    } catch (EOFException e) {
+                        // the agent does not know the multiplexed protocol,
+                        // and has closed or reset the connection
+                        legacyPassiveAgents.add(key);
+                        return null;
+                    }
+
+                    if (m == null) {
+                        // the agent declined, but will accept a request on this connection
+                        legacyPassiveAgents.add(key);
+                        return connect(c);
+                    }
+                    passiveSessions.put(key, m);
+                }
+            }
+
+            try {
+                return new Task(m.open(), null);
+            } catch (IOException e) {
+                // the connection was lost since it was last used; try a new one
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private Connection openPassiveConnection(String host, int port) throws IOException {
         for (int i = 0; ; i++) {
             try {
-//              return connect(new SocketConnection(host, port));
-                return connect(new InterruptableSocketConnection(host, port));
+//              return new SocketConnection(host, port);
+                return new InterruptableSocketConnection(host, port);
             } catch (ConnectException e) {
                 if (i == PASSIVE_AGENT_RETRY_LIMIT) {
                     throw e;
@@ -202,6 +316,26 @@ public class AgentManager {
         }
     }
 
+    private Multiplexer nextIdleActiveSession() {
+        synchronized (idleActiveSessions) {
+            Multiplexer m;
+            while ((m = idleActiveSessions.poll()) != null) {
+                if (!m.isClosed()) {
+                    return m;
+                }
+            }
+            return null;
+        }
+    }
+
+    private void releaseActiveSession(Multiplexer m) {
+        synchronized (idleActiveSessions) {
+            if (!m.isClosed()) {
+                idleActiveSessions.add(m);
+            }
+        }
+    }
+
     /**
      * An Observer class to monitor Agent activity.
      */
@@ -243,8 +377,16 @@ public class AgentManager {
         private DataOutputStream out;
         private File[] classPath;
         private boolean sharedCl;
+        private boolean preloadClassPath;
+        private boolean compressOutput = Boolean.getBoolean("javatest.agent.compressOutput");
         private int timeout = 0;
-        private Hashtable<File, ZipFile> zips = new Hashtable<>();
+        private ClassPathIndex classPathIndex;
+        // set once the class path has been described to the agent in reply
+        // to a MANIFEST request during the current run
+        private boolean jarHashesSent;
+        private Multiplexer activeSession;
+        // expands compressed OUTPUT frames; created when the first one arrives
+        private Inflater inflater;
 
         /**
          * Create a connection to a agent retrieved from the agent pool.
@@ -252,7 +394,20 @@ public class AgentManager {
          * @param c The connection with which to communicate to the agent.
          */
         Task(Connection c) {
+            this(c, null);
+        }
+
+        /**
+         * Create a task on a channel of a multiplexed connection.
+         *
+         * @param c             The channel with which to communicate to the agent.
+         * @param activeSession The connection from the active agent pool which
+         *                      carries the channel, to be used again when this task
+         *                      is complete, or null.
+         */
+        Task(Connection c, Multiplexer activeSession) {
             connection = c;
+            this.activeSession = activeSession;
             in = new DataInputStream(new BufferedInputStream(c.getInputStream()));
             out = new DataOutputStream(new BufferedOutputStream(c.getOutputStream()));
         }
@@ -290,6 +445,7 @@ public class AgentManager {
          */
         public void setClassPath(String path) {
             classPath = split(path);
+            closeClassPathIndex();
         }
 
         /**
@@ -312,6 +468,7 @@ public class AgentManager {
             }
 
             classPath = path;
+            closeClassPathIndex();
         }
 
         /**
@@ -324,6 +481,32 @@ public class AgentManager {
             this.sharedCl = state;
         }
 
+        /**
+         * Set whether the jar files on the classpath should be sent whole to the
+         * remote agent, which then loads classes and resources from them itself.
+         * Each jar file is sent once to each agent, which keeps it for later
+         * tasks for as long as its content is unchanged.  This is only done on
+         * multiplexed connections; otherwise, and for directories on the
+         * classpath, classes are sent one at a time as the agent needs them.
+         *
+         * @param state true if jar files should be sent whole
+         */
+        public void setPreloadClassPath(boolean state) {
+            this.preloadClassPath = state;
+        }
+
+        /**
+         * Set whether the remote agent may compress the output of the test or
+         * command it runs.  This is only done on multiplexed connections.  The
+         * default is given by the {@code javatest.agent.compressOutput}
+         * system property.
+         *
+         * @param state true if output may be compressed
+         */
+        public void setCompressOutput(boolean state) {
+            this.compressOutput = state;
+        }
+
         /**
          * Set the timeout after command thread will be interrupted on the agent
          *
@@ -425,6 +608,7 @@ public class AgentManager {
                            PrintWriter log, PrintWriter ref) {
             notifyStarted(connection, tag, request, executable, args, localizeArgs);
             Status result = null;
+            jarHashesSent = false;
             try {
 //                boolean sharedClOption = false;
                 out.writeShort(Agent.protocolVersion);
@@ -445,6 +629,10 @@ public class AgentManager {
                 out.writeBoolean(sharedCl);
                 out.writeInt(timeout);
                 out.writeByte(0);
+                if (connection instanceof Multiplexer.Channel) {
+                    // the agent sends output in OUTPUT frames
+                    out.writeByte(compressOutput ? Agent.OUTPUT_DEFLATED : 0);
+                }
                 out.flush();
 
                 result = readResults(log, ref);
@@ -466,6 +654,13 @@ public class AgentManager {
                 }
             } finally {
                 notifyFinished(connection, result);
+                closeClassPathIndex();
+                if (inflater != null) {
+                    inflater.end();
+                }
+                if (activeSession != null) {
+                    releaseActiveSession(activeSession);
+                }
             }
             return result;
         }
@@ -505,6 +700,33 @@ public class AgentManager {
                         //System.err.println("done request for " + resourceName);
                         break;
 
+                    case Agent.MANIFEST:
+                        String[] names = new String[in.readInt()];
+                        for (int i = 0; i < names.length; i++) {
+                            names[i] = in.readUTF();
+                        }
+                        for (String name : names) {
+                            ClassPathIndex.Resource r = locate(name);
+                            out.writeBoolean(r != null);
+                            if (r != null) {
+                                out.write(r.getHash());
+                            }
+                        }
+                        if (!jarHashesSent) {
+                            // the agent only asks for them in its first request
+                            writeJarHashes();
+                            jarHashesSent = true;
+                        }
+                        out.flush();
+                        break;
+
+                    case Agent.BUNDLE:
+                        byte[] hash = new byte[AgentClassCache.HASH_LENGTH];
+                        in.readFully(hash);
+                        writeJar(hash);
+                        out.flush();
+                        break;
+
                     case Agent.STATUS:
                         int type = in.read();
                         String reason = in.readUTF();
@@ -541,6 +763,20 @@ public class AgentManager {
                         ref.write(in.readUTF());
                         ref.flush();
                         break;
+
+                    case Agent.OUTPUT:
+                        PrintWriter pw = in.read() == Agent.REF ? ref : log;
+                        int flags = in.read();
+                        byte[] data = new byte[in.readInt()];
+                        in.readFully(data);
+                        if ((flags & Agent.OUTPUT_DEFLATED) != 0) {
+                            data = inflate(data);
+                        }
+                        pw.write(new String(data, StandardCharsets.UTF_8));
+                        if ((flags & Agent.OUTPUT_FLUSH) != 0) {
+                            pw.flush();
+                        }
+                        break;
                 }
             }
 
@@ -551,108 +787,113 @@ public class AgentManager {
             log.flush();
             ref.flush();
 
-            // might be better not to flush these ...
-            for (Enumeration<File> e = zips.keys(); e.hasMoreElements(); ) {
-                File f = e.nextElement();
-                ZipFile z = zips.get(f);
-                zips.remove(f);
-                z.close();
+            return status;
+        }
+
+        private byte[] inflate(byte[] data) throws IOException {
+            if (inflater == null) {
+                inflater = new Inflater(true);
             }
 
-            return status;
+            // each frame is flushed by the agent, so expands completely
+            inflater.setInput(data);
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length * 4);
+            byte[] buf = new byte[8192];
+            try {
+                int n;
+                do {
+                    n = inflater.inflate(buf);
+                    bos.write(buf, 0, n);
+                } while (n > 0);
+            } catch (DataFormatException e) {
+                throw new IOException("bad compressed output from agent: " + e.getMessage());
+            }
+            return bos.toByteArray();
         }
 
         private AgentRemoteClassData locateClass(String name) {
             //System.err.println("locateClass: " + name);
-            if (classPath != null) {
-                String cname = name.replace('.', '/') + ".class";
-                for (File aClassPath : classPath) {
-                    byte[] data;
-                    if (aClassPath.isDirectory()) {
-                        data = readFromDir(cname, aClassPath);
-                    } else {
-                        data = readFromJar(cname, aClassPath);
-                    }
-                    if (data != null) {
-                        String codeSource = "";
-                        try {
-                            codeSource = aClassPath.toURI().toURL().getPath();
-                        } catch (IOException e) {
-                            //codeSource will not be set
-                        }
-                        return new AgentRemoteClassData(name, codeSource, data);
-                    }
-                }
-            }
-
-            return AgentRemoteClassData.NO_CLASS_DATA;
+            ClassPathIndex.Resource r = locate(name.replace('.', '/') + ".class");
+            return r == null ? AgentRemoteClassData.NO_CLASS_DATA
+                    : new AgentRemoteClassData(name, r.codeSource, r.data);
         }
 
         private byte[] locateData(String name) {
             //System.err.println("locateData: " + name);
-            if (classPath != null) {
-                for (File aClassPath : classPath) {
-                    byte[] data;
-                    if (aClassPath.isDirectory()) {
-                        data = readFromDir(name, aClassPath);
-                    } else {
-                        data = readFromJar(name, aClassPath);
-                    }
-                    if (data != null) {
-                        return data;
-                    }
-                }
-            }
+            ClassPathIndex.Resource r = locate(name);
+            return r == null ? null : r.data;
+        }
 
-            return null;
+        private ClassPathIndex.Resource locate(String name) {
+            ClassPathIndex index = getClassPathIndex();
+            return index == null ? null : index.find(name);
         }
 
-        private byte[] readFromDir(String name, File dir) {
-            //System.err.println("readFromDir: " + name + " " + dir);
-            try {
-                File file = new File(dir, name);
-                return read(new FileInputStream(file), (int) file.length());
-            } catch (IOException e) {
-                //System.err.println("readFromDir: " + e);
-                return null;
+        /**
+         * Tell the agent which elements of the classpath are jar files it may
+         * load from itself, and the code source for each.
+         */
+        private void writeJarHashes() throws IOException {
+            ClassPathIndex index = getClassPathIndex();
+            if (!preloadClassPath || index == null) {
+                out.writeShort(0);
+                return;
             }
-        }
 
-        private byte[] readFromJar(String name, File jarFile) {
-            //System.err.println("readFromJar: " + name + " " + jarFile);
-            try {
-                ZipFile z = zips.get(jarFile);
-                if (z == null) {
-                    z = new ZipFile(jarFile);
-                    zips.put(jarFile, z);
+            byte[][] hashes = index.getJarHashes();
+            out.writeShort(hashes.length);
+            for (int i = 0; i < hashes.length; i++) {
+                out.writeBoolean(hashes[i] != null);
+                if (hashes[i] != null) {
+                    out.write(hashes[i]);
+                    out.writeUTF(index.getCodeSource(i));
                 }
-                ZipEntry ze = z.getEntry(name);
-                if (ze == null) {
-                    return null;
-                }
-                return read(z.getInputStream(ze), (int) ze.getSize());
-            } catch (IOException e) {
-                //System.err.println("readFromJar: " + e);
-                return null;
             }
         }
 
-        private byte[] read(InputStream in, int size) throws IOException {
-            //System.err.println("read: " + size);
-            try {
-                byte data[] = new byte[size];
-                for (int total = 0; total < data.length; ) {
-                    int n = in.read(data, total, data.length - total);
-                    if (n > 0) {
-                        total += n;
-                    } else {
-                        throw new EOFException("unexpected end of file");
+        private void writeJar(byte[] hash) throws IOException {
+            ClassPathIndex index = getClassPathIndex();
+            File f = index == null ? null : index.getJar(hash);
+            if (f != null) {
+                try (InputStream jarIn = new FileInputStream(f)) {
+                    // the agent checks the content against the hash, in case
+                    // the file changes while it is being sent
+                    long size = f.length();
+                    out.writeLong(size);
+                    byte[] buf = new byte[8192];
+                    for (long remaining = size; remaining > 0; ) {
+                        int n = jarIn.read(buf, 0, (int) Math.min(buf.length, remaining));
+                        if (n == -1) {
+                            // truncated; send the promised length anyway
+                            Arrays.fill(buf, (byte) 0);
+                            n = (int) Math.min(buf.length, remaining);
+                        }
+                        out.write(buf, 0, n);
+                        remaining -= n;
                     }
+                    return;
+                } catch (FileNotFoundException e) {
+                    // fall through
                 }
-                //System.err.println("read complete: " + data.length);
-                return data;
-            } finally {
-                in.close();
+            }
+            out.writeLong(-1);
+        }
+
+        private ClassPathIndex getClassPathIndex() {
+            if (classPath == null) {
+                return null;
+            }
+            if (classPathIndex == null) {
+                classPathIndex = ClassPathIndex.of(classPath);
+            }
+            return classPathIndex;
+        }
+
+        private void closeClassPathIndex() {
+            if (classPathIndex != null) {
+                // let the jar files be closed if no other task is using them
+                classPathIndex.close();
+                classPathIndex = null;
             }
         }
 
@@ -41,6 +41,7 @@ class AgentRemoteClassData {
     private String className;
     private String codeSource;
     private byte[] byteData;
+    private byte[] hash;
 
     private AgentRemoteClassData() {
     }
@@ -51,6 +52,11 @@ class AgentRemoteClassData {
         this.byteData = byteData;
     }
 
+    AgentRemoteClassData(String className, String codeSource, byte[] hash, byte[] byteData) {
+        this(className, codeSource, byteData);
+        this.hash = hash;
+    }
+
     AgentRemoteClassData(DataInputStream in) throws IOException, ClassNotFoundException {
 
         className = in.readUTF();
@@ -99,6 +105,16 @@ class AgentRemoteClassData {
         return byteData;
     }
 
+    /**
+     * Get the hash of the class data, if the data is held in the agent's class cache.
+     *
+     * @return the hash, or null
+     * @see AgentClassCache
+     */
+    byte[] getHash() {
+        return hash;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -37,8 +37,9 @@ import java.io.Writer;
 class AgentWriter extends Writer {
     private byte type;
     private Agent.Task parent;
-    private char[] buf = new char[1024];
+    private char[] buf = new char[8192];
     private int count = 0;
+    private boolean closed;
 
     /**
      * Create a stream that sends its data back to the parent Task.
@@ -62,11 +63,7 @@ class AgentWriter extends Writer {
     public synchronized void write(int ch) throws IOException {
         buf[count++] = (char) ch;
         if (count == buf.length) {
-            try {
-                parent.sendChars(type, buf, 0, count);
-            } finally {
-                count = 0;
-            }
+            sendBuffer(type);
         }
     }
 
@@ -92,20 +89,14 @@ class AgentWriter extends Writer {
      */
     @Override
     public synchronized void write(char c[], int off, int len) throws IOException {
-        if (len < buf.length - count) {
-            // there is room for the bytes in the current buffer
-            System.arraycopy(c, off, buf, count, len);
-            count += len;
-        } else {
-            // not room in the current buffer, so flush it
-            flush();
-            if (len < buf.length) {
-                // there is _now_ enough room in the current buffer, so use it
-                System.arraycopy(c, off, buf, count, len);
-                count += len;
-            } else {
-                // current buffer not big enough; send data directly
-                parent.sendChars(type, c, off, len);
+        while (len > 0) {
+            int n = Math.min(len, buf.length - count);
+            System.arraycopy(c, off, buf, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == buf.length) {
+                sendBuffer(type);
             }
         }
     }
@@ -119,19 +110,7 @@ class AgentWriter extends Writer {
     @Override
     public synchronized void flush() throws IOException {
         if (count > 0) {
-            switch (type) {
-                case Agent.LOG:
-                    type = Agent.LOG_FLUSH;
-                    break;
-                case Agent.REF:
-                    type = Agent.REF_FLUSH;
-                    break;
-            }
-            try {
-                parent.sendChars(type, buf, 0, count);
-            } finally {
-                count = 0;
-            }
+            sendBuffer(type == Agent.LOG ? Agent.LOG_FLUSH : Agent.REF_FLUSH);
         }
     }
 
@@ -143,7 +122,30 @@ class AgentWriter extends Writer {
      * @throws IOException If an I/O error has occurred.
      */
     @Override
-    public void close() throws IOException {
+    public synchronized void close() throws IOException {
+        closed = true;
         flush();
     }
+
+    /**
+     * Send the buffered characters.  Until the stream is closed, a trailing
+     * high surrogate is kept back until the rest of its pair is written, so
+     * that the pair can be encoded.
+     */
+    private void sendBuffer(byte t) throws IOException {
+        int n = count;
+        if (!closed && Character.isHighSurrogate(buf[n - 1])) {
+            n--;
+        }
+        try {
+            if (n > 0) {
+                parent.sendChars(t, buf, 0, n);
+            }
+        } finally {
+            if (n < count) {
+                buf[0] = buf[count - 1];
+            }
+            count -= n;
+        }
+    }
 }
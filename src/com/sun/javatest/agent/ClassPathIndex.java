@@ -0,0 +1,485 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.agent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Lookup of classes and resources on the class path given to
+ * AgentManager.Task, shared by all tasks.
+ * <p>
+ * The names of the entries in each jar file are indexed when the jar file is
+ * first used, and the index is kept; a task checks once whether each jar
+ * file it uses has changed since, and if so, it is indexed again.  A jar file
+ * is only kept open while there are tasks using it, so that it is not locked
+ * between tasks.  Names
+ * in directories are not indexed, but checked with the file system each time
+ * they are looked up, since tests may write classes to directories while
+ * they are running.
+ * <p>
+ * The content found is kept in a cache shared by all tasks, until its total
+ * size exceeds the limit given by the {@code javatest.agent.classPathCacheSize}
+ * system property, in bytes; content from a directory is only used while
+ * the file's size and modification time are unchanged.
+ * <p>
+ * Jar files may also be sent whole to agents which preload them; they are
+ * identified by a hash of their content, computed once for each version.
+ */
+class ClassPathIndex {
+    /**
+     * Content found on the class path.
+     */
+    static class Resource {
+        Resource(String codeSource, byte[] data, FileTime modified, long size) {
+            this.codeSource = codeSource;
+            this.data = data;
+            this.modified = modified;
+            this.size = size;
+        }
+
+        /**
+         * Get the hash of the content, as used by the agent's class cache.
+         *
+         * @return the hash
+         * @see AgentClassCache#digest
+         */
+        synchronized byte[] getHash() {
+            if (hash == null) {
+                hash = AgentClassCache.digest(data);
+            }
+            return hash;
+        }
+
+        private boolean matches(BasicFileAttributes attrs) {
+            return attrs.size() == size && attrs.lastModifiedTime().equals(modified);
+        }
+
+        final String codeSource;
+        final byte[] data;
+        private final FileTime modified;
+        private final long size;
+        private byte[] hash;
+    }
+
+    /**
+     * Get a view of a class path for a single task.
+     *
+     * @param path the class path
+     * @return a view of the class path
+     */
+    static ClassPathIndex of(File... path) {
+        Element[] elements = new Element[path.length];
+        synchronized (allElements) {
+            for (int i = 0; i < path.length; i++) {
+                elements[i] = allElements.get(path[i]);
+                if (elements[i] == null) {
+                    elements[i] = new Element(path[i]);
+                    allElements.put(path[i], elements[i]);
+                }
+                elements[i].acquire();
+            }
+        }
+        return new ClassPathIndex(elements);
+    }
+
+    /**
+     * Release the jar files used by this view of the class path, which
+     * should not be used after this.  A jar file is closed when no task
+     * is using it, but its index is kept.
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        for (Element e : elements) {
+            e.release();
+        }
+    }
+
+    private ClassPathIndex(Element... elements) {
+        this.elements = elements;
+        checked = new boolean[elements.length];
+    }
+
+    /**
+     * Find a class or resource on the class path.
+     *
+     * @param name the name of the resource, using '/' to separate its components
+     * @return the first resource found with the given name, or null
+     */
+    Resource find(String name) {
+        for (int i = 0; i < elements.length; i++) {
+            check(i);
+            Resource r = elements[i].find(name);
+            if (r != null) {
+                return r;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Describe the class path to an agent which loads classes from the jar
+     * files on it itself.
+     *
+     * @return for each element of the class path, the hash of the content of
+     * the jar file, or null if the element is not a jar file which can be read
+     * @see AgentBundleCache
+     */
+    byte[][] getJarHashes() {
+        byte[][] hashes = new byte[elements.length][];
+        for (int i = 0; i < elements.length; i++) {
+            check(i);
+            hashes[i] = elements[i].getJarHash();
+        }
+        return hashes;
+    }
+
+    /**
+     * Get the code source for classes found in an element of the class path.
+     *
+     * @param index the position of the element on the class path
+     * @return the code source
+     */
+    String getCodeSource(int index) {
+        return elements[index].codeSource;
+    }
+
+    /**
+     * Find the jar file on the class path with the given content.
+     *
+     * @param hash the hash of the content, as given by {@link #getJarHashes}
+     * @return the jar file, or null if there is none
+     */
+    File getJar(byte[] hash) {
+        for (int i = 0; i < elements.length; i++) {
+            check(i);
+            if (Arrays.equals(elements[i].getJarHash(), hash)) {
+                return elements[i].file;
+            }
+        }
+        return null;
+    }
+
+    private void check(int index) {
+        if (!checked[index]) {
+            elements[index].check();
+            checked[index] = true;
+        }
+    }
+
+    private static Resource getCached(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private static void putCached(String key, Resource r) {
+        if (r.data.length > maxCacheSize) {
+            return;
+        }
+
+        synchronized (cache) {
+            Resource old = cache.put(key, r);
+            cacheSize += r.data.length - (old == null ? 0 : old.data.length);
+            for (Iterator<Resource> iter = cache.values().iterator(); cacheSize > maxCacheSize; ) {
+                cacheSize -= iter.next().data.length;
+                iter.remove();
+            }
+        }
+    }
+
+    static byte[] read(InputStream in, long size) throws IOException {
+        try {
+            if (size >= 0) {
+                byte[] data = new byte[(int) size];
+                int total = 0;
+                while (total < data.length) {
+                    int n = in.read(data, total, data.length - total);
+                    if (n == -1) {
+                        throw new IOException("unexpected end of file");
+                    }
+                    total += n;
+                }
+                return data;
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * A directory or jar file on the class path.
+     */
+    private static class Element {
+        Element(File file) {
+            this.file = file;
+            id = nextId++;  // guarded by allElements
+
+            String cs = "";
+            try {
+                cs = file.toURI().toURL().getPath();
+            } catch (IOException e) {
+                // codeSource will not be set
+            }
+            codeSource = cs;
+        }
+
+        /**
+         * Index the element if it is a jar file which has not been indexed,
+         * or which has changed since it was.
+         */
+        synchronized void acquire() {
+            users++;
+        }
+
+        synchronized void release() {
+            if (--users == 0) {
+                closeZip();
+            }
+        }
+
+        synchronized void check() {
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            } catch (IOException | InvalidPathException e) {
+                attrs = null;
+            }
+
+            directory = attrs != null && attrs.isDirectory();
+            if (attrs == null || directory) {
+                close();
+                return;
+            }
+
+            if (names == null || !attrs.lastModifiedTime().equals(modified) || attrs.size() != size) {
+                close();
+                jarHash = null;
+                modified = attrs.lastModifiedTime();
+                size = attrs.size();
+                generation++;
+                try {
+                    zip = new ZipFile(file);
+                    names = new HashSet<>();
+                    for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); ) {
+                        names.add(e.nextElement().getName());
+                    }
+                } catch (IOException e) {
+                    close();
+                }
+            }
+        }
+
+        synchronized byte[] getJarHash() {
+            if (directory || names == null) {
+                return null;
+            }
+
+            if (jarHash == null) {
+                try (InputStream in = new FileInputStream(file)) {
+                    MessageDigest md = MessageDigest.getInstance("SHA-256");
+                    byte[] buf = new byte[8192];
+                    int n;
+                    while ((n = in.read(buf)) != -1) {
+                        md.update(buf, 0, n);
+                    }
+                    jarHash = md.digest();
+                } catch (IOException e) {
+                    return null;
+                } catch (NoSuchAlgorithmException e) {
+                    // required of every implementation of the platform
+                    throw new Error(e.toString());
+                }
+            }
+            return jarHash;
+        }
+
+        Resource find(String name) {
+            String key;
+            synchronized (this) {
+                if (!directory && names == null) {
+                    // closed because it could not be read
+                    check();
+                }
+                if (directory) {
+                    key = null;
+                } else if (names == null || !names.contains(name)) {
+                    return null;
+                } else {
+                    key = id + ":" + generation + ":" + name;
+                }
+            }
+
+            if (key == null) {
+                return findInDirectory(name);
+            }
+
+            Resource r = getCached(key);
+            if (r != null) {
+                return r;
+            }
+
+            byte[] data;
+            synchronized (this) {
+                try {
+                    if (zip == null) {
+                        // closed when the last task using it finished
+                        zip = new ZipFile(file);
+                    }
+                    ZipEntry ze = zip.getEntry(name);
+                    if (ze == null) {
+                        return null;
+                    }
+                    data = read(zip.getInputStream(ze), ze.getSize());
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+
+            r = new Resource(codeSource, data, null, -1);
+            putCached(key, r);
+            return r;
+        }
+
+        private Resource findInDirectory(String name) {
+            // most names are not found, and a failed lookup with java.nio
+            // costs an exception
+            File f = new File(file, name);
+            if (!f.isFile()) {
+                return null;
+            }
+
+            Path p;
+            BasicFileAttributes attrs;
+            try {
+                p = f.toPath();
+                attrs = Files.readAttributes(p, BasicFileAttributes.class);
+            } catch (IOException | InvalidPathException e) {
+                return null;
+            }
+
+            if (!attrs.isRegularFile()) {
+                return null;
+            }
+
+            String key = id + "::" + name;
+            Resource r = getCached(key);
+            if (r != null && r.matches(attrs)) {
+                return r;
+            }
+
+            try {
+                r = new Resource(codeSource, read(Files.newInputStream(p), attrs.size()),
+                        attrs.lastModifiedTime(), attrs.size());
+            } catch (IOException e) {
+                return null;
+            }
+            putCached(key, r);
+            return r;
+        }
+
+        private synchronized void close() {
+            names = null;
+            closeZip();
+        }
+
+        private synchronized void closeZip() {
+            if (zip != null) {
+                try {
+                    zip.close();
+                } catch (IOException ignore) {
+                }
+                zip = null;
+            }
+        }
+
+        private final File file;
+        private final int id;
+        private final String codeSource;
+        private boolean directory;
+        private FileTime modified;
+        private long size;
+        private int generation;
+        private int users;
+        private ZipFile zip;
+        private Set<String> names;
+        private byte[] jarHash;
+    }
+
+    private final Element[] elements;
+    private final boolean[] checked;
+    private boolean closed;
+
+    private static final int MAX_ELEMENTS = 256;
+    private static int nextId;
+    private static final Map<File, Element> allElements = new LinkedHashMap<File, Element>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, Element> eldest) {
+            // a jar file is closed by the last task using it
+            return size() > MAX_ELEMENTS;
+        }
+    };
+
+    private static final int maxCacheSize =
+            Integer.getInteger("javatest.agent.classPathCacheSize", 32 * 1024 * 1024);
+    private static final Map<String, Resource> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private static long cacheSize;
+}
@@ -0,0 +1,588 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.agent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Carries many concurrent tasks over a single connection between the harness
+ * and an agent.  Each task is given a channel, which behaves as a connection
+ * of its own and carries the ordinary request protocol between
+ * AgentManager.Task and Agent.Task, including class loading requests and
+ * output; the channels are interleaved on the underlying connection as frames.
+ * <p>
+ * A frame is a channel id, an operation and a count, followed for DATA frames
+ * by that many bytes of data.  Only the harness opens channels.  Either side
+ * may close a channel; if the harness closes a channel before the agent has
+ * replied, the agent treats it as a request to cancel the task.  So that a
+ * fast writer cannot fill the reader's memory, no more data may be sent on
+ * a channel than the reader has granted with CREDIT frames, beyond an
+ * initial window.
+ *
+ * @see Agent#multiplexProtocolVersion
+ */
+class Multiplexer {
+    /**
+     * Create a multiplexer on a connection for which the multiplexed protocol
+     * has been agreed.
+     *
+     * @param connection the underlying connection
+     * @param acceptor   called on the reading thread for each channel opened by
+     *                   the other side, or null if the other side may not open
+     *                   channels
+     */
+    Multiplexer(Connection connection, Consumer<Channel> acceptor) {
+        this.connection = connection;
+        this.acceptor = acceptor;
+        // frames are read on a thread of their own, so there is no need to
+        // pay for the interruptible stream of a socket connection
+        InputStream raw = connection instanceof SocketConnection
+                ? ((SocketConnection) connection).socketInput
+                : connection.getInputStream();
+        // frames are batched, and flushed only when a reply is expected
+        try {
+            if (connection instanceof SocketConnection) {
+                ((SocketConnection) connection).setTcpNoDelay();
+            } else if (connection instanceof ActiveAgentPool.Entry) {
+                ((ActiveAgentPool.Entry) connection).setTcpNoDelay();
+            }
+        } catch (SocketException ignore) {
+        }
+        in = new DataInputStream(new BufferedInputStream(raw, BUFFER_SIZE));
+        out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream(), BUFFER_SIZE));
+    }
+
+    /**
+     * Ask the agent at the other end of a newly opened connection to use
+     * the multiplexed protocol.  If the agent agrees, a multiplexer is
+     * returned, which has been started.  If the agent declines, null is
+     * returned, and the connection may be used for a single request with the
+     * ordinary protocol.
+     *
+     * @param c the connection
+     * @return a multiplexer for the connection, or null
+     * @throws EOFException if the agent closed or reset the connection, as an
+     *                      agent which predates the multiplexed protocol does;
+     *                      the connection has been closed
+     * @throws IOException  if any other problem occurs
+     */
+    static Multiplexer negotiate(Connection c) throws IOException {
+        int b1, b2;
+        try {
+            OutputStream o = c.getOutputStream();
+            o.write(Agent.multiplexProtocolVersion >> 8);
+            o.write(Agent.multiplexProtocolVersion);
+            o.flush();
+
+            // an entry from the active agent pool may have read ahead the first
+            // byte of the reply, which only a fresh stream returns; once it has
+            // been read, a fresh stream reads from the socket directly
+            b1 = c.getInputStream().read();
+            b2 = b1 == -1 ? -1 : c.getInputStream().read();
+        } catch (SocketException e) {
+            // e.g. connection reset, or broken pipe
+            closeQuietly(c);
+            EOFException eof = new EOFException("agent dropped connection during protocol negotiation: "
+                    + e.getMessage());
+            eof.initCause(e);
+            throw eof;
+        }
+        if (b2 == -1) {
+            closeQuietly(c);
+            throw new EOFException("agent closed connection during protocol negotiation");
+        }
+
+        short reply = (short) ((b1 << 8) | b2);
+        if (reply == Agent.multiplexProtocolVersion) {
+            Multiplexer m = new Multiplexer(c, null);
+            m.start();
+            return m;
+        } else if (reply == Agent.protocolVersion) {
+            return null;
+        } else {
+            throw new IOException("protocol mismatch; unexpected reply " + reply);
+        }
+    }
+
+    private static void closeQuietly(Connection c) {
+        try {
+            c.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    /**
+     * Get a name for the underlying connection.
+     *
+     * @return a name for the underlying connection
+     */
+    String getName() {
+        return connection.getName();
+    }
+
+    /**
+     * Read frames on a new daemon thread, until the connection is closed.
+     */
+    void start() {
+        Thread t = new Thread(() -> {
+            try {
+                run();
+            } catch (IOException ignore) {
+                // the channels have been told
+            }
+        }, "Multiplexer[" + getName() + "]");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Open a new channel.
+     *
+     * @return the new channel
+     * @throws IOException if the connection has been closed, or if there is
+     *                     a problem writing to it
+     */
+    Channel open() throws IOException {
+        Channel c;
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("connection closed: " + getName());
+            }
+            c = new Channel(nextId++);
+            channels.put(c.id, c);
+        }
+        writeFrame(c.id, OPEN, 0, null, 0, false);
+        return c;
+    }
+
+    /**
+     * Read and dispatch frames until the other side closes the connection.
+     * When this method returns, the connection and all channels have been closed.
+     *
+     * @throws IOException if there is a problem reading from the connection
+     */
+    void run() throws IOException {
+        try {
+            while (true) {
+                int id;
+                try {
+                    id = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                byte op = in.readByte();
+                int n = in.readInt();
+
+                Channel c;
+                switch (op) {
+                    case OPEN:
+                        if (acceptor == null) {
+                            throw new IOException("unexpected request to open channel " + id);
+                        }
+                        c = new Channel(id);
+                        synchronized (this) {
+                            channels.put(id, c);
+                        }
+                        acceptor.accept(c);
+                        break;
+
+                    case DATA:
+                        if (n < 0 || n > MAX_FRAME) {
+                            throw new IOException("bad frame length: " + n);
+                        }
+                        byte[] data = new byte[n];
+                        in.readFully(data);
+                        c = get(id);
+                        if (c != null) {
+                            c.received(data);
+                        }
+                        break;
+
+                    case CREDIT:
+                        c = get(id);
+                        if (c != null) {
+                            c.granted(n);
+                        }
+                        break;
+
+                    case CLOSE:
+                        c = get(id);
+                        if (c != null) {
+                            c.remoteClose();
+                        }
+                        break;
+
+                    default:
+                        throw new IOException("bad frame: " + op);
+                }
+            }
+            shutdown(null);
+        } catch (IOException e) {
+            shutdown(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Close the connection, and with it all channels.
+     */
+    void close() {
+        shutdown(new IOException("connection closed: " + getName()));
+    }
+
+    /**
+     * Check whether the connection has been closed.
+     *
+     * @return true if the connection has been closed
+     */
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private synchronized Channel get(int id) {
+        return channels.get(id);
+    }
+
+    private synchronized void forget(Channel c) {
+        channels.remove(c.id);
+    }
+
+    private void shutdown(IOException e) {
+        Channel[] cs;
+        synchronized (this) {
+            closed = true;
+            cs = channels.values().toArray(new Channel[channels.size()]);
+            channels.clear();
+        }
+
+        for (Channel c : cs) {
+            c.lost(e);
+        }
+
+        try {
+            connection.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    private void writeFrame(int id, byte op, int n, byte[] data, int off, boolean flush)
+            throws IOException {
+        synchronized (out) {
+            out.writeInt(id);
+            out.writeByte(op);
+            out.writeInt(n);
+            if (op == DATA) {
+                out.write(data, off, n);
+            }
+            if (flush) {
+                out.flush();
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        synchronized (out) {
+            out.flush();
+        }
+    }
+
+    /**
+     * One task's share of the connection.
+     */
+    class Channel implements Connection {
+        Channel(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getName() {
+            return Multiplexer.this.getName() + ",channel=" + id;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return input;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return output;
+        }
+
+        @Override
+        public void close() {
+            boolean done;
+            boolean lost;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                received.clear();
+                notifyAll();
+                done = remoteClosed;
+                lost = failure != null;
+            }
+
+            if (done) {
+                forget(this);
+            }
+
+            if (!lost && !Multiplexer.this.isClosed()) {
+                try {
+                    writeFrame(id, CLOSE, 0, null, 0, true);
+                } catch (IOException ignore) {
+                    // the connection has gone, so there is no one left to tell
+                }
+            }
+        }
+
+        /**
+         * The channel is closed once either side has closed it.
+         */
+        @Override
+        public synchronized boolean isClosed() {
+            return closed || remoteClosed;
+        }
+
+        @Override
+        public synchronized void waitUntilClosed(int timeout) throws InterruptedException {
+            long end = System.currentTimeMillis() + timeout;
+            for (long t = timeout; t > 0 && !remoteClosed; t = end - System.currentTimeMillis()) {
+                wait(t);
+            }
+        }
+
+        /**
+         * Set a handler to be called, on the reading thread, when the other
+         * side closes this channel or the connection is lost.
+         *
+         * @param h the handler
+         */
+        synchronized void setCloseHandler(Runnable h) {
+            closeHandler = h;
+        }
+
+        private synchronized void received(byte[] data) {
+            if (!closed) {
+                received.addLast(data);
+                notifyAll();
+            }
+        }
+
+        private synchronized void granted(int n) {
+            credit += n;
+            notifyAll();
+        }
+
+        private void remoteClose() {
+            boolean done;
+            Runnable h;
+            synchronized (this) {
+                remoteClosed = true;
+                notifyAll();
+                done = closed;
+                h = closeHandler;
+            }
+
+            if (done) {
+                forget(this);
+            }
+
+            if (h != null) {
+                h.run();
+            }
+        }
+
+        private void lost(IOException e) {
+            Runnable h;
+            synchronized (this) {
+                remoteClosed = true;
+                failure = e;
+                notifyAll();
+                h = closeHandler;
+            }
+
+            if (h != null) {
+                h.run();
+            }
+        }
+
+        private int read(byte[] b, int off, int len) throws IOException {
+            int n;
+            int grant = 0;
+            synchronized (this) {
+                while (received.isEmpty()) {
+                    if (closed) {
+                        throw new IOException("channel closed: " + getName());
+                    }
+                    if (failure != null) {
+                        throw new IOException("connection lost: " + failure.getMessage(), failure);
+                    }
+                    if (remoteClosed) {
+                        return -1;
+                    }
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException("Interrupted while waiting for data on " + getName());
+                    }
+                }
+
+                byte[] head = received.peekFirst();
+                n = Math.min(len, head.length - offset);
+                System.arraycopy(head, offset, b, off, n);
+                offset += n;
+                if (offset == head.length) {
+                    received.removeFirst();
+                    offset = 0;
+                }
+
+                consumed += n;
+                if (consumed >= WINDOW / 2 && !remoteClosed) {
+                    grant = consumed;
+                    consumed = 0;
+                }
+            }
+
+            if (grant > 0) {
+                writeFrame(id, CREDIT, grant, null, 0, true);
+            }
+            return n;
+        }
+
+        private void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int n;
+                synchronized (this) {
+                    while (credit == 0 && !closed && !remoteClosed) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            throw new InterruptedIOException("Interrupted while waiting to write to " + getName());
+                        }
+                    }
+                    if (closed || remoteClosed) {
+                        throw new IOException("channel closed: " + getName());
+                    }
+                    n = Math.min(Math.min(len, credit), MAX_FRAME);
+                    credit -= n;
+                }
+
+                writeFrame(id, DATA, n, b, off, false);
+                off += n;
+                len -= n;
+            }
+        }
+
+        private final int id;
+        private final Deque<byte[]> received = new ArrayDeque<>();
+        private int offset;         // into the first of the received buffers
+        private int consumed;       // bytes read since the last CREDIT frame
+        private int credit = WINDOW; // bytes which may still be written
+        private boolean closed;
+        private boolean remoteClosed;
+        private IOException failure;
+        private Runnable closeHandler;
+
+        private final InputStream input = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                int n = read(b, 0, 1);
+                return n == -1 ? -1 : b[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return len == 0 ? 0 : Channel.this.read(b, off, len);
+            }
+
+            @Override
+            public void close() {
+                Channel.this.close();
+            }
+        };
+
+        private final OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                Channel.this.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                Channel.this.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                Multiplexer.this.flush();
+            }
+
+            @Override
+            public void close() {
+                Channel.this.close();
+            }
+        };
+    }
+
+    static final byte OPEN = 1;
+    static final byte DATA = 2;
+    static final byte CREDIT = 3;
+    static final byte CLOSE = 4;
+
+    /**
+     * The amount of data which may be sent on a channel before the reader
+     * grants more.
+     */
+    static final int WINDOW = 256 * 1024;
+    private static final int MAX_FRAME = 32 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Connection connection;
+    private final Consumer<Channel> acceptor;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final Map<Integer, Channel> channels = new HashMap<>();
+    private int nextId = 1;
+    private boolean closed;
+}
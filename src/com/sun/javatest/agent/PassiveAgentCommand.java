@@ -54,6 +54,10 @@ public class PassiveAgentCommand extends Command {
      *             via the connection to the JT Harness harness.
      *             If not specified, any necessary classes will be loaded
      *             from the agent's classpath.
+     *             <tr><td>-preloadClassPath
+     *             <td>Send the jar files on the path given with -classpath
+     *             whole to the agent, which then loads classes from them
+     *             itself, rather than one class at a time.
      *             <tr><td>-m<br>-mapArgs
      *             <td>Use the map facility on the JT Harness Agent to localize
      *             any configuration values.
@@ -69,6 +73,7 @@ public class PassiveAgentCommand extends Command {
     public Status run(String[] args, PrintWriter err, PrintWriter out) {
         String classPath = null;
         boolean sharedCl = false;
+        boolean preloadClassPath = false;
         String host = null;
         int port = -1;
         String tag = null;
@@ -83,6 +88,8 @@ public class PassiveAgentCommand extends Command {
             } else if (args[i].equalsIgnoreCase("-sharedClassLoader") ||
                     args[i].equalsIgnoreCase("-sharedCl")) {
                 sharedCl = true;
+            } else if (args[i].equalsIgnoreCase("-preloadClassPath")) {
+                preloadClassPath = true;
             } else if ((args[i].equals("-h") || args[i].equals("-host")) && i + 1 < args.length) {
                 host = args[++i];
             } else if (args[i].equals("-m") || args[i].equals("-mapArgs")) {
@@ -141,6 +148,7 @@ public class PassiveAgentCommand extends Command {
             }
 
             t.setSharedClassLoader(sharedCl);
+            t.setPreloadClassPath(preloadClassPath);
             t.setAgentCommandTimeout(timeout);
 
             err.println("Executing command via " + t.getConnection().getName());
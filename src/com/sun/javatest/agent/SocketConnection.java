@@ -36,6 +36,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.SocketException;
 import java.util.Hashtable;
 
 /**
@@ -184,6 +185,15 @@ public class SocketConnection implements Connection {
         return socketInput;
     }
 
+    /**
+     * Send small writes immediately, for callers which do their own batching.
+     *
+     * @throws SocketException if there is an error in the underlying protocol
+     */
+    void setTcpNoDelay() throws SocketException {
+        socket.setTcpNoDelay(true);
+    }
+
     @Override
     public OutputStream getOutputStream() {
         return socketOutput;
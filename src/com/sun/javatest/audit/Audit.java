@@ -81,6 +81,8 @@ public class Audit {
 
     /**
      * Analyze a set of test results for validity, based on the given parameters.
+     * The test suite is read on the number of threads given by the
+     * {@code javatest.audit.readThreads} system property, if it is at least 2.
      *
      * @param params Parameters to define the test finder and work directory
      *               used in the analysis.
@@ -196,6 +198,14 @@ public class Audit {
 
         TestFinderQueue tfq = new TestFinderQueue();
         tfq.setTestFinder(tf);
+        tfq.setParallelReadAhead(Integer.getInteger("javatest.audit.readThreads", 0), () -> {
+            try {
+                return ts.newTestFinder();
+            } catch (TestSuite.Fault e) {
+                // the file will be read by the shared finder instead
+                throw new IllegalStateException(e.getMessage());
+            }
+        });
 
         String[] tests = params.getTests();
         tfq.setTests(tests);
@@ -52,7 +52,8 @@ public class BatchManager
         HelpTree.Node[] cmdNodes = {
                 getCommandHelp(BatchCommand.getName()),
                 ObserverCommand.getHelp(),
-                getCommandHelp(RunTestsCommand.getName())
+                getCommandHelp(RunTestsCommand.getName()),
+                getCommandHelp(WatchCommand.getName())
         };
         return new HelpTree.Node(i18n, "cmgr.help", cmdNodes);
 
@@ -80,6 +81,11 @@ public class BatchManager
             return true;
         }
 
+        if (isMatch(cmd, WatchCommand.getName())) {
+            ctx.addCommand(new WatchCommand(argIter));
+            return true;
+        }
+
         return false;
     }
 
@@ -33,6 +33,7 @@ import com.sun.javatest.TestDescription;
 import com.sun.javatest.TestFilter;
 import com.sun.javatest.TestFinder;
 import com.sun.javatest.TestResult;
+import com.sun.javatest.report.KflClassifier;
 import com.sun.javatest.tool.Command;
 import com.sun.javatest.tool.CommandContext;
 import com.sun.javatest.tool.VerboseCommand;
@@ -58,6 +59,7 @@ class RunTestsCommand extends Command {
     private static final String PROGRESS_OPTION = "progress";
     private static I18NResourceBundle i18n = I18NResourceBundle.getBundleForClass(RunTestsCommand.class);
     private Harness harness;
+    private BatchObserver batchObserver;
     private CommandContext ctx;
 
     RunTestsCommand() {
@@ -68,6 +70,10 @@ class RunTestsCommand extends Command {
         super(getName());
     }
 
+    RunTestsCommand(String name) {
+        super(name);
+    }
+
     static String getName() {
         return "runTests";
     }
@@ -89,32 +95,52 @@ class RunTestsCommand extends Command {
 
     @Override
     public void run(CommandContext ctx) throws Fault {
+        Parameters p = getConfig(ctx); // throws fault if not set
+        runTests(ctx, p);
+    }
+
+    /**
+     * Run the tests selected by the given parameters, and report the results.
+     * The harness is created the first time this is called, and is used again
+     * for any later runs by the same command.
+     *
+     * @param ctx the context in which the command is being run
+     * @param p   the parameters for the run
+     * @throws Fault if there is a problem running the tests
+     */
+    void runTests(CommandContext ctx, Parameters p) throws Fault {
         this.ctx = ctx;
 
         try {
-            Parameters p = getConfig(ctx); // throws fault if not set
+            Harness h = harness;
+            if (h == null) {
+                // might want to move harness down into CommandContext
+                // to share with GUI
+                h = new Harness();
+                harness = h;
+
+                Harness.Observer[] observers = ctx.getHarnessObservers();
+                for (Harness.Observer observer : observers) {
+                    h.addObserver(observer);
+                }
 
-            // might want to move harness down into CommandContext
-            // to share with GUI
-            Harness h = new Harness();
-            harness = h;
+                // should really merge VerboseObserver and BatchObserver
+                VerboseObserver vo = new VerboseObserver(ctx);
+                h.addObserver(vo);
 
-            Harness.Observer[] observers = ctx.getHarnessObservers();
-            for (Harness.Observer observer : observers) {
-                h.addObserver(observer);
-            }
+                batchObserver = new BatchObserver();
+                h.addObserver(batchObserver);
 
-            // should really merge VerboseObserver and BatchObserver
-            VerboseObserver vo = new VerboseObserver(ctx);
-            h.addObserver(vo);
+                KflClassifier.attach(h);
+            }
 
-            BatchObserver bo = new BatchObserver();
-            h.addObserver(bo);
+            BatchObserver bo = batchObserver;
             p.getTestSuite().getTestFinder().setErrorHandler(bo);
+            int finderErrors = bo.getFinderErrorCount();
 
             boolean ok = h.batch(p);
 
-            if (bo.getFinderErrorCount() > 0) {
+            if (bo.getFinderErrorCount() > finderErrors) {
                 // other problems during run
                 ctx.printErrorMessage(i18n, "runTests.warnError");
             }
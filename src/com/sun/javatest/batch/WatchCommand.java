@@ -0,0 +1,472 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.batch;
+
+import com.sun.javatest.Harness;
+import com.sun.javatest.Parameters;
+import com.sun.javatest.TestDescription;
+import com.sun.javatest.TestResult;
+import com.sun.javatest.TestResultTable;
+import com.sun.javatest.WorkDirectory;
+import com.sun.javatest.tool.CommandContext;
+import com.sun.javatest.util.I18NResourceBundle;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Run the tests, and then keep watching the test suite, and any given product
+ * files or directories, for changes.  After each change, the test result
+ * table is refreshed for the files in the test suite which have changed, and
+ * the tests which may be affected are run again with the same harness:
+ * <ul>
+ * <li>the tests described in a changed file or folder of the test suite
+ * <li>the tests which use a changed file as one of their sources
+ * <li>all the tests selected by the configuration, if a product file changes
+ * </ul>
+ * Changes which come close together are handled together; the quiet period
+ * used to decide when a set of changes is complete may be set with the
+ * {@code javatest.watch.quietPeriod} system property, in milliseconds.
+ * The command keeps running until the harness is stopped while running tests,
+ * the command is interrupted, or nothing that was being watched remains.
+ */
+class WatchCommand extends RunTestsCommand {
+    private static I18NResourceBundle i18n = I18NResourceBundle.getBundleForClass(WatchCommand.class);
+    private static final int QUIET_PERIOD = Integer.getInteger("javatest.watch.quietPeriod", 200);
+    private final List<File> productFiles = new ArrayList<>();
+    // test names, by the canonical files given in their "source" parameter
+    private final Map<File, Set<String>> testsBySource = new ConcurrentHashMap<>();
+    private volatile boolean stopped;
+    private volatile Watcher watcher;
+
+    WatchCommand(ListIterator<String> argIter) {
+        super(getName());
+
+        while (argIter.hasNext()) {
+            String arg = nextArg(argIter);
+            if (arg.startsWith("-")) {
+                putbackArg(argIter);
+                break;
+            }
+            productFiles.add(new File(arg));
+        }
+    }
+
+    static String getName() {
+        return "watch";
+    }
+
+    @Override
+    public void run(CommandContext ctx) throws Fault {
+        Parameters p = getConfig(ctx); // throws fault if not set
+        WorkDirectory wd = p.getWorkDirectory();
+        TestResultTable trt = wd.getTestResultTable();
+        File rootDir = canonical(trt.getTestFinder().getRootDir());
+
+        ctx.addHarnessObserver(new SourceObserver());
+
+        // start watching before the first run, so that no changes are missed
+        try (Watcher w = new Watcher(canonical(wd.getRoot()))) {
+            watcher = w;
+            w.watch(rootDir);
+            for (File f : productFiles) {
+                if (!f.exists()) {
+                    throw new Fault(i18n, "watch.cantFindFile", f);
+                }
+                w.watch(canonical(f));
+            }
+
+            runTests(ctx, p);
+
+            while (!stopped) {
+                ctx.printMessage(i18n, "watch.waiting");
+                Collection<File> changed = w.awaitChanges(QUIET_PERIOD);
+                if (changed == null) {
+                    // stopped, or nothing left to watch
+                    break;
+                }
+                String[] tests = selectTests(trt, rootDir, changed, p.getTests());
+                if (tests == null) {
+                    ctx.printMessage(i18n, "watch.changed", changed.size());
+                    runTests(ctx, p);
+                } else if (tests.length == 0) {
+                    ctx.printMessage(i18n, "watch.noTests", changed.size());
+                } else {
+                    ctx.printMessage(i18n, "watch.changed", changed.size());
+                    runTests(ctx, withTests(p, tests));
+                }
+            }
+        } catch (IOException e) {
+            throw new Fault(i18n, "watch.ioError", e);
+        } catch (InterruptedException e) {
+            // stop watching
+        } finally {
+            watcher = null;
+        }
+        ctx.printMessage(i18n, "watch.stopped");
+    }
+
+    /**
+     * Stop watching for changes.  Any tests being run are run to completion,
+     * after which {@link #run run} returns.
+     */
+    void stop() {
+        stopped = true;
+        Watcher w = watcher;
+        if (w != null) {
+            try {
+                w.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    /**
+     * Refresh the test result table for the changed files which are in the
+     * test suite, and determine the tests to be run again.
+     *
+     * @param trt         the table for the test suite
+     * @param rootDir     the canonical root directory of the test suite
+     * @param changed     the canonical files which have changed
+     * @param initialUrls the tests selected by the configuration, if any
+     * @return the initial URLs for the tests to be run again, or null if all
+     * the tests selected by the configuration should be run again
+     */
+    String[] selectTests(TestResultTable trt, File rootDir,
+                         Collection<File> changed, String... initialUrls) {
+        Set<String> urls = new TreeSet<>();
+        boolean all = false;
+        for (File f : changed) {
+            String path = getRelativePath(rootDir, f);
+            if (path == null) {
+                // a product file: anything might depend on it
+                all = true;
+                continue;
+            }
+
+            TestResult[] trs = trt.refreshFile(path);
+            if (path.isEmpty()) {
+                all = true;
+            } else if (trs.length > 0 || hasTests(trt, path)) {
+                urls.add(path);
+            }
+
+            Set<String> dependents = testsBySource.get(f);
+            if (dependents != null) {
+                urls.addAll(dependents);
+            }
+        }
+
+        if (all) {
+            return null;
+        }
+
+        // stay within the tests selected by the configuration
+        Set<String> selected = new TreeSet<>();
+        for (String url : urls) {
+            if (initialUrls == null || initialUrls.length == 0) {
+                selected.add(url);
+                continue;
+            }
+            for (String u : initialUrls) {
+                if (isUnder(url, u)) {
+                    selected.add(url);
+                } else if (isUnder(u, url)) {
+                    selected.add(u);
+                }
+            }
+        }
+
+        return TestResultTable.distillUrls(selected.toArray(new String[selected.size()]));
+    }
+
+    private static boolean hasTests(TestResultTable trt, String path) {
+        TestResultTable.TreeNode node = TestResultTable.findNode(trt.getRoot(), path);
+        return node != null && node.getSize() > 0;
+    }
+
+    /**
+     * Get the path of a file relative to a directory, using '/' as the
+     * separator, or null if the file is not in the directory.
+     */
+    private static String getRelativePath(File dir, File file) {
+        String d = dir.getPath();
+        String f = file.getPath();
+        if (f.equals(d)) {
+            return "";
+        } else if (f.startsWith(d + File.separator)) {
+            return f.substring(d.length() + 1).replace(File.separatorChar, '/');
+        } else {
+            return null;
+        }
+    }
+
+    private static boolean isUnder(String url, String prefix) {
+        String p = prefix.startsWith("/") ? prefix.substring(1) : prefix;
+        return p.isEmpty() || url.equals(p) || url.startsWith(p + "/") || url.startsWith(p + "#");
+    }
+
+    private static File canonical(File f) {
+        try {
+            return f.getCanonicalFile();
+        } catch (IOException e) {
+            return f.getAbsoluteFile();
+        }
+    }
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * Records the source files of each test which is run, and stops watching
+     * when the harness is stopped.
+     */
+    private class SourceObserver implements Harness.Observer {
+        @Override
+        public void stoppingTestRun() {
+            stop();
+        }
+
+        @Override
+        public void finishedTest(TestResult tr) {
+            TestDescription td;
+            try {
+                td = tr.getDescription();
+            } catch (TestResult.Fault e) {
+                return;
+            }
+
+            for (File f : td.getSourceFiles()) {
+                testsBySource.computeIfAbsent(canonical(f), k -> ConcurrentHashMap.newKeySet())
+                        .add(tr.getTestName());
+            }
+        }
+    }
+
+    /**
+     * Watches directory trees and individual files for changes.  Directories
+     * created in a watched tree are watched as well.
+     */
+    static class Watcher implements Closeable {
+        private final WatchService service;
+        private final Map<WatchKey, Path> dirs = new HashMap<>();
+        private final Set<Path> trees = new HashSet<>();
+        private final Set<Path> files = new HashSet<>();
+        private final Set<Path> excluded = new HashSet<>();
+
+        /**
+         * Create a watcher.
+         *
+         * @param excluded directory trees in which changes should be ignored,
+         *                 such as the work directory
+         * @throws IOException if the watch service cannot be created
+         */
+        Watcher(File... excluded) throws IOException {
+            service = FileSystems.getDefault().newWatchService();
+            for (File f : excluded) {
+                this.excluded.add(f.toPath());
+            }
+        }
+
+        /**
+         * Start watching a file, or a directory and everything below it.
+         *
+         * @param file the file or directory, which should be canonical
+         * @throws IOException if the file cannot be watched
+         */
+        void watch(File file) throws IOException {
+            Path p = file.toPath();
+            if (Files.isDirectory(p)) {
+                trees.add(p);
+                register(p);
+            } else {
+                files.add(p);
+                Path dir = p.getParent();
+                if (!dirs.containsValue(dir)) {
+                    dirs.put(dir.register(service, KINDS), dir);
+                }
+            }
+        }
+
+        /**
+         * Wait for changes, and return once no more have been seen for the
+         * given period.  Changes to files which are not being watched are
+         * ignored.
+         *
+         * @param quietPeriod the period, in milliseconds
+         * @return the files which were changed, created or deleted, or null
+         * if the watcher has been closed, or nothing being watched remains
+         * @throws InterruptedException if interrupted while waiting
+         */
+        Collection<File> awaitChanges(long quietPeriod) throws InterruptedException {
+            Set<File> changed = new LinkedHashSet<>();
+            try {
+                while (changed.isEmpty()) {
+                    if (dirs.isEmpty()) {
+                        // every watched directory has been removed
+                        return null;
+                    }
+                    WatchKey key = service.take();
+                    while (key != null) {
+                        process(key, changed);
+                        key = service.poll(quietPeriod, TimeUnit.MILLISECONDS);
+                    }
+                }
+            } catch (ClosedWatchServiceException e) {
+                return null;
+            }
+            return changed;
+        }
+
+        @Override
+        public void close() throws IOException {
+            service.close();
+        }
+
+        private void process(WatchKey key, Set<File> changed) {
+            Path dir = dirs.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // some events were lost: treat everything as changed
+                    for (Path p : trees) {
+                        changed.add(p.toFile());
+                    }
+                    for (Path p : files) {
+                        changed.add(p.toFile());
+                    }
+                    continue;
+                }
+
+                Path p = dir.resolve((Path) event.context());
+                boolean inTree = isInTree(p);
+                if (!inTree && !files.contains(p)) {
+                    continue;
+                }
+
+                if (Files.isDirectory(p)) {
+                    // changes to the contents are reported separately
+                    if (event.kind() != StandardWatchEventKinds.ENTRY_CREATE) {
+                        continue;
+                    }
+                    if (inTree) {
+                        try {
+                            register(p);
+                        } catch (IOException e) {
+                            // the directory may have been removed again
+                        }
+                    }
+                }
+
+                changed.add(p.toFile());
+            }
+
+            if (!key.reset()) {
+                dirs.remove(key);
+            }
+        }
+
+        private boolean isInTree(Path p) {
+            for (Path e : excluded) {
+                if (p.startsWith(e)) {
+                    return false;
+                }
+            }
+            for (Path t : trees) {
+                if (p.startsWith(t)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void register(Path root) throws IOException {
+            try (Stream<Path> paths = Files.walk(root)) {
+                for (Path p : (Iterable<Path>) paths::iterator) {
+                    if (Files.isDirectory(p) && isInTree(p)) {
+                        dirs.put(p.register(service, KINDS), p);
+                    }
+                }
+            }
+        }
+
+        private static final WatchEvent.Kind<?>[] KINDS = {
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY
+        };
+    }
+
+    //-------------------------------------------------------------------------
+
+    /**
+     * Get the parameters for the run, but with a different set of initial URLs.
+     * Everything else is delegated to the given parameters.
+     */
+    private static Parameters withTests(Parameters params, String... tests) {
+        Parameters.TestsParameters testsParams = () -> tests;
+        InvocationHandler h = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getTests":
+                    return tests;
+                case "getTestsParameters":
+                    return testsParams;
+                default:
+                    try {
+                        return method.invoke(params, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        };
+        return (Parameters) Proxy.newProxyInstance(Parameters.class.getClassLoader(),
+                new Class<?>[]{Parameters.class}, h);
+    }
+}
@@ -32,6 +32,7 @@ import com.sun.javatest.Parameters;
 import com.sun.javatest.TestSuite;
 import com.sun.javatest.WorkDirectory;
 import com.sun.javatest.exec.Session.Event;
+import com.sun.javatest.report.KflClassifier;
 import com.sun.javatest.tool.Preferences;
 import com.sun.javatest.tool.ToolAction;
 import com.sun.javatest.tool.UIFactory;
@@ -527,6 +528,7 @@ class RunTestsHandler implements ET_RunTestControl, Session.Observer {
         harness.setBackupPolicy(backupPolicy);
         observer = new HarnessObserver();
         harness.addObserver(observer);
+        KflClassifier.attach(harness);
 
         mState = new MonitorState(harness);
     }
@@ -32,12 +32,16 @@ import com.sun.javatest.TestFinder;
 import com.sun.javatest.util.I18NResourceBundle;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -49,6 +53,12 @@ import java.util.zip.ZipFile;
 /**
  * A TestFinder to read a compressed binary file containing the
  * previously "compiled" results of some other test finder.
+ * <p>
+ * Two layouts of the file are supported: a zip file, and an uncompressed
+ * file which is mapped into memory, as written by
+ * {@link BinaryTestWriter} with the {@code -mapped} option.  With the
+ * mapped layout only the test tree is read when the file is opened; strings
+ * and test descriptions are decoded from the mapped file as they are needed.
  */
 
 public class BinaryTestFinder extends TestFinder {
@@ -59,10 +69,25 @@ public class BinaryTestFinder extends TestFinder {
     private ZipEntry testsEntry;
     private ZipEntry treeEntry;
     private boolean zipFileRead;
+    private boolean mapped;
     private StringTable stringTable;
     private TestTable testTable;
     private TestTree testTree;
 
+    /**
+     * The first four bytes of a file in the mapped layout. A zip file begins
+     * with "PK".
+     */
+    static final int MAPPED_MAGIC = 0x4A54444D;     // "JTDM"
+    static final int MAPPED_VERSION = 1;
+
+    /**
+     * The size of the header of a file in the mapped layout: the magic number,
+     * the version, and the offset and length of the strings, tests and tree
+     * sections.
+     */
+    static final int MAPPED_HEADER_SIZE = 32;
+
     /**
      * Create an uninitialized binary test finder. Use one of the init
      * methods to initialize it.
@@ -309,8 +334,12 @@ public class BinaryTestFinder extends TestFinder {
 
             // open these all here to take the hit of exceptions
             // as early as possible
-            File root = getRoot();
-            File f = jtdFile.isAbsolute() || root == null ? jtdFile : new File(root, jtdFile.getPath());
+            File f = getBinaryFile();
+            mapped = isMapped(f);
+            if (mapped) {
+                zipFileRead = true;
+                return;
+            }
             zipFile = new ZipFile(f);
             stringsEntry = zipFile.getEntry("strings");
             testsEntry = zipFile.getEntry("tests");
@@ -341,13 +370,33 @@ public class BinaryTestFinder extends TestFinder {
         }
     }
 
+    private File getBinaryFile() {
+        File root = getRoot();
+        return jtdFile.isAbsolute() || root == null ? jtdFile : new File(root, jtdFile.getPath());
+    }
+
+    private static boolean isMapped(File f) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(f))) {
+            return in.readInt() == MAPPED_MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
     /**
      * Read the binary file. The input file should be a zip file as written by
      * BinaryTestWriter. All three sections are read, but only the string table
      * and test tree are parsed at this point. The test table is read from an
      * internal byte array as required.
+     * If the file has the mapped layout, it is mapped into memory and only the
+     * test tree is read.
      */
     public synchronized void readBinaryFile() {
+        if (mapped && zipFileRead) {
+            readMappedFile();
+            return;
+        }
+
         if (zipFile == null && zipFileRead) {
             try {
                 openBinaryFile(false);
@@ -380,6 +429,37 @@ public class BinaryTestFinder extends TestFinder {
         }
     }
 
+    private void readMappedFile() {
+        try (RandomAccessFile raf = new RandomAccessFile(getBinaryFile(), "r");
+             FileChannel fc = raf.getChannel()) {
+            // the mapping remains valid after the channel is closed
+            ByteBuffer b = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+            if (b.getInt() != MAPPED_MAGIC || b.getInt() != MAPPED_VERSION) {
+                error(i18n, "bin.badBinFile", jtdFile.getPath());
+                return;
+            }
+
+            ByteBuffer strings = section(b, b.getInt(), b.getInt());
+            ByteBuffer tests = section(b, b.getInt(), b.getInt());
+            ByteBuffer tree = section(b, b.getInt(), b.getInt());
+
+            stringTable = new StringTable(strings);
+            testTable = new TestTable(tests, stringTable);
+            testTree = TestTree.read(new DataInputStream(new BufferedInputStream(
+                    new BufferInputStream(tree, 0))));
+            zipFileRead = false;
+        } catch (IOException | IllegalArgumentException e) {
+            error(i18n, "bin.ioError", jtdFile.getPath(), e);
+        }
+    }
+
+    private static ByteBuffer section(ByteBuffer b, int offset, int length) {
+        ByteBuffer d = b.duplicate();
+        d.limit(offset + length);
+        d.position(offset);
+        return d.slice();
+    }
+
     public StringTable getStringTable() {
         return stringTable;
     }
@@ -408,6 +488,7 @@ public class BinaryTestFinder extends TestFinder {
      */
     static class StringTable {
         private String[] strings;
+        private ByteBuffer data;
 
         /**
          * Read a string table from a stream.
@@ -420,6 +501,17 @@ public class BinaryTestFinder extends TestFinder {
             }
         }
 
+        /**
+         * Create a string table from the strings section of a mapped file:
+         * a count, followed by that many offsets of strings within the
+         * section, followed by the strings.  The strings are decoded
+         * when they are first used.
+         */
+        StringTable(ByteBuffer data) {
+            this.data = data;
+            strings = new String[data.getInt(0)];
+        }
+
         /**
          * Read a string table from a entry called "strings" in a zip file.
          */
@@ -438,15 +530,22 @@ public class BinaryTestFinder extends TestFinder {
             if (index == 0) {
                 return in.readUTF();
             } else {
-                return strings[index];
+                return get(index);
             }
         }
 
         /**
          * Get a string from the table.
          */
-        String get(int i) {
-            return strings[i];
+        String get(int i) throws IOException {
+            String s = strings[i];
+            if (s == null) {
+                // several threads may decode the same string; no harm done
+                int offset = data.getInt(4 + 4 * i);
+                s = DataInputStream.readUTF(new DataInputStream(new BufferInputStream(data, offset)));
+                strings[i] = s;
+            }
+            return s;
         }
     }
 
@@ -456,7 +555,7 @@ public class BinaryTestFinder extends TestFinder {
      * A TestTable is a collection of TestDescriptions.
      */
     public static class TestTable {
-        private ByteArrayInputStream bais;
+        private ByteBuffer data;
         private StringTable stringTable;
 
         /**
@@ -464,7 +563,15 @@ public class BinaryTestFinder extends TestFinder {
          * The data of the entry is stored, and analyzed as required.
          */
         TestTable(byte[] data, StringTable stringTable) {
-            bais = new ByteArrayInputStream(data);
+            this(ByteBuffer.wrap(data), stringTable);
+        }
+
+        /**
+         * Create a TestTable from a buffer, such as the tests section of
+         * a mapped file.
+         */
+        TestTable(ByteBuffer data, StringTable stringTable) {
+            this.data = data;
             this.stringTable = stringTable;
         }
 
@@ -491,10 +598,8 @@ public class BinaryTestFinder extends TestFinder {
          * name value pairs to be put in the test description.
          */
         TestDescription get(File root, File file, int index) throws IOException {
-            bais.reset();
-            bais.skip(index);
             Map<String, String> m = new HashMap<>();
-            DataInputStream in = new DataInputStream(bais);
+            DataInputStream in = new DataInputStream(new BufferInputStream(data, index));
             int n = readInt(in);
             for (int i = 0; i < n; i++) {
                 String key = stringTable.readRef(in);
@@ -528,7 +633,13 @@ public class BinaryTestFinder extends TestFinder {
          * Read a test tree from an entry called "tree" in a zip file.
          */
         static TestTree read(ZipFile zf, ZipEntry ze) throws IOException {
-            DataInputStream in = new DataInputStream(new BufferedInputStream(zf.getInputStream(ze)));
+            return read(new DataInputStream(new BufferedInputStream(zf.getInputStream(ze))));
+        }
+
+        /**
+         * Read a test tree from a stream.
+         */
+        static TestTree read(DataInputStream in) throws IOException {
             AtomicInteger testCounter = new AtomicInteger();
             Node root = new Node(in, testCounter);
             return new TestTree(root, testCounter.get());
@@ -616,7 +727,35 @@ public class BinaryTestFinder extends TestFinder {
             }
         }
     }
-}
 
+    //------------------------------------------------------------------------------------------
 
+    /**
+     * An input stream reading from a buffer, starting at a given position.
+     * The buffer itself is not affected, so many streams may read from the same
+     * buffer at once.
+     */
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buf;
+
+        BufferInputStream(ByteBuffer buf, int position) {
+            this.buf = buf.duplicate();
+            this.buf.position(position);
+        }
 
+        @Override
+        public int read() {
+            return buf.hasRemaining() ? buf.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buf.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buf.remaining());
+            buf.get(b, off, n);
+            return n;
+        }
+    }
+}
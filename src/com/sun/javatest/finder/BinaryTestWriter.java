@@ -30,20 +30,27 @@ import com.sun.javatest.TestDescription;
 import com.sun.javatest.TestFinder;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -60,6 +67,15 @@ import java.util.zip.ZipOutputStream;
  * <dd>the test finder to be used to locate the tests; the default is the standard tag test finder
  * <dt>-strictFinder
  * <dd>Do not ignore errors from the source finder, exit with error code instead
+ * <dt>-mapped
+ * <dd>Write an uncompressed file which BinaryTestFinder maps into memory and reads on demand,
+ * instead of a zip file
+ * <dt>-threads n
+ * <dd>Read the test suite with n test finders in parallel; the default is 1
+ * <dt>-incremental
+ * <dd>Keep an index of what was found in each file, in a file next to the output file,
+ * and only read again the files which have been modified since; directories are
+ * always read again
  * <dt>-o output-file
  * <dd>specify the name of the output file; the default is testsuite.jtd in the root directory of the test suite.
  * <dt>testsuite
@@ -74,7 +90,10 @@ public class BinaryTestWriter {
 
     //------------------------------------------------------------------------------------------
     private boolean strictFinder = false;
-    private int numFinderErrors = 0;
+    private boolean mapped = false;
+    private int threads = 1;
+    private boolean incremental = false;
+    private AtomicInteger numFinderErrors = new AtomicInteger();
 
     //------------------------------------------------------------------------------------------
 
@@ -91,6 +110,13 @@ public class BinaryTestWriter {
      *             output file.
      *             <tr><td>-o <em>output-file</em>
      *             <td>The output file in which to write the results.
+     *             <tr><td>-mapped
+     *             <td>Write the output file in the layout which is mapped into memory.
+     *             <tr><td>-threads <em>n</em>
+     *             <td>The number of test finders to use in parallel.
+     *             <tr><td>-incremental
+     *             <td>Only read the files which have been modified since they
+     *             were last read, as recorded in an index next to the output file.
      *             </table>
      */
     public static void main(String... args) {
@@ -125,6 +151,9 @@ public class BinaryTestWriter {
         out.println("  -finder finderClass finderArgs... -end");
         out.println("  -o output-file");
         out.println("  -strictFinder");
+        out.println("  -mapped");
+        out.println("  -threads n");
+        out.println("  -incremental");
     }
 
     /**
@@ -186,6 +215,19 @@ public class BinaryTestWriter {
                 outFile = new File(args[++i]);
             } else if (args[i].equalsIgnoreCase("-strictFinder")) {
                 strictFinder = true;
+            } else if (args[i].equalsIgnoreCase("-mapped")) {
+                mapped = true;
+            } else if (args[i].equalsIgnoreCase("-threads") && (i + 1 < args.length)) {
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    throw new BadArgs(args[i]);
+                }
+                if (threads < 1) {
+                    throw new BadArgs(args[i]);
+                }
+            } else if (args[i].equalsIgnoreCase("-incremental")) {
+                incremental = true;
             } else if (args[i].startsWith("-")) {
                 throw new BadArgs(args[i]);
             } else {
@@ -215,14 +257,7 @@ public class BinaryTestWriter {
             outFile = new File(testFinder.getRootDir(), "testsuite.jtd");
         }
 
-        if (strictFinder) {
-            testFinder.setErrorHandler(msg -> {
-                numFinderErrors++;
-                System.err.println("Finder reported error:\n" + msg);
-                System.err.println("");
-            }
-            );
-        }
+        setErrorHandler(testFinder);
 
         StringTable stringTable = new StringTable();
         TestTable testTable = new TestTable(stringTable);
@@ -232,8 +267,32 @@ public class BinaryTestWriter {
             log.println("Reading tests...");
         }
 
+        IndexedTestFinder index = null;
+        if (incremental) {
+            String configuration = finder + " " + String.join(" ", finderArgs)
+                    + " " + testFinder.getRootDir().getAbsolutePath();
+            index = new IndexedTestFinder(testFinder, new File(outFile.getPath() + ".jtfi"), configuration);
+        }
+
         // read the tests into internal data structures
-        read(testFinder, tests, testTree);
+        long start = System.currentTimeMillis();
+        final String finderClass = finder;
+        final String[] finderClassArgs = finderArgs;
+        final File ts = testSuite;
+        Scanner scanner = new Scanner(testFinder, index, () -> {
+            TestFinder tf = initializeTestFinder(finderClass, finderClassArgs, ts);
+            setErrorHandler(tf);
+            return tf;
+        });
+        read(scanner, tests, testTree);
+        if (index != null) {
+            index.save();
+        }
+
+        if (log != null) {
+            log.println("Read " + testTable.getSize() + " tests in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        }
 
         if (testTree.getSize() == 0) {
             throw new Fault("No tests found -- check arguments.");
@@ -244,6 +303,13 @@ public class BinaryTestWriter {
             log.println("Writing " + outFile);
         }
 
+        start = System.currentTimeMillis();
+        if (mapped) {
+            writeMapped(outFile, stringTable, testTable, testTree);
+            logWriteTime(start);
+            return finderStatus();
+        }
+
         try (FileOutputStream fos = new FileOutputStream(outFile);
              ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(fos))) {
             zos.setMethod(ZipOutputStream.DEFLATED);
@@ -258,13 +324,82 @@ public class BinaryTestWriter {
                 log.println("tests: " + testTable.getSize() + " tests, " + zipStats(testTableZipEntry));
                 log.println("tree: " + testTree.getSize() + " nodes, " + zipStats(testTreeZipEntry));
             }
+        }
+        logWriteTime(start);
+        return finderStatus();
+    }
 
-            if (strictFinder && numFinderErrors > 0) {
-                System.err.println("*** Source finder reported " + numFinderErrors + " errors during execution. ***");
-                return 4;
-            } else {
-                return 0;
+    private void logWriteTime(long start) {
+        if (log != null) {
+            log.println("Wrote output in " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    private void setErrorHandler(TestFinder testFinder) {
+        if (strictFinder) {
+            testFinder.setErrorHandler(msg -> {
+                numFinderErrors.incrementAndGet();
+                System.err.println("Finder reported error:\n" + msg);
+                System.err.println("");
+            }
+            );
+        }
+    }
+
+    private int finderStatus() {
+        int numFinderErrors = this.numFinderErrors.get();
+        if (strictFinder && numFinderErrors > 0) {
+            System.err.println("*** Source finder reported " + numFinderErrors + " errors during execution. ***");
+            return 4;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Write the tables in the layout which BinaryTestFinder maps into memory:
+     * a header giving the offset and length of each section, followed by the
+     * sections for the strings, tests and tree, uncompressed.
+     *
+     * @see BinaryTestFinder#MAPPED_MAGIC
+     */
+    private void writeMapped(File outFile, StringTable stringTable, TestTable testTable, TestTree testTree)
+            throws IOException {
+        // the strings must be written first, to assign their indexes
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        DataOutputStream sos = new DataOutputStream(strings);
+        stringTable.writeIndexed(sos);
+        sos.flush();
+
+        ByteArrayOutputStream tests = new ByteArrayOutputStream();
+        DataOutputStream tos = new DataOutputStream(tests);
+        testTable.write(tos);
+        tos.flush();
+
+        ByteArrayOutputStream tree = new ByteArrayOutputStream();
+        DataOutputStream nos = new DataOutputStream(tree);
+        testTree.write(nos);
+        nos.flush();
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(outFile)))) {
+            out.writeInt(BinaryTestFinder.MAPPED_MAGIC);
+            out.writeInt(BinaryTestFinder.MAPPED_VERSION);
+            int offset = BinaryTestFinder.MAPPED_HEADER_SIZE;
+            for (ByteArrayOutputStream section : new ByteArrayOutputStream[]{strings, tests, tree}) {
+                out.writeInt(offset);
+                out.writeInt(section.size());
+                offset += section.size();
             }
+            strings.writeTo(out);
+            tests.writeTo(out);
+            tree.writeTo(out);
+        }
+
+        if (log != null) {
+            log.println("strings: " + stringTable.getSize() + " entries, " + strings.size() + " bytes");
+            log.println("tests: " + testTable.getSize() + " tests, " + tests.size() + " bytes");
+            log.println("tree: " + testTree.getSize() + " nodes, " + tree.size() + " bytes");
         }
     }
 
@@ -341,22 +476,45 @@ public class BinaryTestWriter {
     /**
      * Read all the tests from a test suite and store them in a test tree
      */
-    void read(TestFinder finder, File[] files, TestTree testTree) throws Fault {
+    void read(Scanner scanner, File[] files, TestTree testTree) throws Fault {
         if (files.length < 1) {
             throw new IllegalArgumentException();
         }
 
-        File rootDir = finder.getRootDir();
-        Set<File> allFiles = new HashSet<>();
+        File rootDir = scanner.finder.getRootDir();
 
-        TestTree.Node r = null;
-        for (File file : files) {
-            File f = file;
-            if (!f.isAbsolute()) {
-                f = new File(rootDir, f.getPath());
+        // scan all the files first, in parallel if requested, and then build
+        // the tree in the same order as a serial scan, so that the output does
+        // not depend on the number of threads
+        List<File> roots = new ArrayList<>();
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        try {
+            for (File file : files) {
+                File f = file;
+                if (!f.isAbsolute()) {
+                    f = new File(rootDir, f.getPath());
+                }
+                roots.add(f);
+
+                ScanTask task = new ScanTask(scanner, f);
+                if (pool == null) {
+                    task.compute();
+                } else {
+                    pool.invoke(task);
+                }
             }
+        } catch (ScanFault e) {
+            throw e.fault;
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
 
-            TestTree.Node n = read0(finder, f, testTree, allFiles);
+        TestTree.Node r = null;
+        Set<File> done = new HashSet<>();
+        for (File f : roots) {
+            TestTree.Node n = scanner.toNode(f, done, testTree);
             if (n == null) {
                 continue;
             }
@@ -377,36 +535,171 @@ public class BinaryTestWriter {
     }
 
     /**
-     * Read the tests from a file in test suite
+     * Reads files from the test suite, using either a test finder, or an
+     * index of what was found in files which have not changed since they
+     * were last read.  Each thread uses its own test finder, since test
+     * finders can only read one file at a time.
      */
-    private TestTree.Node read0(TestFinder finder, File file, TestTree testTree, Set<File> allFiles) {
-        // keep track of which files we have read, and ignore duplicates
-        if (allFiles.contains(file)) {
-            return null;
-        } else {
-            allFiles.add(file);
+    private static class Scanner {
+        final TestFinder finder;
+        final IndexedTestFinder index;
+        final ThreadLocal<TestFinder> finders;
+        final ThreadLocal<IndexedTestFinder> indexes;
+        // keep track of which files have been read, and ignore duplicates;
+        // which thread gets to read a file may vary, but not what is found in it
+        final Set<File> allFiles = ConcurrentHashMap.newKeySet();
+        final Map<File, Scan> scans = new ConcurrentHashMap<>();
+
+        Scanner(TestFinder finder, IndexedTestFinder index, FinderFactory factory) {
+            this.finder = finder;
+            this.index = index;
+            Thread main = Thread.currentThread();
+            finders = ThreadLocal.withInitial(() -> {
+                if (Thread.currentThread() == main) {
+                    return finder;
+                }
+                try {
+                    return factory.create();
+                } catch (Fault e) {
+                    throw new ScanFault(e);
+                }
+            });
+            indexes = ThreadLocal.withInitial(() -> Thread.currentThread() == main
+                    ? index : new IndexedTestFinder(finders.get(), index));
         }
 
-        finder.read(file);
-        TestDescription[] tests = finder.getTests();
-        File[] files = finder.getFiles();
+        /**
+         * Read a file, returning the tests and files found in it, or null
+         * if it has already been read.  Directories are always listed by the
+         * test finder, since adding a file to a directory does not change
+         * the modification time of anything else.
+         */
+        Scan scan(File file) {
+            if (!allFiles.add(file)) {
+                return null;
+            }
+
+            TestFinder tf = finders.get();
+            if (index != null && !tf.isFolder(file)) {
+                tf = indexes.get();
+            }
+            tf.read(file);
+
+            File rootDir = finder.getRootDir();
+            File[] files = tf.getFiles();
+            for (int i = 0; i < files.length; i++) {
+                if (!files[i].isAbsolute()) {
+                    files[i] = new File(rootDir, files[i].getPath());
+                }
+            }
+            Arrays.sort(files);
+            TestDescription[] tests = tf.getTests();
+            Arrays.sort(tests, (td1, td2) -> td1.getRootRelativeURL().compareTo(td2.getRootRelativeURL()));
 
-        if (tests.length == 0 && files.length == 0) {
-            return null;
+            Scan scan = new Scan(file, tests, files);
+            scans.put(file, scan);
+            return scan;
         }
 
-        Arrays.sort(files);
-        Arrays.sort(tests, (td1, td2) -> td1.getRootRelativeURL().compareTo(td2.getRootRelativeURL()));
+        /**
+         * Create the tree node for a file which has been read.  Files are
+         * visited in the same order as a serial scan reads them, and a file
+         * is only used the first time it is visited.  Child nodes are created
+         * first, so that the test table is in the same order as when the tree
+         * was built while reading the files.
+         */
+        TestTree.Node toNode(File file, Set<File> done, TestTree testTree) {
+            Scan scan = scans.get(file);
+            if (scan == null || !done.add(file)) {
+                return null;
+            }
 
-        Vector<TestTree.Node> v = new Vector<>();
-        for (File file1 : files) {
-            TestTree.Node n = read0(finder, file1, testTree, allFiles);
-            if (n != null) {
-                v.add(n);
+            if (scan.tests.length == 0 && scan.files.length == 0) {
+                return null;
             }
+
+            Vector<TestTree.Node> v = new Vector<>();
+            for (File child : scan.files) {
+                TestTree.Node n = toNode(child, done, testTree);
+                if (n != null) {
+                    v.add(n);
+                }
+            }
+
+            return testTree.new Node(file.getName(), scan.tests, v.toArray(new TestTree.Node[v.size()]));
+        }
+    }
+
+    /**
+     * Creates test finders for additional threads.
+     */
+    private interface FinderFactory {
+        TestFinder create() throws Fault;
+    }
+
+    /**
+     * Used to report a problem creating a test finder from within a scan task.
+     */
+    private static class ScanFault extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final Fault fault;
+
+        ScanFault(Fault fault) {
+            super(fault);
+            this.fault = fault;
+        }
+    }
+
+    /**
+     * The results of reading a file: the tests found in it, and the files
+     * it refers to, in order.
+     */
+    private static class Scan {
+        final File file;
+        final TestDescription[] tests;
+        final File[] files;
+
+        Scan(File file, TestDescription[] tests, File... files) {
+            this.file = file;
+            this.tests = tests;
+            this.files = files;
+        }
+    }
+
+    /**
+     * Reads a file, and then the files it refers to, in parallel.
+     */
+    private static class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient Scanner scanner;
+        private final File file;
+
+        ScanTask(Scanner scanner, File file) {
+            this.scanner = scanner;
+            this.file = file;
         }
 
-        return testTree.new Node(file.getName(), tests, v.toArray(new TestTree.Node[v.size()]));
+        @Override
+        protected void compute() {
+            Scan scan = scanner.scan(file);
+            if (scan == null) {
+                return;
+            }
+
+            ScanTask[] tasks = new ScanTask[scan.files.length];
+            for (int i = 0; i < tasks.length; i++) {
+                tasks[i] = new ScanTask(scanner, scan.files[i]);
+            }
+
+            // when not running in a pool, the files are read in order, as before
+            if (inForkJoinPool()) {
+                invokeAll(tasks);
+            } else {
+                for (ScanTask t : tasks) {
+                    t.compute();
+                }
+            }
+        }
     }
 
     /**
@@ -521,6 +814,40 @@ public class BinaryTestWriter {
          * Write the contents of the table to a stream
          */
         void write(DataOutputStream o) throws IOException {
+            Vector<String> v = assignIndexes();
+
+            writeInt(o, v.size());
+            for (String s : v) {
+                o.writeUTF(s);
+            }
+        }
+
+        /**
+         * Write the contents of the table to a stream so that each string
+         * can be found without reading those before it: a count, followed by
+         * that many offsets of strings from the start of the table, followed
+         * by the strings themselves.
+         */
+        void writeIndexed(DataOutputStream o) throws IOException {
+            Vector<String> v = assignIndexes();
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(bytes);
+            int base = 4 + 4 * v.size();
+            o.writeInt(v.size());
+            for (String s : v) {
+                o.writeInt(base + data.size());
+                data.writeUTF(s);
+            }
+            data.flush();
+            bytes.writeTo(o);
+        }
+
+        /**
+         * Give each frequent string its index in the written table.
+         * Index 0 is reserved for strings which are written inline.
+         */
+        private Vector<String> assignIndexes() {
             Vector<String> v = new Vector<>(map.size());
             v.add("");
             int nextIndex = 1;
@@ -532,13 +859,8 @@ public class BinaryTestWriter {
                     v.add(key);
                 }
             }
-
-            writeInt(o, v.size());
-            for (String s : v) {
-                o.writeUTF(s);
-            }
-
             writtenSize = nextIndex;
+            return v;
         }
 
         /**
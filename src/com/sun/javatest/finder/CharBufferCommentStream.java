@@ -0,0 +1,159 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.finder;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A comment stream which reads the whole of its input into a character
+ * buffer the first time a comment is requested, and then finds comments by
+ * searching the buffer, rather than reading the input a character at a time.
+ * <p>
+ * If an initial tag has been set, comments which cannot contain it are
+ * returned as empty strings, without being copied out of the buffer.
+ * They are still returned, rather than skipped, because the number of
+ * comments in a file affects the ids given to the tests in it.
+ *
+ * @see TagTestFinder#setInitialTag
+ */
+abstract class CharBufferCommentStream extends CommentStream {
+    /**
+     * The contents of the input.
+     */
+    char[] buf;
+    /**
+     * The position of the next character to be examined.
+     */
+    int pos;
+    /**
+     * The number of characters in the buffer.
+     */
+    int end;
+
+    private String initialTagMarker;
+
+    /**
+     * Set the tag which must be present for a comment to be of interest.
+     * If null, all comments are of interest.
+     *
+     * @param tag the initial tag, without the leading '@'
+     */
+    public void setInitialTag(String tag) {
+        initialTagMarker = tag == null ? null : "@" + tag;
+    }
+
+    @Override
+    public String readComment() throws IOException {
+        if (buf == null) {
+            fill();
+        }
+        return nextComment();
+    }
+
+    /**
+     * Read the next comment from the buffer.
+     *
+     * @return the next comment, or null if there are no more
+     * @throws IOException if the input is malformed
+     */
+    abstract String nextComment() throws IOException;
+
+    /**
+     * Check if the characters in a range of the buffer might contain
+     * the initial tag.
+     */
+    boolean mayContainInitialTag(int from, int to) {
+        return initialTagMarker == null || indexOf(initialTagMarker, from, to) >= 0;
+    }
+
+    /**
+     * Find a string in a range of the buffer.
+     *
+     * @return the position of the string, or -1 if it is not found
+     */
+    int indexOf(String s, int from, int to) {
+        char first = s.charAt(0);
+        int last = to - s.length();
+        for (int i = from; i <= last; i++) {
+            if (buf[i] == first) {
+                int j = 1;
+                while (j < s.length() && buf[i + j] == s.charAt(j)) {
+                    j++;
+                }
+                if (j == s.length()) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the end of the line containing a position: the position of the
+     * next '\r' or '\n', or the end of the buffer.
+     */
+    int lineEnd(int from) {
+        int i = from;
+        while (i < end && buf[i] != '\n' && buf[i] != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Get the start of the line after a line which ends at a given position,
+     * treating "\r\n" as a single line terminator, as BufferedReader.readLine does.
+     */
+    int nextLine(int lineEnd) {
+        int i = lineEnd;
+        if (i < end && buf[i] == '\r') {
+            i++;
+            if (i < end && buf[i] == '\n') {
+                i++;
+            }
+        } else if (i < end) {
+            i++;
+        }
+        return i;
+    }
+
+    private void fill() throws IOException {
+        char[] b = new char[8192];
+        int n = 0;
+        int r;
+        while ((r = cs.read(b, n, b.length - n)) != -1) {
+            n += r;
+            if (n == b.length) {
+                b = Arrays.copyOf(b, b.length * 2);
+            }
+        }
+        buf = b;
+        end = n;
+        pos = 0;
+    }
+}
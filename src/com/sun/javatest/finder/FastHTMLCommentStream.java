@@ -0,0 +1,91 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.finder;
+
+import java.io.IOException;
+
+/**
+ * A faster equivalent of {@link HTMLCommentStream}, which reads the whole
+ * file into a buffer and searches it for comments.  The comments returned
+ * are the same as those returned by HTMLCommentStream, except that comments
+ * which cannot contain the initial tag are returned as empty strings when
+ * used by a {@link TagTestFinder}.
+ *
+ * @see HTMLCommentStream
+ * @since 6.0
+ */
+public class FastHTMLCommentStream extends CharBufferCommentStream {
+    private static final String LINESEP = System.getProperty("line.separator");
+
+    @Override
+    String nextComment() throws IOException {
+        // neither delimiter contains a line terminator, so they can be found
+        // without dividing the input into lines
+        int open = indexOf("<!--", pos, end);
+        if (open == -1) {
+            pos = end;
+            return null;
+        }
+
+        int start = open + 4;
+        int lineEnd = lineEnd(start);
+        int close = indexOf("-->", start, lineEnd);
+        if (close >= 0) {
+            // a comment that starts and ends on the same line;
+            // the rest of the line is ignored
+            pos = nextLine(lineEnd);
+            return mayContainInitialTag(start, close) ? new String(buf, start, close - start).trim() : "";
+        }
+
+        close = indexOf("-->", lineEnd, end);
+        if (close == -1) {
+            pos = end;
+            throw new IOException("Comment not properly terminated");
+        }
+        int closeLineEnd = lineEnd(close);
+        pos = nextLine(closeLineEnd);
+
+        if (!mayContainInitialTag(start, close)) {
+            return "";
+        }
+
+        // each line of the comment is followed by a line separator,
+        // which then becomes a space
+        StringBuilder comment = new StringBuilder(close - start + LINESEP.length());
+        int lineStart = start;
+        while (true) {
+            int e = lineEnd(lineStart);
+            if (e >= close) {
+                comment.append(buf, lineStart, close - lineStart).append(LINESEP);
+                break;
+            }
+            comment.append(buf, lineStart, e - lineStart).append(LINESEP);
+            lineStart = nextLine(e);
+        }
+        return comment.toString().replace('\n', ' ').replace('\r', ' ').trim();
+    }
+}
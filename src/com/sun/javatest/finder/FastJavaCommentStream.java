@@ -0,0 +1,139 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.finder;
+
+/**
+ * A faster equivalent of {@link JavaCommentStream}, which reads the whole
+ * file into a buffer and searches it for comments.  The comments returned
+ * are the same as those returned by JavaCommentStream, except that comments
+ * which cannot contain the initial tag are returned as empty strings when
+ * used by a {@link TagTestFinder}.
+ * <p>
+ * To use it, register it for the ".java" extension:
+ * <pre>
+ *     finder.addExtension(".java", FastJavaCommentStream.class);
+ * </pre>
+ *
+ * @see JavaCommentStream
+ * @since 6.0
+ */
+public class FastJavaCommentStream extends CharBufferCommentStream {
+    @Override
+    String nextComment() {
+        // start of comment is "/*".
+        commentStart:
+        while (true) {
+            if (pos >= end) {
+                return null;
+            }
+            char c = buf[pos++];
+            switch (c) {
+                case '/':
+                    if (pos >= end) {
+                        return null;
+                    }
+                    // the character after '/' is consumed whatever it is
+                    char d = buf[pos++];
+                    if (d == '*') {
+                        break commentStart;
+                    } else if (d == '/') {
+                        skipLine();
+                    }
+                    break;
+                case '\'':
+                case '"':
+                    skipString(c);
+                    break;
+                default:
+                    if (fastScan && !Character.isWhitespace(c)) {
+                        return null;
+                    }
+                    break;
+            }
+        }
+
+        // end of comment is "*/"; every character before it is part of the
+        // comment, including any stars immediately before the end
+        int start = pos;
+        int close = indexOf("*/", start, end);
+        if (close == -1) {
+            pos = end;
+            return null;
+        }
+        pos = close + 2;
+
+        if (!mayContainInitialTag(start, close)) {
+            return "";
+        }
+
+        StringBuilder comment = new StringBuilder(close - start);
+        boolean startLine = true;
+        for (int i = start; i < close; i++) {
+            char ch = buf[i];
+            switch (ch) {
+                case '\n':
+                case '\r':
+                    comment.append(ch);
+                    startLine = true;
+                    break;
+                case ' ':
+                case '\t':
+                case '*':
+                    if (!startLine) {
+                        comment.append(ch);
+                    }
+                    break;
+                default:
+                    startLine = false;
+                    comment.append(ch);
+                    break;
+            }
+        }
+        return comment.toString();
+    }
+
+    private void skipLine() {
+        while (pos < end) {
+            char c = buf[pos++];
+            if (c == '\r' || c == '\n') {
+                return;
+            }
+        }
+    }
+
+    private void skipString(char term) {
+        while (pos < end) {
+            char c = buf[pos++];
+            if (c == term) {
+                return;
+            } else if (c == '\\') {
+                // skip the escaped character
+                pos++;
+            }
+        }
+    }
+}
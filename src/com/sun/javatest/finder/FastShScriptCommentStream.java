@@ -0,0 +1,113 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.finder;
+
+import java.util.Arrays;
+
+/**
+ * A faster equivalent of {@link ShScriptCommentStream}, which reads the whole
+ * file into a buffer and searches it for comments.  The comments returned
+ * are the same as those returned by ShScriptCommentStream, except that
+ * comments which cannot contain the initial tag are returned as empty
+ * strings when used by a {@link TagTestFinder}.
+ *
+ * @see ShScriptCommentStream
+ * @since 6.0
+ */
+public class FastShScriptCommentStream extends CharBufferCommentStream {
+    private static final String LINESEP = System.getProperty("line.separator");
+
+    @Override
+    String nextComment() {
+        // find the first comment line
+        int contentStart;
+        int lineEnd;
+        while (true) {
+            if (pos >= end) {
+                return null;
+            }
+            lineEnd = lineEnd(pos);
+            contentStart = commentContentStart(pos, lineEnd);
+            pos = nextLine(lineEnd);
+            if (contentStart >= 0) {
+                break;
+            }
+        }
+
+        // the comment continues until a line which is not a comment line,
+        // which is consumed, or the end of the input
+        int first = contentStart;
+        int[] lines = {contentStart, lineEnd};
+        int n = 2;
+        while (pos < end) {
+            lineEnd = lineEnd(pos);
+            contentStart = commentContentStart(pos, lineEnd);
+            pos = nextLine(lineEnd);
+            if (contentStart < 0) {
+                break;
+            }
+            if (n == lines.length) {
+                lines = Arrays.copyOf(lines, n * 2);
+            }
+            lines[n++] = contentStart;
+            lines[n++] = lineEnd;
+        }
+
+        boolean mayContainTag = false;
+        for (int i = 0; i < n && !mayContainTag; i += 2) {
+            mayContainTag = mayContainInitialTag(lines[i], lines[i + 1]);
+        }
+        if (!mayContainTag) {
+            return "";
+        }
+
+        StringBuilder comment = new StringBuilder(lines[n - 1] - first + n * LINESEP.length());
+        for (int i = 0; i < n; i += 2) {
+            comment.append(buf, lines[i], lines[i + 1] - lines[i]).append(LINESEP);
+        }
+        return comment.toString();
+    }
+
+    /**
+     * Get the start of the content of a comment line: after any leading
+     * '#', space, tab and form feed characters, at least one of which must
+     * be '#'.  Returns -1 if the line is not a comment line.
+     */
+    private int commentContentStart(int from, int lineEnd) {
+        boolean isLineComment = false;
+        int i;
+        for (i = from; i < lineEnd; i++) {
+            char c = buf[i];
+            if (c == '#') {
+                isLineComment = true;
+            } else if (c != ' ' && c != '\t' && c != '\f') {
+                break;
+            }
+        }
+        return isLineComment ? i : -1;
+    }
+}
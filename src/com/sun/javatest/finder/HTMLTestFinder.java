@@ -184,6 +184,16 @@ public class HTMLTestFinder extends TestFinder {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * What this finder finds in a file depends only on the file and the mode;
+     * subclasses must describe their own configuration.
+     */
+    @Override
+    public String getSnapshotKey() {
+        return getClass() == HTMLTestFinder.class ? "mode=" + mode : null;
+    }
+
     //----------member variables------------------------------------------------
 
     @Override
@@ -0,0 +1,445 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.finder;
+
+import com.sun.javatest.TestDescription;
+import com.sun.javatest.TestFinder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A test finder decorator that remembers what its delegate found in each
+ * file, and keeps that in an index file from one session to the next.  A file
+ * whose path, modification time and size are the same as when it was last
+ * read is not read again; the tests and files found in it are taken from the
+ * index instead.  Files in which the delegate reported errors are always read
+ * again, so that the errors are reported.
+ * <p>
+ * The index is only used if it was written for the same configuration,
+ * which should identify the delegate and anything that affects what it finds,
+ * such as its arguments.  The index is written by {@link #save}, which is also
+ * called when the virtual machine exits, for the finder most recently created
+ * for each index file.
+ *
+ * @see TestFinderDecorator
+ * @since 6.0
+ */
+public class IndexedTestFinder extends TestFinder {
+    private final TestFinder delegate;
+    private final File indexFile;
+    private final String configuration;
+    private final Map<String, Record> records;
+    private final AtomicBoolean changed;
+
+    private TestDescription[] tests = new TestDescription[0];
+    private File[] files = new File[0];
+
+    private static final int MAGIC = 0x4A544649;     // "JTFI"
+    private static final int VERSION = 2;
+
+    // the finder to be saved on exit for each index file
+    private static final Map<File, IndexedTestFinder> saveOnExit = new HashMap<>();
+    private static Thread saveOnExitHook;
+
+    /**
+     * Create a finder which uses an index file to avoid reading files which
+     * have not changed.
+     *
+     * @param delegate      the finder used to read files which are not in the
+     *                      index, or which have changed
+     * @param indexFile     the file in which to keep the index
+     * @param configuration a description of the delegate and its configuration;
+     *                      the index is discarded if this changes
+     */
+    public IndexedTestFinder(TestFinder delegate, File indexFile, String configuration) {
+        this.delegate = delegate;
+        this.indexFile = indexFile;
+        this.configuration = configuration;
+        records = new ConcurrentHashMap<>();
+        changed = new AtomicBoolean();
+        load();
+        saveOnExit(this);
+    }
+
+    /**
+     * Create a finder which shares the index of another finder, so that
+     * several threads can read files at once, each with its own finder.
+     * What either finder finds is added to the same index, which may be
+     * written by either of them.
+     *
+     * @param delegate the finder used to read files which are not in the
+     *                 index, or which have changed; it must be configured
+     *                 in the same way as the delegate of the other finder
+     * @param index    the finder whose index is to be shared
+     */
+    public IndexedTestFinder(TestFinder delegate, IndexedTestFinder index) {
+        this.delegate = delegate;
+        indexFile = index.indexFile;
+        configuration = index.configuration;
+        records = index.records;
+        changed = index.changed;
+    }
+
+    private static void saveOnExit(IndexedTestFinder f) {
+        synchronized (saveOnExit) {
+            saveOnExit.put(f.indexFile.getAbsoluteFile(), f);
+            if (saveOnExitHook == null) {
+                saveOnExitHook = new Thread(() -> {
+                    synchronized (saveOnExit) {
+                        for (IndexedTestFinder i : saveOnExit.values()) {
+                            i.save();
+                        }
+                    }
+                }, "IndexedTestFinder:save");
+                Runtime.getRuntime().addShutdownHook(saveOnExitHook);
+            }
+        }
+    }
+
+    /**
+     * Get the finder used to read files which are not in the index.
+     *
+     * @return the finder
+     */
+    public TestFinder getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public File getRoot() {
+        return delegate.getRoot();
+    }
+
+    @Override
+    public File getRootDir() {
+        return delegate.getRootDir();
+    }
+
+    @Override
+    public synchronized void read(File file) {
+        File f = file.isAbsolute() ? file : new File(getRootDir(), file.getPath());
+        String key = f.getPath();
+        long lastModified = delegate.lastModified(f);
+        long length = f.length();
+
+        Record r = records.get(key);
+        if (r != null && r.lastModified == lastModified && r.length == length) {
+            tests = r.getTests();
+            files = r.getFiles();
+            return;
+        }
+
+        int errors = delegate.getErrorCount();
+        delegate.read(file);
+        tests = delegate.getTests();
+        files = delegate.getFiles();
+
+        if (delegate.getErrorCount() == errors && lastModified > 0) {
+            records.put(key, new Record(lastModified, length, tests, files));
+            changed.set(true);
+        } else if (records.remove(key) != null) {
+            changed.set(true);
+        }
+    }
+
+    @Override
+    public synchronized TestDescription[] getTests() {
+        return tests.clone();
+    }
+
+    @Override
+    public synchronized File[] getFiles() {
+        return files.clone();
+    }
+
+    @Override
+    public Comparator<String> getComparator() {
+        return delegate.getComparator();
+    }
+
+    @Override
+    public void setComparator(Comparator<String> c) {
+        delegate.setComparator(c);
+    }
+
+    @Override
+    public ErrorHandler getErrorHandler() {
+        return delegate.getErrorHandler();
+    }
+
+    @Override
+    public void setErrorHandler(ErrorHandler h) {
+        delegate.setErrorHandler(h);
+    }
+
+    @Override
+    public long lastModified(File f) {
+        return delegate.lastModified(f);
+    }
+
+    @Override
+    public String getSnapshotKey() {
+        return delegate.getSnapshotKey();
+    }
+
+    @Override
+    public boolean isFolder(File path) {
+        return delegate.isFolder(path);
+    }
+
+    @Override
+    public Optional<Integer> totalNumberOfTestsInTheSuite() {
+        return delegate.totalNumberOfTestsInTheSuite();
+    }
+
+    @Override
+    public int getErrorCount() {
+        return delegate.getErrorCount();
+    }
+
+    @Override
+    public String[] getErrors() {
+        return delegate.getErrors();
+    }
+
+    @Override
+    public void clearErrors() {
+        delegate.clearErrors();
+    }
+
+    @Override
+    protected void scan(File file) {
+        throw new Error("should not be called!");
+    }
+
+    /**
+     * Write the index file, if anything has changed since it was read or
+     * last written.  Failures are ignored; the worst that can happen is that
+     * files are read again next time.
+     */
+    public synchronized void save() {
+        if (!changed.getAndSet(false)) {
+            return;
+        }
+
+        File tmp = null;
+        try {
+            File dir = indexFile.getAbsoluteFile().getParentFile();
+            if (dir != null) {
+                dir.mkdirs();
+            }
+            // other finders may be saving the same index
+            tmp = File.createTempFile(indexFile.getName(), ".new", dir);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(configuration);
+
+                // records with strings too long to be written are left out
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                Map<String, Record> ok = new LinkedHashMap<>();
+                for (Map.Entry<String, Record> e : records.entrySet()) {
+                    try {
+                        e.getValue().write(e.getKey(), new DataOutputStream(bytes));
+                        ok.put(e.getKey(), e.getValue());
+                    } catch (IOException ignore) {
+                    }
+                    bytes.reset();
+                }
+
+                out.writeInt(ok.size());
+                for (Map.Entry<String, Record> e : ok.entrySet()) {
+                    e.getValue().write(e.getKey(), out);
+                }
+            }
+
+            if (!tmp.renameTo(indexFile)) {
+                indexFile.delete();
+                if (!tmp.renameTo(indexFile)) {
+                    tmp.delete();
+                    changed.set(true);
+                }
+            }
+        } catch (IOException e) {
+            if (tmp != null) {
+                tmp.delete();
+            }
+            changed.set(true);
+        }
+    }
+
+    private void load() {
+        if (!indexFile.exists()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || !in.readUTF().equals(configuration)) {
+                return;
+            }
+
+            Map<String, String> strings = new HashMap<>();
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String key = in.readUTF();
+                records.put(key, Record.read(in, strings));
+            }
+        } catch (IOException | RuntimeException e) {
+            records.clear();
+        }
+    }
+
+    /**
+     * What was found in a file.  The tests are kept in the form in which they
+     * are written to the index, and are only made into test descriptions when
+     * they are needed.
+     */
+    private static class Record {
+        final long lastModified;
+        final long length;
+        // for each test: root dir, root relative path, then key/value pairs
+        final String[][] tests;
+        final String[] files;
+
+        Record(long lastModified, long length, String[][] tests, String... files) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.tests = tests;
+            this.files = files;
+        }
+
+        Record(long lastModified, long length, TestDescription[] tds, File... fs) {
+            this.lastModified = lastModified;
+            this.length = length;
+            tests = new String[tds.length][];
+            for (int i = 0; i < tds.length; i++) {
+                TestDescription td = tds[i];
+                int n = td.getParameterCount();
+                String[] t = new String[2 + n * 2];
+                t[0] = td.getRootDir();
+                t[1] = td.getRootRelativePath();
+                int j = 2;
+                for (Iterator<String> iter = td.getParameterKeys(); iter.hasNext(); ) {
+                    String k = iter.next();
+                    t[j++] = k;
+                    t[j++] = td.getParameter(k);
+                }
+                tests[i] = t;
+            }
+            files = new String[fs.length];
+            for (int i = 0; i < fs.length; i++) {
+                files[i] = fs[i].getPath();
+            }
+        }
+
+        TestDescription[] getTests() {
+            TestDescription[] tds = new TestDescription[tests.length];
+            for (int i = 0; i < tests.length; i++) {
+                String[] t = tests[i];
+                Map<String, String> params = new HashMap<>();
+                for (int j = 2; j < t.length; j += 2) {
+                    params.put(t[j], t[j + 1]);
+                }
+                tds[i] = new TestDescription(new File(t[0]),
+                        new File(t[1].replace('/', File.separatorChar)), params);
+            }
+            return tds;
+        }
+
+        File[] getFiles() {
+            File[] fs = new File[files.length];
+            for (int i = 0; i < files.length; i++) {
+                fs[i] = new File(files[i]);
+            }
+            return fs;
+        }
+
+        void write(String key, DataOutputStream out) throws IOException {
+            out.writeUTF(key);
+            out.writeLong(lastModified);
+            out.writeLong(length);
+            out.writeInt(tests.length);
+            for (String[] t : tests) {
+                out.writeInt(t.length);
+                for (String s : t) {
+                    // parameter values may be null
+                    out.writeBoolean(s != null);
+                    if (s != null) {
+                        out.writeUTF(s);
+                    }
+                }
+            }
+            out.writeInt(files.length);
+            for (String f : files) {
+                out.writeUTF(f);
+            }
+        }
+
+        static Record read(DataInputStream in, Map<String, String> strings) throws IOException {
+            long lastModified = in.readLong();
+            long length = in.readLong();
+            String[][] tests = new String[in.readInt()][];
+            for (int i = 0; i < tests.length; i++) {
+                String[] t = new String[in.readInt()];
+                for (int j = 0; j < t.length; j++) {
+                    if (!in.readBoolean()) {
+                        continue;
+                    }
+                    String s = in.readUTF();
+                    // keys, roots and many values are the same in many tests
+                    String prev = strings.putIfAbsent(s, s);
+                    t[j] = prev == null ? s : prev;
+                }
+                tests[i] = t;
+            }
+            String[] files = new String[in.readInt()];
+            for (int i = 0; i < files.length; i++) {
+                files[i] = in.readUTF();
+            }
+            return new Record(lastModified, length, tests, files);
+        }
+    }
+}
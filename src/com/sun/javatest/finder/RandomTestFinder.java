@@ -83,6 +83,21 @@ public class RandomTestFinder extends TestFinder {
         return fs;
     }
 
+    @Override
+    public int getErrorCount() {
+        return delegate.getErrorCount();
+    }
+
+    @Override
+    public String[] getErrors() {
+        return delegate.getErrors();
+    }
+
+    @Override
+    public void clearErrors() {
+        delegate.clearErrors();
+    }
+
     @Override
     protected void scan(File file) {
         throw new Error("should not be called!");
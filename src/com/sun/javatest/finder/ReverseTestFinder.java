@@ -135,6 +135,21 @@ public class ReverseTestFinder extends TestFinder {
         return fs;
     }
 
+    @Override
+    public int getErrorCount() {
+        return delegate.getErrorCount();
+    }
+
+    @Override
+    public String[] getErrors() {
+        return delegate.getErrors();
+    }
+
+    @Override
+    public void clearErrors() {
+        delegate.clearErrors();
+    }
+
     @Override
     protected void scan(File file) {
         throw new Error("should not be called!");
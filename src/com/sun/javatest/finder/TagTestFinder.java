@@ -306,6 +306,9 @@ public class TagTestFinder extends TestFinder {
             if (fastScan) {
                 cs.setFastScan(true);
             }
+            if (cs instanceof CharBufferCommentStream) {
+                ((CharBufferCommentStream) cs).setInitialTag(initialTag);
+            }
 
             String comment = cs.readComment();
             while (comment != null) {
@@ -114,6 +114,11 @@ public class TestFinderDecorator extends TestFinder {
         return currentTestFinder.lastModified(f);
     }
 
+    @Override
+    public String getSnapshotKey() {
+        return currentTestFinder.getSnapshotKey();
+    }
+
     @Override
     public boolean isFolder(File path) {
         return currentTestFinder.isFolder(path);
@@ -124,6 +129,21 @@ public class TestFinderDecorator extends TestFinder {
         return currentTestFinder.totalNumberOfTestsInTheSuite();
     }
 
+    @Override
+    public int getErrorCount() {
+        return currentTestFinder.getErrorCount();
+    }
+
+    @Override
+    public String[] getErrors() {
+        return currentTestFinder.getErrors();
+    }
+
+    @Override
+    public void clearErrors() {
+        currentTestFinder.clearErrors();
+    }
+
     @Override
     protected void scan(File file) {
         throw new Error("should not be called!");
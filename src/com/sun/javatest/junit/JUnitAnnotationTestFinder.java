@@ -34,11 +34,26 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Finder which reads class files to locate those with an appropriate annotations
@@ -51,6 +66,19 @@ import java.util.HashMap;
  * The scanner can operate in two ways- either by looking for .class files and
  * scanning them, or by looking for .java files and then loading the corresponding
  * .class file.
+ * <p>
+ * Two further options make scanning large test suites faster.
+ * {@code -threads n} reads the class files found in a directory with n threads,
+ * ahead of the files being read by the finder; the test descriptions are still
+ * produced by the finder, in the same order.  {@code -scanCache file} keeps what
+ * was found in each class file in the given file, so that class files which
+ * have not changed are not read again in later runs.  In either case, class files
+ * which do not mention the test method annotation are not parsed at all.
+ * <p>
+ * Class files may be read on other threads, so the test methods found in a
+ * class file are recorded as it is read, and {@link #foundTestMethod} is
+ * called for each of them, with {@link #currMethod} set to its name, when
+ * the finder reads the file.
  *
  * @see com.sun.javatest.TestFinder
  * @see com.sun.javatest.TestDescription
@@ -60,6 +88,19 @@ public class JUnitAnnotationTestFinder extends JUnitTestFinder {
     protected String currMethod;
     protected String methodAnnotation = "Lorg/junit/Test;";
 
+    private int threads = 1;
+    private File scanCacheFile;
+    private final Map<String, ClassInfo> scanCache = new ConcurrentHashMap<>();
+    private volatile boolean scanCacheChanged;
+    private final Map<String, Future<ClassInfo>> preScans = new HashMap<>();
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    private static final int SCAN_CACHE_MAGIC = 0x4A554E43;     // "JUNC"
+    private static final int SCAN_CACHE_VERSION = 2;
+
+    // the finder whose scan cache is to be saved on exit, for each cache file
+    private static final Map<File, JUnitAnnotationTestFinder> saveOnExit = new HashMap<>();
+    private static Thread saveOnExitHook;
 
     /**
      * Constructs the list of file names to exclude for pruning in the search
@@ -69,6 +110,104 @@ public class JUnitAnnotationTestFinder extends JUnitTestFinder {
         exclude(excludeNames);
     }
 
+    @Override
+    protected void decodeAllArgs(String... args) throws Fault {
+        super.decodeAllArgs(args);
+
+        for (int i = 0; i < args.length; i++) {
+            if ("-threads".equalsIgnoreCase(args[i]) && i + 1 < args.length) {
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    error(i18n, "finder.badThreads", args[i]);
+                }
+            } else if ("-scanCache".equalsIgnoreCase(args[i]) && i + 1 < args.length) {
+                scanCacheFile = new File(args[++i]);
+                loadScanCache();
+                saveOnExit(this);
+            }
+        }
+    }
+
+    private static void saveOnExit(JUnitAnnotationTestFinder f) {
+        synchronized (saveOnExit) {
+            saveOnExit.put(f.scanCacheFile.getAbsoluteFile(), f);
+            if (saveOnExitHook == null) {
+                saveOnExitHook = new Thread(() -> {
+                    synchronized (saveOnExit) {
+                        for (JUnitAnnotationTestFinder i : saveOnExit.values()) {
+                            i.saveScanCache();
+                        }
+                    }
+                }, "JUnitAnnotationTestFinder:save");
+                Runtime.getRuntime().addShutdownHook(saveOnExitHook);
+            }
+        }
+    }
+
+    /**
+     * Write the scan cache, if one was specified with {@code -scanCache} and
+     * anything has been added to it.  This is also done when the virtual
+     * machine exits, for the finder most recently given each cache file.
+     */
+    public synchronized void saveScanCache() {
+        if (scanCacheFile == null || !scanCacheChanged) {
+            return;
+        }
+
+        // other finders may be saving the same cache
+        File tmp;
+        try {
+            tmp = File.createTempFile(scanCacheFile.getName(), ".new",
+                    scanCacheFile.getAbsoluteFile().getParentFile());
+        } catch (IOException e) {
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(SCAN_CACHE_MAGIC);
+            out.writeInt(SCAN_CACHE_VERSION);
+            out.writeUTF(methodAnnotation);
+            Map<String, ClassInfo> entries = new HashMap<>(scanCache);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, ClassInfo> e : entries.entrySet()) {
+                out.writeUTF(e.getKey());
+                e.getValue().write(out);
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            return;
+        }
+
+        scanCacheFile.delete();
+        if (tmp.renameTo(scanCacheFile)) {
+            scanCacheChanged = false;
+        } else {
+            tmp.delete();
+        }
+    }
+
+    private void loadScanCache() {
+        if (!scanCacheFile.exists()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(scanCacheFile)))) {
+            if (in.readInt() != SCAN_CACHE_MAGIC || in.readInt() != SCAN_CACHE_VERSION
+                    || !in.readUTF().equals(methodAnnotation)) {
+                return;
+            }
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String path = in.readUTF();
+                scanCache.put(path, ClassInfo.read(in));
+            }
+        } catch (IOException e) {
+            scanCache.clear();
+        }
+    }
+
     //-----internal routines----------------------------------------------------
 
     /**
@@ -92,6 +231,33 @@ public class JUnitAnnotationTestFinder extends JUnitTestFinder {
      * @param dir The directory to scan
      */
     private void scanDirectory(File dir) {
+        List<File> found = threads > 1 ? new ArrayList<>() : null;
+        scanDirectory(dir, found);
+
+        // read the class files ahead of the finder
+        if (found != null && !found.isEmpty()) {
+            ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "JUnitAnnotationTestFinder");
+                t.setDaemon(true);
+                return t;
+            });
+            for (File f : found) {
+                String classFile;
+                try {
+                    classFile = getClassFile(f);
+                } catch (RuntimeException e) {
+                    // reported when the file is read by the finder
+                    continue;
+                }
+                if (classFile != null && !preScans.containsKey(classFile)) {
+                    preScans.put(classFile, pool.submit(() -> readClass(classFile)));
+                }
+            }
+            pool.shutdown();
+        }
+    }
+
+    private void scanDirectory(File dir, List<File> found) {
 
         // scan the contents of the directory, checking for
         // subdirectories and other files that should be scanned
@@ -108,7 +274,7 @@ public class JUnitAnnotationTestFinder extends JUnitTestFinder {
                 //System.out.println("dir: " + dir.getAbsolutePath());
                 // if its a directory, add it to the list to be scanned
                 //foundFile(file);
-                scanDirectory(file);
+                scanDirectory(file, found);
             } else {
                 // if its a file, check its extension
                 int dot = name.indexOf('.');
@@ -120,6 +286,9 @@ public class JUnitAnnotationTestFinder extends JUnitTestFinder {
                     // extension has a comment reader, so add it to the
                     // list to be scanned
                     foundFile(file);
+                    if (found != null) {
+                        found.add(file);
+                    }
                 }
             }
         }
@@ -143,115 +312,238 @@ public class JUnitAnnotationTestFinder extends JUnitTestFinder {
             return;
         }
 
+        String classFile = getClassFile(file);
+        if (classFile == null) {
+            return;
+        }
+
+        try {
+            if (!new File(classFile).exists()) {
+                System.out.println("classFile does not exist: " + classFile);
+                return;
+            }
+            ClassInfo info = getClassInfo(classFile);
+            if (info.ioError) {
+                error(i18n, "finder.classioe", classFile);
+                return;
+            }
+            if (info.exception != null) {
+                throw info.exception;
+            }
+            for (String m : info.methods) {
+                currMethod = m;
+                foundTestMethod(m);
+            }
+
+            // methods are necessary for this to be a test
+            // could expand this to allow other junit annotations
+            if (!testMethods.isEmpty()) {
+                StringBuilder tms = new StringBuilder();
+                for (String n : testMethods) {
+                    tms.append(n);
+                    tms.append(" ");
+                }
+                tms.deleteCharAt(tms.length() - 1);
+                tdValues.put("source", file.getPath());
+                tdValues.put("junit.testmethods", tms.toString());
+                tdValues.put("junit.finderscantype", "annotation");
+                tdValues.put("keywords", "junit junit4");
+                tdValues.put("executeClass", info.className.replaceAll("/", "."));
+
+                // consider stripping the .java or .class off currFile
+                foundTestDescription(tdValues, currFile, 0);
+            }
+        } catch (Exception e) {
+            System.out.println("!!! Exception: " + e);
+        }
+
+        return;
+    }
+
+    /**
+     * Get the class file to be read for a file found by the finder,
+     * or null if there is none.
+     */
+    private String getClassFile(File file) {
+        String name = file.getName();
         String classFile = "";
         if (scanClasses) {
             classFile = file.getPath();
         } else {
             String currentDir = new File("").getAbsolutePath();
-            String sources = name;
             String filePath = file.getAbsolutePath().
                     substring(currentDir.length() + 1, file.getAbsolutePath().length());
 
-            if (filePath.startsWith("tests")) {
-                classFile = currentDir + File.separator + "classes" + File.separator + filePath.substring(6, filePath.length());
-            } else if (filePath.startsWith("test")) {
-                classFile = currentDir + File.separator + "classes" + File.separator + filePath.substring(5, filePath.length());
-            } else {
-                return;
+            if (!filePath.startsWith("test")) {
+                return null;
             }
 
             classFile = file.getAbsolutePath().replaceFirst("tests", "classes");
         }
 
-        dot = classFile.lastIndexOf('.');
-        classFile = classFile.substring(0, dot) + ".class";
+        int dot = classFile.lastIndexOf('.');
+        if (dot == -1 || name.indexOf('.') == -1) {
+            return null;
+        }
+        return classFile.substring(0, dot) + ".class";
+    }
 
-        try {
-            if (!new File(classFile).exists()) {
-                System.out.println("classFile does not exist: " + classFile);
-                return;
-            }
+    /**
+     * Get what is in a class file: from a read started by scanDirectory, from
+     * the scan cache, or by reading it now.
+     */
+    private ClassInfo getClassInfo(String classFile) throws InterruptedException {
+        Future<ClassInfo> f = preScans.remove(classFile);
+        if (f != null) {
             try {
-                FileInputStream fis = new FileInputStream(classFile);
-                ClassReader cr = new ClassReader(fis);
-                cr.accept(new JUnitAnnotationClassVisitor(this), 0);
-                // action happens in visit(...) below
-
-                // methods are necessary for this to be a test
-                // could expand this to allow other junit annotations
-                if (!testMethods.isEmpty()) {
-                    StringBuilder tms = new StringBuilder();
-                    for (String n : testMethods) {
-                        tms.append(n);
-                        tms.append(" ");
-                    }
-                    tms.deleteCharAt(tms.length() - 1);
-                    tdValues.put("source", file.getPath());
-                    tdValues.put("junit.testmethods", tms.toString());
-                    tdValues.put("junit.finderscantype", "annotation");
-                    tdValues.put("keywords", "junit junit4");
-                    tdValues.put("executeClass", cr.getClassName().replaceAll("/", "."));
-
-                    // consider stripping the .java or .class off currFile
-                    foundTestDescription(tdValues, currFile, 0);
+                return f.get();
+            } catch (ExecutionException e) {
+                // readClass does not throw; fall through and try again
+            }
+        }
+        return readClass(classFile);
+    }
+
+    /**
+     * Read a class file, looking for public methods with the test method
+     * annotation. This may be called on any thread, and so does not update
+     * the state of the finder, except for the scan cache.
+     */
+    private ClassInfo readClass(String classFile) {
+        File f = new File(classFile);
+        long lastModified = f.lastModified();
+        long length = f.length();
+        if (scanCacheFile != null) {
+            ClassInfo cached = scanCache.get(classFile);
+            if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+                return cached;
+            }
+        }
+
+        ClassInfo info = new ClassInfo(lastModified, length);
+        try (InputStream in = new FileInputStream(f)) {
+            byte[] buf = buffers.get();
+            int n = 0;
+            int r;
+            while ((r = in.read(buf, n, buf.length - n)) != -1) {
+                n += r;
+                if (n == buf.length) {
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                    buffers.set(buf);
                 }
+            }
 
-            } catch (IOException e) {
-                error(i18n, "finder.classioe", classFile);
-            }       // catch
+            // a class which never mentions the annotation cannot have
+            // any test methods, and need not be parsed
+            if (contains(buf, n, methodAnnotation.getBytes(StandardCharsets.UTF_8))) {
+                // the class is read in full, so that classes which cannot
+                // be read are rejected, even if the annotation is found
+                ClassReader cr = new ClassReader(buf, 0, n);
+                cr.accept(new ClassInfoVisitor(info, methodAnnotation), 0);
+            }
+        } catch (IOException e) {
+            info.ioError = true;
+            return info;
         } catch (Exception e) {
-            System.out.println("!!! Exception: " + e);
+            info.exception = e;
+            return info;
         }
 
-        return;
+        if (scanCacheFile != null) {
+            scanCache.put(classFile, info);
+            scanCacheChanged = true;
+        }
+        return info;
     }
 
-    static class JUnitAnnotationMethodVisitor extends MethodVisitor {
-        private JUnitAnnotationTestFinder outer;
+    private static boolean contains(byte[] buf, int length, byte... s) {
+        int last = length - s.length;
+        outer:
+        for (int i = 0; i <= last; i++) {
+            for (int j = 0; j < s.length; j++) {
+                if (buf[i + j] != s[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
 
-        public JUnitAnnotationMethodVisitor(JUnitAnnotationTestFinder outer) {
-            super(Opcodes.ASM4);
-            this.outer = outer;
+    /**
+     * What was found in a class file: its name, and the names of its
+     * test methods, in the order in which they appear.
+     */
+    private static class ClassInfo {
+        final long lastModified;
+        final long length;
+        String className;
+        List<String> methods = new ArrayList<>();
+        boolean ioError;
+        Exception exception;
+
+        ClassInfo(long lastModified, long length) {
+            this.lastModified = lastModified;
+            this.length = length;
         }
 
-        @Override
-        public AnnotationVisitor visitAnnotation(String string, boolean b) {
-            if (outer.methodAnnotation.equals(string)) {
-                outer.foundTestMethod(outer.currMethod);
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(lastModified);
+            out.writeLong(length);
+            out.writeUTF(className == null ? "" : className);
+            out.writeInt(methods.size());
+            for (String m : methods) {
+                out.writeUTF(m);
             }
+        }
 
-            return null;
+        static ClassInfo read(DataInputStream in) throws IOException {
+            ClassInfo info = new ClassInfo(in.readLong(), in.readLong());
+            String className = in.readUTF();
+            info.className = className.isEmpty() ? null : className;
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                info.methods.add(in.readUTF());
+            }
+            return info;
         }
     }
 
-    class JUnitAnnotationClassVisitor extends ClassVisitor {
-        private JUnitAnnotationTestFinder outer;
-        private JUnitAnnotationMethodVisitor methodVisitor;
+    /**
+     * Records the name of a class and its public methods which have the
+     * test method annotation.
+     */
+    private static class ClassInfoVisitor extends ClassVisitor {
+        private final ClassInfo info;
+        private final String annotation;
 
-        public JUnitAnnotationClassVisitor(JUnitAnnotationTestFinder outer) {
+        ClassInfoVisitor(ClassInfo info, String annotation) {
             super(Opcodes.ASM4);
-            this.outer = outer;
-            methodVisitor = new JUnitAnnotationMethodVisitor(outer);
+            this.info = info;
+            this.annotation = annotation;
         }
 
         @Override
         public void visit(int version, int access, String name, String signature,
                           String superName, String[] interfaces) {
-            if (verbose) {
-                System.out.println("found class " + name + " with super " + superName);
-            }
+            info.className = name;
         }
 
         @Override
         public MethodVisitor visitMethod(int access, String name, String desc,
                                          String signature, String[] exceptions) {
-            if (access == Opcodes.ACC_PUBLIC) {
-                outer.currMethod = name;
-                return methodVisitor;
-            } else {
+            if (access != Opcodes.ACC_PUBLIC) {
                 return null;
             }
+            return new MethodVisitor(Opcodes.ASM4) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                    if (annotation.equals(desc)) {
+                        info.methods.add(name);
+                    }
+                    return null;
+                }
+            };
         }
     }
 }
-
@@ -0,0 +1,234 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.report;
+
+import com.sun.javatest.Harness;
+import com.sun.javatest.InterviewParameters;
+import com.sun.javatest.KnownFailuresList;
+import com.sun.javatest.Parameters;
+import com.sun.javatest.TestResult;
+import com.sun.javatest.TestResultTable;
+import com.sun.javatest.WorkDirectory;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compares the results of tests with the known failures list as the tests
+ * are run, so that the comparison is available while the tests are running,
+ * and so that the known failures sections of reports written after the run
+ * need not read the output of the tests again.
+ * <p>
+ * The known failures list is read and indexed when a test run starts.  As
+ * each test finishes, its result is classified against the list, reading the
+ * test cases from its output while it is still in memory.  Reports on the
+ * same work directory with the same known failures list files share the
+ * index and the test cases found.
+ *
+ * @see KflSorter
+ * @since 6.0
+ */
+public class KflClassifier implements Harness.Observer {
+    /**
+     * Create a classifier and register it as an observer of a harness.
+     * Classifiers can be disabled by setting the system property
+     * {@code javatest.kfl.noClassifier}.
+     *
+     * @param h the harness whose runs are to be observed
+     * @return the classifier, or null if classifiers are disabled
+     */
+    public static KflClassifier attach(Harness h) {
+        if (Boolean.getBoolean("javatest.kfl.noClassifier")) {
+            return null;
+        }
+
+        KflClassifier c = new KflClassifier();
+        h.addObserver(c);
+        return c;
+    }
+
+    /**
+     * Get the classifier which most recently observed a test run in a
+     * work directory.
+     *
+     * @param wd the work directory
+     * @return the classifier, or null if none
+     */
+    public static KflClassifier getInstance(WorkDirectory wd) {
+        synchronized (instances) {
+            WeakReference<KflClassifier> ref = instances.get(wd);
+            return ref == null ? null : ref.get();
+        }
+    }
+
+    @Override
+    public void startingTestRun(Parameters params) {
+        WorkDirectory wd = params.getWorkDirectory();
+        File[] files = params instanceof InterviewParameters
+                ? ((InterviewParameters) params).getKnownFailureFiles()
+                : null;
+
+        synchronized (instances) {
+            instances.put(wd, new WeakReference<>(this));
+        }
+
+        synchronized (this) {
+            if (files == null || files.length == 0) {
+                state = null;
+            } else if (state == null || state.trt != wd.getTestResultTable()
+                    || !state.isFor(files)) {
+                KnownFailuresList kfl = ((InterviewParameters) params).getKnownFailuresList();
+                state = kfl == null ? null : new State(kfl, files, wd.getTestResultTable());
+            }
+        }
+    }
+
+    @Override
+    public void finishedTest(TestResult tr) {
+        State s = getState();
+        if (s != null) {
+            s.live.update(tr);
+        }
+    }
+
+    /**
+     * Get the results of the tests run so far which differ from the known
+     * failures list in a particular way.  Tests on the list which have not
+     * been run are not reported as missing.
+     *
+     * @param t the kind of difference
+     * @return the differences found, in order of test name
+     */
+    public SortedSet<KflSorter.TestDiff> getSet(KflSorter.Transitions t) {
+        State s = getState();
+        if (s == null) {
+            return Collections.emptySortedSet();
+        }
+        synchronized (s.live) {
+            SortedSet<KflSorter.TestDiff> set = s.live.getSet(t);
+            return set == null ? Collections.emptySortedSet() : new TreeSet<>(set);
+        }
+    }
+
+    /**
+     * Get the number of results of the tests run so far which differ from
+     * the known failures list.
+     *
+     * @return the number of differences found
+     * @see #getSet
+     */
+    public int getErrorCount() {
+        State s = getState();
+        return s == null ? 0 : s.live.getErrorCount();
+    }
+
+    /**
+     * Get the number of results of test cases run so far which differ from
+     * the known failures list.
+     *
+     * @return the number of test case differences found
+     * @see #getSet
+     */
+    public int getTestCasesErrorCount() {
+        State s = getState();
+        return s == null ? 0 : s.live.getTestCasesErrorCount();
+    }
+
+    /**
+     * Create a sorter with which to compare results with the known failures
+     * list, using the index and test cases collected by this classifier.
+     *
+     * @param files     the known failures list files for the comparison
+     * @param trt       the table from which to retrieve results
+     * @param testcases whether test cases are to be compared
+     * @return the sorter, or null if this classifier is not using the same
+     * files and table
+     */
+    KflSorter createSorter(File[] files, TestResultTable trt, boolean testcases) {
+        State s = getState();
+        if (s == null || s.trt != trt || !s.isFor(files)) {
+            return null;
+        }
+        return new KflSorter(s.index, trt, testcases, s.testCases);
+    }
+
+    private synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * The index of a known failures list, and what has been found by
+     * comparing results with it.
+     */
+    private static class State {
+        State(KnownFailuresList kfl, File[] files, TestResultTable trt) {
+            this.files = files.clone();
+            this.lastModified = lastModified(files);
+            this.trt = trt;
+            index = new KflIndex(kfl);
+            testCases = new ConcurrentHashMap<>();
+            live = new KflSorter(index, trt, true, testCases);
+            live.setF2eEnabled(true);
+            live.setF2fEnabled(true);
+            live.setMissingEnabled(false);
+        }
+
+        boolean isFor(File... files) {
+            return files != null && Arrays.equals(this.files, files)
+                    && Arrays.equals(lastModified, lastModified(files));
+        }
+
+        private static long[] lastModified(File... files) {
+            long[] times = new long[files.length];
+            for (int i = 0; i < files.length; i++) {
+                times[i] = files[i].lastModified();
+            }
+            return times;
+        }
+
+        private final File[] files;
+        private final long[] lastModified;
+        private final TestResultTable trt;
+        private final KflIndex index;
+        private final ConcurrentMap<String, KflSorter.TestCases> testCases;
+        private final KflSorter live;
+    }
+
+    private State state;
+
+    // the classifiers refer to the work directories, so are only weakly held
+    private static final Map<WorkDirectory, WeakReference<KflClassifier>> instances =
+            new WeakHashMap<>();
+}
@@ -0,0 +1,179 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.report;
+
+import com.sun.javatest.KnownFailuresList;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The entries of a known failures list, grouped by test, so that the
+ * comparison of results against the list need not search the entries of a
+ * test or split their test case lists more than once.
+ *
+ * @see KflSorter
+ */
+class KflIndex {
+    /**
+     * The entries of the list for a single test.
+     */
+    static final class Listing {
+        private Listing(KnownFailuresList.Entry... entries) {
+            this.entries = entries;
+
+            boolean anyTestCases = false;
+            Map<String, KnownFailuresList.Entry> map = new HashMap<>();
+            for (KnownFailuresList.Entry e : entries) {
+                String[] tcs = e.getTestCaseList();
+                if (tcs == null) {
+                    continue;
+                }
+                anyTestCases = true;
+                for (String tc : tcs) {
+                    // the first entry listing a test case is the one reported
+                    map.putIfAbsent(tc, e);
+                }
+            }
+            fullTestListed = !anyTestCases;
+            byTestCase = map.isEmpty() ? Collections.emptyMap() : map;
+        }
+
+        /**
+         * Get the entries for the test.
+         *
+         * @return the entries for the test, never empty
+         */
+        KnownFailuresList.Entry[] getEntries() {
+            return entries;
+        }
+
+        /**
+         * Is the entire test listed, rather than specific test cases?
+         *
+         * @return true if none of the entries for the test name test cases
+         */
+        boolean isFullTestListed() {
+            return fullTestListed;
+        }
+
+        /**
+         * Find the entry which lists a test case.
+         *
+         * @param tc the name of the test case
+         * @return the first entry listing the test case, or null if none
+         * @see KnownFailuresList#find(String, String)
+         */
+        KnownFailuresList.Entry find(String tc) {
+            return byTestCase.get(tc);
+        }
+
+        private final KnownFailuresList.Entry[] entries;
+        private final boolean fullTestListed;
+        private final Map<String, KnownFailuresList.Entry> byTestCase;
+    }
+
+    /**
+     * Create an index of a known failures list.
+     *
+     * @param kfl the list; may be null, in which case the index is empty
+     */
+    KflIndex(KnownFailuresList kfl) {
+        this.kfl = kfl;
+        if (kfl == null) {
+            return;
+        }
+
+        for (Iterator<KnownFailuresList.Entry> it = kfl.getIterator(false); it.hasNext(); ) {
+            String url = it.next().getRelativeURL();
+            String key = normalize(url);
+            if (!listings.containsKey(key)) {
+                listings.put(key, new Listing(kfl.find(url)));
+            }
+        }
+    }
+
+    /**
+     * Get the list which has been indexed.
+     *
+     * @return the list, or null if none
+     */
+    KnownFailuresList getKfl() {
+        return kfl;
+    }
+
+    /**
+     * Get the entries for a test.
+     *
+     * @param url the URL of the test
+     * @return the entries for the test, or null if it is not listed
+     * @see KnownFailuresList#find(String)
+     */
+    Listing find(String url) {
+        return listings.get(normalize(url));
+    }
+
+    /**
+     * Get the entries for all the tests on the list, in the order the list
+     * gives them.
+     *
+     * @return the entries for each test
+     */
+    Collection<Listing> getListings() {
+        return Collections.unmodifiableCollection(listings.values());
+    }
+
+    /**
+     * Get the form of a URL used to compare it with others, as for the keys
+     * of the known failures list itself.
+     */
+    private static String normalize(String url) {
+        char[] chars = null;
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            char n = Character.toLowerCase(c);
+            if (n == File.separatorChar) {
+                n = '/';
+            }
+            if (n != c) {
+                if (chars == null) {
+                    chars = url.toCharArray();
+                }
+                chars[i] = n;
+            }
+        }
+        return chars == null ? url : new String(chars);
+    }
+
+    private final KnownFailuresList kfl;
+    private final Map<String, Listing> listings = new LinkedHashMap<>();
+}
@@ -35,7 +35,6 @@ import com.sun.javatest.util.StringArray;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -43,6 +42,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -118,8 +118,11 @@ public class KflSorter {
     protected TestResultTable trt;
     protected int errorCount;
     protected int tcErrorCount;
-    private boolean enableTestCases;
+    private final boolean enableTestCases;
     private boolean processF2f, processF2e, processMissing = true;
+    private final KflIndex index;
+    private final Map<String, TestCases> testCases;
+
     /**
      * @param kfl       Effective known failures list to use - merge them in advance
      *                  if multiple KFLs are needed.
@@ -127,8 +130,23 @@ public class KflSorter {
      * @param testcases True if test case analysis should be attempted.
      */
     KflSorter(KnownFailuresList kfl, TestResultTable trt, boolean testcases) {
-        this.kfl = kfl;
+        this(new KflIndex(kfl), trt, testcases, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * @param index     Index of the effective known failures list.
+     * @param trt       Where to retrieve results from.
+     * @param testcases True if test case analysis should be attempted.
+     * @param testCases The test cases found in results so far, by test name;
+     *                  may be shared with other sorters.
+     * @see KflClassifier
+     */
+    KflSorter(KflIndex index, TestResultTable trt, boolean testcases,
+              Map<String, TestCases> testCases) {
+        this.index = index;
+        this.kfl = index.getKfl();
         this.trt = trt;
+        this.testCases = testCases;
         missing = new TreeSet<>();
         newFailures = new TreeSet<>();
         otherErrors = new TreeSet<>();
@@ -146,7 +164,23 @@ public class KflSorter {
         enableTestCases = testcases;
     }
 
-    private static Map<String, Status> getTestCases(TestResult tr) {
+    /**
+     * Get the test cases of a test.  The output of a result is only read
+     * once; the test cases found are kept until the test is run again.
+     *
+     * @param tr the result of the test
+     * @return the test cases reported by the test
+     */
+    TestCases getTestCases(TestResult tr) {
+        TestCases tcs = testCases.get(tr.getTestName());
+        if (tcs == null || tcs.tr != tr) {
+            tcs = new TestCases(tr, readTestCases(tr));
+            testCases.put(tr.getTestName(), tcs);
+        }
+        return tcs;
+    }
+
+    private static Map<String, Status> readTestCases(TestResult tr) {
         Map<String, Status> result = new LinkedHashMap<>();
 
         if (tr.isShrunk() && tr.isReloadable()) {
@@ -255,202 +289,234 @@ public class KflSorter {
      * @return Number of comparison problems encountered.
      */
     synchronized int run(List<TreeSet<TestResult>> tests) {
-        Iterator<KnownFailuresList.Entry> it = kfl.getIterator(false);
-        int probs = 0;
-        int tcprobs = 0;
-
-        // iterator KFL entries
-        for (; it.hasNext(); ) {
-            KnownFailuresList.Entry entry = it.next();
-            String url = entry.getRelativeURL();
-            TestResult tr = trt.lookup(TestResult.getWorkRelativePath(url));
-
-            if (tr == null) {
-                if (!processMissing) {
-                    continue;
-                }
+        // iterate KFL entries, what happened to the tests?
+        for (KflIndex.Listing listing : index.getListings()) {
+            for (KnownFailuresList.Entry entry : listing.getEntries()) {
+                String url = entry.getRelativeURL();
+                classifyListed(entry, listing, trt.lookup(TestResult.getWorkRelativePath(url)));
+            }
+        }
 
-                if (missing.add(new TestDiff(url, null, Transitions.FAIL2MISSING))) {
-                    probs++;
-                }
+        // iterate failures, are they on the KFL?
+        for (TestResult tr : tests.get(Status.FAILED)) {
+            classifyFailed(tr);
+        }
 
-                if (enableTestCases) {
-                    // add all test cases from this entry
-                    tcprobs += addAllTestCases(entry, url, null, Transitions.TC_FAIL2MISSING,
-                            tc_missing);
-                }
+        // iterate errors, are they on the KFL?
+        for (TestResult tr : tests.get(Status.ERROR)) {
+            classifyError(tr);
+        }
 
-                continue;
+        count();
+        return errorCount;
+    }
+
+    /**
+     * Classify a single result, replacing any earlier classification of the
+     * same test, as when the test has just been run again.  The result is
+     * taken to be both the result in the table for the test and one of the
+     * results being compared.
+     *
+     * @param tr the result of the test
+     * @see KflClassifier
+     */
+    void update(TestResult tr) {
+        String name = tr.getTestName();
+        KflIndex.Listing listing = index.find(name);
+        Status s = tr.getStatus();
+
+        // read the test cases before taking the lock, since other results
+        // may be being classified at the same time
+        if (enableTestCases && (listing != null || s.isFailed())) {
+            getTestCases(tr);
+        }
+
+        synchronized (this) {
+            forget(name);
+
+            if (listing != null) {
+                for (KnownFailuresList.Entry entry : listing.getEntries()) {
+                    forget(entry.getRelativeURL());
+                    classifyListed(entry, listing, tr);
+                }
             }
 
-            Map<String, Status> tcs = null;
-            if (enableTestCases) {
-                tcs = getTestCases(tr);
+            if (s.isFailed()) {
+                classifyFailed(tr);
+            } else if (s.isError()) {
+                classifyError(tr);
             }
 
-            if (tr.getStatus().isPassed()) {
-                // PASSED test on KFL
-                TestDiff diff = new TestDiff(url, tr, Transitions.FAIL2PASS);
-                if (fail2pass.add(diff)) {
-                    probs++;
-                }
+            count();
+        }
+    }
 
-                if (enableTestCases) {
-                    //tcprobs += addAllTestCases(entry, url, tr, Transitions.TC_FAIL2PASS,
-                    //        tc_fail2pass);
-                    tcprobs += addStatusTestCases(url, tr,
-                            Status.PASSED,
-                            Transitions.TC_FAIL2PASS, tcs,
-                            tc_fail2pass);
-                }
-            } else if (tr.getStatus().isError()) {
-                // ERROR test on KFL
-                if (!processF2e) {
-                    continue;
-                }
+    /**
+     * Classify the result of a test on the KFL.
+     *
+     * @param entry   the KFL entry
+     * @param listing all the KFL entries for the test
+     * @param tr      the result of the test, or null if there is none
+     */
+    private void classifyListed(KnownFailuresList.Entry entry,
+                                KflIndex.Listing listing, TestResult tr) {
+        String url = entry.getRelativeURL();
 
-                TestDiff diff = new TestDiff(url, tr, Transitions.FAIL2ERROR);
-                if (fail2error.add(diff)) {
-                    probs++;
-                }
+        if (tr == null) {
+            if (!processMissing) {
+                return;
+            }
 
-                if (enableTestCases) {
-                    // add all test cases from this entry
-                    tcprobs += addStatusTestCases(url, tr,
-                            Status.ERROR,
-                            Transitions.TC_FAIL2ERROR, tcs,
-                            tc_fail2error);
-                }
-            } else if (tr.getStatus().isNotRun()) {
-                // NOT RUN test on KFL
-                TestDiff diff = new TestDiff(url, tr, Transitions.FAIL2NOTRUN);
-                if (fail2notrun.add(diff)) {
-                    probs++;
-                }
+            missing.add(new TestDiff(url, null, Transitions.FAIL2MISSING));
 
-                if (enableTestCases) {
-                    // add all test cases from this entry
-                    tcprobs += addStatusTestCases(url, tr,
-                            Status.NOT_RUN,
-                            Transitions.TC_FAIL2NOTRUN, tcs,
-                            tc_fail2notrun);
-                }
-            } else if (enableTestCases && tr.getStatus().isFailed()) {
-                // FAILED test on KFL
+            if (enableTestCases) {
+                // add all test cases from this entry
+                addAllTestCases(entry, url, null, Transitions.TC_FAIL2MISSING,
+                        tc_missing);
+            }
+            return;
+        }
+
+        Status s = tr.getStatus();
+        if (s.isPassed()) {
+            // PASSED test on KFL
+            fail2pass.add(new TestDiff(url, tr, Transitions.FAIL2PASS));
 
-                // look for new test cases which might be passing
-                // easy to do here because we are iterating the KFL
-                //tcprobs += findChangedCases(tr, tcs, entry);
+            if (enableTestCases) {
+                addStatusTestCases(url, listing, tr, Status.PASSED,
+                        Transitions.TC_FAIL2PASS, tc_fail2pass);
+            }
+        } else if (s.isError()) {
+            // ERROR test on KFL
+            if (!processF2e) {
+                return;
             }
-        }   // for
 
-        // iterate failures, are they on the KFL?
-        for (TestResult tr : tests.get(Status.FAILED)) {
-            KnownFailuresList.Entry[] entries = kfl.find(tr.getTestName());
-
-            if (entries == null || entries.length == 0) {
-                // not on KFL
-                TestDiff diff = new TestDiff(tr.getTestName(), tr,
-                        Transitions.NEWFAILURES);
-                if (newFailures.add(diff)) {
-                    probs++;
-                }
-            } else {
-                if (!processF2f) {
-                    continue;
-                }
+            fail2error.add(new TestDiff(url, tr, Transitions.FAIL2ERROR));
 
-                TestDiff diff = new TestDiff(tr.getTestName(), tr,
-                        Transitions.FAIL2FAIL);
-                // does not count as a problem, so not added to probs
-                fail2fail.add(diff);
+            if (enableTestCases) {
+                addStatusTestCases(url, listing, tr, Status.ERROR,
+                        Transitions.TC_FAIL2ERROR, tc_fail2error);
             }
+        } else if (s.isNotRun()) {
+            // NOT RUN test on KFL
+            fail2notrun.add(new TestDiff(url, tr, Transitions.FAIL2NOTRUN));
 
-            // assumes that failed test cases can only exist in failed tests
             if (enableTestCases) {
-                // tcs is likely looked up twice for failed tests,
-                // optimize to store & lookup
-                Map<String, Status> tcs = getTestCases(tr);
-                if (tcs != null && !tcs.isEmpty()) {
-                    // only record test cases errors if test cases are listed
-                    // in the KFL
-
-                    KnownFailuresList.Entry[] full = kfl.find(tr.getTestName());
-                    // different behavior if entire test listed vs
-                    // specific test cases
-                    boolean fullTestListed = full != null && !hasTestCases(full);
-                    for (String name : tcs.keySet()) {
-                        KnownFailuresList.Entry e = kfl.find(tr.getTestName(), name);
-                        switch (tcs.get(name).getType()) {
-                            case Status.FAILED:
-                                // check that it is listed
-                                if (!fullTestListed && e == null) {
-                                    TestDiff td = new TestDiff(tr.getTestName(),
-                                            name, tr, Transitions.TC_NEWFAILURES);
-                                    if (tc_newFailures.add(td)) {
-                                        tcprobs++;
-                                    }
-
-                                    // could optimize slightly to avoid repeated
-                                    // adds if multiple test cases are new fails.
-                                    // ensures that a tc-only difference is also
-                                    // reported in the non-tc new failures list
-                                    TestDiff diff = new TestDiff(tr.getTestName(), tr,
-                                            Transitions.NEWFAILURES);
-                                    if (newFailures.add(diff)) {
-                                        probs++;
-                                    }
-                                }
-                                break;
-                            case Status.PASSED:
-                                if ((fullTestListed || e != null) &&
-                                        tc_fail2pass.add(new TestDiff(tr.getTestName(),
-                                                name, tr, Transitions.TC_FAIL2PASS))) {
-                                    tcprobs++;
-                                }
-                                break;
-                            case Status.ERROR:
-
-                                if ((fullTestListed || e != null) &&
-                                        tc_fail2error.add(new TestDiff(tr.getTestName(),
-                                                name, tr, Transitions.TC_FAIL2ERROR))) {
-                                    tcprobs++;
-                                }
-                                break;
-                            case Status.NOT_RUN:
-                                if ((fullTestListed || e != null) &&
-                                        tc_fail2notrun.add(new TestDiff(tr.getTestName(),
-                                                name, tr, Transitions.TC_FAIL2NOTRUN))) {
-                                    tcprobs++;
-                                }
-                                break;
-                            default:
-                                // oh well
-                                break;
-                        }   // switch
-                    }   // for
-                }
+                addStatusTestCases(url, listing, tr, Status.NOT_RUN,
+                        Transitions.TC_FAIL2NOTRUN, tc_fail2notrun);
             }
-        }   // for FAILED
+        }
+    }
 
-        // iterate errors, are they on the KFL?
-        for (TestResult tr : tests.get(Status.ERROR)) {
-            KnownFailuresList.Entry[] entries = kfl.find(tr.getTestName());
-
-            if (entries == null || entries.length == 0) {
-                // not on KFL
-                // test is an error, but unrelated to the items listed on the KFL
-                TestDiff diff = new TestDiff(tr.getTestName(), tr,
-                        Transitions.OTHER_ERRORS);
-                otherErrors.add(diff);
+    /**
+     * Classify the result of a failed test, which may or may not be on the KFL.
+     */
+    private void classifyFailed(TestResult tr) {
+        String name = tr.getTestName();
+        KflIndex.Listing listing = index.find(name);
+
+        if (listing == null) {
+            // not on KFL
+            newFailures.add(new TestDiff(name, tr, Transitions.NEWFAILURES));
+        } else {
+            if (!processF2f) {
+                return;
             }
 
-            // no test case processing for this section
-        }   // for ERROR
+            // does not count as a problem
+            fail2fail.add(new TestDiff(name, tr, Transitions.FAIL2FAIL));
+        }
 
-        errorCount = probs;
-        tcErrorCount = tcprobs;
-        return probs;
+        // assumes that failed test cases can only exist in failed tests
+        if (!enableTestCases) {
+            return;
+        }
+
+        // different behavior if entire test listed vs specific test cases
+        boolean fullTestListed = listing != null && listing.isFullTestListed();
+        TestCases tcs = getTestCases(tr);
+        for (int i = 0; i < tcs.names.length; i++) {
+            String tc = tcs.names[i];
+            boolean listed = fullTestListed || listing != null && listing.find(tc) != null;
+            switch (tcs.types[i]) {
+                case Status.FAILED:
+                    // check that it is listed
+                    if (!listed) {
+                        tc_newFailures.add(new TestDiff(name, tc, tr,
+                                Transitions.TC_NEWFAILURES));
+
+                        // ensures that a tc-only difference is also
+                        // reported in the non-tc new failures list
+                        newFailures.add(new TestDiff(name, tr,
+                                Transitions.NEWFAILURES));
+                    }
+                    break;
+                case Status.PASSED:
+                    if (listed) {
+                        tc_fail2pass.add(new TestDiff(name, tc, tr,
+                                Transitions.TC_FAIL2PASS));
+                    }
+                    break;
+                case Status.ERROR:
+                    if (listed) {
+                        tc_fail2error.add(new TestDiff(name, tc, tr,
+                                Transitions.TC_FAIL2ERROR));
+                    }
+                    break;
+                case Status.NOT_RUN:
+                    if (listed) {
+                        tc_fail2notrun.add(new TestDiff(name, tc, tr,
+                                Transitions.TC_FAIL2NOTRUN));
+                    }
+                    break;
+                default:
+                    // oh well
+                    break;
+            }   // switch
+        }   // for
+    }
+
+    /**
+     * Classify the result of a test with an error, which may or may not be
+     * on the KFL.
+     */
+    private void classifyError(TestResult tr) {
+        if (index.find(tr.getTestName()) == null) {
+            // not on KFL
+            // test is an error, but unrelated to the items listed on the KFL
+            otherErrors.add(new TestDiff(tr.getTestName(), tr,
+                    Transitions.OTHER_ERRORS));
+        }
+
+        // no test case processing for this section
+    }
+
+    /**
+     * Remove all the diffs for a test, and its test cases, from all sets.
+     */
+    private void forget(String url) {
+        TestDiff test = new TestDiff(url, null, null);
+        TestDiff firstCase = new TestDiff(url + "[", null, null);
+        TestDiff lastCase = new TestDiff(url + "[\uffff", null, null);
+        for (Transitions t : Transitions.values()) {
+            SortedSet<TestDiff> set = getSet(t);
+            if (set != null) {
+                set.remove(test);
+                set.subSet(firstCase, lastCase).clear();
+            }
+        }
+    }
+
+    /**
+     * Update the number of problems found, which is the number of diffs
+     * in the sets which indicate a change since the KFL was written.
+     */
+    private void count() {
+        errorCount = missing.size() + fail2pass.size() + fail2error.size()
+                + fail2notrun.size() + newFailures.size();
+        tcErrorCount = tc_missing.size() + tc_fail2pass.size() + tc_fail2error.size()
+                + tc_fail2notrun.size() + tc_newFailures.size();
     }
 
     /**
@@ -577,68 +643,41 @@ public class KflSorter {
      * Effectively - iterate test cases in result (tcs), if it is listed in the
      * KFL and matches the given status, add to the given set.
      *
-     * @param url  The KFL entry.
-     * @param tr    Test case results for the given test.
-     * @param status the status type to match
-     * @param set    the data set to add the selected test cases to
-     * @return the number of test cases which were added to the set
+     * @param url     The test URL, as given on the KFL.
+     * @param listing The KFL entries for the test.
+     * @param tr      The result of the test.
+     * @param status  the status type to match
+     * @param set     the data set to add the selected test cases to
      * @see com.sun.javatest.Status
      */
-    private int addStatusTestCases(
-            String url, TestResult tr, int status,
-            Transitions t, Map<String, Status> trtcs, Set<TestDiff> set) {
-        // could check enableTestCases flag before processing
-        int problems = 0;
-
-        if (trtcs == null || trtcs.isEmpty()) {
-            return 0;
-        } else {
-            for (String key : trtcs.keySet()) {
-                Status stat = trtcs.get(key);
-                KnownFailuresList.Entry e = kfl.find(url, key);
-                KnownFailuresList.Entry[] full = kfl.find(tr.getTestName());
-                // different behavior if entire test listed vs
-                // specific test cases
-                boolean fullTestListed = full != null && !hasTestCases(full);
-
-                // test case not listed in KFL
-                // no need to list a passing test case which wasn't
-                // listed as a failure in the KFL
-                // could be a new test case, etc.
-                if (!fullTestListed && e == null) {
-                    continue;
-                }
-
-                if (stat.getType() == status) {
-                    TestDiff diff = new TestDiff(url, key, tr, t);
-                    if (fullTestListed && full != null && full.length > 0) {
-                        diff.setKflEntry(full[0]);
-                    }
+    private void addStatusTestCases(
+            String url, KflIndex.Listing listing, TestResult tr, int status,
+            Transitions t, Set<TestDiff> set) {
+        // different behavior if entire test listed vs
+        // specific test cases
+        boolean fullTestListed = listing.isFullTestListed();
+        TestCases tcs = getTestCases(tr);
+
+        for (int i = 0; i < tcs.names.length; i++) {
+            // test case not listed in KFL
+            // no need to list a passing test case which wasn't
+            // listed as a failure in the KFL
+            // could be a new test case, etc.
+            if (!fullTestListed && listing.find(tcs.names[i]) == null) {
+                continue;
+            }
 
-                    if (set.add(diff)) {
-                        problems++;
-                    }
+            if (tcs.types[i] == status) {
+                TestDiff diff = new TestDiff(url, tcs.names[i], tr, t);
+                if (fullTestListed) {
+                    diff.setKflEntry(listing.getEntries()[0]);
                 }
-            }   // for
-        }
-
-        return problems;
-    }
-
-    private boolean hasTestCases(KnownFailuresList.Entry... es) {
-        if (es == null || es.length == 0) {
-            return false;
-        }
-
-        for (KnownFailuresList.Entry e : es) {
-            if (e.getTestCases() != null) {
-                return true;
+                set.add(diff);
             }
-        }
-
-        return false;
+        }   // for
     }
 
+
     synchronized SortedSet<TestDiff> getSet(Transitions id) {
         switch (id) {
             case FAIL2PASS:
@@ -683,6 +722,31 @@ public class KflSorter {
         OTHER_ERRORS, TC_FAIL2MISSING, TC_FAIL2PASS, TC_PASS2ERROR, TC_FAIL2NOTRUN, TC_FAIL2ERROR, TC_NEWFAILURES
     }
 
+    /**
+     * The results of the test cases of a test, as reported in its output,
+     * in the order they were first reported.
+     */
+    static final class TestCases {
+        TestCases(TestResult tr, Map<String, Status> tcs) {
+            this.tr = tr;
+            int n = tcs == null ? 0 : tcs.size();
+            names = new String[n];
+            types = new byte[n];
+            if (tcs != null) {
+                int i = 0;
+                for (Map.Entry<String, Status> e : tcs.entrySet()) {
+                    names[i] = e.getKey();
+                    types[i] = (byte) e.getValue().getType();
+                    i++;
+                }
+            }
+        }
+
+        private final TestResult tr;
+        private final String[] names;
+        private final byte[] types;
+    }
+
     /**
      * Created for each result which somehow does not match what was expected
      * based on the KFL. Using this class allows the analysis to be done once
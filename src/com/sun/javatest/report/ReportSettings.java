@@ -563,9 +563,17 @@ public class ReportSettings {
             return;
         }
         setupSortedResults();
-        KnownFailuresList kfl = getInterview().getKnownFailuresList();
         TestResultTable resultTable = getInterview().getWorkDirectory().getTestResultTable();
-        kflSorter = new KflSorter(kfl, resultTable, isKflTestCasesEnabled());
+        // use what was found while the tests were being run, if possible
+        KflClassifier c = KflClassifier.getInstance(getInterview().getWorkDirectory());
+        if (c != null) {
+            kflSorter = c.createSorter(getInterview().getKnownFailureFiles(),
+                    resultTable, isKflTestCasesEnabled());
+        }
+        if (kflSorter == null) {
+            KnownFailuresList kfl = getInterview().getKnownFailuresList();
+            kflSorter = new KflSorter(kfl, resultTable, isKflTestCasesEnabled());
+        }
         kflSorter.setF2eEnabled(isKflF2eEnabled());
         kflSorter.setF2fEnabled(isKflF2fEnabled());
         kflSorter.setMissingEnabled(isKflMissingEnabled());
@@ -31,14 +31,24 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Test utilities, helper methods.
  */
 public class TestUtil {
 
+    /**
+     * The root of the test suite of descriptions made by
+     * {@link #createTestDescription}; it does not exist.
+     */
+    public static final File NONEXISTENT_SUITE_ROOT = new File("/nonexistent/suite");
+
     public static String getPathToTestTestSuite(String... subComponents) {
         ArrayList<String> strings = new ArrayList<>();
         strings.add("suites");
@@ -65,6 +75,87 @@ public class TestUtil {
         return createTempDirectory(prefix).toAbsolutePath().toString();
     }
 
+    /**
+     * Copy one of the test suites used by the unit tests to a temporary
+     * directory, keeping the modification times of its files, so that the
+     * copy can be changed by a test.
+     *
+     * @param name the name of the test suite
+     * @return the canonical path of the copy
+     */
+    public static File copyTestSuite(String name) throws IOException {
+        Path from = Paths.get(getPathToTestTestSuite(name));
+        Path to = createTempDirectory(name + "-copy");
+        try (Stream<Path> paths = Files.walk(from)) {
+            for (Path p : (Iterable<Path>) paths::iterator) {
+                Path target = to.resolve(from.relativize(p).toString());
+                if (Files.isDirectory(p)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(p, target, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        }
+        return to.toFile().getCanonicalFile();
+    }
+
+    /**
+     * Create a work directory in a new temporary directory for one of the
+     * test suites used by the unit tests.
+     *
+     * @param suiteName the name of the test suite
+     * @param prefix    the prefix of the name of the temporary directory
+     * @return the work directory
+     */
+    public static WorkDirectory createWorkDirectory(String suiteName, String prefix) throws Exception {
+        return createWorkDirectory(new File(getPathToTestTestSuite(suiteName)), prefix);
+    }
+
+    /**
+     * Create a work directory in a new temporary directory for a test suite.
+     *
+     * @param suiteDir the root directory of the test suite
+     * @param prefix   the prefix of the name of the temporary directory
+     * @return the work directory
+     */
+    public static WorkDirectory createWorkDirectory(File suiteDir, String prefix) throws Exception {
+        return WorkDirectory.create(createTempDirectory(prefix).toFile(), TestSuite.open(suiteDir));
+    }
+
+    /**
+     * Create a description of a test in {@link #NONEXISTENT_SUITE_ROOT}.
+     *
+     * @param url    the URL of the test, which may end with "#" and the id
+     *               of the test, which then becomes its "id" parameter
+     * @param params more parameters of the test, or none
+     * @return the description
+     */
+    public static TestDescription createTestDescription(String url, String... params) {
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < params.length; i += 2) {
+            map.put(params[i], params[i + 1]);
+        }
+        int hash = url.indexOf('#');
+        if (hash != -1) {
+            map.put("id", url.substring(hash + 1));
+            url = url.substring(0, hash);
+        }
+        return new TestDescription(NONEXISTENT_SUITE_ROOT, new File(NONEXISTENT_SUITE_ROOT, url), map);
+    }
+
+    /**
+     * Create a result with the given status for a test in
+     * {@link #NONEXISTENT_SUITE_ROOT}.
+     *
+     * @param url    the URL of the test, as for {@link #createTestDescription}
+     * @param s      the status of the result
+     * @param params more parameters of the test, or none
+     * @return the result
+     */
+    public static TestResult createTestResult(String url, Status s, String... params) {
+        return new TestResult(createTestDescription(url, params), s);
+    }
+
     protected static Path getTmpPath() {
         return Paths.get(System.getProperty("build.tmp")).toAbsolutePath().normalize();
     }
@@ -0,0 +1,140 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reports how long ExcludeList takes to read four files of 50000 entries
+ * each, with one reader thread and with the default number, and how many
+ * lookups per second eight threads get from the merged list.  Running it
+ * against an older build gives a comparison.  It is not run with the unit
+ * tests; use {@code ant run-benchmark -Dbenchmark=<class name>}.
+ */
+public class ExcludeListBenchmark {
+    private static final int FILES = 4;
+    private static final int ENTRIES = 50000;
+    private static final int THREADS = 8;
+
+    public static void main(String... args) throws Exception {
+        File dir = Files.createTempDirectory("ExcludeListBenchmark").toFile();
+        File[] files = new File[FILES];
+        for (int i = 0; i < FILES; i++) {
+            ExcludeList el = new ExcludeList();
+            for (int j = 0; j < ENTRIES; j++) {
+                // every other test has a test case excluded
+                String tc = j % 2 == 0 ? null : "tc" + j;
+                el.addEntry(new ExcludeList.Entry(url(i, j), tc, new String[]{"1234567"},
+                        new String[]{"generic-all"}, "synopsis " + j));
+            }
+            files[i] = new File(dir, "f" + i + ExcludeList.EXCLUDEFILE_EXTN);
+            el.write(files[i]);
+        }
+
+        ExcludeList list = null;
+        for (int round = 0; round < 3; round++) {
+            long serial = load(files, "1");
+            long start = System.nanoTime();
+            list = new ExcludeList(files);
+            long parallel = (System.nanoTime() - start) / 1000000;
+            System.out.println("ExcludeList: read " + FILES + " x " + ENTRIES + " entries: one thread "
+                    + serial + "ms, default threads " + parallel + "ms");
+        }
+        if (list.size() != FILES * ENTRIES) {
+            throw new AssertionError("wrong number of entries: " + list.size());
+        }
+
+        for (int round = 0; round < 3; round++) {
+            System.out.println("ExcludeList: " + THREADS + " threads: " + lookups(list) / 1000 + "k lookups/s");
+        }
+
+        for (File f : files) {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    private static String url(int file, int entry) {
+        return "api/f" + file + "/dir" + entry % 100 + "/Test" + entry + ".html";
+    }
+
+    private static long load(File[] files, String threads) throws Exception {
+        String prev = System.getProperty("javatest.excludeList.threads");
+        System.setProperty("javatest.excludeList.threads", threads);
+        try {
+            long start = System.nanoTime();
+            new ExcludeList(files);
+            return (System.nanoTime() - start) / 1000000;
+        } finally {
+            if (prev == null) {
+                System.clearProperty("javatest.excludeList.threads");
+            } else {
+                System.setProperty("javatest.excludeList.threads", prev);
+            }
+        }
+    }
+
+    private static long lookups(ExcludeList list) throws InterruptedException {
+        TestDescription[] tds = new TestDescription[1000];
+        for (int i = 0; i < tds.length; i++) {
+            // mostly tests in the list, some not
+            tds[i] = TestUtil.createTestDescription(i % 10 == 0 ? "api/other/Test" + i + ".html"
+                    : url(i % FILES, i * 37 % ENTRIES));
+        }
+
+        AtomicLong count = new AtomicLong();
+        long end = System.nanoTime() + 1000000000L;
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                long n = 0;
+                int excluded = 0;
+                while (System.nanoTime() < end) {
+                    for (int i = 0; i < 100; i++) {
+                        TestDescription td = tds[(offset + i + (int) n) % tds.length];
+                        if (list.excludesAllOf(td) || list.getTestCases(td) != null) {
+                            excluded++;
+                        }
+                    }
+                    n += 100;
+                }
+                count.addAndGet(n);
+                if (excluded == 0) {
+                    throw new AssertionError("nothing excluded");
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        return count.get();
+    }
+}
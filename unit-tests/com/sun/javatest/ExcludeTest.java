@@ -31,6 +31,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -172,6 +173,73 @@ public class ExcludeTest {
         checkEntry(el.getEntry("a/b/c#group", "case(0-4;6;800)"), "BUG-456", "platform2", "description 2");
     }
 
+    @Test
+    public void lookupsFollowChanges() throws ExcludeList.Fault {
+        ExcludeList el = new ExcludeList();
+        TestDescription td = new TestDescription(new File("/suite"), new File("/suite/a/b/c.html"),
+                Collections.singletonMap("id", "d"));
+        Assert.assertFalse(el.excludesAnyOf(td));
+
+        ExcludeList.Entry f = ExcludeList.Entry.read("a/b/c.html#d[f]");
+        el.addEntry(f);
+        Assert.assertTrue(el.excludesAnyOf(td));
+        Assert.assertFalse(el.excludesAllOf(td));
+        Assert.assertArrayEquals(new String[]{"f"}, el.getTestCases(td));
+
+        el.addEntry(ExcludeList.Entry.read("A/B/C.html#d[g]"));
+        Assert.assertArrayEquals(new String[]{"f", "g"}, el.getTestCases(td));
+        el.getTestCases(td)[0] = "changed";
+        Assert.assertArrayEquals(new String[]{"f", "g"}, el.getTestCases(td));
+
+        el.removeEntry(f);
+        Assert.assertArrayEquals(new String[]{"g"}, el.getTestCases(td));
+
+        el.addEntry(ExcludeList.Entry.read("a/b/c.html#d"));
+        Assert.assertTrue(el.excludesAllOf("a/b/c.html#D"));
+        Assert.assertNull(el.getTestCases(td));
+    }
+
+    @Test
+    public void readingSeveralFiles() throws IOException, ExcludeList.Fault {
+        File[] files = {new File(data, "test1.jtx"), new File(data, "complex_testcase_names.jtx"),
+                new File(data, "test1.jtx")};
+        String prop = "javatest.excludeList.threads";
+        ExcludeList sequential;
+        System.setProperty(prop, "1");
+        try {
+            sequential = new ExcludeList(files);
+        } finally {
+            System.clearProperty(prop);
+        }
+
+        System.setProperty(prop, "3");
+        try {
+            ExcludeList parallel = new ExcludeList(files);
+            Assert.assertEquals(sequential.size(), parallel.size());
+            Assert.assertTrue(parallel.excludesAllOf("a/b/c"));
+            Assert.assertTrue(parallel.excludesAnyOf("a/b/c#group"));
+            Assert.assertEquals(entries(sequential), entries(parallel));
+
+            try {
+                new ExcludeList(new File(data, "test1.jtx"), new File(data, "missing.jtx"));
+                Assert.fail("missing file not reported");
+            } catch (FileNotFoundException e) {
+                // expected
+            }
+        } finally {
+            System.clearProperty(prop);
+        }
+    }
+
+    private static List<String> entries(ExcludeList el) {
+        List<String> entries = new ArrayList<>();
+        for (Iterator<?> it = el.getIterator(false); it.hasNext(); ) {
+            entries.add(it.next().toString());
+        }
+        Collections.sort(entries);
+        return entries;
+    }
+
     private void checkEntry(ExcludeList.Entry entry, String bugid, String platform, String synopsys) {
         Assert.assertArrayEquals(new String[]{bugid}, entry.getBugIdStrings());
         Assert.assertArrayEquals(new String[]{platform}, entry.getPlatforms());
@@ -0,0 +1,174 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FilterOrderTest {
+
+    private static final int TESTS = 3000;
+
+    @Test
+    public void cheapSelectiveFilterMovesFirst() {
+        NumberFilter slow = new NumberFilter(2, 20_000);
+        NumberFilter cheap = new NumberFilter(3, 0);
+        FilterOrder order = new FilterOrder(slow, cheap);
+        for (int n = 0; n < TESTS; n++) {
+            boolean timed = order.nextTest();
+            for (int i : order.getOrder()) {
+                NumberFilter f = i == 0 ? slow : cheap;
+                long start = timed ? System.nanoTime() : 0;
+                boolean accepted = f.accepts(n);
+                order.record(i, accepted, timed ? System.nanoTime() - start : -1);
+                if (!accepted) {
+                    break;
+                }
+            }
+        }
+        Assert.assertArrayEquals(new int[]{1, 0}, order.getOrder());
+        Assert.assertTrue(order.getCost(0) > order.getCost(1));
+        Assert.assertEquals(1.0 / 3, order.getRejectRate(1), 0.01);
+    }
+
+    @Test
+    public void iteratorReportsFirstRejectingFilter() throws Exception {
+        TestResultTable table = new TestResultTable();
+        for (int n = 0; n < TESTS; n++) {
+            table.update(result(n));
+        }
+
+        NumberFilter slow = new NumberFilter(2, 20_000);
+        NumberFilter cheap = new NumberFilter(3, 0);
+        TestResultTable.TreeIterator it = table.getIterator(slow, cheap);
+        int accepted = 0;
+        while (it.hasNext()) {
+            int n = number(it.next().getDescription());
+            Assert.assertTrue(n % 2 != 0 && n % 3 != 0);
+            accepted++;
+        }
+        Assert.assertEquals(TESTS / 3, accepted);
+        // the slow filter was not applied to all the tests the cheap one rejected
+        Assert.assertTrue(slow.calls < TESTS - TESTS / 6);
+
+        Map<TestFilter, ArrayList<TestDescription>> stats = it.getFilterStats();
+        Assert.assertEquals(TESTS / 2, stats.get(slow).size());
+        for (TestDescription td : stats.get(slow)) {
+            Assert.assertEquals(0, number(td) % 2);
+        }
+        Assert.assertEquals(TESTS / 6, stats.get(cheap).size());
+        for (TestDescription td : stats.get(cheap)) {
+            Assert.assertEquals(3, number(td) % 6);
+        }
+    }
+
+    @Test
+    public void compositeReportsFirstRejectingFilter() throws Exception {
+        NumberFilter slow = new NumberFilter(2, 20_000);
+        NumberFilter cheap = new NumberFilter(3, 0);
+        CompositeFilter cf = new CompositeFilter(slow, cheap);
+        List<TestDescription> tds = new ArrayList<>();
+        for (int n = 0; n < TESTS; n++) {
+            tds.add(result(n).getDescription());
+        }
+
+        for (TestDescription td : tds) {
+            int n = number(td);
+            Assert.assertEquals(n % 2 != 0 && n % 3 != 0, cf.accepts(td));
+        }
+        Assert.assertTrue(slow.calls < TESTS - TESTS / 6);
+
+        List<TestFilter> rejectors = new ArrayList<>();
+        for (TestDescription td : tds) {
+            rejectors.clear();
+            boolean ok = cf.accepts(td, (d, f) -> rejectors.add(f));
+            int n = number(td);
+            Assert.assertEquals(n % 2 != 0 && n % 3 != 0, ok);
+            if (!ok) {
+                Assert.assertEquals(1, rejectors.size());
+                Assert.assertSame(n % 2 == 0 ? slow : cheap, rejectors.get(0));
+            }
+        }
+    }
+
+    private static int number(TestDescription td) {
+        return Integer.parseInt(td.getId().substring(1));
+    }
+
+    private static TestResult result(int n) {
+        return TestUtil.createTestResult("a/" + n / 100 + "/x.html#t" + n, Status.notRun(""));
+    }
+
+    /**
+     * Rejects tests whose number is a multiple of a given value, taking
+     * the given time to do so.
+     */
+    private static class NumberFilter extends TestFilter {
+        private final int divisor;
+        private final long nanos;
+        int calls;
+
+        NumberFilter(int divisor, long nanos) {
+            this.divisor = divisor;
+            this.nanos = nanos;
+        }
+
+        boolean accepts(int n) {
+            calls++;
+            long end = System.nanoTime() + nanos;
+            while (nanos > 0 && System.nanoTime() < end) {
+                // spin
+            }
+            return n % divisor != 0;
+        }
+
+        @Override
+        public boolean accepts(TestDescription td) {
+            return accepts(number(td));
+        }
+
+        @Override
+        public String getName() {
+            return "multiples of " + divisor;
+        }
+
+        @Override
+        public String getDescription() {
+            return getName();
+        }
+
+        @Override
+        public String getReason() {
+            return getName();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FilterVerdictsTest {
+
+    @Test
+    public void verdictsAreUsedAgainInLaterSessions() throws Exception {
+        System.setProperty("javatest.trt.filterVerdicts", "true");
+        try {
+            verdictsAreUsedAgain();
+        } finally {
+            System.clearProperty("javatest.trt.filterVerdicts");
+        }
+    }
+
+    private static void verdictsAreUsedAgain() throws Exception {
+        WorkDirectory wd = createWorkDir();
+
+        CountingFilter first = new CountingFilter("odd");
+        List<String> expected = run(new TestResultTable(wd, wd.getTestSuite().getTestFinder()), first);
+        Assert.assertTrue(first.calls > 0);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertTrue(wd.getSystemFile(FilterVerdicts.FILE_NAME).exists());
+
+        CountingFilter second = new CountingFilter("odd");
+        List<String> actual = run(new TestResultTable(wd, wd.getTestSuite().getTestFinder()), second);
+        Assert.assertEquals(0, second.calls);
+        Assert.assertEquals(expected, actual);
+
+        // a filter with a different configuration has verdicts of its own
+        CountingFilter third = new CountingFilter("even");
+        run(new TestResultTable(wd, wd.getTestSuite().getTestFinder()), third);
+        Assert.assertEquals(first.calls, third.calls);
+    }
+
+    @Test
+    public void changedTestIsCheckedAgain() throws Exception {
+        WorkDirectory wd = createWorkDir();
+        TestDescription td = createTest("a/b.html", "id", "x", "keywords", "k1");
+        TestDescription same = createTest("a/b.html", "id", "x", "keywords", "k1");
+        TestDescription changed = createTest("a/b.html", "id", "x", "keywords", "k2");
+        Assert.assertEquals(td.getChecksum(), same.getChecksum());
+        Assert.assertNotEquals(td.getChecksum(), changed.getChecksum());
+
+        FilterVerdicts v = FilterVerdicts.open(wd);
+        FilterVerdicts.Slot slot = v.getSlot(new CountingFilter("key"));
+        slot.put(v.idOf(td), false);
+        v.save();
+
+        v = FilterVerdicts.open(wd);
+        slot = v.getSlot(new CountingFilter("key"));
+        Assert.assertEquals(0, slot.get(v.idOf(same)));
+        Assert.assertEquals(-1, slot.get(v.idOf(changed)));
+
+        Assert.assertNull(v.getSlot(new AllTestsFilter()));
+    }
+
+    @Test
+    public void verdictsAreOffByDefault() throws Exception {
+        WorkDirectory wd = createWorkDir();
+        CountingFilter f = new CountingFilter("odd");
+        run(new TestResultTable(wd, wd.getTestSuite().getTestFinder()), f);
+        Assert.assertTrue(f.calls > 0);
+        Assert.assertFalse(wd.getSystemFile(FilterVerdicts.FILE_NAME).exists());
+    }
+
+    @Test
+    public void idIsKeptByTestResult() throws Exception {
+        WorkDirectory wd = createWorkDir();
+        TestDescription td = createTest("a/b.html", "id", "x", "keywords", "k1");
+        TestResult tr = new TestResult(td);
+
+        FilterVerdicts v = FilterVerdicts.open(wd);
+        int id = v.idOf(tr, td);
+        Assert.assertEquals(id, v.idOf(td));
+        Assert.assertEquals(id, v.idOf(tr, td));
+        Assert.assertEquals(id + 1, v.idOf(createTest("a/c.html", "id", "y")));
+
+        // another set of verdicts gives the test an id of its own
+        FilterVerdicts other = FilterVerdicts.open(createWorkDir());
+        Assert.assertEquals(0, other.idOf(tr, td));
+        Assert.assertEquals(id, v.idOf(tr, td));
+    }
+
+    @Test
+    public void cacheKeysFollowConfiguration() throws Exception {
+        ExcludeList el = new ExcludeList();
+        ExcludeListFilter elf = new ExcludeListFilter(el);
+        String empty = elf.getCacheKey();
+        el.addEntry(new ExcludeList.Entry("a/b.html", "tc", new String[]{"1"}, new String[]{"generic"}, "s"));
+        // excluding a test case does not change any verdict
+        Assert.assertEquals(empty, elf.getCacheKey());
+        el.addEntry(new ExcludeList.Entry("a/c.html", null, new String[]{"2"}, new String[]{"generic"}, "s"));
+        Assert.assertNotEquals(empty, elf.getCacheKey());
+
+        Assert.assertEquals(new InitialUrlFilter("a", "B/c").getCacheKey(),
+                new InitialUrlFilter("b/C", "a").getCacheKey());
+        Assert.assertNotEquals(new InitialUrlFilter("a").getCacheKey(),
+                new InitialUrlFilter("a/b").getCacheKey());
+
+        TestFilter k1 = new KeywordsFilter(Keywords.create(Keywords.EXPR, "a & !b"));
+        TestFilter k2 = new KeywordsFilter(Keywords.create(Keywords.EXPR, "a | !b"));
+        Assert.assertNotNull(k1.getCacheKey());
+        Assert.assertNotEquals(k1.getCacheKey(), k2.getCacheKey());
+
+        Assert.assertEquals(new CompositeFilter(k1, elf).getCacheKey(),
+                new CompositeFilter(elf, k1).getCacheKey());
+        Assert.assertNull(new CompositeFilter(k1, new AllTestsFilter()).getCacheKey());
+    }
+
+    private static List<String> run(TestResultTable trt, TestFilter f) {
+        trt.getRoot().getChildStatus();     // forces the whole tree to be read
+        List<String> urls = new ArrayList<>();
+        for (Iterator<TestResult> it = trt.getIterator(f); it.hasNext(); ) {
+            urls.add(it.next().getTestName());
+        }
+        trt.dispose();
+        return urls;
+    }
+
+    private static WorkDirectory createWorkDir() throws Exception {
+        return TestUtil.createWorkDirectory("demotck", "FilterVerdictsTest-workdir");
+    }
+
+    private static TestDescription createTest(String path, String... params) {
+        Map<String, String> m = new HashMap<>();
+        for (int i = 0; i < params.length; i += 2) {
+            m.put(params[i], params[i + 1]);
+        }
+        return new TestDescription(new File("/root"), new File("/root/" + path), m);
+    }
+
+    /**
+     * Accepts every other test it is asked about, and counts the calls.
+     */
+    private static class CountingFilter extends TestFilter {
+        private final String key;
+        int calls;
+
+        CountingFilter(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getName() {
+            return "counting";
+        }
+
+        @Override
+        public String getDescription() {
+            return "counting";
+        }
+
+        @Override
+        public String getReason() {
+            return "counting";
+        }
+
+        @Override
+        public boolean accepts(TestDescription td) {
+            return calls++ % 2 == 0;
+        }
+
+        @Override
+        public String getCacheKey() {
+            return key;
+        }
+    }
+}
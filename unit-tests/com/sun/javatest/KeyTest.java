@@ -41,6 +41,45 @@ public class KeyTest {
         Assert.assertTrue(ok);
     }
 
+    @Test
+    public void beyondKeywordSetLimits() throws Keywords.Fault {
+        // more distinct keyword lists than KeywordSet caches
+        List<TestDescription> tests = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            for (int j = i + 1; j < 100; j++) {
+                tests.add(TestUtil.createTestDescription("v.html",
+                        "keywords", "v" + i + " v" + j + " w" + (i + j) % 4));
+            }
+        }
+        // and more distinct keywords than it gives ids to
+        for (int i = 0; i < 4200; i++) {
+            tests.add(TestUtil.createTestDescription("u.html",
+                    "keywords", "u" + i + " w" + i % 4 + (i % 3 == 0 ? " w3" : "")));
+        }
+
+        checkAll(Keywords.create("any of", "w1 w2"), tests);
+        checkAll(Keywords.create("all of", "w1 w3"), tests);
+        checkAll(Keywords.create("expr", "w1 & !w2 | w3"), tests);
+        Assert.assertEquals(-1, KeywordSet.idOf("u4199"));
+
+        // filters which use keywords without ids
+        checkAll(Keywords.create("any of", "u4199 w2"), tests);
+        checkAll(Keywords.create("all of", "w3 u4199"), tests);
+        checkAll(Keywords.create("expr", "u4199 | w1 & !w3"), tests);
+    }
+
+    private static void checkAll(Keywords k, List<TestDescription> tests) {
+        int accepted = 0;
+        for (TestDescription td : tests) {
+            boolean expected = k.accepts(td.getKeywordTable());
+            Assert.assertEquals(k + ": " + td.getParameter("keywords"), expected, k.accepts(td));
+            if (expected) {
+                accepted++;
+            }
+        }
+        Assert.assertTrue(k.toString(), accepted > 0 && accepted < tests.size());
+    }
+
     public boolean run(PrintStream out) {
         this.out = out;
 
@@ -117,6 +156,21 @@ public class KeyTest {
                         t.contains("c"));
             }
 
+            // deeper than the compiled form supports
+            StringBuilder deep = new StringBuilder("a");
+            for (int i = 0; i < 70; i++) {
+                deep.insert(0, "(b | ").append(")");
+            }
+            k = Keywords.create("expr", deep.toString());
+            for (HashSet<String> t : tables) {
+                check(k, t, t.contains("a") || t.contains("b"));
+            }
+
+            k = Keywords.create("expr", "!unknown & !(TYPE2 | Type3)");
+            for (HashSet<String> t : tables) {
+                check(k, t, !(t.contains("type2") || t.contains("type3")));
+            }
+
             return ok;
         } catch (Keywords.Fault e) {
             out.println(e.toString());
@@ -126,7 +180,16 @@ public class KeyTest {
 
     private void check(Keywords k, Set<String> s, boolean expected) {
         boolean actual = k.accepts(s);
-        if (actual != expected) {
+
+        // the same keywords on a test description, in mixed case
+        StringBuilder sb = new StringBuilder();
+        for (String value : s) {
+            sb.append(sb.length() % 2 == 0 ? value.toUpperCase() : value).append(' ');
+        }
+        TestDescription td = TestUtil.createTestDescription("test.html", "keywords", sb.toString());
+        boolean actualForTest = k.accepts(td);
+
+        if (actual != expected || actualForTest != expected) {
             out.println("mismatch");
             out.println("Keywords: " + k);
             out.print("Table: ");
@@ -0,0 +1,86 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+/**
+ * Reports how long keywords filters take to check 1000000 test descriptions
+ * which use 40 distinct keyword lists, matching against the shared bit sets
+ * and against {@link TestDescription#getKeywordTable}, as filters did before.
+ * It is not run with the unit tests; use
+ * {@code ant run-benchmark -Dbenchmark=<class name>}.
+ */
+public class KeywordsBenchmark {
+    private static final int TESTS = 1000000;
+
+    public static void main(String... args) throws Keywords.Fault {
+        String[] words = {"compile", "runtime", "interactive", "positive", "negative", "a", "b"};
+        String[] lists = new String[40];
+        for (int i = 0; i < lists.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int w = 0; w < words.length; w++) {
+                if ((i * 7 + 3 >> w & 1) != 0) {
+                    sb.append(sb.length() == 0 ? "" : " ").append(words[w]);
+                }
+            }
+            lists[i] = sb.append(" type").append(i % 5).toString();
+        }
+        TestDescription[] tests = new TestDescription[TESTS];
+        for (int i = 0; i < tests.length; i++) {
+            tests[i] = TestUtil.createTestDescription("t" + i + ".html", "keywords", lists[i % lists.length]);
+        }
+
+        Keywords[] filters = {
+                Keywords.create("expr", "(compile | runtime) & !interactive & !(a & b)"),
+                Keywords.create("all of", "compile positive"),
+                Keywords.create("any of", "interactive b")
+        };
+        for (int round = 0; round < 3; round++) {
+            for (Keywords k : filters) {
+                long start = System.nanoTime();
+                int bits = 0;
+                for (TestDescription td : tests) {
+                    if (k.accepts(td)) {
+                        bits++;
+                    }
+                }
+                long mid = System.nanoTime();
+                int table = 0;
+                for (TestDescription td : tests) {
+                    if (k.accepts(td.getKeywordTable())) {
+                        table++;
+                    }
+                }
+                long end = System.nanoTime();
+                if (bits != table) {
+                    throw new AssertionError(k + ": " + bits + " != " + table);
+                }
+                System.out.println("Keywords " + k + ": " + bits + " accepted; bit sets "
+                        + (mid - start) / 1000000 + "ms, keyword tables " + (end - mid) / 1000000 + "ms");
+            }
+        }
+    }
+}
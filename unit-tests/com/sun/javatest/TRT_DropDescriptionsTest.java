@@ -0,0 +1,87 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TRT_DropDescriptionsTest {
+
+    @Test
+    public void descriptionsAreReadAgainWhenNeeded() throws Exception {
+        Map<String, TestDescription> expected = new HashMap<>();
+        TestResultTable plain = newTable();
+        plain.getRoot().getChildStatus();
+        for (Iterator<TestResult> it = plain.getIterator(); it.hasNext(); ) {
+            TestResult tr = it.next();
+            expected.put(tr.getTestName(), tr.getDescription());
+        }
+        plain.dispose();
+        Assert.assertFalse(expected.isEmpty());
+
+        TestResultTable table;
+        System.setProperty("javatest.trt.dropDescriptions", "true");
+        try {
+            table = newTable();
+        } finally {
+            System.clearProperty("javatest.trt.dropDescriptions");
+        }
+        table.getRoot().getChildStatus();
+        Assert.assertEquals(expected.size(), table.getRoot().getSize());
+
+        // the tests are indexed before their descriptions are dropped
+        String keyword = expected.values().iterator().next()
+                .getParameter("keywords").split(" ")[0];
+        int withKeyword = 0;
+        for (TestDescription td : expected.values()) {
+            if ((" " + td.getParameter("keywords") + " ").contains(" " + keyword + " ")) {
+                withKeyword++;
+            }
+        }
+        Assert.assertEquals(withKeyword, table.query().keywords(keyword).count());
+
+        for (Iterator<TestResult> it = table.getIterator(); it.hasNext(); ) {
+            Assert.assertNull(it.next().peekDescription());
+        }
+
+        for (Iterator<TestResult> it = table.getIterator(); it.hasNext(); ) {
+            TestResult tr = it.next();
+            Assert.assertEquals(expected.get(tr.getTestName()), tr.getDescription());
+            Assert.assertNotNull(tr.peekDescription());
+        }
+        table.dispose();
+    }
+
+    private static TestResultTable newTable() throws Exception {
+        WorkDirectory wd = TestUtil.createWorkDirectory("demotck", "TRT_DropDescriptionsTest");
+        return new TestResultTable(wd, wd.getTestSuite().getTestFinder());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TRT_IndexTest {
+
+    @Test
+    public void queriesFollowUpdates() {
+        TestResultTable table = new TestResultTable();
+        table.update(TestUtil.createTestResult("a/b/x.html#t1", Status.passed("ok"), "keywords", "api fast"));
+        table.update(TestUtil.createTestResult("a/b/x.html#t2", Status.failed("bad"), "keywords", "api"));
+        table.update(TestUtil.createTestResult("a/c/y.html#t1", Status.failed("bad"), "keywords", "API slow"));
+        table.update(TestUtil.createTestResult("ab/z.html", Status.notRun(""), "keywords", "slow"));
+
+        Assert.assertEquals(4, table.query().count());
+        Assert.assertEquals(urls("a/b/x.html#t2", "a/c/y.html#t1"),
+                urls(table.query().status(Status.FAILED).list()));
+        Assert.assertEquals(urls("a/c/y.html#t1"),
+                urls(table.query().status(Status.FAILED).keywords("slow").list()));
+        Assert.assertEquals(urls("a/b/x.html#t2"),
+                urls(table.query().status(Status.FAILED).under("a/b").list()));
+        Assert.assertEquals(3, table.query().under("a").count());
+        Assert.assertEquals(0, table.query().keywords("missing").count());
+        Assert.assertEquals(3, table.query().endedSince(0).count());
+
+        // a replaced result moves between the indexes
+        table.update(TestUtil.createTestResult("a/b/x.html#t2", Status.passed("fixed"), "keywords", "api"));
+        Assert.assertEquals(urls("a/c/y.html#t1"),
+                urls(table.query().status(Status.FAILED).list()));
+        Assert.assertEquals(urls("a/b/x.html#t1", "a/b/x.html#t2"),
+                urls(table.query().status(Status.PASSED).keywords("API").list()));
+
+        // removing a branch removes its tests
+        TRT_TreeNode b = (TRT_TreeNode) TestResultTable.findNode(table.getRoot(), "a/b");
+        ((TRT_TreeNode) b.getParent()).rmChild(b);
+        Assert.assertEquals(0, table.query().status(Status.PASSED).count());
+        Assert.assertEquals(2, table.query().count());
+    }
+
+    private static Set<String> urls(String... urls) {
+        Set<String> s = new TreeSet<>();
+        for (String u : urls) {
+            s.add(u);
+        }
+        return s;
+    }
+
+    private static Set<String> urls(List<TestResult> results) {
+        Set<String> s = new TreeSet<>();
+        for (TestResult tr : results) {
+            s.add(tr.getTestName());
+        }
+        return s;
+    }
+}
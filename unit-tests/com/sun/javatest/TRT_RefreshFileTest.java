@@ -0,0 +1,118 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TRT_RefreshFileTest {
+
+    @Test
+    public void changedFilesAreReadAgain() throws Exception {
+        File suiteDir = TestUtil.copyTestSuite("demotck");
+        WorkDirectory wd = TestUtil.createWorkDirectory(suiteDir, "TRT_RefreshFileTest-workdir");
+        TestResultTable trt = wd.getTestResultTable();
+        trt.getRoot().getChildStatus();     // forces the whole tree to be read
+
+        List<String> comp = testsIn(trt, "comp/");
+        List<String> exec = testsIn(trt, "exec/");
+        Assert.assertFalse(comp.isEmpty());
+        Assert.assertFalse(exec.isEmpty());
+
+        // edited in place: the folder itself is not modified
+        File index = new File(suiteDir, "comp/index.html");
+        String text = new String(Files.readAllBytes(index.toPath()), StandardCharsets.UTF_8);
+        Assert.assertTrue(text.contains("compile positive ShouldPass"));
+        write(index, text.replaceFirst("compile positive ShouldPass", "compile positive ShouldPass edited"));
+
+        TestResult[] trs = trt.refreshFile("comp/index.html");
+        Assert.assertEquals(comp.size(), trs.length);
+        Assert.assertEquals(comp, testsIn(trt, "comp/"));
+        Assert.assertEquals("compile edited positive shouldpass",
+                trt.lookup(TestResult.getWorkRelativePath("comp/index.html#CompSucc"))
+                        .getDescription().getParameter("keywords"));
+
+        // a new file: the tests in the other files of the folder remain
+        File extra = new File(suiteDir, "exec/extra.html");
+        write(extra, "<html><body>\n"
+                + "<a name=Extra>This test</a>\n"
+                + "<table class=TestDescription>\n"
+                + "<tr><td>title</td><td>Extra test</td></tr>\n"
+                + "<tr><td>source</td><td>ExecSucc.java</td></tr>\n"
+                + "<tr><td>keywords</td><td>runtime positive</td></tr>\n"
+                + "</table>\n"
+                + "</body></html>\n");
+        touch(extra.getParentFile());
+
+        trs = trt.refreshFile("exec/extra.html");
+        Assert.assertEquals(1, trs.length);
+        Assert.assertEquals("exec/extra.html#Extra", trs[0].getTestName());
+        List<String> expected = new ArrayList<>(exec);
+        expected.add("exec/extra.html#Extra");
+        Assert.assertEquals(expected.size(), testsIn(trt, "exec/").size());
+        Assert.assertTrue(testsIn(trt, "exec/").containsAll(expected));
+
+        // a removed file
+        Assert.assertTrue(index.delete());
+        touch(index.getParentFile());
+        trs = trt.refreshFile("comp/index.html");
+        Assert.assertEquals(0, trs.length);
+        Assert.assertTrue(testsIn(trt, "comp/").isEmpty());
+        Assert.assertEquals(expected.size(), testsIn(trt, "exec/").size());
+
+        trt.dispose();
+    }
+
+    private static List<String> testsIn(TestResultTable trt, String prefix) {
+        List<String> urls = new ArrayList<>();
+        for (Iterator<TestResult> it = trt.getIterator(); it.hasNext(); ) {
+            String name = it.next().getTestName();
+            if (name.startsWith(prefix)) {
+                urls.add(name);
+            }
+        }
+        return urls;
+    }
+
+    private static void write(File f, String text) throws IOException {
+        Files.write(f.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        touch(f);
+    }
+
+    // make sure the change is seen, whatever the resolution of the file times
+    private static void touch(File f) {
+        Assert.assertTrue(f.setLastModified(f.lastModified() + 10_000));
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+@SuppressWarnings("deprecation")
+public class TRT_SnapshotTest {
+
+    @Test
+    public void unchangedSuiteIsNotReadAgain() throws Exception {
+        File suiteDir = TestUtil.copyTestSuite("demotck");
+        WorkDirectory wd = TestUtil.createWorkDirectory(suiteDir, "TRT_SnapshotTest-workdir");
+        TestSuite ts = wd.getTestSuite();
+
+        CountingFinder first = new CountingFinder(ts.getTestFinder());
+        List<String> expected = populate(new TestResultTable(wd, first));
+        Assert.assertTrue(first.reads > 0);
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertNotNull(TRT_Snapshot.latest(wd.getSystemFile("")));
+
+        CountingFinder second = new CountingFinder(ts.getTestFinder());
+        List<String> actual = populate(new TestResultTable(wd, second));
+        Assert.assertEquals(0, second.reads);
+        Assert.assertEquals(expected, actual);
+
+        // a changed file is given to the finder again, nothing else is
+        File changed = new File(suiteDir, "comp/index.html");
+        Assert.assertTrue(changed.exists());
+        Assert.assertTrue(changed.setLastModified(changed.lastModified() + 10_000));
+
+        CountingFinder third = new CountingFinder(ts.getTestFinder());
+        actual = populate(new TestResultTable(wd, third));
+        Assert.assertEquals(1, third.reads);
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void recordsForDeletedFilesAreDropped() throws Exception {
+        File suiteDir = TestUtil.copyTestSuite("demotck");
+        WorkDirectory wd = TestUtil.createWorkDirectory(suiteDir, "TRT_SnapshotTest-workdir");
+        TestSuite ts = wd.getTestSuite();
+
+        CountingFinder first = new CountingFinder(ts.getTestFinder());
+        populate(new TestResultTable(wd, first));
+        File deleted = find(first.files, "exec");
+        File changed = find(first.files, "comp");
+        File unchanged = find(first.files, null);
+        long deletedTime = first.lastModified(deleted);
+        long unchangedTime = first.lastModified(unchanged);
+
+        Assert.assertTrue(new File(suiteDir, "exec/index.html").delete());
+        File f = new File(suiteDir, "comp/index.html");
+        Assert.assertTrue(f.setLastModified(f.lastModified() + 10_000));
+        CountingFinder second = new CountingFinder(ts.getTestFinder());
+        populate(new TestResultTable(wd, second));
+        Assert.assertFalse(second.files.contains(unchanged));
+
+        TRT_Snapshot s = TRT_Snapshot.open(wd, second);
+        Assert.assertNull(s.get(second, deleted, deletedTime));
+        Assert.assertNotNull(s.get(second, changed, second.lastModified(changed)));
+        Assert.assertNotNull(s.get(second, unchanged, unchangedTime));
+    }
+
+    @Test
+    public void finderWithoutKeyIsAlwaysRead() throws Exception {
+        File suiteDir = TestUtil.copyTestSuite("demotck");
+        WorkDirectory wd = TestUtil.createWorkDirectory(suiteDir, "TRT_SnapshotTest-workdir");
+        TestSuite ts = wd.getTestSuite();
+
+        CountingFinder first = new CountingFinder(ts.getTestFinder());
+        first.key = null;
+        List<String> expected = populate(new TestResultTable(wd, first));
+        Assert.assertNull(TRT_Snapshot.latest(wd.getSystemFile("")));
+
+        CountingFinder second = new CountingFinder(ts.getTestFinder());
+        second.key = null;
+        Assert.assertEquals(expected, populate(new TestResultTable(wd, second)));
+        Assert.assertEquals(first.reads, second.reads);
+    }
+
+    // the file the finder was given for the index of a directory, or for the suite
+    private static File find(List<File> files, String dir) {
+        for (File f : files) {
+            File parent = new File(f.getPath()).getParentFile();
+            String name = parent == null ? null : parent.getName();
+            if (dir == null ? f.getName().equals("testsuite.html") : dir.equals(name)) {
+                return f;
+            }
+        }
+        throw new AssertionError(dir + " not in " + files);
+    }
+
+    private static List<String> populate(TestResultTable trt) throws TestResult.Fault {
+        trt.getRoot().getChildStatus();     // forces the whole tree to be read
+        List<String> urls = new ArrayList<>();
+        for (Iterator<TestResult> it = trt.getIterator(); it.hasNext(); ) {
+            TestResult tr = it.next();
+            urls.add(tr.getTestName() + " " + tr.getDescription().getParameter("keywords"));
+        }
+        trt.dispose();
+        return urls;
+    }
+
+    private static class CountingFinder extends TestFinder {
+        private final TestFinder delegate;
+        final List<File> files = new ArrayList<>();
+        int reads;
+        String key;
+
+        CountingFinder(TestFinder delegate) {
+            this.delegate = delegate;
+            key = delegate.getSnapshotKey();
+        }
+
+        @Override
+        public String getSnapshotKey() {
+            return key;
+        }
+
+        @Override
+        public File getRoot() {
+            return delegate.getRoot();
+        }
+
+        @Override
+        public File getRootDir() {
+            return delegate.getRootDir();
+        }
+
+        @Override
+        public void read(File file) {
+            reads++;
+            files.add(file);
+            delegate.read(file);
+        }
+
+        @Override
+        public TestDescription[] getTests() {
+            return delegate.getTests();
+        }
+
+        @Override
+        public File[] getFiles() {
+            return delegate.getFiles();
+        }
+
+        @Override
+        public long lastModified(File f) {
+            return delegate.lastModified(f);
+        }
+
+        @Override
+        public int getErrorCount() {
+            return delegate.getErrorCount();
+        }
+
+        @Override
+        protected void scan(File file) {
+            throw new Error("should not be called!");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TRT_SpliteratorTest {
+
+    @Test
+    public void streamMatchesIterator() {
+        TestResultTable table = new TestResultTable();
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < 25; j++) {
+                Status s = (i + j) % 3 == 0 ? Status.failed("bad") : Status.passed("ok");
+                table.update(TestUtil.createTestResult("d" + i + "/sub" + (j % 4) + "/t" + j + ".html", s));
+            }
+        }
+        table.update(TestUtil.createTestResult("top.html", Status.passed("ok")));
+
+        List<String> expected = names(table.getIterator());
+        Assert.assertEquals(501, expected.size());
+        Assert.assertEquals(expected, names(table.stream()));
+        Assert.assertEquals(expected, names(table.parallelStream()));
+
+        TestFilter failedOnly = new StatusFilter(new boolean[]{false, true, false, false}, table);
+        List<String> expectedFailed = names(table.getIterator(failedOnly));
+        Assert.assertFalse(expectedFailed.isEmpty());
+        Assert.assertEquals(expectedFailed, names(table.parallelStream(failedOnly)));
+
+        TestResultTable.TreeNode d3 = TestResultTable.findNode(table.getRoot(), "d3");
+        Assert.assertEquals(names(TestResultTable.getIterator(d3)),
+                names(TestResultTable.stream(d3, true)));
+    }
+
+    @Test
+    public void parallelStreamReadsSuite() throws Exception {
+        WorkDirectory wd = TestUtil.createWorkDirectory("demotck", "TRT_SpliteratorTest-workdir");
+
+        List<String> expected = names(new TestResultTable(wd).getIterator());
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(expected, names(new TestResultTable(wd).parallelStream()));
+    }
+
+    private static List<String> names(Iterator<TestResult> it) {
+        List<String> v = new ArrayList<>();
+        while (it.hasNext()) {
+            v.add(it.next().getTestName());
+        }
+        return v;
+    }
+
+    private static List<String> names(Stream<TestResult> s) {
+        return s.map(TestResult::getTestName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+/**
+ * Reports how long TRT_TreeNode takes to build wide and deep synthetic trees.
+ * Running it against an older build gives a comparison.  It is not run with
+ * the unit tests; use {@code ant run-benchmark -Dbenchmark=<class name>}.
+ */
+public class TRT_TreeNodeBenchmark {
+    public static void main(String... args) {
+        for (int round = 0; round < 3; round++) {
+            long wide = time(1, 20000);
+            long deep = time(100, 200);
+            System.out.println("TRT_TreeNode: 20000 tests in one node: " + wide +
+                    "ms; 200 tests in each of 100 nested nodes: " + deep + "ms");
+        }
+    }
+
+    private static long time(int dirs, int testsPerDir) {
+        long start = System.nanoTime();
+        TestResultTable table = new TestResultTable();
+        StringBuilder dir = new StringBuilder("bench/");
+        for (int d = 0; d < dirs; d++) {
+            dir.append(d).append('/');
+            for (int t = 0; t < testsPerDir; t++) {
+                table.update(TestUtil.createTestResult(dir + "t" + t + ".html", Status.passed("ok")));
+            }
+        }
+        if (table.getCurrentStatusCounts()[Status.PASSED] != dirs * testsPerDir) {
+            throw new AssertionError("wrong number of tests");
+        }
+        return (System.nanoTime() - start) / 1000000;
+    }
+}
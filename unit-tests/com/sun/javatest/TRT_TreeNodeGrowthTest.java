@@ -0,0 +1,117 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the child storage of TRT_TreeNode on wide and deep synthetic trees.
+ *
+ * @see TRT_TreeNodeBenchmark
+ */
+public class TRT_TreeNodeGrowthTest {
+
+    @Test
+    public void wideNode() {
+        int n = 5000;
+        TestResultTable table = new TestResultTable();
+        for (int i = 0; i < n; i++) {
+            table.update(TestUtil.createTestResult("wide/t" + i + ".html", Status.passed("ok")));
+        }
+
+        TRT_TreeNode node = (TRT_TreeNode) TestResultTable.findNode(table.getRoot(), "wide");
+        Assert.assertEquals(n, node.getChildCount());
+        TestResult[] trs = node.getTestResults();
+        Assert.assertEquals(n, trs.length);
+        for (int i = 0; i < n; i++) {
+            Assert.assertEquals("wide/t" + i + ".html", trs[i].getTestName());
+            Assert.assertSame(trs[i], node.getChild(i));
+        }
+        Assert.assertNull(node.getTreeNodes());
+
+        // callers may modify the array they are given
+        trs[0] = null;
+        Assert.assertNotNull(node.getTestResults()[0]);
+
+        // replace and remove a test in the middle
+        TestResult tr = TestUtil.createTestResult("wide/t2500.html", Status.failed("bad"));
+        table.update(tr);
+        Assert.assertSame(tr, node.getChild(2500));
+        Assert.assertEquals(2500, node.getResultIndex(tr.getWorkRelativePath(), true));
+        Assert.assertEquals(2500, node.rmChild(tr));
+        Assert.assertEquals(n - 1, node.getChildCount());
+        Assert.assertEquals(-1, node.getResultIndex(tr.getWorkRelativePath(), true));
+        Assert.assertEquals(2500, node.getResultIndex(
+                TestResult.getWorkRelativePath("wide/t2501.html"), true));
+        Assert.assertEquals(n - 1, node.getTestResults().length);
+        Assert.assertEquals(n - 1, table.getCurrentStatusCounts()[Status.PASSED]);
+    }
+
+    @Test
+    public void mixedNode() {
+        TestResultTable table = new TestResultTable();
+        for (int i = 0; i < 100; i++) {
+            table.update(TestUtil.createTestResult("mix/t" + i + ".html", Status.passed("ok")));
+            table.update(TestUtil.createTestResult("mix/d" + i + "/t.html", Status.passed("ok")));
+        }
+
+        TRT_TreeNode node = (TRT_TreeNode) TestResultTable.findNode(table.getRoot(), "mix");
+        Assert.assertEquals(200, node.getChildCount());
+        Assert.assertEquals(100, node.getTestResults().length);
+        Assert.assertEquals(100, node.getTreeNodes().length);
+        Assert.assertTrue(node.getTreeNodes() instanceof TRT_TreeNode[]);
+        Assert.assertEquals(99, node.getNodeIndex("d49", true));
+        Assert.assertEquals(98, node.getResultIndex(
+                TestResult.getWorkRelativePath("mix/t49.html"), true));
+
+        TRT_TreeNode d0 = (TRT_TreeNode) node.getChild(1);
+        Object[] before = node.getChildren();
+        node.rmChild(d0);
+        Assert.assertEquals(200, before.length);
+        Assert.assertEquals(199, node.getChildren().length);
+        Assert.assertEquals(98, node.getNodeIndex("d49", true));
+        Assert.assertEquals(-1, node.getNodeIndex("d0", true));
+    }
+
+    @Test
+    public void deepTree() {
+        int depth = 200;
+        StringBuilder path = new StringBuilder();
+        TestResultTable table = new TestResultTable();
+        for (int i = 0; i < depth; i++) {
+            path.append("d").append(i).append('/');
+            table.update(TestUtil.createTestResult(path + "t.html", Status.passed("ok")));
+        }
+
+        Assert.assertEquals(depth, table.getCurrentStatusCounts()[Status.PASSED]);
+        TestResultTable.TreeNode node = TestResultTable.findNode(table.getRoot(),
+                path.substring(0, path.length() - 1));
+        Assert.assertNotNull(node);
+        Assert.assertEquals(1, node.getChildCount());
+    }
+}
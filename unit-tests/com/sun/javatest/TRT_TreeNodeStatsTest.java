@@ -0,0 +1,152 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TRT_TreeNodeStatsTest {
+
+    @Test
+    public void countersFollowUpdates() {
+        TestResultTable table = new TestResultTable();
+        table.update(TestUtil.createTestResult("a/b/x.html#t1", Status.passed("ok")));
+        table.update(TestUtil.createTestResult("a/b/x.html#t2", Status.passed("ok")));
+        table.update(TestUtil.createTestResult("a/c/y.html#t1", Status.failed("bad")));
+        table.update(TestUtil.createTestResult("z.html#t1", Status.error("oops")));
+
+        int[] stats = table.getCurrentStatusCounts();
+        Assert.assertEquals(2, stats[Status.PASSED]);
+        Assert.assertEquals(1, stats[Status.FAILED]);
+        Assert.assertEquals(1, stats[Status.ERROR]);
+        Assert.assertEquals(0, stats[Status.NOT_RUN]);
+
+        // replace a passed test with a failed one
+        table.update(TestUtil.createTestResult("a/b/x.html#t2", Status.failed("now bad")));
+        stats = table.getCurrentStatusCounts();
+        Assert.assertEquals(1, stats[Status.PASSED]);
+        Assert.assertEquals(2, stats[Status.FAILED]);
+
+        TRT_TreeNode b = (TRT_TreeNode) TestResultTable.findNode(table.getRoot(), "a/b");
+        int[] bStats = b.getCurrentChildStatus();
+        Assert.assertEquals(1, bStats[Status.PASSED]);
+        Assert.assertEquals(1, bStats[Status.FAILED]);
+        Assert.assertArrayEquals(stats, table.getRoot().getChildStatus());
+
+        // removing a branch drops its tests from the ancestors' counters
+        TRT_TreeNode a = (TRT_TreeNode) b.getParent();
+        a.rmChild(b);
+        stats = table.getCurrentStatusCounts();
+        Assert.assertEquals(0, stats[Status.PASSED]);
+        Assert.assertEquals(1, stats[Status.FAILED]);
+        Assert.assertEquals(1, stats[Status.ERROR]);
+    }
+
+    @Test
+    public void counterNotificationsAreSynchronousByDefault() {
+        Assert.assertEquals(0, TRT_TreeNode.counterNotifyDelay);
+        TestResultTable table = new TestResultTable();
+        table.update(TestUtil.createTestResult("dir/first.html", Status.passed("ok")));
+
+        AtomicInteger notifications = new AtomicInteger();
+        table.getRoot().addObserver(new CountingObserver(notifications, new CountDownLatch(1)));
+        for (int i = 1; i <= 10; i++) {
+            table.update(TestUtil.createTestResult("dir/t" + i + ".html", Status.passed("ok")));
+            Assert.assertTrue(notifications.get() >= i);
+        }
+    }
+
+    @Test
+    public void counterNotificationsAreCoalesced() throws InterruptedException {
+        TRT_TreeNode.counterNotifyDelay = 100;
+        try {
+            checkCoalesced();
+        } finally {
+            TRT_TreeNode.counterNotifyDelay = 0;
+        }
+    }
+
+    private static void checkCoalesced() throws InterruptedException {
+        TestResultTable table = new TestResultTable();
+        table.update(TestUtil.createTestResult("dir/first.html", Status.passed("ok")));
+
+        final AtomicInteger notifications = new AtomicInteger();
+        final CountDownLatch delivered = new CountDownLatch(1);
+        TestResultTable.TreeNode root = table.getRoot();
+        root.addObserver(new CountingObserver(notifications, delivered));
+
+        int n = 200;
+        for (int i = 0; i < n; i++) {
+            table.update(TestUtil.createTestResult("dir/t" + i + ".html", Status.passed("ok")));
+        }
+
+        Assert.assertTrue("no notification delivered", delivered.await(30, TimeUnit.SECONDS));
+        Assert.assertTrue("notifications not coalesced: " + notifications.get(),
+                notifications.get() < n);
+        Assert.assertEquals(n + 1, table.getCurrentStatusCounts()[Status.PASSED]);
+    }
+
+    private static class CountingObserver implements TestResultTable.TreeNodeObserver {
+        private final AtomicInteger count;
+        private final CountDownLatch delivered;
+
+        CountingObserver(AtomicInteger count, CountDownLatch delivered) {
+            this.count = count;
+            this.delivered = delivered;
+        }
+
+        @Override
+        public void insertedBranch(TestResultTable.TreeNode parent, TestResultTable.TreeNode newNode, int index) {
+        }
+
+        @Override
+        public void insertedResult(TestResultTable.TreeNode parent, TestResult test, int index) {
+        }
+
+        @Override
+        public void replacedResult(TestResultTable.TreeNode parent, TestResult oldTest, TestResult newTest, int index) {
+        }
+
+        @Override
+        public void removedBranch(TestResultTable.TreeNode parent, int index) {
+        }
+
+        @Override
+        public void removedResult(TestResultTable.TreeNode parent, TestResult test, int index) {
+        }
+
+        @Override
+        public void countersInvalidated(TestResultTable.TreeNode node) {
+            count.incrementAndGet();
+            delivered.countDown();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestDescriptionTest {
+
+    @Test
+    public void parameters() {
+        TestDescription td = TestUtil.createTestDescription("a/b/t.html", "title", "A test", "id", "t1",
+                "keywords", "positive", "source", "T.java");
+
+        Assert.assertEquals("a/b/t.html#t1", td.getRootRelativeURL());
+        Assert.assertEquals("A test", td.getParameter("title"));
+        Assert.assertEquals("T.java", td.getParameter("source"));
+        Assert.assertNull(td.getParameter("executeClass"));
+        Assert.assertNull(td.getParameter("zzz"));
+        Assert.assertEquals(4, td.getParameterCount());
+
+        List<String> keys = new ArrayList<>();
+        for (Iterator<String> it = td.getParameterKeys(); it.hasNext(); ) {
+            keys.add(it.next());
+        }
+        Assert.assertEquals(Arrays.asList("id", "keywords", "source", "title"), keys);
+    }
+
+    @Test
+    public void onlyRepeatedValuesAreShared() {
+        TestDescription td = TestUtil.createTestDescription("a/t.html", "id", "t1",
+                "title", new String("A title"), "keywords", new String("a b"));
+
+        Assert.assertSame("a b", td.getParameter("keywords"));
+        Assert.assertNotSame("A title", td.getParameter("title"));
+        Assert.assertEquals("A title", td.getParameter("title"));
+    }
+
+    @Test
+    public void equality() {
+        TestDescription td1 = TestUtil.createTestDescription("a/t.html", "id", "t1", "title", "x");
+        TestDescription td2 = TestUtil.createTestDescription("a/t.html", "title", "x", "id", "t1");
+        TestDescription td3 = TestUtil.createTestDescription("a/t.html", "id", "t1", "title", "y");
+
+        Assert.assertEquals(td1, td2);
+        Assert.assertEquals(td1.hashCode(), td2.hashCode());
+        Assert.assertNotEquals(td1, td3);
+        Assert.assertNotEquals(td1, TestUtil.createTestDescription("a/t.html", "id", "t1"));
+    }
+
+    @Test
+    public void saveAndLoad() {
+        TestDescription td = TestUtil.createTestDescription("a/t.html", "id", "t1", "title", "x", "keywords", "a b");
+        // PropertyArray requires the names to be sorted
+        Map<String, String> m = new TreeMap<>();
+        td.save(m);
+
+        List<String> pairs = new ArrayList<>();
+        for (Map.Entry<String, String> e : m.entrySet()) {
+            pairs.add(e.getKey());
+            pairs.add(e.getValue());
+        }
+        TestDescription loaded = TestDescription.load(pairs.toArray(new String[pairs.size()]));
+        Assert.assertEquals(td, loaded);
+        Assert.assertEquals(td.getRootRelativeURL(), loaded.getRootRelativeURL());
+    }
+
+    @Test
+    public void serialization() throws Exception {
+        TestDescription td = TestUtil.createTestDescription("a/t.html", "id", "t1", "title", "x", "keywords", "a b");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(td);
+        }
+        TestDescription copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (TestDescription) in.readObject();
+        }
+
+        Assert.assertEquals(td, copy);
+        Assert.assertEquals("a b", copy.getParameter("keywords"));
+        Assert.assertEquals(td.getRootRelativeURL(), copy.getRootRelativeURL());
+    }
+}
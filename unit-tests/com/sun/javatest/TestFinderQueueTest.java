@@ -0,0 +1,163 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sun.javatest.finder.HTMLTestFinder;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestFinderQueueTest {
+
+    @Test
+    public void parallelReadAheadKeepsOrder() throws Exception {
+        File root = new File(TestUtil.getPathToTestTestSuite("demotck")).getCanonicalFile();
+
+        List<String> serial = run(root, 0);
+        Assert.assertTrue(serial.toString(), serial.contains("found test exec/index.html#ExecSucc"));
+        Assert.assertEquals(serial, run(root, 4));
+    }
+
+    @Test
+    public void errorsAreReportedInOrder() throws Exception {
+        File root = new File(TestUtil.getPathToTestTestSuite("demotck")).getCanonicalFile();
+
+        List<String> serial = run(root, 0, "comp", "nonexistent/index.html", "exec");
+        Assert.assertTrue(serial.toString(), serial.stream().anyMatch(s -> s.startsWith("error ")));
+        Assert.assertEquals(serial, run(root, 3, "comp", "nonexistent/index.html", "exec"));
+    }
+
+    @Test
+    public void errorsInFilesAreCounted() throws Exception {
+        File root = TestUtil.createTempDirectory("TestFinderQueueTest").toFile().getCanonicalFile();
+        write(new File(root, "index.html"), "<a href=\"a.html\">a</a> <a href=\"b.html\">b</a>");
+        write(new File(root, "a.html"), "<a href=\"unterminated\n\">x</a>");
+        write(new File(root, "b.html"), "<a href=\"missing.html\">x</a>");
+
+        List<String> serial = run(root, 0);
+        Assert.assertTrue(serial.toString(), serial.contains("errors 3 2"));
+        Assert.assertEquals(serial, run(root, 2));
+    }
+
+    private static void write(File f, String text) throws IOException {
+        Files.write(f.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> run(File root, int threads, String... tests) throws Exception {
+        TestFinder finder = newFinder(root);
+        TestFinderQueue tfq = new TestFinderQueue(finder);
+        tfq.setParallelReadAhead(threads, () -> {
+            try {
+                return newFinder(root);
+            } catch (TestFinder.Fault e) {
+                throw new Error(e);
+            }
+        });
+        tfq.setTests(tests.length == 0 ? null : tests);
+        List<String> events = new ArrayList<>();
+        tfq.addObserver(new Recorder(events, root));
+
+        TestDescription td;
+        while ((td = tfq.next()) != null) {
+            events.add("next " + td.getRootRelativeURL());
+        }
+        Assert.assertEquals(0, tfq.getFilesRemainingCount());
+        events.add("errors " + tfq.getErrorCount() + " " + finder.getErrorCount());
+        return events;
+    }
+
+    private static TestFinder newFinder(File root) throws TestFinder.Fault {
+        TestFinder tf = new HTMLTestFinder();
+        tf.init(new String[0], root, null);
+        return tf;
+    }
+
+    private static class Recorder implements TestFinderQueue.Observer {
+        private final List<String> events;
+        private final String root;
+
+        Recorder(List<String> events, File root) {
+            this.events = events;
+            this.root = root.getPath();
+        }
+
+        private String name(File f) {
+            return f.getPath().replace(root, "");
+        }
+
+        @Override
+        public void found(File file) {
+            events.add("found file " + name(file));
+        }
+
+        @Override
+        public void reading(File file) {
+            events.add("reading " + name(file));
+        }
+
+        @Override
+        public void done(File file) {
+            events.add("done " + name(file));
+        }
+
+        @Override
+        public void found(TestDescription td) {
+            events.add("found test " + td.getRootRelativeURL());
+        }
+
+        @Override
+        public void ignored(TestDescription td, TestFilter f) {
+            events.add("ignored " + td.getRootRelativeURL());
+        }
+
+        @Override
+        public void done(TestDescription td) {
+            events.add("done test " + td.getRootRelativeURL());
+        }
+
+        @Override
+        public void flushed() {
+            events.add("flushed");
+        }
+
+        @Override
+        public void error(String msg) {
+            events.add("error " + msg.replace(root, ""));
+        }
+
+        @Override
+        public void error(TestDescription td, String msg) {
+            events.add("error " + td.getRootRelativeURL() + " " + msg);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UrlTrieTest {
+
+    @Test
+    public void matchesLikeInitialUrlFilter() {
+        Random r = new Random(41);
+        for (int round = 0; round < 200; round++) {
+            String[] initUrls = new String[1 + r.nextInt(5)];
+            UrlTrie trie = new UrlTrie();
+            for (int i = 0; i < initUrls.length; i++) {
+                do {
+                    initUrls[i] = randomUrl(r);
+                } while (initUrls[i].isEmpty());
+                trie.add(initUrls[i]);
+            }
+
+            for (int i = 0; i < 200; i++) {
+                String url = randomUrl(r);
+                boolean expected = false;
+                for (String u : initUrls) {
+                    expected |= InitialUrlFilter.isInitialUrlMatch(url, u);
+                }
+                Assert.assertEquals(url + " " + Arrays.toString(initUrls),
+                        expected, trie.matches(url));
+            }
+        }
+    }
+
+    @Test
+    public void coversOnlyOnDelimiters() {
+        UrlTrie trie = new UrlTrie();
+        trie.add("a/b");
+        trie.add("c/");
+        Assert.assertTrue(trie.covers("a/b"));
+        Assert.assertTrue(trie.covers("a/b/c"));
+        Assert.assertTrue(trie.covers("a/b#t1"));
+        Assert.assertFalse(trie.covers("a/bc"));
+        Assert.assertFalse(trie.covers("a"));
+        Assert.assertTrue(trie.covers("c/"));
+        Assert.assertFalse(trie.covers("c/d"));
+        Assert.assertTrue(trie.matches("c/d"));
+    }
+
+    @Test
+    public void distill() {
+        check(new String[]{"root", "root/a/b/c"}, "root");
+        check(new String[]{"root/a", "root/b", "root/b/c"}, "root/a", "root/b");
+        check(new String[]{"root/a.html", "root/a.htmls"}, "root/a.html", "root/a.htmls");
+        check(new String[]{"root/a.html", "root/a.html#boo"}, "root/a.html");
+        check(new String[]{"root", "root/a", "root/b"}, "root");
+        check(new String[]{"root/a", "root/a.html", "root/a/b"}, "root/a", "root/a.html");
+        check(new String[]{"root/a.html#boo", "root/a.html#boo", "root/b"}, "root/a.html#boo", "root/b");
+
+        String[] unchanged = {"root/a", "root/b"};
+        Assert.assertSame(unchanged, TestResultTable.distillUrls(unchanged));
+    }
+
+    private static void check(String[] urls, String... expected) {
+        Assert.assertEquals(Arrays.asList(expected), Arrays.asList(TestResultTable.distillUrls(urls)));
+    }
+
+    private static String randomUrl(Random r) {
+        String[] parts = {"a", "b", "ab", "/", "#", "x.html"};
+        StringBuilder sb = new StringBuilder();
+        int n = r.nextInt(6);
+        for (int i = 0; i < n; i++) {
+            sb.append(parts[r.nextInt(parts.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.agent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AgentBundleCacheTest {
+
+    @Test
+    public void storedJarIsKept() throws Exception {
+        AgentBundleCache cache = new AgentBundleCache();
+        byte[] jar = jar();
+        byte[] hash = AgentClassCache.digest(jar);
+
+        Assert.assertNull(cache.claim(hash));
+        AgentBundleCache.Bundle b = cache.put(hash, new ByteArrayInputStream(jar), jar.length);
+        Assert.assertNotNull(b);
+        Assert.assertEquals("x", new String(b.read("a.txt"), "UTF-8"));
+        Assert.assertSame(b, cache.claim(hash));
+    }
+
+    @Test
+    public void jarWhichCannotBeStoredIsNotReceivedAgain() throws Exception {
+        AgentBundleCache cache = new AgentBundleCache();
+        byte[] jar = jar();
+        byte[] hash = AgentClassCache.digest(new byte[0]);
+
+        Assert.assertNull(cache.claim(hash));
+        Assert.assertNull(cache.put(hash, new ByteArrayInputStream(jar), jar.length));
+        Assert.assertSame(AgentBundleCache.NOT_STORED, cache.claim(hash));
+    }
+
+    @Test
+    public void brokenTransferIsTriedAgain() throws Exception {
+        AgentBundleCache cache = new AgentBundleCache();
+        byte[] jar = jar();
+        byte[] hash = AgentClassCache.digest(jar);
+
+        Assert.assertNull(cache.claim(hash));
+        InputStream truncated = new ByteArrayInputStream(jar, 0, jar.length - 1);
+        try {
+            cache.put(hash, truncated, jar.length);
+            Assert.fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+        Assert.assertNull(cache.claim(hash));
+    }
+
+    private static byte[] jar() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            out.putNextEntry(new ZipEntry("a.txt"));
+            out.write('x');
+            out.closeEntry();
+        }
+        return bytes.toByteArray();
+    }
+}
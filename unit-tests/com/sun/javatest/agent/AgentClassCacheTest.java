@@ -0,0 +1,265 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.agent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import com.sun.javatest.Status;
+import com.sun.javatest.TestUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AgentClassCacheTest {
+
+    @Before
+    public void startAgent() throws IOException {
+        ServerSocket ss = new ServerSocket(0);
+        port = ss.getLocalPort();
+        agent = new Agent(new PassiveConnectionFactory(ss), 2);
+        agent.setTracing(true);
+        agent.traceOut = new PrintStream(trace, true);
+        Thread t = new Thread(agent, "AgentClassCacheTest agent");
+        t.setDaemon(true);
+        t.start();
+
+        classDir = TestUtil.createTempDirectory("AgentClassCacheTest").toFile();
+    }
+
+    @After
+    public void stopAgent() {
+        agent.interrupt();
+    }
+
+    @Test
+    public void unchangedClassesAreNotSentAgain() throws Exception {
+        writeClass("v1");
+        Assert.assertEquals("v1", run(false));
+        Assert.assertTrue(traced().contains("REMOTE LOADED CLASS"));
+
+        trace.reset();
+        Assert.assertEquals("v1", run(false));
+        Assert.assertTrue(traced().contains("CACHED CLASS " + CLASS_NAME));
+        Assert.assertFalse(traced().contains("REMOTE LOADED CLASS"));
+        // only the names the task uses are checked with the harness
+        Assert.assertTrue(traced().contains("MANIFEST CHECKED 0 NAMES"));
+        Assert.assertTrue(traced().contains("MANIFEST CHECKED 1 NAMES"));
+
+        // a changed class is sent again
+        writeClass("v2");
+        trace.reset();
+        Assert.assertEquals("v2", run(false));
+        Assert.assertTrue(traced().contains("REMOTE LOADED CLASS"));
+    }
+
+    @Test
+    public void sharedLoaderIsReplacedWhenClassesChange() throws Exception {
+        writeClass("s1");
+        Assert.assertEquals("s1", run(true));
+
+        // the class is still defined in the shared loader
+        trace.reset();
+        Assert.assertEquals("s1", run(true));
+        Assert.assertFalse(traced().contains("REMOTE LOAD " + CLASS_NAME));
+
+        writeClass("s2");
+        Assert.assertEquals("s2", run(true));
+    }
+
+    @Test
+    public void preloadedJarIsSentOnce() throws Exception {
+        writeClass("p1");
+        File jar = writeJar();
+        Assert.assertEquals("p1", run(false, true, jar));
+        Assert.assertTrue(traced().contains("RECEIVED BUNDLE"));
+        Assert.assertTrue(traced().contains("PRELOADED CLASS " + CLASS_NAME));
+        Assert.assertFalse(traced().contains("REMOTE LOADED CLASS"));
+
+        trace.reset();
+        Assert.assertEquals("p1", run(false, true, jar));
+        Assert.assertFalse(traced().contains("RECEIVED BUNDLE"));
+        Assert.assertTrue(traced().contains("PRELOADED CLASS " + CLASS_NAME));
+
+        // a changed jar file is sent again
+        writeClass("p2");
+        writeJar();
+        trace.reset();
+        Assert.assertEquals("p2", run(false, true, jar));
+        Assert.assertTrue(traced().contains("RECEIVED BUNDLE"));
+    }
+
+    @Test
+    public void directoryBeforePreloadedJarIsStillSearched() throws Exception {
+        writeClass("d1");
+        File jar = writeJar();
+        writeClass("d2");
+        Assert.assertEquals("d2", run(false, true, classDir, jar));
+        Assert.assertTrue(traced().contains("REMOTE LOADED CLASS"));
+        Assert.assertFalse(traced().contains("PRELOADED CLASS " + CLASS_NAME));
+    }
+
+    private String run(boolean sharedCl) throws IOException {
+        return run(sharedCl, false, classDir);
+    }
+
+    private String run(boolean sharedCl, boolean preload, File... classPath) throws IOException {
+        AgentManager.Task t = AgentManager.access().connectToPassiveAgent("localhost", port);
+        t.setClassPath(classPath);
+        t.setSharedClassLoader(sharedCl);
+        t.setPreloadClassPath(preload);
+        PrintWriter pw = new PrintWriter(new StringWriter());
+        Status s = t.executeTest("cache", CLASS_NAME, new String[0], false, pw, pw);
+        return s.getType() == Status.PASSED ? s.getReason() : s.toString();
+    }
+
+    private String traced() {
+        return new String(trace.toByteArray());
+    }
+
+    /**
+     * Write a class, which is not on the agent's class path, whose run method
+     * returns a passed status with the given reason.
+     */
+    private void writeClass(String reason) throws IOException {
+        File dir = new File(classDir, "gen");
+        dir.mkdirs();
+        try (DataOutputStream out = new DataOutputStream(
+                new FileOutputStream(new File(dir, "CachedTest.class")))) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(49);
+
+            String[] utf8 = {
+                    null,
+                    "gen/CachedTest", null, "java/lang/Object", null, "com/sun/javatest/Test", null,
+                    "<init>", "()V", null, null,
+                    "run", "([Ljava/lang/String;Ljava/io/PrintWriter;Ljava/io/PrintWriter;)Lcom/sun/javatest/Status;",
+                    "Code", reason, null,
+                    "com/sun/javatest/Status", null,
+                    "passed", "(Ljava/lang/String;)Lcom/sun/javatest/Status;", null, null
+            };
+            out.writeShort(utf8.length);
+            for (int i = 1; i < utf8.length; i++) {
+                switch (i) {
+                    case 2: case 4: case 6: case 17:        // Class
+                        out.writeByte(7);
+                        out.writeShort(i - 1);
+                        break;
+                    case 9: case 20:                        // NameAndType
+                        out.writeByte(12);
+                        out.writeShort(i - 2);
+                        out.writeShort(i - 1);
+                        break;
+                    case 10:                                // Object.<init>
+                        out.writeByte(10);
+                        out.writeShort(4);
+                        out.writeShort(9);
+                        break;
+                    case 15:                                // the reason
+                        out.writeByte(8);
+                        out.writeShort(14);
+                        break;
+                    case 21:                                // Status.passed
+                        out.writeByte(10);
+                        out.writeShort(17);
+                        out.writeShort(20);
+                        break;
+                    default:
+                        out.writeByte(1);
+                        out.writeUTF(utf8[i]);
+                }
+            }
+
+            out.writeShort(0x21);   // public super
+            out.writeShort(2);
+            out.writeShort(4);
+            out.writeShort(1);
+            out.writeShort(6);
+            out.writeShort(0);      // fields
+            out.writeShort(2);      // methods
+
+            writeMethod(out, 7, 8, 1, new byte[]{0x2a, (byte) 0xb7, 0, 10, (byte) 0xb1});
+            writeMethod(out, 11, 12, 4, new byte[]{0x12, 15, (byte) 0xb8, 0, 21, (byte) 0xb0});
+
+            out.writeShort(0);      // attributes
+        }
+
+        // make sure the change is visible, however coarse the file system's clock
+        time += 10_000;
+        Files.setLastModifiedTime(new File(dir, "CachedTest.class").toPath(), FileTime.fromMillis(time));
+    }
+
+    /**
+     * Write a jar file holding the class last written, beside the class directory.
+     */
+    private File writeJar() throws IOException {
+        File jar = new File(classDir.getParentFile(), classDir.getName() + ".jar");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("gen/CachedTest.class"));
+            out.write(Files.readAllBytes(new File(classDir, "gen/CachedTest.class").toPath()));
+        }
+        Files.setLastModifiedTime(jar.toPath(), FileTime.fromMillis(time));
+        return jar;
+    }
+
+    private static void writeMethod(DataOutputStream out, int name, int desc, int locals, byte[] code)
+            throws IOException {
+        out.writeShort(0x1);    // public
+        out.writeShort(name);
+        out.writeShort(desc);
+        out.writeShort(1);
+        out.writeShort(13);     // Code
+        out.writeInt(12 + code.length);
+        out.writeShort(1);      // max stack
+        out.writeShort(locals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0);      // exception table
+        out.writeShort(0);      // attributes
+    }
+
+    private static final String CLASS_NAME = "gen.CachedTest";
+
+    private final ByteArrayOutputStream trace = new ByteArrayOutputStream();
+    private Agent agent;
+    private int port;
+    private File classDir;
+    private long time = System.currentTimeMillis();
+}
@@ -0,0 +1,140 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.agent;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.sun.javatest.TestUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClassPathIndexTest {
+
+    @Before
+    public void setUp() throws IOException {
+        base = TestUtil.createTempDirectory("ClassPathIndexTest").toFile();
+        dir = new File(base, "classes");
+        jar = new File(base, "lib.jar");
+    }
+
+    @Test
+    public void firstEntryOnPathWins() throws IOException {
+        write(new File(dir, "a/B.class"), "from dir");
+        writeJar("a/B.class", "from jar", "a/C.class", "only in jar");
+
+        ClassPathIndex path = ClassPathIndex.of(dir, jar);
+        Assert.assertEquals("from dir", text(path.find("a/B.class")));
+        Assert.assertEquals("only in jar", text(path.find("a/C.class")));
+        Assert.assertNull(path.find("a/D.class"));
+        Assert.assertEquals("from jar", text(ClassPathIndex.of(jar, dir).find("a/B.class")));
+
+        ClassPathIndex.Resource r = path.find("a/C.class");
+        Assert.assertTrue(Arrays.equals(AgentClassCache.digest(r.data), r.getHash()));
+    }
+
+    @Test
+    public void changedFilesAreReadAgain() throws IOException {
+        File f = new File(dir, "x.properties");
+        write(f, "one");
+        writeJar("y.properties", "jar one");
+
+        ClassPathIndex path = ClassPathIndex.of(dir, jar);
+        Assert.assertEquals("one", text(path.find("x.properties")));
+        Assert.assertEquals("jar one", text(path.find("y.properties")));
+
+        write(f, "two");
+        writeJar("y.properties", "jar two", "z.properties", "new");
+
+        // directories are checked on every lookup; jar files once for each task
+        Assert.assertEquals("two", text(path.find("x.properties")));
+        Assert.assertEquals("jar one", text(path.find("y.properties")));
+
+        path = ClassPathIndex.of(dir, jar);
+        Assert.assertEquals("jar two", text(path.find("y.properties")));
+        Assert.assertEquals("new", text(path.find("z.properties")));
+    }
+
+    @Test
+    public void jarIsOpenedAgainAfterTasksFinish() throws IOException {
+        writeJar("a.properties", "a", "b.properties", "b", "c.properties", "c");
+
+        ClassPathIndex first = ClassPathIndex.of(jar);
+        ClassPathIndex second = ClassPathIndex.of(jar);
+        Assert.assertEquals("a", text(first.find("a.properties")));
+        first.close();
+        first.close();
+        // still open for the second task
+        Assert.assertEquals("b", text(second.find("b.properties")));
+        second.close();
+
+        // closed, but the names are still indexed
+        ClassPathIndex third = ClassPathIndex.of(jar);
+        Assert.assertNull(third.find("d.properties"));
+        Assert.assertEquals("c", text(third.find("c.properties")));
+        third.close();
+    }
+
+    private void write(File f, String text) throws IOException {
+        f.getParentFile().mkdirs();
+        Files.write(f.toPath(), text.getBytes("UTF-8"));
+        bumpModifiedTime(f);
+    }
+
+    private void writeJar(String... namesAndTexts) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (int i = 0; i < namesAndTexts.length; i += 2) {
+                out.putNextEntry(new ZipEntry(namesAndTexts[i]));
+                out.write(namesAndTexts[i + 1].getBytes("UTF-8"));
+                out.closeEntry();
+            }
+        }
+        bumpModifiedTime(jar);
+    }
+
+    // make sure a change is visible, however coarse the file system's clock
+    private void bumpModifiedTime(File f) throws IOException {
+        time += 10_000;
+        Files.setLastModifiedTime(f.toPath(), FileTime.fromMillis(time));
+    }
+
+    private static String text(ClassPathIndex.Resource r) throws IOException {
+        return r == null ? null : new String(r.data, "UTF-8");
+    }
+
+    private File base;
+    private File dir;
+    private File jar;
+    private long time = System.currentTimeMillis();
+}
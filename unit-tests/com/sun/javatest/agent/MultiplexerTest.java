@@ -0,0 +1,296 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.agent;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.javatest.Status;
+import com.sun.javatest.Test;
+import org.junit.After;
+import org.junit.Assert;
+
+public class MultiplexerTest {
+
+    @org.junit.Test
+    public void concurrentTasksShareOneConnection() throws Exception {
+        CountingFactory cf = startAgent(4, false);
+        List<Thread> threads = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int base = t * 100;
+            threads.add(new Thread(() -> {
+                for (int i = base; i < base + 10; i++) {
+                    String out = runEcho(cf.getPort(), "msg" + i);
+                    if (!out.equals("msg" + i)) {
+                        synchronized (failures) {
+                            failures.add(out);
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        Assert.assertEquals(new ArrayList<String>(), failures);
+        Assert.assertEquals(1, cf.accepted.get());
+    }
+
+    @org.junit.Test
+    public void agentMayDecline() throws Exception {
+        CountingFactory cf = startAgent(1, true);
+        Assert.assertEquals("a", runEcho(cf.getPort(), "a"));
+        Assert.assertEquals("b", runEcho(cf.getPort(), "b"));
+        Assert.assertEquals(2, cf.accepted.get());
+    }
+
+    @org.junit.Test
+    public void olderAgentIsUsedWithOrdinaryProtocol() throws Exception {
+        CountingFactory cf = startAgent(1, false);
+        cf.rejectFirst = true;
+        Assert.assertEquals("a", runEcho(cf.getPort(), "a"));
+        Assert.assertEquals("b", runEcho(cf.getPort(), "b"));
+        Assert.assertEquals(3, cf.accepted.get());
+    }
+
+    @org.junit.Test
+    public void olderAgentMayResetConnection() throws Exception {
+        CountingFactory cf = startAgent(1, false);
+        cf.resetFirst = true;
+        Assert.assertEquals("a", runEcho(cf.getPort(), "a"));
+        Assert.assertEquals("b", runEcho(cf.getPort(), "b"));
+        Assert.assertEquals(3, cf.accepted.get());
+    }
+
+    @org.junit.Test
+    public void closingChannelCancelsTask() throws Exception {
+        CountingFactory cf = startAgent(2, false);
+        Blocker.started = new CountDownLatch(1);
+        Blocker.interrupted = new CountDownLatch(1);
+
+        final Status[] result = new Status[1];
+        Thread t = new Thread(() -> {
+            try {
+                AgentManager.Task task = AgentManager.access().connectToPassiveAgent("localhost", cf.getPort());
+                PrintWriter pw = new PrintWriter(new StringWriter());
+                result[0] = task.executeTest("block", Blocker.class.getName(), new String[0], false, pw, pw);
+            } catch (IOException e) {
+                result[0] = Status.error(e.toString());
+            }
+        });
+        t.start();
+        Assert.assertTrue(Blocker.started.await(10, TimeUnit.SECONDS));
+        t.interrupt();
+        t.join(10000);
+
+        Assert.assertEquals(Status.ERROR, result[0].getType());
+        Assert.assertTrue(Blocker.interrupted.await(10, TimeUnit.SECONDS));
+
+        // the connection is still usable
+        Assert.assertEquals("c", runEcho(cf.getPort(), "c"));
+        Assert.assertEquals(1, cf.accepted.get());
+    }
+
+    @org.junit.Test
+    public void outputArrivesIntact() throws Exception {
+        CountingFactory cf = startAgent(2, false);
+        checkOutput(cf.getPort(), false);
+        checkOutput(cf.getPort(), true);
+
+        CountingFactory legacy = startAgent(1, true);
+        checkOutput(legacy.getPort(), false);
+    }
+
+    private static void checkOutput(int port, boolean compress) throws IOException {
+        AgentManager.Task t = AgentManager.access().connectToPassiveAgent("localhost", port);
+        t.setCompressOutput(compress);
+        StringWriter log = new StringWriter();
+        StringWriter ref = new StringWriter();
+        Status s = t.executeTest("chatty", Chatty.class.getName(), new String[0], false,
+                new PrintWriter(log), new PrintWriter(ref));
+        Assert.assertEquals(Status.PASSED, s.getType());
+        Assert.assertEquals(Chatty.log(), log.toString());
+        Assert.assertEquals(Chatty.ref(), ref.toString());
+    }
+
+    @After
+    public void stopAgents() {
+        for (Agent a : agents) {
+            a.interrupt();
+        }
+        agents.clear();
+    }
+
+    private CountingFactory startAgent(int concurrency, boolean noMultiplex) throws IOException {
+        CountingFactory cf = new CountingFactory(new ServerSocket(0));
+        Agent agent;
+        if (noMultiplex) {
+            System.setProperty("javatest.agent.noMultiplex", "true");
+        }
+        try {
+            agent = new Agent(cf, concurrency);
+        } finally {
+            System.clearProperty("javatest.agent.noMultiplex");
+        }
+        Thread t = new Thread(agent, "MultiplexerTest agent");
+        t.setDaemon(true);
+        t.start();
+        agents.add(agent);
+        return cf;
+    }
+
+    private static String runEcho(int port, String msg) {
+        try {
+            AgentManager.Task t = AgentManager.access().connectToPassiveAgent("localhost", port);
+            StringWriter log = new StringWriter();
+            StringWriter ref = new StringWriter();
+            Status s = t.executeTest("echo", Echo.class.getName(), new String[]{msg}, false,
+                    new PrintWriter(log), new PrintWriter(ref));
+            if (s.getType() != Status.PASSED || !s.getReason().equals(msg)) {
+                return s.toString();
+            }
+            return log.toString();
+        } catch (IOException e) {
+            return e.toString();
+        }
+    }
+
+    private final List<Agent> agents = new ArrayList<>();
+
+    public static class Echo implements Test {
+        @Override
+        public Status run(String[] args, PrintWriter log, PrintWriter ref) {
+            log.print(args[0]);
+            return Status.passed(args[0]);
+        }
+    }
+
+    public static class Chatty implements Test {
+        @Override
+        public Status run(String[] args, PrintWriter log, PrintWriter ref) {
+            for (int i = 0; i < 5000; i++) {
+                log.print(line(i));
+                log.flush();
+            }
+            ref.print(ref());
+            return Status.passed("OK");
+        }
+
+        static String log() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 5000; i++) {
+                sb.append(line(i));
+            }
+            return sb.toString();
+        }
+
+        static String ref() {
+            // puts surrogate pairs across the boundaries of the agent's buffers
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 20; i++) {
+                sb.append(new String(new char[8191]).replace('\0', 'x')).append("\uD83D\uDE00");
+            }
+            return sb.toString();
+        }
+
+        private static String line(int i) {
+            return "line " + i + " caf\u00e9 \u20ac \uD83D\uDE00\n";
+        }
+    }
+
+    public static class Blocker implements Test {
+        static CountDownLatch started;
+        static CountDownLatch interrupted;
+
+        @Override
+        public Status run(String[] args, PrintWriter log, PrintWriter ref) {
+            started.countDown();
+            try {
+                Thread.sleep(60000);
+                return Status.failed("not interrupted");
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                return Status.error("interrupted");
+            }
+        }
+    }
+
+    /**
+     * Counts connections, and can behave like an agent which predates the
+     * multiplexed protocol, by dropping or resetting the first connection.
+     */
+    private static class CountingFactory extends PassiveConnectionFactory {
+        final AtomicInteger accepted = new AtomicInteger();
+        final ServerSocket serverSocket;
+        volatile boolean rejectFirst;
+        volatile boolean resetFirst;
+
+        CountingFactory(ServerSocket ss) {
+            super(ss);
+            serverSocket = ss;
+        }
+
+        @Override
+        public Connection nextConnection() throws Fault {
+            if (accepted.get() == 0 && resetFirst) {
+                accepted.incrementAndGet();
+                try (Socket s = serverSocket.accept()) {
+                    new DataInputStream(s.getInputStream()).readShort();
+                    // closing with a zero linger time sends a reset
+                    s.setSoLinger(true, 0);
+                } catch (IOException ignore) {
+                }
+            }
+
+            Connection c = super.nextConnection();
+            if (accepted.incrementAndGet() == 1 && rejectFirst) {
+                try {
+                    new DataInputStream(c.getInputStream()).readShort();
+                    c.close();
+                } catch (IOException ignore) {
+                }
+                c = super.nextConnection();
+                accepted.incrementAndGet();
+            }
+            return c;
+        }
+    }
+}
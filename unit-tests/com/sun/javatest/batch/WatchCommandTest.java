@@ -0,0 +1,145 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.batch;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.javatest.TestResultTable;
+import com.sun.javatest.TestUtil;
+import com.sun.javatest.WorkDirectory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WatchCommandTest {
+
+    @Test
+    public void productFilesAreParsed() {
+        ListIterator<String> argIter = Arrays.asList("a.jar", "classes", "-runTests").listIterator();
+        new WatchCommand(argIter);
+        Assert.assertEquals("-runTests", argIter.next());
+    }
+
+    @Test
+    public void changesAreReported() throws Exception {
+        File dir = TestUtil.createTempDirectory("WatchCommandTest").toFile().getCanonicalFile();
+        File work = new File(dir, "work");
+        File sub = new File(dir, "sub");
+        Assert.assertTrue(work.mkdir());
+        Assert.assertTrue(sub.mkdir());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (WatchCommand.Watcher w = new WatchCommand.Watcher(work)) {
+            w.watch(dir);
+
+            Future<Collection<File>> changes = executor.submit(() -> w.awaitChanges(200));
+            Files.write(new File(work, "ignored.jtr").toPath(), new byte[1]);
+            Files.write(new File(sub, "a.html").toPath(), new byte[1]);
+            Assert.assertEquals(Collections.singletonList(new File(sub, "a.html")),
+                    new ArrayList<>(changes.get(10, TimeUnit.SECONDS)));
+
+            // new directories are watched too
+            File newDir = new File(sub, "new");
+            changes = executor.submit(() -> w.awaitChanges(200));
+            Assert.assertTrue(newDir.mkdir());
+            Assert.assertEquals(Collections.singletonList(newDir),
+                    new ArrayList<>(changes.get(10, TimeUnit.SECONDS)));
+
+            changes = executor.submit(() -> w.awaitChanges(200));
+            Files.write(new File(newDir, "b.html").toPath(), new byte[1]);
+            Assert.assertEquals(Collections.singletonList(new File(newDir, "b.html")),
+                    new ArrayList<>(changes.get(10, TimeUnit.SECONDS)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void watchingStops() throws Exception {
+        File dir = TestUtil.createTempDirectory("WatchCommandTest").toFile().getCanonicalFile();
+        File sub = new File(dir, "sub");
+        Assert.assertTrue(sub.mkdir());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // when the watcher is closed
+            WatchCommand.Watcher w = new WatchCommand.Watcher();
+            w.watch(dir);
+            Future<Collection<File>> changes = executor.submit(() -> w.awaitChanges(200));
+            Thread.sleep(100);
+            w.close();
+            Assert.assertNull(changes.get(10, TimeUnit.SECONDS));
+
+            // when nothing being watched remains
+            try (WatchCommand.Watcher w2 = new WatchCommand.Watcher()) {
+                w2.watch(sub);
+                changes = executor.submit(() -> w2.awaitChanges(200));
+                Assert.assertTrue(sub.delete());
+                Collection<File> c = changes.get(10, TimeUnit.SECONDS);
+                while (c != null) {
+                    c = w2.awaitChanges(200);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void affectedTestsAreSelected() throws Exception {
+        WorkDirectory wd = TestUtil.createWorkDirectory("demotck", "WatchCommandTest-workdir");
+        TestResultTable trt = wd.getTestResultTable();
+        File rootDir = trt.getTestFinder().getRootDir().getCanonicalFile();
+        WatchCommand cmd = new WatchCommand(Collections.<String>emptyList().listIterator());
+
+        List<File> changed = Arrays.asList(
+                new File(rootDir, "comp/index.html"),
+                new File(rootDir, "comp/NotATest.txt"));
+        Assert.assertArrayEquals(new String[] {"comp/index.html"},
+                cmd.selectTests(trt, rootDir, changed));
+        Assert.assertArrayEquals(new String[] {"comp/index.html"},
+                cmd.selectTests(trt, rootDir, changed, "comp"));
+        Assert.assertArrayEquals(new String[] {"comp/index.html#CompSucc"},
+                cmd.selectTests(trt, rootDir, changed, "comp/index.html#CompSucc", "exec"));
+        Assert.assertArrayEquals(new String[0],
+                cmd.selectTests(trt, rootDir, changed, "exec"));
+
+        // a product file may affect any test
+        Assert.assertNull(cmd.selectTests(trt, rootDir,
+                Collections.singletonList(new File(rootDir.getParentFile(), "product.jar")), "exec"));
+    }
+}
@@ -64,6 +64,96 @@ public class BinaryTestFinderTest {
         Assert.assertTrue(ok);
     }
 
+    @Test
+    public void testDemoTCKMapped() throws IOException, Fault {
+        boolean ok;
+        BinaryTestFinderTest t = new BinaryTestFinderTest();
+        t.mapped = true;
+        Path absTmpPath = Paths.get(System.getProperty("build.tmp")).toAbsolutePath().normalize();
+        String workDir = Files.createTempDirectory(absTmpPath, "BinaryTestFinderTestWorkDir_demotck_mapped").toAbsolutePath().toString();
+        String testSuiteHtml = TestUtil.getPathToTestTestSuite("demotck", "testsuite.html");
+        ok = t.run(System.out, 11, testSuiteHtml, workDir);
+        Assert.assertTrue(ok);
+    }
+
+    @Test
+    public void testIncrementalAndParallel() throws Exception {
+        Path suite = TestUtil.copyTestSuite("demotck").toPath();
+        Path extra = suite.resolve("comp/extra.html");
+        Files.write(extra, "<html><body>No tests yet.</body></html>".getBytes("UTF-8"));
+        Path out = TestUtil.createTempDirectory("BinaryTestFinderTest-out");
+        File full = out.resolve("full.jtd").toFile();
+        File parallel = out.resolve("parallel.jtd").toFile();
+        File incremental = out.resolve("incremental.jtd").toFile();
+
+        writeMapped(suite, full, "-dirWalk");
+        writeMapped(suite, parallel, "-dirWalk", "-threads", "3");
+        Assert.assertArrayEquals(Files.readAllBytes(full.toPath()), Files.readAllBytes(parallel.toPath()));
+
+        writeMapped(suite, incremental, "-dirWalk", "-incremental");
+        Assert.assertArrayEquals(Files.readAllBytes(full.toPath()), Files.readAllBytes(incremental.toPath()));
+        Assert.assertTrue(new File(incremental.getPath() + ".jtfi").exists());
+
+        // a file whose modification time and size have not changed is not read again
+        File changed = suite.resolve("comp/index.html").toFile();
+        long time = changed.lastModified();
+        String html = new String(Files.readAllBytes(changed.toPath()), "UTF-8");
+        Files.write(changed.toPath(), html.replace("compile positive ShouldPass", "compile negative ShouldPass")
+                .getBytes("UTF-8"));
+        Assert.assertTrue(changed.setLastModified(time));
+        writeMapped(suite, incremental, "-dirWalk", "-incremental", "-threads", "2");
+        Assert.assertArrayEquals(Files.readAllBytes(full.toPath()), Files.readAllBytes(incremental.toPath()));
+
+        // a changed file is read again
+        Assert.assertTrue(changed.setLastModified(time + 10_000));
+        writeMapped(suite, incremental, "-dirWalk", "-incremental");
+        writeMapped(suite, full, "-dirWalk");
+        Assert.assertArrayEquals(Files.readAllBytes(full.toPath()), Files.readAllBytes(incremental.toPath()));
+        Assert.assertTrue(new String(Files.readAllBytes(incremental.toPath()), "UTF-8").contains("negative"));
+
+        // so is a file which had no tests, although its directory has not changed
+        File dir = suite.resolve("comp").toFile();
+        long dirTime = dir.lastModified();
+        Files.write(extra, html.replace("CompSucc", "CompExtra").getBytes("UTF-8"));
+        Assert.assertTrue(extra.toFile().setLastModified(time + 20_000));
+        Assert.assertTrue(dir.setLastModified(dirTime));
+        writeMapped(suite, incremental, "-dirWalk", "-incremental");
+        writeMapped(suite, full, "-dirWalk");
+        Assert.assertArrayEquals(Files.readAllBytes(full.toPath()), Files.readAllBytes(incremental.toPath()));
+        Assert.assertTrue(new String(Files.readAllBytes(incremental.toPath()), "UTF-8").contains("CompExtra"));
+    }
+
+    @Test
+    public void testParallelWithSharedFiles() throws Exception {
+        // a file found from two others is put in the tree where a serial scan finds it first
+        Path suite = TestUtil.copyTestSuite("demotck").toPath();
+        Path comp = suite.resolve("comp/index.html");
+        String html = new String(Files.readAllBytes(comp), "UTF-8");
+        Files.write(suite.resolve("comp/extra.html"), html.replace("CompSucc", "CompExtra").getBytes("UTF-8"));
+        for (String page : new String[]{"comp/index.html", "exec/index.html"}) {
+            Path p = suite.resolve(page);
+            String link = page.startsWith("comp") ? "extra.html" : "../comp/extra.html";
+            Files.write(p, new String(Files.readAllBytes(p), "UTF-8")
+                    .replace("</body>", "<a href=\"" + link + "\">more</a></body>").getBytes("UTF-8"));
+        }
+
+        Path out = TestUtil.createTempDirectory("BinaryTestFinderTest-out");
+        File serial = out.resolve("serial.jtd").toFile();
+        File parallel = out.resolve("parallel.jtd").toFile();
+        writeMapped(suite.resolve("testsuite.html"), serial, "-webWalk");
+        for (int i = 0; i < 5; i++) {
+            writeMapped(suite.resolve("testsuite.html"), parallel, "-webWalk", "-threads", "4");
+            Assert.assertArrayEquals(Files.readAllBytes(serial.toPath()), Files.readAllBytes(parallel.toPath()));
+        }
+    }
+
+    private static void writeMapped(Path suite, File out, String mode, String... options) throws Exception {
+        List<String> args = new ArrayList<>(Arrays.asList(options));
+        args.addAll(Arrays.asList("-mapped", "-finder", "com.sun.javatest.finder.HTMLTestFinder", mode, "-end",
+                "-o", out.getPath(), suite.toString()));
+        Assert.assertEquals(0, new BinaryTestWriter().run(args.toArray(new String[args.size()])));
+    }
+
     @Test
     public void testIniturlTCK() throws IOException, Fault {
         boolean ok;
@@ -86,6 +176,8 @@ public class BinaryTestFinderTest {
         Assert.assertTrue(ok);
     }
 
+    private boolean mapped;
+
     public boolean run(PrintStream log, int expectedTotalTestNumber, String... args) throws Fault {
         File testSuite;
         File testWorkDir;
@@ -113,6 +205,12 @@ public class BinaryTestFinderTest {
                     "-o", binaryFile.getCanonicalPath(),
                     testSuite.getPath()
             };
+            if (mapped) {
+                String[] a = new String[btwArgs.length + 1];
+                a[0] = "-mapped";
+                System.arraycopy(btwArgs, 0, a, 1, btwArgs.length);
+                btwArgs = a;
+            }
             BinaryTestWriter m = new BinaryTestWriter();
             m.run(btwArgs);
 
@@ -156,7 +254,6 @@ public class BinaryTestFinderTest {
         return true;
     }
 
-
     /*
      * Loops though each of the TestFinders and adds to the hashtable. Tests
      * with the same URL are added to the same DiffRecord class.
@@ -202,7 +299,6 @@ public class BinaryTestFinderTest {
         System.out.println("Found right tests: " + count);
     }
 
-
     private HTMLTestFinder initializeHTMLTestFinder(File ts) throws Fault {
         String[] args = {"-dirWalk"};
 
@@ -217,7 +313,6 @@ public class BinaryTestFinderTest {
         return testFinder;
     }
 
-
     private BinaryTestFinder initializeBTF(File ts, String binary) throws Fault {
         BinaryTestFinder tf = new BinaryTestFinder();
         try {
@@ -230,7 +325,6 @@ public class BinaryTestFinderTest {
         return tf;
     }
 
-
     /*
      * gets the test suite file. Adds testsuite.html or tests/testsuite.html
      * to the end of the path if necessary.
@@ -321,7 +415,6 @@ public class BinaryTestFinderTest {
             }
         }
 
-
         public TestDescription getRight() {
             return right;
         }
@@ -330,12 +423,10 @@ public class BinaryTestFinderTest {
             return left;
         }
 
-
         public int getDiff() {
             return diff;
         }
 
-
         public void compare() {
             if (left == null) {
                 diff = 1;
@@ -442,5 +533,3 @@ public class BinaryTestFinderTest {
     }
 }
 
-
-
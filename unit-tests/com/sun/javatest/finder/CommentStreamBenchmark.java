@@ -0,0 +1,139 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.finder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.sun.javatest.TestDescription;
+
+/**
+ * Compares the buffer-based comment streams with the ones they replace on a
+ * tree of Java sources: first the raw comments in each file, and then the
+ * time TagTestFinder takes to read all the files, and the tests it finds.
+ * It is not run with the unit tests; use
+ * {@code ant run-benchmark -Dbenchmark=<class name> -Dbenchmark.args="<dir> [<initial tag>]"}.
+ * The directory defaults to the sources of the harness, and the initial tag
+ * to "param", which most Java sources contain.
+ */
+public class CommentStreamBenchmark {
+    public static void main(String... args) throws Exception {
+        File dir = new File(args.length > 0 ? args[0] : "src").getAbsoluteFile();
+        String tag = args.length > 1 ? args[1] : "param";
+
+        List<File> files = new ArrayList<>();
+        collect(dir, files);
+
+        int same = 0;
+        int total = 0;
+        for (File f : files) {
+            List<String> slow = comments(new JavaCommentStream(), f);
+            List<String> fast = comments(new FastJavaCommentStream(), f);
+            total += slow.size();
+            if (slow.equals(fast)) {
+                same += slow.size();
+            } else {
+                System.out.println("comments differ: " + f);
+            }
+        }
+        System.out.println(files.size() + " files: " + same + " of " + total + " comments identical");
+
+        for (int round = 0; round < 5; round++) {
+            long t0 = System.nanoTime();
+            List<String> slow = tests(dir, files, tag, JavaCommentStream.class);
+            long t1 = System.nanoTime();
+            List<String> fast = tests(dir, files, tag, FastJavaCommentStream.class);
+            long t2 = System.nanoTime();
+            System.out.println("TagTestFinder, initial tag \"" + tag + "\": " + slow.size() + " tests; "
+                    + "JavaCommentStream " + (t1 - t0) / 1000000 + "ms, "
+                    + "FastJavaCommentStream " + (t2 - t1) / 1000000 + "ms"
+                    + (slow.equals(fast) ? "" : "; TESTS DIFFER"));
+        }
+    }
+
+    private static void collect(File dir, List<File> files) {
+        File[] list = dir.listFiles();
+        if (list == null) {
+            return;
+        }
+        for (File f : list) {
+            if (f.isDirectory()) {
+                collect(f, files);
+            } else if (f.getName().endsWith(".java")) {
+                files.add(f);
+            }
+        }
+    }
+
+    private static List<String> comments(CommentStream cs, File f) throws IOException {
+        List<String> comments = new ArrayList<>();
+        cs.init(new BufferedReader(new InputStreamReader(new FileInputStream(f), StandardCharsets.UTF_8)));
+        try {
+            String c;
+            while ((c = cs.readComment()) != null) {
+                comments.add(c);
+            }
+        } catch (IOException e) {
+            comments.add("IOException: " + e.getMessage());
+        } finally {
+            cs.close();
+        }
+        return comments;
+    }
+
+    private static List<String> tests(File dir, List<File> files, String tag,
+                                      Class<? extends CommentStream> java) throws Exception {
+        TagTestFinder tf = new TagTestFinder();
+        tf.addExtension(".java", java);
+        tf.setInitialTag(tag);
+        tf.init(new String[0], dir, null);
+        tf.setErrorHandler(System.out::println);
+
+        List<String> tests = new ArrayList<>();
+        for (File f : files) {
+            tf.read(f);
+            for (TestDescription td : tf.getTests()) {
+                Map<String, String> params = new TreeMap<>();
+                for (Iterator<String> it = td.getParameterKeys(); it.hasNext(); ) {
+                    String key = it.next();
+                    params.put(key, td.getParameter(key));
+                }
+                tests.add(td.getRootRelativeURL() + " " + params);
+            }
+        }
+        return tests;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.finder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.sun.javatest.TestDescription;
+import com.sun.javatest.TestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FastCommentStreamTest {
+
+    private static final String[] JAVA = {
+            "",
+            "class A { }",
+            "/* @test */ class A { }",
+            "/**\n * @test\n * @run main A\n */\nclass A { /* x */ }",
+            "/*\r\n *  @test\r\n\t*\t@key a b\r\n ***/ /** **/ /***/",
+            "// /* not a comment */\n/* a */ \"/* in a string */\" '/*' /* b */",
+            "\"escaped \\\" /* still a string */\" /* c */",
+            "a/'/* x */' /* d */",
+            "/* unterminated",
+            "/",
+            "x / y /* e * f ** g */",
+    };
+
+    private static final String[] SH = {
+            "",
+            "#!/bin/sh\n# @test\n#  @run shell a.sh\necho\n# second\n",
+            "  # a\r\n#\tb\r\n\f# c\rx\n#d",
+            "echo\n\n# last",
+            "## @test ##",
+    };
+
+    private static final String[] HTML = {
+            "",
+            "<html><!-- @test --><!-- ignored --></html>\n<!-- next -->",
+            "<!--\n  @test\n  @run a\n--> tail\nmore <!-- x -->",
+            "<!--\r\n a\r\n b -->",
+            "<!---->\n<!-->\n-->",
+            "<!-- unterminated\n",
+    };
+
+    @Test
+    public void javaCommentsMatch() throws IOException {
+        for (String s : JAVA) {
+            Assert.assertEquals(s, comments(new JavaCommentStream(), s, false),
+                    comments(new FastJavaCommentStream(), s, false));
+            Assert.assertEquals(s, comments(new JavaCommentStream(), s, true),
+                    comments(new FastJavaCommentStream(), s, true));
+        }
+    }
+
+    @Test
+    public void shScriptCommentsMatch() throws IOException {
+        for (String s : SH) {
+            Assert.assertEquals(s, comments(new ShScriptCommentStream(), s, false),
+                    comments(new FastShScriptCommentStream(), s, false));
+        }
+    }
+
+    @Test
+    public void htmlCommentsMatch() throws IOException {
+        for (String s : HTML) {
+            Assert.assertEquals(s, comments(new HTMLCommentStream(), s, false),
+                    comments(new FastHTMLCommentStream(), s, false));
+        }
+    }
+
+    @Test
+    public void commentsWithoutInitialTagAreEmpty() throws IOException {
+        FastJavaCommentStream cs = new FastJavaCommentStream();
+        cs.setInitialTag("test");
+        cs.init(new BufferedReader(new StringReader("/* a */ /* @test b */ /* c */")));
+        Assert.assertEquals("", cs.readComment());
+        Assert.assertEquals("@test b ", cs.readComment());
+        Assert.assertEquals("", cs.readComment());
+        Assert.assertNull(cs.readComment());
+    }
+
+    @Test
+    public void tagTestFinderResultsMatch() throws Exception {
+        File dir = TestUtil.createTempDirectory("FastCommentStreamTest").toFile();
+        // comments without the initial tag, before, between and after tests,
+        // decide whether the tests are given "idN" ids
+        write(new File(dir, "One.java"), "/* a */ /** @test\n @run main One */ class One { /* b */ }");
+        write(new File(dir, "Alone.java"), "/** @test */ class Alone { }");
+        write(new File(dir, "Two.java"), "/* @test */ /* x */ /* @test\n @key k */ // /* y */");
+        write(new File(dir, "t.sh"), "# plain\necho\n# @test\n# @run shell t.sh\necho\n# after\n");
+        write(new File(dir, "p.html"), "<!-- before --><!-- @test --> <!-- after -->");
+
+        for (String tag : new String[]{"test", null}) {
+            Assert.assertEquals(String.valueOf(tag), tests(dir, tag, JavaCommentStream.class,
+                    ShScriptCommentStream.class, HTMLCommentStream.class),
+                    tests(dir, tag, FastJavaCommentStream.class,
+                            FastShScriptCommentStream.class, FastHTMLCommentStream.class));
+        }
+    }
+
+    private static List<String> tests(File dir, String tag, Class<? extends CommentStream> java,
+                                      Class<? extends CommentStream> sh,
+                                      Class<? extends CommentStream> html) throws Exception {
+        TagTestFinder tf = new TagTestFinder();
+        tf.addExtension(".java", java);
+        tf.addExtension(".sh", sh);
+        tf.addExtension(".html", html);
+        tf.setInitialTag(tag);
+        tf.init(new String[0], dir, null);
+
+        List<String> tests = new ArrayList<>();
+        String[] names = dir.list();
+        Arrays.sort(names);
+        for (String name : names) {
+            tf.read(new File(dir, name));
+            for (TestDescription td : tf.getTests()) {
+                Map<String, String> params = new TreeMap<>();
+                for (Iterator<String> it = td.getParameterKeys(); it.hasNext(); ) {
+                    String key = it.next();
+                    params.put(key, td.getParameter(key));
+                }
+                tests.add(td.getRootRelativeURL() + " " + params);
+            }
+        }
+        Assert.assertFalse(tests.isEmpty());
+        return tests;
+    }
+
+    private static void write(File f, String text) throws IOException {
+        Files.write(f.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> comments(CommentStream cs, String s, boolean fastScan) {
+        List<String> comments = new ArrayList<>();
+        cs.init(new BufferedReader(new StringReader(s)));
+        cs.setFastScan(fastScan);
+        try {
+            String c;
+            while ((c = cs.readComment()) != null) {
+                comments.add(c);
+            }
+        } catch (IOException e) {
+            comments.add("IOException: " + e.getMessage());
+        }
+        return comments;
+    }
+}
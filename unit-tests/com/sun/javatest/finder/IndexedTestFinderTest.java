@@ -0,0 +1,142 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.finder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sun.javatest.TestDescription;
+import com.sun.javatest.TestFinder;
+import com.sun.javatest.TestFinderQueue;
+import com.sun.javatest.TestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IndexedTestFinderTest {
+
+    @Test
+    public void unchangedFilesAreNotReadAgain() throws Exception {
+        File suiteDir = TestUtil.copyTestSuite("demotck");
+        File indexFile = new File(TestUtil.createTempDirectory("IndexedTestFinderTest-index").toFile(),
+                "index.jtfi");
+
+        CountingFinder first = new CountingFinder(suiteDir);
+        List<String> expected = readAll(new IndexedTestFinder(first, indexFile, "config"));
+        Assert.assertTrue(first.reads > 0);
+        Assert.assertEquals(11, expected.size());
+        Assert.assertTrue(indexFile.exists());
+
+        CountingFinder second = new CountingFinder(suiteDir);
+        Assert.assertEquals(expected, readAll(new IndexedTestFinder(second, indexFile, "config")));
+        Assert.assertEquals(0, second.reads);
+
+        // a changed file is given to the finder again, nothing else is
+        File changed = new File(suiteDir, "comp/index.html");
+        Assert.assertTrue(changed.setLastModified(changed.lastModified() + 10_000));
+
+        CountingFinder third = new CountingFinder(suiteDir);
+        Assert.assertEquals(expected, readAll(new IndexedTestFinder(third, indexFile, "config")));
+        Assert.assertEquals(1, third.reads);
+
+        // an index for a different configuration is not used
+        CountingFinder fourth = new CountingFinder(suiteDir);
+        Assert.assertEquals(expected, readAll(new IndexedTestFinder(fourth, indexFile, "other")));
+        Assert.assertEquals(first.reads, fourth.reads);
+    }
+
+    @Test
+    public void nullValuesAreKept() throws Exception {
+        File suiteDir = TestUtil.copyTestSuite("demotck");
+        File indexFile = new File(TestUtil.createTempDirectory("IndexedTestFinderTest-index").toFile(),
+                "index.jtfi");
+        File file = new File(suiteDir, "testsuite.html");
+
+        NullValueFinder first = new NullValueFinder(suiteDir);
+        IndexedTestFinder index = new IndexedTestFinder(first, indexFile, "config");
+        index.read(file);
+        index.save();
+        Assert.assertEquals(1, first.reads);
+
+        NullValueFinder second = new NullValueFinder(suiteDir);
+        index = new IndexedTestFinder(second, indexFile, "config");
+        index.read(file);
+        Assert.assertEquals(0, second.reads);
+        TestDescription[] tds = index.getTests();
+        Assert.assertEquals(1, tds.length);
+        Assert.assertEquals("value", tds[0].getParameter("id"));
+        Assert.assertNull(tds[0].getParameter("keywords"));
+    }
+
+    private static List<String> readAll(IndexedTestFinder finder) {
+        TestFinderQueue tfq = new TestFinderQueue();
+        tfq.setTestFinder(finder);
+        tfq.setTests((String[]) null);
+
+        List<String> tests = new ArrayList<>();
+        TestDescription td;
+        while ((td = tfq.next()) != null) {
+            tests.add(td.getRootRelativeURL() + " " + td.getParameter("keywords")
+                    + " " + td.getFile());
+        }
+        finder.save();
+        return tests;
+    }
+
+    private static class NullValueFinder extends TestFinder {
+        int reads;
+
+        NullValueFinder(File suiteDir) throws Fault {
+            init(new String[0], suiteDir, null);
+        }
+
+        @Override
+        protected void scan(File file) {
+            reads++;
+            Map<String, String> params = new HashMap<>();
+            params.put("id", "value");
+            params.put("keywords", null);
+            foundTestDescription(new TestDescription(getRoot(), file, params));
+        }
+    }
+
+    private static class CountingFinder extends HTMLTestFinder {
+        int reads;
+
+        CountingFinder(File suiteDir) throws Fault {
+            init(new String[]{"-dirWalk"}, suiteDir, null);
+        }
+
+        @Override
+        protected void scan(File file) {
+            reads++;
+            super.scan(file);
+        }
+    }
+}
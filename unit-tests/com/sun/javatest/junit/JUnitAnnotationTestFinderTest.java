@@ -0,0 +1,109 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.junit;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.sun.javatest.TestDescription;
+import com.sun.javatest.TestFinder;
+import com.sun.javatest.TestFinderQueue;
+import com.sun.javatest.TestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JUnitAnnotationTestFinderTest {
+
+    @Test
+    public void threadsAndScanCacheFindTheSameTests() throws Exception {
+        // the compiled unit tests in the finder package
+        File classes = new File(JUnitAnnotationTestFinderTest.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI());
+        File root = new File(classes, "com/sun/javatest/finder");
+        File cache = new File(TestUtil.createTempDirectory("JUnitAnnotationTestFinderTest").toFile(),
+                "scan.cache");
+
+        List<String> serial = readAll(root);
+        Assert.assertTrue(serial.toString(), serial.stream().anyMatch(
+                s -> s.startsWith("IndexedTestFinderTest.class ") && s.contains("nullValuesAreKept")));
+
+        Assert.assertEquals(serial, readAll(root, "-threads", "4"));
+
+        JUnitAnnotationTestFinder cold = newFinder(root, "-scanCache", cache.getPath());
+        Assert.assertEquals(serial, readAll(cold));
+        cold.saveScanCache();
+        Assert.assertTrue(cache.exists());
+
+        Assert.assertEquals(serial, readAll(root, "-scanCache", cache.getPath(), "-threads", "4"));
+    }
+
+    @Test
+    public void subclassesSeeEachTestMethod() throws Exception {
+        File classes = new File(JUnitAnnotationTestFinderTest.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI());
+        File root = new File(classes, "com/sun/javatest/finder");
+
+        List<String> seen = new ArrayList<>();
+        JUnitAnnotationTestFinder finder = new JUnitAnnotationTestFinder() {
+            @Override
+            public void foundTestMethod(String name) {
+                seen.add(currMethod + " " + name);
+                super.foundTestMethod(name);
+            }
+        };
+        finder.init(new String[]{"-scanClasses", "-threads", "2"}, root, null);
+        readAll(finder);
+        Assert.assertTrue(seen.toString(), seen.contains("nullValuesAreKept nullValuesAreKept"));
+    }
+
+    private static List<String> readAll(File root, String... args) throws TestFinder.Fault {
+        return readAll(newFinder(root, args));
+    }
+
+    private static JUnitAnnotationTestFinder newFinder(File root, String... args) throws TestFinder.Fault {
+        List<String> v = new ArrayList<>(Arrays.asList(args));
+        v.add(0, "-scanClasses");
+        JUnitAnnotationTestFinder finder = new JUnitAnnotationTestFinder();
+        finder.init(v.toArray(new String[v.size()]), root, null);
+        return finder;
+    }
+
+    private static List<String> readAll(TestFinder finder) {
+        TestFinderQueue tfq = new TestFinderQueue(finder);
+        tfq.setTests((String[]) null);
+
+        List<String> tests = new ArrayList<>();
+        TestDescription td;
+        while ((td = tfq.next()) != null) {
+            tests.add(td.getRootRelativeURL() + " " + td.getParameter("executeClass")
+                    + " " + td.getParameter("junit.testmethods"));
+        }
+        return tests;
+    }
+}
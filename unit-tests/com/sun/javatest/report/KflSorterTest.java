@@ -0,0 +1,192 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.sun.javatest.report;
+
+import com.sun.javatest.KnownFailuresList;
+import com.sun.javatest.Status;
+import com.sun.javatest.TestResult;
+import com.sun.javatest.TestResultTable;
+import com.sun.javatest.TestUtil;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class KflSorterTest {
+
+    @Test
+    public void resultsAreClassified() throws Exception {
+        TestResultTable trt = new TestResultTable();
+        List<TestResult> results = results();
+        for (TestResult tr : results) {
+            trt.update(tr);
+        }
+
+        KflSorter sorter = new KflSorter(kfl(), trt, true);
+        sorter.setF2eEnabled(true);
+        sorter.setF2fEnabled(true);
+        sorter.run(byStatus(results));
+
+        check(sorter, KflSorter.Transitions.FAIL2PASS, "a/pass.html");
+        check(sorter, KflSorter.Transitions.FAIL2FAIL, "a/cases.html", "a/fail.html");
+        check(sorter, KflSorter.Transitions.FAIL2ERROR, "a/err.html");
+        check(sorter, KflSorter.Transitions.FAIL2MISSING, "a/missing.html");
+        check(sorter, KflSorter.Transitions.NEWFAILURES, "a/cases.html", "a/new.html");
+        check(sorter, KflSorter.Transitions.OTHER_ERRORS, "a/other.html");
+        check(sorter, KflSorter.Transitions.TC_FAIL2PASS, "a/cases.html[c1]");
+        check(sorter, KflSorter.Transitions.TC_NEWFAILURES, "a/cases.html[c3]");
+        check(sorter, KflSorter.Transitions.TC_FAIL2MISSING, "a/missing.html[m1]");
+        Assert.assertEquals(5, sorter.getErrorCount());
+        Assert.assertEquals(3, sorter.getTestCasesErrorCount());
+    }
+
+    @Test
+    public void updatesMatchFullComparison() throws Exception {
+        TestResultTable trt = new TestResultTable();
+        KflSorter live = new KflSorter(new KflIndex(kfl()), trt, true, new HashMap<>());
+        live.setF2eEnabled(true);
+        live.setF2fEnabled(true);
+        live.setMissingEnabled(false);
+
+        List<TestResult> results = results();
+        for (TestResult tr : results) {
+            trt.update(tr);
+            live.update(tr);
+        }
+        compare(trt, results, live);
+
+        // a test which is run again is classified again
+        TestResult fixed = result("a/fail.html", Status.passed(""));
+        results.set(results.indexOf(trt.lookup(fixed.getWorkRelativePath())), fixed);
+        trt.update(fixed);
+        live.update(fixed);
+        compare(trt, results, live);
+        check(live, KflSorter.Transitions.FAIL2PASS, "a/fail.html", "a/pass.html");
+        check(live, KflSorter.Transitions.FAIL2FAIL, "a/cases.html");
+    }
+
+    @Test
+    public void testCasesAreReadOnce() throws Exception {
+        KflSorter sorter = new KflSorter(kfl(), new TestResultTable(), true);
+        TestResult tr = result("a/cases.html", Status.failed(""),
+                "c1: Passed.", "c2: Failed.");
+        KflSorter.TestCases tcs = sorter.getTestCases(tr);
+        Assert.assertSame(tcs, sorter.getTestCases(tr));
+
+        TestResult again = result("a/cases.html", Status.failed(""), "c1: Failed.");
+        Assert.assertNotSame(tcs, sorter.getTestCases(again));
+    }
+
+    private static void compare(TestResultTable trt, List<TestResult> results,
+                                KflSorter live) {
+        KflSorter full = new KflSorter(kfl(), trt, true);
+        full.setF2eEnabled(true);
+        full.setF2fEnabled(true);
+        full.setMissingEnabled(false);
+        full.run(byStatus(results));
+
+        for (KflSorter.Transitions t : KflSorter.Transitions.values()) {
+            Assert.assertEquals(t.toString(), names(full, t), names(live, t));
+        }
+        Assert.assertEquals(full.getErrorCount(), live.getErrorCount());
+        Assert.assertEquals(full.getTestCasesErrorCount(), live.getTestCasesErrorCount());
+    }
+
+    private static void check(KflSorter sorter, KflSorter.Transitions t, String... names) {
+        Assert.assertEquals(t.toString(), Arrays.asList(names), names(sorter, t));
+    }
+
+    private static List<String> names(KflSorter sorter, KflSorter.Transitions t) {
+        List<String> names = new ArrayList<>();
+        for (KflSorter.TestDiff d : sorter.getSet(t) == null
+                ? Collections.<KflSorter.TestDiff>emptySet() : sorter.getSet(t)) {
+            names.add(d.getName());
+        }
+        return names;
+    }
+
+    private static KnownFailuresList kfl() {
+        KnownFailuresList kfl = new KnownFailuresList();
+        try {
+            kfl.addEntry(entry("a/pass.html", null));
+            kfl.addEntry(entry("a/fail.html", null));
+            kfl.addEntry(entry("a/err.html", null));
+            kfl.addEntry(entry("a/missing.html", "m1"));
+            kfl.addEntry(entry("a/cases.html", "c1,c2"));
+        } catch (KnownFailuresList.Fault e) {
+            throw new Error(e);
+        }
+        return kfl;
+    }
+
+    private static KnownFailuresList.Entry entry(String url, String tc) {
+        return new KnownFailuresList.Entry(url, tc, new String[]{"1"}, "");
+    }
+
+    private static List<TestResult> results() {
+        List<TestResult> results = new ArrayList<>();
+        results.add(result("a/pass.html", Status.passed("")));
+        results.add(result("a/fail.html", Status.failed("")));
+        results.add(result("a/err.html", Status.error("")));
+        results.add(result("a/new.html", Status.failed("")));
+        results.add(result("a/other.html", Status.error("")));
+        results.add(result("a/cases.html", Status.failed(""),
+                "c1: Passed.", "c2: Failed.", "c3: Failed."));
+        return results;
+    }
+
+    private static List<TreeSet<TestResult>> byStatus(List<TestResult> results) {
+        List<TreeSet<TestResult>> lists = new ArrayList<>();
+        for (int i = 0; i < Status.NUM_STATES; i++) {
+            lists.add(new TreeSet<>((a, b) -> a.getTestName().compareTo(b.getTestName())));
+        }
+        for (TestResult tr : results) {
+            lists.get(tr.getStatus().getType()).add(tr);
+        }
+        return lists;
+    }
+
+    private static TestResult result(String url, Status s, String... testCases) {
+        TestResult tr = new TestResult(TestUtil.createTestDescription(url));
+        TestResult.Section section = tr.createSection("main");
+        try (PrintWriter out = section.createOutput("out1")) {
+            for (String tc : testCases) {
+                out.println(tc);
+            }
+        }
+        section.setStatus(s);
+        tr.setStatus(s);
+        return tr;
+    }
+}